@@ -6,6 +6,7 @@ import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 
 import org.firstinspires.ftc.teamcode.drivetrain.BaseMecanumDrive;
 
+import org.firstinspires.ftc.teamcode.guidance.GuidanceCommandMailbox;
 import org.firstinspires.ftc.teamcode.guidance.GuidanceController;
 import org.firstinspires.ftc.teamcode.guidance.IGuidanceControllerStatusListener;
 import org.firstinspires.ftc.teamcode.speedbot.BaseSpeedBot;
@@ -44,6 +45,16 @@ public class AutonomousController implements IGuidanceControllerStatusListener {
 
     private GuidanceController mGuidanceController;
 
+    /**
+     * When not null loop() runs on a control thread and the drivetrain is stopped through the
+     * mailbox so the motors are only written from the OpMode thread
+     */
+    private GuidanceCommandMailbox mCommandMailbox = null;
+
+    // State and status messages waiting for publishTelemetry() on the OpMode thread
+    private volatile String mStateName = null;
+    private volatile String mStatusMessage = null;
+
     private ArrayList<OneShotTimer> mStateTimers = new ArrayList<>();
 
     /**
@@ -75,6 +86,22 @@ public class AutonomousController implements IGuidanceControllerStatusListener {
     public AutonomousController(final OpMode opMode,
                                 GuidanceController guidanceController,
                                 BaseSpeedBot speedBot) {
+        this(opMode, guidanceController, speedBot, null);
+    }
+
+    /**
+     * Constructor for running loop() on a control thread other than the OpMode thread
+     * @param opMode
+     * @param guidanceController
+     * @param speedBot
+     * @param commandMailbox mailbox the OpMode thread applies to the drivetrain, receives stop
+     *                       requests from the state machine
+     */
+    public AutonomousController(final OpMode opMode,
+                                GuidanceController guidanceController,
+                                BaseSpeedBot speedBot,
+                                GuidanceCommandMailbox commandMailbox) {
+        mCommandMailbox = commandMailbox;
         mStateMachineContext = new FilterDevStateMachineContext(this);
         this.opMode = opMode;
         mGuidanceController = guidanceController;
@@ -96,7 +123,8 @@ public class AutonomousController implements IGuidanceControllerStatusListener {
         buildTransitionTable();
 
 
-        // And add a listener to the state machine to send the state transitions to telemtry
+        // And add a listener to the state machine to send the state transitions to telemtry.
+        // Telemetry is only touched from the OpMode thread in publishTelemetry()
         mStateMachineContext.addStateChangeListener(new PropertyChangeListener() {
             @Override
             public void propertyChange(PropertyChangeEvent event) {
@@ -104,10 +132,7 @@ public class AutonomousController implements IGuidanceControllerStatusListener {
                 String propertyName = event.getPropertyName();
                 State previousStatus = (State) event.getOldValue();
                 State newState = (State) event.getNewValue();
-                if (opMode != null){
-                    opMode.telemetry.addData("Current State: ",newState.getName());
-                    opMode.telemetry.update();
-                }
+                mStateName = newState.getName();
             }
         });
     }
@@ -268,7 +293,12 @@ public class AutonomousController implements IGuidanceControllerStatusListener {
      * Called from state machine to stop the robot
      */
     public void stop(){
-        mSpeedBot.getDrivetrain().stop();
+        if (mCommandMailbox != null) {
+            mCommandMailbox.stop();
+        }
+        else {
+            mSpeedBot.getDrivetrain().stop();
+        }
     }
 
     /**
@@ -288,8 +318,24 @@ public class AutonomousController implements IGuidanceControllerStatusListener {
 
     public void setLogMessage(String msg){
         if (TELEMETRY_STATE_LOGGING_ENABLED) {
-            opMode.telemetry.addData("Status", msg);
-            opMode.telemetry.update();
+            mStatusMessage = msg;
+        }
+    }
+
+    /**
+     * Adds the latest state and status message to the OpMode telemetry.  Call from the OpMode
+     * loop(), which sends the telemetry when it returns.
+     */
+    public void publishTelemetry(){
+        if (opMode == null)
+            return;
+        String stateName = mStateName;
+        if (stateName != null) {
+            opMode.telemetry.addData("Current State: ", stateName);
+        }
+        String statusMessage = mStatusMessage;
+        if (statusMessage != null) {
+            opMode.telemetry.addData("Status", statusMessage);
         }
     }
 
@@ -36,7 +36,7 @@ import com.qualcomm.robotcore.hardware.HardwareMap;
 import org.ejml.data.DMatrixRMaj;
 import org.firstinspires.ftc.teamcode.guidance.IGuidanceControllerCommandListener;
 import org.firstinspires.ftc.teamcode.guidance.Point;
-import org.firstinspires.ftc.teamcode.util.LogFile;
+import org.firstinspires.ftc.teamcode.util.AsyncLogFile;
 
 import java.util.ArrayList;
 
@@ -66,6 +66,9 @@ public abstract class BaseMecanumDrive extends Drivetrain implements IGuidanceCo
 
     private ArrayList<DcMotor> mMotorList = new ArrayList<>();
 
+    // Encoder values read with one bulk read per loop, created on the first loop
+    private DriveEncoderCache mEncoderCache = null;
+
     /**
      * Index of LF wheel in returned wheel speed array.
      */
@@ -91,10 +94,12 @@ public abstract class BaseMecanumDrive extends Drivetrain implements IGuidanceCo
     private double mWZW = 0d;
 
     public static final String[] LOG_COLUMNS = {"time","counts_lf", "w_lf","counts_rf","w_rf","counts_lr" ,"w_lr","counts_rr" ,"w_rr"};
+    public static final String[] LOG_FORMATS = {"%4.3f","%5.0f", "%4.2f","%5.0f","%4.2f","%5.0f" ,"%4.2f","%5.0f" ,"%4.2f"};
 
     private boolean mFirstLoopInit = false;
 
-    private LogFile mLogFile;
+    private AsyncLogFile mLogFile;
+    private final double[] mLogRecord = new double[LOG_COLUMNS.length];
     private final static boolean ENABLE_LOGGING = false;
     private long mLastLoopTimeNS = 0;
 
@@ -105,7 +110,8 @@ public abstract class BaseMecanumDrive extends Drivetrain implements IGuidanceCo
         super(opMode);
         // And the wheel speed log file
         if (ENABLE_LOGGING) {
-            mLogFile = new LogFile("/sdcard", "slog.csv", LOG_COLUMNS);
+            mLogFile = new AsyncLogFile("/sdcard", "slog.csv", LOG_COLUMNS, LOG_FORMATS,
+                    AsyncLogFile.DEFAULT_CAPACITY_ROWS, AsyncLogFile.DEFAULT_FLUSH_PERIOD_MS);
             mLogFile.openFile();
         }
     }
@@ -139,6 +145,13 @@ public abstract class BaseMecanumDrive extends Drivetrain implements IGuidanceCo
      * Must be called to update wheel speed computations
      */
     public void loop() {
+        // Refresh the bulk read cache once so every encoder value this loop comes from one
+        // hub transaction
+        if (mEncoderCache == null) {
+            mEncoderCache = DriveEncoderCache.create(mHWMap, mLFMotor, mRFMotor, mLRMotor, mRRMotor);
+        }
+        mEncoderCache.read();
+
         long newtime = System.nanoTime();
         if (!mFirstLoopInit) {
             mLastLoopTimeNS = newtime;
@@ -169,14 +182,14 @@ public abstract class BaseMecanumDrive extends Drivetrain implements IGuidanceCo
 
             // so just pull the positions from the motors
             for(int i=0;i < mMotorList.size();i++){
-                mMotorPositions[i] = getCurrentPosition(mMotorList.get(i));
+                mMotorPositions[i] = mEncoderCache.getPosition(i);
                 mWheelSpeeds[i] = 0d;
             }
             return;
         }
         // Otherwise compute the angular velocities
         for(int i=0;i < mMotorList.size();i++){
-            int newpos = getCurrentPosition(mMotorList.get(i));
+            int newpos = mEncoderCache.getPosition(i);
             double angle = (double)(newpos - mMotorPositions[i])/(double)getEncoderCountsPerRev() * 2d*Math.PI;
             mWheelSpeeds[i] = angle /deltaT;
             // Compensate for slip factor
@@ -230,14 +243,11 @@ public abstract class BaseMecanumDrive extends Drivetrain implements IGuidanceCo
     }
 
     /**
-     * private helper function for get current position.  Returns 0 if
-     * null to allow fail-op operation.
+     * Replaces the encoder cache, for example with one reading stand in hardware for tests.
+     * Must be called before the first loop().
      */
-    private int getCurrentPosition(DcMotor motor){
-        if (motor != null){
-            return motor.getCurrentPosition();
-        }
-        return 0;
+    void setEncoderCache(DriveEncoderCache encoderCache){
+        mEncoderCache = encoderCache;
     }
     /**
      * Sets a straight command to the motors either forward or backward
@@ -327,15 +337,21 @@ public abstract class BaseMecanumDrive extends Drivetrain implements IGuidanceCo
         return number;
     }
     /**
-     * dumps the current encoder positions for development in same order
+     * dumps the encoder positions read by the last loop() for development in same order
      * as internal motor list lf,rf,lr,rr
      */
     public int[] getEncoderPositions(){
-        int retarray[] = new int[mMotorList.size()];
-        for(int i = 0;i < mMotorList.size();i++){
-            retarray[i] = mMotorList.get(i).getCurrentPosition();
-        }
-        return retarray;
+        return getEncoderPositions(new int[mMotorPositions.length]);
+    }
+
+    /**
+     * Copies the encoder positions read by the last loop() into positions without allocating
+     * @param positions array of length 4 in the order lf,rf,lr,rr
+     * @return positions
+     */
+    public int[] getEncoderPositions(int[] positions){
+        System.arraycopy(mMotorPositions, 0, positions, 0, mMotorPositions.length);
+        return positions;
     }
 
     /**
@@ -351,16 +367,15 @@ public abstract class BaseMecanumDrive extends Drivetrain implements IGuidanceCo
     }
 
     private void logData(){
-        // Now form the record for the log
-        String[] logRecord = new String[LOG_COLUMNS.length];
+        // Now form the record for the log, the log file formats it on its own thread
+        double[] logRecord = mLogRecord;
         int logIndex = 0;
-        double time = (double)mLastLoopTimeNS/1e9d;
-        logRecord[logIndex++] = String.format("%4.3f",time);
+        logRecord[logIndex++] = (double)mLastLoopTimeNS/1e9d;
         // Now the speeds
         double[] speeds = getWheelSpeeds();
         for(int i=0;i < speeds.length;i++){
-            logRecord[logIndex++] = String.format("%5d",mMotorPositions[i]);
-            logRecord[logIndex++] = String.format("%4.2f",speeds[i]);
+            logRecord[logIndex++] = mMotorPositions[i];
+            logRecord[logIndex++] = speeds[i];
         }
 
         mLogFile.writeLogRow(logRecord);
@@ -0,0 +1,130 @@
+package org.firstinspires.ftc.teamcode.drivetrain;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds one reading of the drive motor encoders taken with the hub bulk read.  read() clears the
+ * hub caches and then reads every encoder once into preallocated arrays, so with bulk caching
+ * enabled the first encoder read fetches every encoder position and velocity on the hub in one
+ * transaction and the other reads come from the cache.
+ *
+ * The hubs' bulk caching mode is shared by every subsystem on them, so it isn't changed here.  It
+ * is set once when the robot is initialized, see BaseSpeedBot.init().
+ */
+public class DriveEncoderCache {
+
+    /**
+     * The part of a hub used for bulk reads.
+     */
+    public interface HubSource {
+        void clearBulkCache();
+    }
+
+    /**
+     * The parts of a motor encoder read by the drivetrain.
+     */
+    public interface EncoderSource {
+        int getCurrentPosition();
+        double getVelocity();
+    }
+
+    private final List<HubSource> mHubs;
+    private final EncoderSource[] mEncoders;
+    private final int[] mPositions;
+    private final double[] mVelocities;
+
+    /**
+     * @param hubs hubs whose cache is cleared before each read
+     * @param encoders encoders in the order of the position array, null entries read as zero
+     */
+    public DriveEncoderCache(List<HubSource> hubs, EncoderSource[] encoders) {
+        mHubs = hubs;
+        mEncoders = encoders;
+        mPositions = new int[encoders.length];
+        mVelocities = new double[encoders.length];
+    }
+
+    /**
+     * Clears the hub caches and reads every encoder once.  Call at the top of the loop.
+     */
+    public void read() {
+        for (int i = 0; i < mHubs.size(); i++) {
+            mHubs.get(i).clearBulkCache();
+        }
+        for (int i = 0; i < mEncoders.length; i++) {
+            EncoderSource encoder = mEncoders[i];
+            if (encoder != null) {
+                mPositions[i] = encoder.getCurrentPosition();
+                mVelocities[i] = encoder.getVelocity();
+            }
+        }
+    }
+
+    /**
+     * Returns the encoder count from the last read()
+     */
+    public int getPosition(int index) {
+        return mPositions[index];
+    }
+
+    /**
+     * Returns the encoder velocity in counts per second from the last read()
+     */
+    public double getVelocity(int index) {
+        return mVelocities[index];
+    }
+
+    public int getNumEncoders() {
+        return mEncoders.length;
+    }
+
+    /**
+     * Creates a cache for the motors.  The bulk caching mode of the hubs is left as it is.
+     * @param hardwareMap robot hardware map
+     * @param motors motors in the order of the position array, null entries read as zero
+     */
+    public static DriveEncoderCache create(HardwareMap hardwareMap, DcMotor... motors) {
+        List<HubSource> hubs = new ArrayList<>();
+        for (final LynxModule module : hardwareMap.getAll(LynxModule.class)) {
+            hubs.add(new HubSource() {
+                @Override
+                public void clearBulkCache() {
+                    module.clearBulkCache();
+                }
+            });
+        }
+        EncoderSource[] encoders = new EncoderSource[motors.length];
+        for (int i = 0; i < motors.length; i++) {
+            encoders[i] = wrapMotor(motors[i]);
+        }
+        return new DriveEncoderCache(hubs, encoders);
+    }
+
+    /**
+     * Returns an encoder source that reads from the motor.  The velocity is zero for motors that
+     * aren't a DcMotorEx.
+     */
+    public static EncoderSource wrapMotor(final DcMotor motor) {
+        if (motor == null) {
+            return null;
+        }
+        final DcMotorEx motorEx = motor instanceof DcMotorEx ? (DcMotorEx) motor : null;
+        return new EncoderSource() {
+            @Override
+            public int getCurrentPosition() {
+                return motor.getCurrentPosition();
+            }
+
+            @Override
+            public double getVelocity() {
+                return motorEx != null ? motorEx.getVelocity() : 0d;
+            }
+        };
+    }
+}
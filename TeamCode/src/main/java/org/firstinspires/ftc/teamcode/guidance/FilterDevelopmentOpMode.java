@@ -11,7 +11,8 @@ import org.firstinspires.ftc.teamcode.autonomous.AutonomousController;
 import org.firstinspires.ftc.teamcode.drivetrain.BaseMecanumDrive;
 
 import org.firstinspires.ftc.teamcode.speedbot.BaseSpeedBot;
-import org.firstinspires.ftc.teamcode.util.LogFile;
+import org.firstinspires.ftc.teamcode.util.AsyncLogFile;
+import org.firstinspires.ftc.teamcode.util.FixedRateScheduler;
 
 @Autonomous(name="FilterDevelopment", group="Robot")
 public class FilterDevelopmentOpMode extends OpMode{
@@ -22,10 +23,16 @@ public class FilterDevelopmentOpMode extends OpMode{
     public static final String[] LOG_COLUMNS = {"time", "w_lf", "w_rf", "w_lr", "w_rr", "vx","vy","theta_imu",
             "kf_px", "kf_py", "kf_wz", "kf_heading",
             "mode","rot_cmd", "steering_cmd","cmd_pwr"};
-    private LogFile mLogFile;
+    // Full precision so KalmanLogReplay can rebuild the tracker inputs and compare the estimates
+    // without rounding showing up as residuals.  The log thread does the formatting.
+    public static final String[] LOG_FORMATS = {"%.9f", "%.9f", "%.9f", "%.9f", "%.9f", "%.9f","%.9f","%.9f",
+            "%.9f", "%.9f", "%.9f", "%.9f",
+            null,"%.9f", "%.9f","%.9f"};
+    private static final int LOG_MODE_COLUMN = 12;
+    private AsyncLogFile mLogFile;
+    private final double[] mLogRecord = new double[LOG_COLUMNS.length];
 
     public static final double T = 0.050d;
-    private static final int T_NS = Math.round((float)(T * 1e9d));
 
     private int mReadWheelSpeedCount = 0;
     private static final int WHEEL_SPEED_SKIP_COUNT = 1;
@@ -35,7 +42,6 @@ public class FilterDevelopmentOpMode extends OpMode{
     private KalmanTracker mKalmanTracker = null;
     private KalmanTracker.KalmanParameters mKalmanParameters = null;
     private Orientation mIMUOrientation;
-    private long mLastSystemTimeNS = 0;
     private long mElapsedTimeNS = 0;
     private long mStartTimeNS = 0;
 
@@ -43,6 +49,11 @@ public class FilterDevelopmentOpMode extends OpMode{
 
     private AutonomousController mAutonomousController;
 
+    // Runs the tracker, guidance and autonomous controllers every T seconds on its own thread
+    private FixedRateScheduler mScheduler = null;
+    // Guidance commands from the scheduler thread waiting to be sent to the drivetrain
+    private final GuidanceCommandMailbox mCommandMailbox = new GuidanceCommandMailbox();
+
     @Override
     public void init() {
         msStuckDetectInit = 1000000;
@@ -80,14 +91,18 @@ public class FilterDevelopmentOpMode extends OpMode{
         // Initialize the guidance controller
         mGuidanceController = new GuidanceController(new GuidanceController.GuidanceControllerParameters(),mKalmanTracker);
 
-        // add the drivetrain as a listener for guidance controller commands
-        mGuidanceController.addGuidanceControllerCommandListener(mSpeedBot.getDrivetrain());
+        // Guidance controller commands are computed on the scheduler thread and passed to the
+        // drivetrain by loop()
+        mGuidanceController.addGuidanceControllerCommandListener(mCommandMailbox);
 
-        // Create the state machine controller
-        mAutonomousController = new AutonomousController(this,mGuidanceController,mSpeedBot);
+        // Create the state machine controller.  It runs on the scheduler thread so it stops the
+        // drivetrain through the mailbox
+        mAutonomousController = new AutonomousController(this,mGuidanceController,mSpeedBot,mCommandMailbox);
         // open the log file if enabled
         if (LOGGING_ENABLED) {
-            mLogFile = new LogFile(LOG_PATHNAME, LOG_FILENAME, LOG_COLUMNS);
+            mLogFile = new AsyncLogFile(LOG_PATHNAME, LOG_FILENAME, LOG_COLUMNS, LOG_FORMATS,
+                    AsyncLogFile.DEFAULT_CAPACITY_ROWS, AsyncLogFile.DEFAULT_FLUSH_PERIOD_MS);
+            mLogFile.setColumnLabels(LOG_MODE_COLUMN, GuidanceController.MODE_NAMES);
             mLogFile.openFile();
         }
 
@@ -95,6 +110,10 @@ public class FilterDevelopmentOpMode extends OpMode{
 
     @Override
     public void stop() {
+        // Stop the control thread first so nothing is logged after the file closes
+        if (mScheduler != null) {
+            mScheduler.stop();
+        }
         if (LOGGING_ENABLED) {
             mLogFile.closeFile();
         }
@@ -106,88 +125,97 @@ public class FilterDevelopmentOpMode extends OpMode{
 
     @Override
     public void start() {
-        mLastSystemTimeNS = System.nanoTime();
         mElapsedTimeNS = 0;
-        mStartTimeNS = mLastSystemTimeNS;
+        mStartTimeNS = System.nanoTime();
 
 //      mGuidanceController.strafe(24.0d/39.37d,1.0d);
 //        mGuidanceController.rotateToHeading(90*Math.PI/180);
 //        mGuidanceController.moveStraight(24d/39.37d,1.0d);
         super.start();
+
+        mScheduler = new FixedRateScheduler(T, new FixedRateScheduler.IControlTask() {
+            @Override
+            public void step(long cycle, double dt) {
+                controlStep(dt);
+            }
+        });
+        mScheduler.start();
     }
 
     public void loop() {
-        // Compute the delta time and update the Tracker if we are at the sample period T
-        long systemTime = System.nanoTime();
-
-        // Compute the delta T and quantize to the sample period
-        int deltat_ns = (int)(systemTime-mLastSystemTimeNS);
-        if (deltat_ns >= T_NS){
-            if (mReadWheelSpeedCount >= WHEEL_SPEED_SKIP_COUNT) {
-                // Service the drivetrain loop to update wheel speed measurements
-                mSpeedBot.getDrivetrain().loop();
-                mReadWheelSpeedCount = 0;
-            }
-            else{
-                mReadWheelSpeedCount++;
-            }
+        // Send the latest guidance command from the control thread to the motors
+        mCommandMailbox.applyTo(mSpeedBot.getDrivetrain());
+        mAutonomousController.publishTelemetry();
+        telemetry.addData("Control loop", "cycles=%d overruns=%d errors=%d max late=%4.1fms",
+                mScheduler.getCycleCount(), mScheduler.getOverrunCount(), mScheduler.getErrorCount(),
+                mScheduler.getMaxLateness()*1000d);
+    }
 
-            mElapsedTimeNS = systemTime-mStartTimeNS;
-            updateTracker();
-            mLastSystemTimeNS = systemTime;   // save for next loop
+    /**
+     * One control cycle run by the scheduler every T seconds
+     * @param dt measured seconds since the last cycle
+     */
+    private void controlStep(double dt) {
+        if (mReadWheelSpeedCount >= WHEEL_SPEED_SKIP_COUNT) {
+            // Service the drivetrain loop to update wheel speed measurements
+            mSpeedBot.getDrivetrain().loop();
+            mReadWheelSpeedCount = 0;
+        }
+        else{
+            mReadWheelSpeedCount++;
+        }
 
-            if (mSpeedBot.isIMUInitialized()) {
-                // update the guidance controller commnd
-                mGuidanceController.updateCommand();
-             }
-            // Service the autononomous controller
+        mElapsedTimeNS = System.nanoTime()-mStartTimeNS;
+        updateTracker(dt);
 
-            mAutonomousController.loop();
+        if (mSpeedBot.isIMUInitialized()) {
+            // update the guidance controller commnd
+            mGuidanceController.updateCommand();
+        }
+        // Service the autononomous controller
+        mAutonomousController.loop();
 
-  //          telemetry.addData("KF Data","heading=%5.2f px=%4.1f py=%4.1f",mKalmanTracker.getEstimatedHeading()*180d/Math.PI,mKalmanTracker.getEstimatedXPosition(),mKalmanTracker.getEstimatedYPosition());
-    //        telemetry.update();
-            // Log a record of data if enabled
-            if (LOGGING_ENABLED) {
-                logData();
-            }
+        // Log a record of data if enabled
+        if (LOGGING_ENABLED) {
+            logData();
         }
-     }
+    }
 
     private void logData(){
-         // Now form the record for the log
-        String[] logRecord = new String[LOG_COLUMNS.length];
+        // Now form the record for the log, the log file formats it on its own thread
+        double[] logRecord = mLogRecord;
         int logIndex = 0;
-        double time = (double)mElapsedTimeNS/1e9d;
-        logRecord[logIndex++] = String.format("%4.3f",time);
+        logRecord[logIndex++] = (double)mElapsedTimeNS/1e9d;
         // Now the speeds
         double[] speeds = mSpeedBot.getDrivetrain().getWheelSpeeds();
         for(int i=0;i < speeds.length;i++){
-            logRecord[logIndex++] = String.format("%4.2f",speeds[i]);
+            logRecord[logIndex++] = speeds[i];
         }
-        logRecord[logIndex++] = String.format("%4.2f",mKalmanTracker.getVx());
-        logRecord[logIndex++] = String.format("%4.2f",mKalmanTracker.getVy());
+        logRecord[logIndex++] = mKalmanTracker.getVx();
+        logRecord[logIndex++] = mKalmanTracker.getVy();
 
         // IMU data
         double theta_imu = mIMUOrientation.firstAngle + mKalmanParameters.THETA0;
-        logRecord[logIndex++] = String.format("%4.2f",theta_imu*180d/Math.PI);
+        logRecord[logIndex++] = theta_imu*180d/Math.PI;
 
         // Kalman outputs
-        logRecord[logIndex++] = String.format("%4.2f",mKalmanTracker.getEstimatedXPosition());
-        logRecord[logIndex++] = String.format("%4.2f",mKalmanTracker.getEstimatedYPosition());
-        logRecord[logIndex++] = String.format("%4.2f",mKalmanTracker.getEstimatedAngularVelocity()*180d/Math.PI);
-        logRecord[logIndex++] = String.format("%5.2f",mKalmanTracker.getEstimatedHeading()*180d/Math.PI);
-        logRecord[logIndex++] = mGuidanceController.getModeString();
-        logRecord[logIndex++] = String.format("%4.2f",mGuidanceController.getRotationCommand());
-        logRecord[logIndex++] = String.format("%4.2f",mGuidanceController.getPathSteeringCommand());
-        logRecord[logIndex++] = String.format("%4.2f",mGuidanceController.getPowerCommand());
+        logRecord[logIndex++] = mKalmanTracker.getEstimatedXPosition();
+        logRecord[logIndex++] = mKalmanTracker.getEstimatedYPosition();
+        logRecord[logIndex++] = mKalmanTracker.getEstimatedAngularVelocity()*180d/Math.PI;
+        logRecord[logIndex++] = mKalmanTracker.getEstimatedHeading()*180d/Math.PI;
+        logRecord[logIndex++] = mGuidanceController.getMode();
+        logRecord[logIndex++] = mGuidanceController.getRotationCommand();
+        logRecord[logIndex++] = mGuidanceController.getPathSteeringCommand();
+        logRecord[logIndex++] = mGuidanceController.getPowerCommand();
         mLogFile.writeLogRow(logRecord);
 
     }
 
     /**
      * helper function to update the Tracker
+     * @param dt measured seconds since the last update
      */
-    private void updateTracker(){
+    private void updateTracker(double dt){
         // Now get the IMU orientation
         mIMUOrientation = mSpeedBot.getIMU().getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.RADIANS);
         double theta_imu = mIMUOrientation.firstAngle + mKalmanParameters.THETA0;
@@ -195,7 +223,8 @@ public class FilterDevelopmentOpMode extends OpMode{
         mKalmanTracker.updateMeasurement(mSpeedBot.getDrivetrain().getVx(),
                 mSpeedBot.getDrivetrain().getVy(),
                 mSpeedBot.getDrivetrain().getWzw(),
-                theta_imu);
+                theta_imu,
+                dt);
 
      }
 
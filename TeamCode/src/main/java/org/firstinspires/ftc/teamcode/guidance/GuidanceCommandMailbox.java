@@ -0,0 +1,103 @@
+package org.firstinspires.ftc.teamcode.guidance;
+
+import org.firstinspires.ftc.teamcode.drivetrain.BaseMecanumDrive;
+
+/**
+ * Hands guidance controller commands from the control thread to the OpMode thread.  The
+ * GuidanceController running on a FixedRateScheduler thread sends its commands here instead of
+ * to the drivetrain, and the OpMode loop() calls applyTo() to send the most recent command to the
+ * drivetrain so the motors are only written from the OpMode thread.  Commands that are replaced
+ * before the OpMode applies them are superseded, not queued.  Stopping the drivetrain from the
+ * control thread goes through stop() for the same reason, so a stop can't be overtaken by an
+ * older command.
+ */
+public class GuidanceCommandMailbox implements IGuidanceControllerCommandListener {
+
+    private static final int NO_COMMAND = 0;
+    private static final int STRAIGHT_COMMAND = 1;
+    private static final int STRAFE_COMMAND = 2;
+    private static final int STEERING_COMMAND = 3;
+    private static final int ROTATION_COMMAND = 4;
+    private static final int STOP_COMMAND = 5;
+
+    private int mCommand = NO_COMMAND;
+    private double mValue1 = 0d;
+    private double mValue2 = 0d;
+    // Incremented by every command so applyTo() only sends new ones
+    private long mSequence = 0;
+    private long mAppliedSequence = 0;
+
+    @Override
+    public synchronized void setStraightCommand(double power, double headingCorrection) {
+        post(STRAIGHT_COMMAND, power, headingCorrection);
+    }
+
+    @Override
+    public synchronized void setStrafeCommand(double power, double headingCorrection) {
+        post(STRAFE_COMMAND, power, headingCorrection);
+    }
+
+    @Override
+    public synchronized void setSteeringCommand(double steering, double power) {
+        post(STEERING_COMMAND, steering, power);
+    }
+
+    @Override
+    public synchronized void setRotationCommand(double rotation) {
+        post(ROTATION_COMMAND, rotation, 0d);
+    }
+
+    /**
+     * Requests a drivetrain stop.  Supersedes any command not yet applied.
+     */
+    public synchronized void stop() {
+        post(STOP_COMMAND, 0d, 0d);
+    }
+
+    /**
+     * Sends the most recent command to the drivetrain if it hasn't been sent yet.  Call from the
+     * thread that owns the motors.
+     * @return true if a command was sent
+     */
+    public boolean applyTo(BaseMecanumDrive drivetrain) {
+        int command;
+        double value1;
+        double value2;
+        synchronized (this) {
+            if (mSequence == mAppliedSequence)
+                return false;
+            mAppliedSequence = mSequence;
+            command = mCommand;
+            value1 = mValue1;
+            value2 = mValue2;
+        }
+        // Call the drivetrain outside the lock so the control thread never waits on the motors
+        switch (command) {
+            case STRAIGHT_COMMAND:
+                drivetrain.setStraightCommand(value1, value2);
+                break;
+            case STRAFE_COMMAND:
+                drivetrain.setStrafeCommand(value1, value2);
+                break;
+            case STEERING_COMMAND:
+                drivetrain.setSteeringCommand(value1, value2);
+                break;
+            case ROTATION_COMMAND:
+                drivetrain.setRotationCommand(value1);
+                break;
+            case STOP_COMMAND:
+                drivetrain.stop();
+                break;
+            default:
+                return false;
+        }
+        return true;
+    }
+
+    private void post(int command, double value1, double value2) {
+        mCommand = command;
+        mValue1 = value1;
+        mValue2 = value2;
+        mSequence++;
+    }
+}
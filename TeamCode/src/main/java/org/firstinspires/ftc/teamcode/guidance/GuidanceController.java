@@ -1,6 +1,6 @@
 package org.firstinspires.ftc.teamcode.guidance;
 
-import org.firstinspires.ftc.teamcode.util.LogFile;
+import org.firstinspires.ftc.teamcode.util.AsyncLogFile;
 import org.firstinspires.ftc.teamcode.util.MiniPID;
 
 import java.util.ArrayList;
@@ -31,6 +31,9 @@ public class GuidanceController {
     public static final int STRAIGHT_MODE = 4;
     public static final int STRAFE_MODE = 5;
     private int mMode = STOPPED;
+    // Mode names indexed by the mode constants, as returned by getModeString()
+    public static final String[] MODE_NAMES = {"STOPPED", "ROTATION", "ROTATION_SLOWDOWN", "PATH",
+            "STRAIGHT", "STRAFE"};
 
     public static final double MAX_STRAFE_HEADING_ERROR = Math.PI/180;
 
@@ -40,7 +43,7 @@ public class GuidanceController {
     private boolean mDirection = true;
 
     private KalmanTracker mKalmanTracker = null;
-    private LogFile mLogFile = null;
+    private AsyncLogFile mLogFile = null;
     private static boolean ENABLE_LOGGING = false;
     public static final String[] LOG_COLUMNS = {"px","py","theta","distance","projection","angle"};
 
@@ -143,7 +146,7 @@ public class GuidanceController {
         mStrafePowerPID.setOutputLimits(-1.0d,1.0d);
 
         if (ENABLE_LOGGING){
-            mLogFile = new LogFile("/sdcard","gclog.csv",LOG_COLUMNS);
+            mLogFile = new AsyncLogFile("/sdcard","gclog.csv",LOG_COLUMNS);
             mLogFile.openFile();
         }
     }
@@ -58,6 +58,16 @@ public interface KalmanFilter {
      */
     void predict();
 
+    /**
+     * Predicts the state of the system forward one time step whose length can change between
+     * steps.  Nothing is allocated or refactored.
+     *
+     * @param F State transition matrix for this step.  Must be the same size as the one passed to
+     *          configure().
+     * @param qScale The plant noise for this step is the configured Q times qScale.
+     */
+    void predict(DMatrixRMaj F, double qScale);
+
     /**
      * Updates the state provided the observation from a sensor.
      *
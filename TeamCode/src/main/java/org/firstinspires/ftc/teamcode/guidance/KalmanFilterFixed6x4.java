@@ -0,0 +1,247 @@
+package org.firstinspires.ftc.teamcode.guidance;
+
+import org.ejml.data.DMatrix4x4;
+import org.ejml.data.DMatrix6;
+import org.ejml.data.DMatrix6x6;
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.fixed.CommonOps_DDF4;
+import org.ejml.ops.ConvertDMatrixStruct;
+
+import static org.ejml.dense.fixed.CommonOps_DDF6.addEquals;
+import static org.ejml.dense.fixed.CommonOps_DDF6.mult;
+import static org.ejml.dense.fixed.CommonOps_DDF6.multTransB;
+import static org.ejml.dense.fixed.CommonOps_DDF6.scale;
+
+/**
+ * A Kalman filter specialized for 6 states and 4 measurements, the shapes used by
+ * {@link KalmanTracker}.  The state and covariance are held in the fixed size EJML types
+ * and S is inverted with the unrolled 4x4 inverse, so predict() and update() do not
+ * create any garbage.
+ *
+ * The matrices returned by getState() and getCovariance() are copies refreshed on each call
+ * and are owned by the filter.  Use setState() to change the state.
+ */
+public class KalmanFilterFixed6x4 implements KalmanFilter {
+
+    public static final int DIMEN_X = 6;
+    public static final int DIMEN_Z = 4;
+
+    // kinematics description
+    private final DMatrix6x6 F = new DMatrix6x6();
+    private final DMatrix6x6 Q = new DMatrix6x6();
+    // transition and plant noise of a variable length step
+    private final DMatrix6x6 Fk = new DMatrix6x6();
+    private final DMatrix6x6 Qk = new DMatrix6x6();
+    // measurement matrix stored row major
+    private final double[] H = new double[DIMEN_Z*DIMEN_X];
+
+    // system state estimate
+    private final DMatrix6 x = new DMatrix6();
+    private final DMatrix6x6 P = new DMatrix6x6();
+
+    // these are predeclared so update() and predict() do not allocate
+    private final DMatrix6 a = new DMatrix6();
+    private final DMatrix6x6 b = new DMatrix6x6();
+    private final DMatrix4x4 S = new DMatrix4x4();
+    private final DMatrix4x4 S_inv = new DMatrix4x4();
+    private final double[] y = new double[DIMEN_Z];
+    // P*H' and K, both 6x4 row major, and H*P which is 4x6 row major
+    private final double[] PHt = new double[DIMEN_X*DIMEN_Z];
+    private final double[] HP = new double[DIMEN_Z*DIMEN_X];
+    private final double[] K = new double[DIMEN_X*DIMEN_Z];
+    // row major copies of x and P used by update()
+    private final double[] xd = new double[DIMEN_X];
+    private final double[] Pd = new double[DIMEN_X*DIMEN_X];
+    // work space for sequential updates
+    private final double[] ph = new double[DIMEN_X];
+    private final double[] hp = new double[DIMEN_X];
+
+    // process diagonal R one measurement at a time.  Off by default, KalmanFilterBenchmark's
+    // FIXED JOINT vs FIXED SEQ timings show the joint update with the unrolled 4x4 inverse is
+    // faster here, unlike KalmanFilterOperations where sequential wins
+    private boolean sequential = false;
+
+    // copies handed out by getState() and getCovariance()
+    private final DMatrixRMaj xOut = new DMatrixRMaj(DIMEN_X,1);
+    private final DMatrixRMaj POut = new DMatrixRMaj(DIMEN_X,DIMEN_X);
+
+    @Override
+    public void configure(DMatrixRMaj F, DMatrixRMaj Q, DMatrixRMaj H) {
+        if (F.numRows != DIMEN_X || F.numCols != DIMEN_X || Q.numRows != DIMEN_X || Q.numCols != DIMEN_X)
+            throw new IllegalArgumentException("F and Q must be 6x6");
+        if (H.numRows != DIMEN_Z || H.numCols != DIMEN_X)
+            throw new IllegalArgumentException("H must be 4x6");
+
+        ConvertDMatrixStruct.convert(F,this.F);
+        ConvertDMatrixStruct.convert(Q,this.Q);
+        System.arraycopy(H.data,0,this.H,0,this.H.length);
+    }
+
+    @Override
+    public void setState(DMatrixRMaj x, DMatrixRMaj P) {
+        ConvertDMatrixStruct.convert(x,this.x);
+        ConvertDMatrixStruct.convert(P,this.P);
+    }
+
+    @Override
+    public void predict() {
+        predict(F,Q);
+    }
+
+    @Override
+    public void predict(DMatrixRMaj F, double qScale) {
+        ConvertDMatrixStruct.convert(F,Fk);
+        scale(qScale,Q,Qk);
+        predict(Fk,Qk);
+    }
+
+    private void predict(DMatrix6x6 F, DMatrix6x6 Q) {
+        // x = F x
+        mult(F,x,a);
+        x.a1 = a.a1; x.a2 = a.a2; x.a3 = a.a3;
+        x.a4 = a.a4; x.a5 = a.a5; x.a6 = a.a6;
+
+        // P = F P F' + Q
+        mult(F,P,b);
+        multTransB(b,F,P);
+        addEquals(P,Q);
+    }
+
+    @Override
+    public void update(DMatrixRMaj z, DMatrixRMaj R) {
+        // the 6x4 products have no fixed size kernels so they are done on row major arrays
+        xd[0] = x.a1; xd[1] = x.a2; xd[2] = x.a3;
+        xd[3] = x.a4; xd[4] = x.a5; xd[5] = x.a6;
+        toArray(P,Pd);
+
+        if (sequential && KalmanSequentialUpdate.isDiagonal(R)) {
+            KalmanSequentialUpdate.update(xd,Pd,H,z.data,R,DIMEN_X,DIMEN_Z,ph,hp);
+        } else {
+            updateJoint(z,R);
+        }
+
+        x.a1 = xd[0]; x.a2 = xd[1]; x.a3 = xd[2];
+        x.a4 = xd[3]; x.a5 = xd[4]; x.a6 = xd[5];
+        fromArray(Pd,P);
+    }
+
+    /**
+     * Enables sequential processing of measurements when R is diagonal.  Disabled by default.
+     */
+    public void setSequentialUpdate(boolean sequential) {
+        this.sequential = sequential;
+    }
+
+    /**
+     * Processes all measurements at once using the xd and Pd copies of the state
+     */
+    private void updateJoint(DMatrixRMaj z, DMatrixRMaj R) {
+        // y = z - H x
+        for (int i = 0; i < DIMEN_Z; i++) {
+            double sum = 0;
+            for (int j = 0; j < DIMEN_X; j++) {
+                sum += H[i*DIMEN_X+j]*xd[j];
+            }
+            y[i] = z.data[i] - sum;
+        }
+
+        // PHt = P H'
+        for (int r = 0; r < DIMEN_X; r++) {
+            for (int i = 0; i < DIMEN_Z; i++) {
+                double sum = 0;
+                for (int j = 0; j < DIMEN_X; j++) {
+                    sum += Pd[r*DIMEN_X+j]*H[i*DIMEN_X+j];
+                }
+                PHt[r*DIMEN_Z+i] = sum;
+            }
+        }
+
+        // S = H P H' + R
+        for (int i = 0; i < DIMEN_Z; i++) {
+            for (int k = 0; k < DIMEN_Z; k++) {
+                double sum = R.unsafe_get(i,k);
+                for (int j = 0; j < DIMEN_X; j++) {
+                    sum += H[i*DIMEN_X+j]*PHt[j*DIMEN_Z+k];
+                }
+                S.unsafe_set(i,k,sum);
+            }
+        }
+
+        // K = PH'S^(-1)
+        if (!CommonOps_DDF4.invert(S,S_inv)) throw new RuntimeException("Invert failed");
+        for (int r = 0; r < DIMEN_X; r++) {
+            int idx = r*DIMEN_Z;
+            double p1 = PHt[idx], p2 = PHt[idx+1], p3 = PHt[idx+2], p4 = PHt[idx+3];
+            K[idx]   = p1*S_inv.a11 + p2*S_inv.a21 + p3*S_inv.a31 + p4*S_inv.a41;
+            K[idx+1] = p1*S_inv.a12 + p2*S_inv.a22 + p3*S_inv.a32 + p4*S_inv.a42;
+            K[idx+2] = p1*S_inv.a13 + p2*S_inv.a23 + p3*S_inv.a33 + p4*S_inv.a43;
+            K[idx+3] = p1*S_inv.a14 + p2*S_inv.a24 + p3*S_inv.a34 + p4*S_inv.a44;
+        }
+
+        // x = x + Ky
+        for (int r = 0; r < DIMEN_X; r++) {
+            double sum = 0;
+            for (int k = 0; k < DIMEN_Z; k++) {
+                sum += K[r*DIMEN_Z+k]*y[k];
+            }
+            xd[r] += sum;
+        }
+
+        // P = (I-kH)P = P - (KH)P = P-K(HP)
+        // HP is computed explicitly instead of using (PH')' so round off can't grow an asymmetry in P
+        for (int k = 0; k < DIMEN_Z; k++) {
+            for (int c = 0; c < DIMEN_X; c++) {
+                double sum = 0;
+                for (int j = 0; j < DIMEN_X; j++) {
+                    sum += H[k*DIMEN_X+j]*Pd[j*DIMEN_X+c];
+                }
+                HP[k*DIMEN_X+c] = sum;
+            }
+        }
+        for (int r = 0; r < DIMEN_X; r++) {
+            for (int c = 0; c < DIMEN_X; c++) {
+                double sum = 0;
+                for (int k = 0; k < DIMEN_Z; k++) {
+                    sum += K[r*DIMEN_Z+k]*HP[k*DIMEN_X+c];
+                }
+                Pd[r*DIMEN_X+c] -= sum;
+            }
+        }
+    }
+
+    @Override
+    public DMatrixRMaj getState() {
+        xOut.data[0] = x.a1; xOut.data[1] = x.a2; xOut.data[2] = x.a3;
+        xOut.data[3] = x.a4; xOut.data[4] = x.a5; xOut.data[5] = x.a6;
+        return xOut;
+    }
+
+    @Override
+    public DMatrixRMaj getCovariance() {
+        return ConvertDMatrixStruct.convert(P,POut);
+    }
+
+    /**
+     * Copies a 6x6 matrix into a row major array
+     */
+    private static void toArray(DMatrix6x6 m, double[] d) {
+        d[0] = m.a11; d[1] = m.a12; d[2] = m.a13; d[3] = m.a14; d[4] = m.a15; d[5] = m.a16;
+        d[6] = m.a21; d[7] = m.a22; d[8] = m.a23; d[9] = m.a24; d[10] = m.a25; d[11] = m.a26;
+        d[12] = m.a31; d[13] = m.a32; d[14] = m.a33; d[15] = m.a34; d[16] = m.a35; d[17] = m.a36;
+        d[18] = m.a41; d[19] = m.a42; d[20] = m.a43; d[21] = m.a44; d[22] = m.a45; d[23] = m.a46;
+        d[24] = m.a51; d[25] = m.a52; d[26] = m.a53; d[27] = m.a54; d[28] = m.a55; d[29] = m.a56;
+        d[30] = m.a61; d[31] = m.a62; d[32] = m.a63; d[33] = m.a64; d[34] = m.a65; d[35] = m.a66;
+    }
+
+    /**
+     * Copies a row major array into a 6x6 matrix
+     */
+    private static void fromArray(double[] d, DMatrix6x6 m) {
+        m.a11 = d[0]; m.a12 = d[1]; m.a13 = d[2]; m.a14 = d[3]; m.a15 = d[4]; m.a16 = d[5];
+        m.a21 = d[6]; m.a22 = d[7]; m.a23 = d[8]; m.a24 = d[9]; m.a25 = d[10]; m.a26 = d[11];
+        m.a31 = d[12]; m.a32 = d[13]; m.a33 = d[14]; m.a34 = d[15]; m.a35 = d[16]; m.a36 = d[17];
+        m.a41 = d[18]; m.a42 = d[19]; m.a43 = d[20]; m.a44 = d[21]; m.a45 = d[22]; m.a46 = d[23];
+        m.a51 = d[24]; m.a52 = d[25]; m.a53 = d[26]; m.a54 = d[27]; m.a55 = d[28]; m.a56 = d[29];
+        m.a61 = d[30]; m.a62 = d[31]; m.a63 = d[32]; m.a64 = d[33]; m.a65 = d[34]; m.a66 = d[35];
+    }
+}
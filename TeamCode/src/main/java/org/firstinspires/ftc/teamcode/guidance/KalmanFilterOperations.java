@@ -48,8 +48,13 @@ public class KalmanFilterOperations implements KalmanFilter{
     private DMatrixRMaj y,S,S_inv,c,d;
     private DMatrixRMaj K;
 
+    private double[] ph,hp;
+
     private LinearSolverDense<DMatrixRMaj> solver;
 
+    // process diagonal R one measurement at a time
+    private boolean sequential = true;
+
     @Override
     public void configure(DMatrixRMaj F, DMatrixRMaj Q, DMatrixRMaj H) {
         this.F = F;
@@ -67,6 +72,8 @@ public class KalmanFilterOperations implements KalmanFilter{
         c = new DMatrixRMaj(dimenZ,dimenX);
         d = new DMatrixRMaj(dimenX,dimenZ);
         K = new DMatrixRMaj(dimenX,dimenZ);
+        ph = new double[dimenX];
+        hp = new double[dimenX];
 
         x = new DMatrixRMaj(dimenX,1);
         P = new DMatrixRMaj(dimenX,dimenX);
@@ -83,19 +90,29 @@ public class KalmanFilterOperations implements KalmanFilter{
 
     @Override
     public void predict() {
+        predict(F,1d);
+    }
+
+    @Override
+    public void predict(DMatrixRMaj F, double qScale) {
 
         // x = F x
         mult(F,x,a);
         x.set(a);
 
-        // P = F P F' + Q
+        // P = F P F' + qScale*Q
         mult(F,P,b);
         multTransB(b,F, P);
-        addEquals(P,Q);
+        addEquals(P,qScale,Q);
     }
 
     @Override
     public void update(DMatrixRMaj z, DMatrixRMaj R) {
+        if( sequential && KalmanSequentialUpdate.isDiagonal(R) ) {
+            KalmanSequentialUpdate.update(x.data,P.data,H.data,z.data,R,x.numRows,H.numRows,ph,hp);
+            return;
+        }
+
         // y = z - H x
         mult(H,x,y);
         subtract(z, y, y);
@@ -122,6 +139,13 @@ public class KalmanFilterOperations implements KalmanFilter{
         subtractEquals(P, b);
     }
 
+    /**
+     * Enables sequential processing of measurements when R is diagonal.  Enabled by default.
+     */
+    public void setSequentialUpdate( boolean sequential ) {
+        this.sequential = sequential;
+    }
+
     @Override
     public DMatrixRMaj getState() {
         return x;
@@ -0,0 +1,256 @@
+package org.firstinspires.ftc.teamcode.guidance;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.decomposition.TriangularSolver_DDRM;
+import org.ejml.dense.row.factory.DecompositionFactory_DDRM;
+import org.ejml.interfaces.decomposition.CholeskyDecomposition_F64;
+import org.ejml.interfaces.decomposition.QRDecomposition;
+
+import static org.ejml.dense.row.CommonOps_DDRM.mult;
+import static org.ejml.dense.row.CommonOps_DDRM.multTransB;
+
+/**
+ * A square root Kalman filter.  Instead of the covariance P the filter propagates its lower
+ * triangular Cholesky factor L, where P = L*L'.  Both steps are done by triangularizing a
+ * pre-array with a QR decomposition and the innovation is scaled with a triangular solve, so
+ * S is never explicitly inverted and the implied covariance always stays symmetric and
+ * positive semi-definite.
+ *
+ * Predict:
+ * <pre>
+ *     [ (F*L)' ]       [ L' ]
+ *     [  Lq'   ] = Q * [ 0  ]        P = F*P*F' + Q
+ * </pre>
+ * Update:
+ * <pre>
+ *     [ Lr'  0  ]       [ Ls'  Kb' ]
+ *     [ L'H' L' ] = Q * [ 0    L'  ]     S = Ls*Ls', K = Kb*Ls^-1
+ * </pre>
+ */
+public class KalmanFilterSquareRoot implements KalmanFilter {
+
+    // Diagonal jitter tried when a covariance passed to setState() doesn't factor, relative to
+    // its largest variance.  Grown 10x per attempt, so 1e-9 up to 1e-3.
+    private static final double JITTER_START = 1e-9;
+    private static final int JITTER_ATTEMPTS = 7;
+
+    // kinematics description
+    private DMatrixRMaj F,H;
+    // lower Cholesky factor of the plant noise
+    private DMatrixRMaj Lq;
+
+    // system state estimate and lower Cholesky factor of its covariance
+    private DMatrixRMaj x,L;
+
+    // these are predeclared for efficiency reasons
+    private DMatrixRMaj a,b,FL,HL,preX,preZ,post,Lr,P,Pfix,tmp;
+    private double[] y,Ls;
+
+    private QRDecomposition<DMatrixRMaj> qrPredict;
+    private QRDecomposition<DMatrixRMaj> qrUpdate;
+    private CholeskyDecomposition_F64<DMatrixRMaj> chol;
+
+    @Override
+    public void configure(DMatrixRMaj F, DMatrixRMaj Q, DMatrixRMaj H) {
+        this.F = F;
+        this.H = H;
+
+        int dimenX = F.numCols;
+        int dimenZ = H.numRows;
+
+        a = new DMatrixRMaj(dimenX,1);
+        b = new DMatrixRMaj(dimenZ,1);
+        FL = new DMatrixRMaj(dimenX,dimenX);
+        HL = new DMatrixRMaj(dimenZ,dimenX);
+        preX = new DMatrixRMaj(2*dimenX,dimenX);
+        preZ = new DMatrixRMaj(dimenZ+dimenX,dimenZ+dimenX);
+        post = new DMatrixRMaj(dimenZ+dimenX,dimenZ+dimenX);
+        Lr = new DMatrixRMaj(dimenZ,dimenZ);
+        P = new DMatrixRMaj(dimenX,dimenX);
+        Pfix = new DMatrixRMaj(dimenX,dimenX);
+        tmp = new DMatrixRMaj(Math.max(dimenX,dimenZ),Math.max(dimenX,dimenZ));
+        y = new double[dimenZ];
+        Ls = new double[dimenZ*dimenZ];
+
+        x = new DMatrixRMaj(dimenX,1);
+        L = new DMatrixRMaj(dimenX,dimenX);
+        Lq = new DMatrixRMaj(dimenX,dimenX);
+
+        qrPredict = DecompositionFactory_DDRM.qr(2*dimenX,dimenX);
+        qrUpdate = DecompositionFactory_DDRM.qr(dimenZ+dimenX,dimenZ+dimenX);
+        chol = DecompositionFactory_DDRM.chol(dimenX,true);
+
+        factor(Q,Lq);
+    }
+
+    /**
+     * Sets the state and factors its covariance.  KalmanTracker's setKnownXXX functions reset a
+     * variance without touching its covariances, which can leave P slightly indefinite.  If P
+     * doesn't factor it's symmetrized and a growing diagonal jitter is added, and if that still
+     * fails only the variances are kept.
+     */
+    @Override
+    public void setState(DMatrixRMaj x, DMatrixRMaj P) {
+        this.x.set(x);
+        tmp.reshape(P.numRows,P.numCols);
+        tmp.set(P);
+        if( chol.decompose(tmp) ) {
+            chol.getT(L);
+            return;
+        }
+
+        int n = P.numRows;
+        double maxVariance = 0;
+        for (int i = 0; i < n; i++) {
+            maxVariance = Math.max(maxVariance,P.unsafe_get(i,i));
+        }
+        double jitter = JITTER_START*maxVariance;
+        for (int attempt = 0; attempt < JITTER_ATTEMPTS; attempt++, jitter *= 10) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    Pfix.unsafe_set(i,j,0.5*(P.unsafe_get(i,j)+P.unsafe_get(j,i)));
+                }
+                Pfix.unsafe_set(i,i,Pfix.unsafe_get(i,i)+jitter);
+            }
+            tmp.set(Pfix);
+            if( chol.decompose(tmp) ) {
+                chol.getT(L);
+                return;
+            }
+        }
+
+        // Drop the correlations and keep the square root of the variances
+        L.zero();
+        for (int i = 0; i < n; i++) {
+            L.unsafe_set(i,i,Math.sqrt(Math.max(P.unsafe_get(i,i),0)));
+        }
+    }
+
+    @Override
+    public void predict() {
+        predict(F,1d);
+    }
+
+    @Override
+    public void predict(DMatrixRMaj F, double qScale) {
+        int n = x.numRows;
+        // Scaling Q scales its Cholesky factor by the square root
+        double lqScale = Math.sqrt(qScale);
+
+        // x = F x
+        mult(F,x,a);
+        x.set(a);
+
+        // Triangularize [ (F*L)' ; Lq' ].  The upper n rows of R are L'
+        mult(F,L,FL);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                preX.unsafe_set(i,j,FL.unsafe_get(j,i));
+                preX.unsafe_set(n+i,j,lqScale*Lq.unsafe_get(j,i));
+            }
+        }
+        if( !qrPredict.decompose(preX) ) throw new RuntimeException("QR failed");
+        post.reshape(n,n);
+        qrPredict.getR(post,true);
+        transposeInto(post,0,L);
+    }
+
+    @Override
+    public void update(DMatrixRMaj z, DMatrixRMaj R) {
+        int n = x.numRows;
+        int m = z.numRows;
+
+        // The measurement noise is allowed to change between updates so it is factored each time
+        factor(R,Lr);
+
+        // Form the pre-array [ Lr' 0 ; (H*L)' L' ]
+        mult(H,L,HL);
+        preZ.zero();
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j <= i; j++) {
+                preZ.unsafe_set(j,i,Lr.unsafe_get(i,j));
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                preZ.unsafe_set(m+i,j,HL.unsafe_get(j,i));
+            }
+            for (int j = 0; j <= i; j++) {
+                preZ.unsafe_set(m+j,m+i,L.unsafe_get(i,j));
+            }
+        }
+        if( !qrUpdate.decompose(preZ) ) throw new RuntimeException("QR failed");
+        post.reshape(m+n,m+n);
+        qrUpdate.getR(post,false);
+
+        // y = z - H x
+        mult(H,x,b);
+        for (int i = 0; i < m; i++) {
+            y[i] = z.data[i] - b.data[i];
+        }
+
+        // Ls = R11' then y = Ls^-1 y
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < m; j++) {
+                Ls[i*m+j] = j <= i ? post.unsafe_get(j,i) : 0;
+            }
+        }
+        TriangularSolver_DDRM.solveL(Ls,y,m);
+
+        // x = x + Kb*(Ls^-1 y) where Kb' = R12
+        for (int i = 0; i < n; i++) {
+            double sum = 0;
+            for (int k = 0; k < m; k++) {
+                sum += post.unsafe_get(k,m+i)*y[k];
+            }
+            x.data[i] += sum;
+        }
+
+        // L = R22'
+        transposeInto(post,m,L);
+    }
+
+    @Override
+    public DMatrixRMaj getState() {
+        return x;
+    }
+
+    /**
+     * Returns the covariance computed from its square root.  The matrix is owned by the filter
+     * and is overwritten on the next call.
+     */
+    @Override
+    public DMatrixRMaj getCovariance() {
+        multTransB(L,L,P);
+        return P;
+    }
+
+    /**
+     * Returns the lower triangular square root of the covariance
+     */
+    public DMatrixRMaj getCovarianceSqrt() {
+        return L;
+    }
+
+    /**
+     * Computes the lower Cholesky factor of the symmetric positive definite matrix A
+     */
+    private void factor(DMatrixRMaj A, DMatrixRMaj lower) {
+        tmp.reshape(A.numRows,A.numCols);
+        tmp.set(A);
+        if( !chol.decompose(tmp) ) throw new RuntimeException("Cholesky failed");
+        chol.getT(lower);
+    }
+
+    /**
+     * Copies the transpose of the upper triangular block of R starting at (offset,offset) into lower
+     */
+    private static void transposeInto(DMatrixRMaj R, int offset, DMatrixRMaj lower) {
+        int n = lower.numRows;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                lower.unsafe_set(i,j,j <= i ? R.unsafe_get(offset+j,offset+i) : 0);
+            }
+        }
+    }
+}
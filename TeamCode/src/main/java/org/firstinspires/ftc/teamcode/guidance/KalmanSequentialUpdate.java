@@ -0,0 +1,78 @@
+package org.firstinspires.ftc.teamcode.guidance;
+
+import org.ejml.data.DMatrixRMaj;
+
+/**
+ * Kalman measurement update that processes the elements of z one at a time.  When R is
+ * diagonal the measurement errors are independent and applying each scalar measurement in
+ * turn gives the same result as the joint update, but S is a scalar so no matrix has to be
+ * inverted and each element costs O(n^2).
+ *
+ * All matrices are row major arrays so the covariance form filters can share this code.
+ */
+class KalmanSequentialUpdate {
+
+    /**
+     * Returns true if every off diagonal element of R is zero
+     */
+    static boolean isDiagonal(DMatrixRMaj R) {
+        for (int i = 0; i < R.numRows; i++) {
+            for (int j = 0; j < R.numCols; j++) {
+                if (i != j && R.data[i*R.numCols+j] != 0)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Updates x and P in place
+     *
+     * @param x state estimate, length n
+     * @param P n by n covariance
+     * @param H m by n measurement matrix
+     * @param z measurement, length m
+     * @param R measurement covariance, must be diagonal
+     * @param n number of states
+     * @param m number of measurements
+     * @param ph work space of length n
+     * @param hp work space of length n
+     */
+    static void update(double[] x, double[] P, double[] H, double[] z, DMatrixRMaj R,
+                       int n, int m, double[] ph, double[] hp) {
+        for (int i = 0; i < m; i++) {
+            int h = i*n;
+
+            // ph = P h', hp = h P and the innovation y = z - h x
+            double y = z[i];
+            for (int r = 0; r < n; r++) {
+                double sumPh = 0;
+                double sumHp = 0;
+                for (int j = 0; j < n; j++) {
+                    sumPh += P[r*n+j]*H[h+j];
+                    sumHp += H[h+j]*P[j*n+r];
+                }
+                ph[r] = sumPh;
+                hp[r] = sumHp;
+                y -= H[h+r]*x[r];
+            }
+
+            // s = h P h' + r
+            double s = R.data[i*m+i];
+            for (int j = 0; j < n; j++) {
+                s += H[h+j]*ph[j];
+            }
+            if (s <= 0) throw new RuntimeException("Invert failed");
+
+            // k = ph/s, x = x + k y, P = P - k (hP)
+            for (int r = 0; r < n; r++) {
+                double k = ph[r]/s;
+                x[r] += k*y;
+                int row = r*n;
+                for (int c = 0; c < n; c++) {
+                    P[row+c] -= k*hp[c];
+                }
+            }
+        }
+    }
+}
@@ -26,17 +26,27 @@ public class KalmanTracker {
     private static final int XHAT_OMEGAZ_INDEX = 4;
     private static final int XHAT_THETA_INDEX = 5;
 
+    // Entries of A that hold the sampling interval
+    private static final int[][] A_DT_ENTRIES = {
+            {XHAT_PX_INDEX, XHAT_VX_INDEX},
+            {XHAT_PY_INDEX, XHAT_VY_INDEX},
+            {XHAT_THETA_INDEX, XHAT_OMEGAZ_INDEX}};
 
-    private KalmanFilterOperations mFilter = null;
+
+    private KalmanFilter mFilter = null;
 
     // Process matrix
     private DMatrixRMaj A;
+    // Process matrix for a step of variable length.  Only the A_DT_ENTRIES change.
+    private DMatrixRMaj Adt;
     // Process noise covariance matrix
     private DMatrixRMaj Q;
     // Measurment noise covariance matrix
     private DMatrixRMaj R;
     // Measurement matrix
     private DMatrixRMaj H;
+    // Measurement vector reused by every update
+    private final DMatrixRMaj z = new DMatrixRMaj(4,1);
 
     public KalmanTracker(){
 
@@ -44,7 +54,21 @@ public class KalmanTracker {
 
     private KalmanParameters mKalmanParameters;
 
+    /**
+     * Kalman filter implementations that can be selected with {@link KalmanParameters#FILTER_TYPE}
+     */
+    public enum FilterType {
+        // General purpose filter using DMatrixRMaj operations
+        OPERATIONS,
+        // Allocation free filter specialized to the 6 state, 4 measurement tracker
+        FIXED_SIZE,
+        // Square root filter that propagates the Cholesky factor of the covariance
+        SQUARE_ROOT
+    }
+
     public static class KalmanParameters {
+        // Kalman filter implementation used by the tracker
+        public FilterType FILTER_TYPE = FilterType.OPERATIONS;
         // T sampling interval in seconds
         public double T = 0.050d;
         // px0 x coordinate of robot initial position in meters
@@ -134,12 +158,13 @@ public class KalmanTracker {
 
         // Initialize constant matrices
         A = new DMatrixRMaj(A_MATRIX);
+        Adt = new DMatrixRMaj(A_MATRIX);
         R = new DMatrixRMaj(R_MATRIX);
         Q = new DMatrixRMaj(Q_MATRIX);
         H = new DMatrixRMaj(H_MATRIX);
 
         // Create and configure the filter
-        mFilter = new KalmanFilterOperations();
+        mFilter = createFilter(mKalmanParameters.FILTER_TYPE);
         mFilter.configure(A,Q,H);
 
         // Initialize the state estimate vector to the supplied position and orientation
@@ -150,6 +175,21 @@ public class KalmanTracker {
         mFilter.setState(xhat,p);
     }
 
+    /**
+     * Creates the filter implementation selected in the parameters
+     */
+    private static KalmanFilter createFilter(FilterType filterType){
+        switch(filterType){
+            case FIXED_SIZE:
+                return new KalmanFilterFixed6x4();
+            case SQUARE_ROOT:
+                return new KalmanFilterSquareRoot();
+            case OPERATIONS:
+            default:
+                return new KalmanFilterOperations();
+        }
+    }
+
     /**
      * Called at the sampling rate T to update the filter with a new measurement.
      * @param vx x velocity in forward wheel heading frame
@@ -161,58 +201,101 @@ public class KalmanTracker {
                                   double vy,
                                   double wzw,
                                   double theta_imu) {
+        setMeasurement(vx, vy, wzw, theta_imu);
 
-        // rotate into the global frame using the Point classes rotation function
-        Point vp = new Point(vx,vy);
-        Point rotated = vp.rotate(-getEstimatedHeading());
+        // Do Kalman predict step
+        mFilter.predict();
+        // Do Kalman correct step
+        mFilter.update(z,R);
+    }
 
+    /**
+     * Updates the filter with a new measurement taken dt seconds after the last one instead of
+     * the nominal T, so loop jitter doesn't corrupt the integrated position.  The dt entries of
+     * the process matrix are set in place and the process noise is scaled by dt/T.
+     * @param vx x velocity in forward wheel heading frame
+     * @param vy y velocity in forward wheel heading frame
+     * @param wzw angular velocity component computed from wheel speeds
+     * @param theta_imu z coordinate of imu measured orientation in radians
+     * @param dt seconds since the last update
+     */
+    public void updateMeasurement(double vx,
+                                  double vy,
+                                  double wzw,
+                                  double theta_imu,
+                                  double dt) {
+        setMeasurement(vx, vy, wzw, theta_imu);
+
+        predict(dt);
+        mFilter.update(z,R);
+    }
+
+    /**
+     * Fills the measurement vector z, rotating the velocities into the global frame
+     */
+    private void setMeasurement(double vx,
+                                double vy,
+                                double wzw,
+                                double theta_imu) {
+        // rotate into the global frame.  Same as Point.rotate() without creating Points
+        double theta = -getEstimatedHeading();
+        double cos = Math.cos(theta);
+        double sin = Math.sin(theta);
 
         // Have to negate the wzw and wz_imu because we want to use left-handed orientation angles
         // instead of the right-handed angles produced by the measurements
-        DMatrixRMaj z = new DMatrixRMaj(new double[][] {{rotated.x},{rotated.y},{-wzw},{-theta_imu}});
+        z.data[0] = cos * vx - sin * vy;
+        z.data[1] = sin * vx + cos * vy;
+        z.data[2] = -wzw;
+        z.data[3] = -theta_imu;
+    }
 
-        // Do Kalman predict step
-        mFilter.predict();
-        // Do Kalman correct step
-        mFilter.update(z,R);
+    /**
+     * Kalman predict step over dt seconds
+     */
+    private void predict(double dt){
+        for (int[] entry : A_DT_ENTRIES) {
+            Adt.unsafe_set(entry[0], entry[1], dt);
+        }
+        mFilter.predict(Adt, dt/mKalmanParameters.T);
     }
     /**
      * Returns the current estimated x position
      */
-    public Double getEstimatedXPosition(){
+    public double getEstimatedXPosition(){
         return mFilter.getState().get(XHAT_PX_INDEX);
     }
     /**
      * Returns the current estimated y position
      */
-    public Double getEstimatedYPosition(){
+    public double getEstimatedYPosition(){
         return mFilter.getState().get(XHAT_PY_INDEX);
     }
 
     /*
      * Returns the current estimated linear speed
      */
-    public Double getEstimatedSpeed(){
+    public double getEstimatedSpeed(){
         return Math.sqrt(Math.pow(mFilter.getState().get(XHAT_VX_INDEX),2)+Math.pow(mFilter.getState().get(XHAT_VY_INDEX),2));
     }
 
     /**
      * returns last calculated input Vx.  Used for logging
      */
-    public Double getVx(){
+    public double getVx(){
         return mVx;
     }
     /**
      * returns last calculated input Vy.  Used for logging
      */
-    public Double getVy(){
+    public double getVy(){
         return mVy;
     }
     /**
      *
      * @return Estimated heading from 0 to 2*PI in radians.  Note that this is a left-handed angle
      */
-    public Double getEstimatedHeading() {
+    public double getEstimatedHeading() {
         return mFilter.getState().get(XHAT_THETA_INDEX, 0);
     }
 
@@ -220,7 +303,7 @@ public class KalmanTracker {
      *
      * @return Estimated angular velocity in radians/sec.  Note that this is a left-handed angular velocity
      */
-    public Double getEstimatedAngularVelocity(){
+    public double getEstimatedAngularVelocity(){
         return mFilter.getState().get(XHAT_OMEGAZ_INDEX,0);
     }
 
@@ -229,10 +312,11 @@ public class KalmanTracker {
      * @param px updated x position
      */
     public void setKnownXPosition(double px){
-        DMatrixRMaj xhat = new DMatrixRMaj(mFilter.getState());
+        // The filter owns the returned matrices so they are modified in place and handed back
+        DMatrixRMaj xhat = mFilter.getState();
         xhat.set(XHAT_PX_INDEX,0,px);
         // And reset the px variance to the default
-        DMatrixRMaj p = new DMatrixRMaj(mFilter.getCovariance());
+        DMatrixRMaj p = mFilter.getCovariance();
         p.set(XHAT_PX_INDEX,XHAT_PX_INDEX, mKalmanParameters.VAR_POSITION);
         mFilter.setState(xhat,p);
     }
@@ -241,10 +325,10 @@ public class KalmanTracker {
      * @param py updated y position
      */
     public void setKnownYPosition(double py){
-        DMatrixRMaj xhat = new DMatrixRMaj(mFilter.getState());
+        DMatrixRMaj xhat = mFilter.getState();
         xhat.set(XHAT_PY_INDEX,0,py);
         // And reset the px variance to the default
-        DMatrixRMaj p = new DMatrixRMaj(mFilter.getCovariance());
+        DMatrixRMaj p = mFilter.getCovariance();
         p.set(XHAT_PY_INDEX,XHAT_PY_INDEX, mKalmanParameters.VAR_POSITION);
         mFilter.setState(xhat,p);
     }
@@ -253,10 +337,10 @@ public class KalmanTracker {
      * @param theta updated heading angle
      */
     public void setKnownHeading(double theta){
-        DMatrixRMaj xhat = new DMatrixRMaj(mFilter.getState());
+        DMatrixRMaj xhat = mFilter.getState();
         xhat.set(XHAT_THETA_INDEX,0,theta);
         // And reset the px variance to the default
-        DMatrixRMaj p = new DMatrixRMaj(mFilter.getCovariance());
+        DMatrixRMaj p = mFilter.getCovariance();
         p.set(XHAT_THETA_INDEX,XHAT_THETA_INDEX, mKalmanParameters.VAR_THETA);
         mFilter.setState(xhat,p);
     }
@@ -23,6 +23,9 @@ public class KalmanTrackerWithAccels {
     private static final int XHAT_PY_INDEX = 1;
     private static final int XHAT_THETA_INDEX = 7;
 
+    // Entries of A that hold the sampling interval
+    private static final int[][] A_DT_ENTRIES = {{0,2},{1,3},{2,4},{3,5},{7,6}};
+
     // Initial P covariance values
     final double SIGMA_POSITION = 0.1;
     final double VAR_POSITION = Math.pow(SIGMA_POSITION,2.0d);
@@ -35,16 +38,22 @@ public class KalmanTrackerWithAccels {
     final double SIGMA_THETA = 0.1;
     final double VAR_THETA = Math.pow(SIGMA_THETA,2.0d);
 
-    private KalmanFilterOperations mFilter = null;
+    private KalmanFilter mFilter = null;
 
     // Process matrix
     private DMatrixRMaj A;
+    // Process matrix for a step of variable length.  Only the A_DT_ENTRIES change.
+    private DMatrixRMaj Adt;
+    // Nominal sampling interval in seconds
+    private double T;
     // Process noise covariance matrix
     private DMatrixRMaj Q;
     // Measurment noise covariance matrix
     private DMatrixRMaj R;
     // Measurement matrix
     private DMatrixRMaj H;
+    // Measurement vector reused by every update
+    private final DMatrixRMaj z = new DMatrixRMaj(6,1);
 
 
     private double lx;
@@ -67,10 +76,21 @@ public class KalmanTrackerWithAccels {
      * @param r radius of wheel
      */
     public void init(double T,double px0,double py0,double theta0,double lx,double ly,double r){
+        init(T,px0,py0,theta0,lx,ly,r,KalmanTracker.FilterType.OPERATIONS);
+    }
+
+    /**
+     * Initializes the Kalman filter using the selected filter implementation
+     * @param filterType OPERATIONS or SQUARE_ROOT.  FIXED_SIZE only supports the 6 state KalmanTracker.
+     * @see #init(double, double, double, double, double, double, double)
+     */
+    public void init(double T,double px0,double py0,double theta0,double lx,double ly,double r,
+                     KalmanTracker.FilterType filterType){
         // Save the lx and ly, as we'll need them when calculating the measurements
         this.lx = lx;
         this.ly = ly;
         radius_wheel = r;
+        this.T = T;
 
         final double[][] A_MATRIX = {
                 {1,0,T,0,0,0,0,0},
@@ -128,12 +148,22 @@ public class KalmanTrackerWithAccels {
 
         // Initialize constant matrices
         A = new DMatrixRMaj(A_MATRIX);
+        Adt = new DMatrixRMaj(A_MATRIX);
         R = new DMatrixRMaj(R_MATRIX);
         Q = new DMatrixRMaj(Q_MATRIX);
         H = new DMatrixRMaj(H_MATRIX);
 
         // Create and configure the filter
-        mFilter = new KalmanFilterOperations();
+        switch(filterType){
+            case SQUARE_ROOT:
+                mFilter = new KalmanFilterSquareRoot();
+                break;
+            case OPERATIONS:
+                mFilter = new KalmanFilterOperations();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported filter type "+filterType);
+        }
         mFilter.configure(A,Q,H);
 
         // Initialize the state estimate vector to the supplied position and orientation
@@ -161,19 +191,56 @@ public class KalmanTrackerWithAccels {
                                   double ax_imu,
                                   double ay_imu,
                                   double wz_imu) {
-        // Compute the robot velocity from the wheel velocities
-        double rover4 = radius_wheel/4.0d;
-        double vx = rover4*(w_lf+w_rf-w_lr-w_rr);
-        double vy = rover4*(w_lf+w_rf+w_lr+w_rr);
-        double wzw = rover4*(w_lf+w_rf+w_lr+w_rr)/(lx+ly);
-
-        DMatrixRMaj z = new DMatrixRMaj(new double[][] {{vx},{vy},{wzw},{ax_imu},{ay_imu},{wz_imu}});
+        setMeasurement(w_lf, w_lr, w_rf, w_rr, ax_imu, ay_imu, wz_imu);
 
         // Do Kalman predict step
         mFilter.predict();
         // Do Kalman correct step
         mFilter.update(z,R);
     }
+
+    /**
+     * Updates the filter with a new measurement taken dt seconds after the last one instead of
+     * the nominal T.  The dt entries of the process matrix are set in place and the process noise
+     * is scaled by dt/T.
+     * @param dt seconds since the last update
+     * @see #updateMeasurement(double, double, double, double, double, double, double)
+     */
+    public void updateMeasurement(double w_lf,
+                                  double w_lr,
+                                  double w_rf,
+                                  double w_rr,
+                                  double ax_imu,
+                                  double ay_imu,
+                                  double wz_imu,
+                                  double dt) {
+        setMeasurement(w_lf, w_lr, w_rf, w_rr, ax_imu, ay_imu, wz_imu);
+
+        for (int[] entry : A_DT_ENTRIES) {
+            Adt.unsafe_set(entry[0], entry[1], dt);
+        }
+        mFilter.predict(Adt, dt/T);
+        mFilter.update(z,R);
+    }
+
+    /**
+     * Fills the measurement vector z, computing the robot velocity from the wheel velocities
+     */
+    private void setMeasurement(double w_lf,
+                                double w_lr,
+                                double w_rf,
+                                double w_rr,
+                                double ax_imu,
+                                double ay_imu,
+                                double wz_imu) {
+        double rover4 = radius_wheel/4.0d;
+        z.data[0] = rover4*(w_lf+w_rf-w_lr-w_rr);
+        z.data[1] = rover4*(w_lf+w_rf+w_lr+w_rr);
+        z.data[2] = rover4*(w_lf+w_rf+w_lr+w_rr)/(lx+ly);
+        z.data[3] = ax_imu;
+        z.data[4] = ay_imu;
+        z.data[5] = wz_imu;
+    }
     /**
      * Returns the current estimated x position
      */
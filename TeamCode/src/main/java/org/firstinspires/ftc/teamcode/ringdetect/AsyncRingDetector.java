@@ -0,0 +1,166 @@
+package org.firstinspires.ftc.teamcode.ringdetect;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the ring detector on a background thread so the sensor reads and the inference don't
+ * stall the OpMode loop.  The worker samples the sensors at a fixed rate and publishes each
+ * result to a single slot that always holds the most recent detection.  The loop reads the slot
+ * with getLatestDetection() which never blocks.
+ *
+ * While the worker is running the RingDetector is owned by the worker thread, so the loop must
+ * not call readDetector() or getTelemetryString() on it.
+ */
+public class AsyncRingDetector {
+
+    /**
+     * One published ring detection.  Immutable so it can be handed between threads safely.
+     */
+    public static final class Detection {
+        // NO_RING, ONE_RING, FOUR_RINGS, or UNKNOWN from RingDetectorNeuralNetwork
+        public final int result;
+        // network output of the detected class between 0 and 1
+        public final double confidence;
+        // System.nanoTime() when the sensors were read
+        public final long timestampNanos;
+        // Number of detections published before this one
+        public final long sequence;
+        // Result and confidence from the RingDetectionFilter, UNKNOWN and 0 without a filter
+        public final int filteredResult;
+        public final double filteredConfidence;
+
+        Detection(int result, double confidence, long timestampNanos, long sequence,
+                  int filteredResult, double filteredConfidence) {
+            this.result = result;
+            this.confidence = confidence;
+            this.timestampNanos = timestampNanos;
+            this.sequence = sequence;
+            this.filteredResult = filteredResult;
+            this.filteredConfidence = filteredConfidence;
+        }
+
+        /**
+         * Returns the age of the detection in milliseconds
+         */
+        public double getAgeMs() {
+            return (System.nanoTime() - timestampNanos) / 1.0e6;
+        }
+    }
+
+    private final RingDetector mDetector;
+    private final long mPeriodMs;
+    // Optional filter run on the worker thread
+    private final RingDetectionFilter mFilter;
+    private final double[] mOutput = new double[RingDetectorNeuralNetwork.NUM_OUTPUTS];
+
+    // Single slot handoff between the worker and the loop
+    private final AtomicReference<Detection> mLatest = new AtomicReference<>();
+
+    private ScheduledExecutorService mExecutor = null;
+    private long mSequence = 0;
+    private volatile int mErrorCount = 0;
+
+    /**
+     * @param detector initialized ring detector
+     * @param periodMs time between detections in milliseconds
+     */
+    public AsyncRingDetector(RingDetector detector, long periodMs) {
+        this(detector, periodMs, null);
+    }
+
+    /**
+     * @param detector initialized ring detector
+     * @param periodMs time between detections in milliseconds
+     * @param filter filter updated with every detection or null for none.  Owned by the worker
+     *               thread while running.
+     */
+    public AsyncRingDetector(RingDetector detector, long periodMs, RingDetectionFilter filter) {
+        if (periodMs <= 0)
+            throw new IllegalArgumentException("periodMs must be positive");
+        mDetector = detector;
+        mPeriodMs = periodMs;
+        mFilter = filter;
+    }
+
+    /**
+     * Starts sampling on the worker thread.  Does nothing if already running.
+     */
+    public synchronized void start() {
+        if (mExecutor != null)
+            return;
+        mExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "RingDetector");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        mExecutor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                detect();
+            }
+        }, 0, mPeriodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the worker and waits for a detection in progress to finish.  If it doesn't finish
+     * within a second, or the calling thread is interrupted, the worker is interrupted instead.
+     * The last detection stays available from getLatestDetection().
+     */
+    public synchronized void stop() {
+        if (mExecutor == null)
+            return;
+        mExecutor.shutdown();
+        try {
+            if (!mExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
+                mExecutor.shutdownNow();
+            }
+        }
+        catch (InterruptedException e) {
+            mExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        mExecutor = null;
+    }
+
+    /**
+     * Returns the most recent detection or null if there hasn't been one yet.  Never blocks.
+     */
+    public Detection getLatestDetection() {
+        return mLatest.get();
+    }
+
+    /**
+     * Returns the number of detections that failed with an exception
+     */
+    public int getErrorCount() {
+        return mErrorCount;
+    }
+
+    private void detect() {
+        try {
+            long timestamp = System.nanoTime();
+            int result = mDetector.readDetector();
+            int filteredResult = RingDetectorNeuralNetwork.UNKNOWN;
+            double filteredConfidence = 0d;
+            if (mFilter != null) {
+                mDetector.getLastOutput(mOutput);
+                filteredResult = mFilter.update(mOutput);
+                int best = mFilter.getBestClass();
+                filteredConfidence = best == RingDetectorNeuralNetwork.UNKNOWN ? 0d : mFilter.getConfidence(best);
+            }
+            mLatest.set(new Detection(result, mDetector.getLastConfidence(), timestamp, mSequence++,
+                    filteredResult, filteredConfidence));
+        }
+        catch (RuntimeException e) {
+            // An exception would cancel the periodic task so count it and keep sampling
+            mErrorCount++;
+        }
+    }
+}
@@ -24,23 +24,30 @@ import org.ejml.data.DMatrixRMaj;
 import org.ejml.dense.row.NormOps_DDRM;
 import org.ejml.simple.SimpleMatrix;
 
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Random;
+import static org.ejml.dense.row.CommonOps_DDRM.addEquals;
 import static org.ejml.dense.row.CommonOps_DDRM.mult;
+import static org.ejml.dense.row.CommonOps_DDRM.multTransA;
+import static org.ejml.dense.row.CommonOps_DDRM.multTransB;
 import static org.ejml.dense.row.CommonOps_DDRM.add;
 import static org.ejml.dense.row.CommonOps_DDRM.elementMult;
 import static org.ejml.dense.row.CommonOps_DDRM.subtract;
-import static org.ejml.dense.row.CommonOps_DDRM.transpose;
-import static org.ejml.dense.row.CommonOps_DDRM.scale;
-import static org.ejml.dense.row.CommonOps_DDRM.extractColumn;
-import static org.ejml.dense.row.CommonOps_DDRM.fill;
+import static org.ejml.dense.row.CommonOps_DDRM.sumRows;
 
 /**
  * This class implements the neural network.  Comments notation is from:
@@ -65,11 +72,34 @@ public class NeuralNetwork implements Serializable {
     // vector of scale vectors to scale input data.
     private DMatrixRMaj mInputScaleVector = null;
 
-    // Array of activation matrices used in backpropogation.  Each element contains L layers
-    private ArrayList<DMatrixRMaj>[] mActivations = null;
+    // Error delta matrices used in backpropogation with one column per sample in the minibatch.
+    // Element l holds δ^l for layer l.  Element 0 is not used since the input layer has no error.
+    private DMatrixRMaj[] mDeltas = null;
 
-    // Array of delta arrays used in backpropogation.  Each element contains L layers
-    private ArrayList<DMatrixRMaj>[] mDeltas = null;
+    // Truth values for the current minibatch with one column per sample
+    private DMatrixRMaj mYBatch = null;
+
+    // Weight and bias gradient matrices for each layer 2..L used by gradient descent
+    private DMatrixRMaj[] mWeightGradients = null;
+    private DMatrixRMaj[] mBiasGradients = null;
+
+    // Layer activation matrices reused by the batch feedforward.  Element 0 holds the normalized input
+    // and each matrix has one column per sample.
+    private DMatrixRMaj[] mBatchActivations = null;
+
+    // Single column layer activation vectors used by the allocation free feedforward
+    private DMatrixRMaj[] mInferenceActivations = null;
+
+    // Flat binary network file format written by writeBinary() and read by readBinary().  All
+    // values are little endian:
+    //   int magic, int version, int cost function, double eta, int number of layers,
+    //   int[number of layers] nodes per layer, int description length, UTF-8 description bytes,
+    //   zero padding to a multiple of 8 bytes,
+    //   then doubles: the row major weights followed by the biases for each layer 2..L and
+    //   finally the input scale vector.
+    public static final int BINARY_MAGIC = 0x4E4E4652;      // "RFNN" when read as bytes
+    public static final int BINARY_VERSION = 1;
+    public static final String BINARY_EXTENSION = ".nnb";
 
     public static final int QUADRATIC_COST = 0;
     public static final int CROSS_ENTROPY_COST = 1;
@@ -87,6 +117,10 @@ public class NeuralNetwork implements Serializable {
     // Number of nodes in each layer starting from the input layer to the output
     int[] mNetwork = null;
 
+    // Random number generator used to shuffle the training data.  Not serialized, so a
+    // deserialized network that is trained further gets a new unseeded generator.
+    private transient Random mRandom = null;
+
     // Listeners for status updates at end of each epoch
     private ArrayList<ITrainingStatusListener> mTrainingStatusListeners = new ArrayList<>();
 
@@ -113,6 +147,8 @@ public class NeuralNetwork implements Serializable {
             mBiases = (ArrayList<DMatrixRMaj>) ois.readObject();
             mInputScaleVector = (DMatrixRMaj) ois.readObject();
             mParameters = (Parameters)ois.readObject();
+            mBatchActivations = null;
+            mInferenceActivations = null;
         }
         catch(IOException e){
             throw new Exception("IOException reading neural network:"+e.getMessage());
@@ -142,6 +178,131 @@ public class NeuralNetwork implements Serializable {
              throw new Exception("IOException writing neural network:" + e.getMessage());
          }
     }
+    /**
+     * Writes the network to a file in the flat binary format.  Unlike serializeNetwork() the file
+     * does not depend on the Java class layout and can be memory mapped by readBinary().
+     * @param file file to write, replaced if it exists
+     * @throws Exception if there was a problem writing the file
+     */
+    public void writeBinary(File file) throws Exception {
+        byte[] description = mDescription.getBytes(Charset.forName("UTF-8"));
+        int headerSize = binaryHeaderSize(mNetwork.length, description.length);
+        int numValues = mNetwork[0];
+        for (int l = 0; l < mNetwork.length - 1; l++) {
+            numValues += mWeights.get(l).getNumElements() + mBiases.get(l).getNumElements();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(headerSize + 8*numValues).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(BINARY_MAGIC);
+        buffer.putInt(BINARY_VERSION);
+        buffer.putInt(mParameters.costFunction);
+        buffer.putDouble(mParameters.eta);
+        buffer.putInt(mNetwork.length);
+        for (int nodes : mNetwork) {
+            buffer.putInt(nodes);
+        }
+        buffer.putInt(description.length);
+        buffer.put(description);
+        buffer.position(headerSize);
+
+        DoubleBuffer values = buffer.asDoubleBuffer();
+        for (int l = 0; l < mNetwork.length - 1; l++) {
+            values.put(mWeights.get(l).data, 0, mWeights.get(l).getNumElements());
+            values.put(mBiases.get(l).data, 0, mBiases.get(l).getNumElements());
+        }
+        values.put(mInputScaleVector.data, 0, mNetwork[0]);
+        buffer.rewind();
+
+        try {
+            FileOutputStream fos = new FileOutputStream(file);
+            FileChannel channel = fos.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            fos.close();
+        }
+        catch(IOException e){
+            throw new Exception("IOException writing neural network:" + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a network written by writeBinary().  The file is memory mapped and the values are
+     * copied straight into the weight, bias and scale matrices, so loading allocates little
+     * beyond the matrices themselves.
+     * @param file file written by writeBinary()
+     * @throws Exception if the file can't be read or is not a supported version
+     */
+    public void readBinary(File file) throws Exception {
+        try {
+            // FileChannel.open() needs API 26, the Control Hub runs API 25
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                 FileChannel channel = raf.getChannel()) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                readBinary(buffer.order(ByteOrder.LITTLE_ENDIAN));
+            }
+        }
+        catch(IOException e){
+            throw new Exception("IOException reading neural network:" + e.getMessage());
+        }
+    }
+
+    private void readBinary(ByteBuffer buffer) throws Exception {
+        if (buffer.remaining() < 24 || buffer.getInt() != BINARY_MAGIC)
+            throw new Exception("Not a binary neural network file");
+        int version = buffer.getInt();
+        if (version != BINARY_VERSION)
+            throw new Exception("Unsupported binary neural network version " + version);
+        Parameters parameters = new Parameters();
+        parameters.costFunction = buffer.getInt();
+        parameters.eta = buffer.getDouble();
+        int[] network = new int[buffer.getInt()];
+        if (network.length < 2 || buffer.remaining() < 4*network.length + 4)
+            throw new Exception("Corrupt binary neural network file");
+        int numValues = 0;
+        for (int l = 0; l < network.length; l++) {
+            network[l] = buffer.getInt();
+            numValues += l == 0 ? network[0] : network[l]*(network[l-1] + 1);
+        }
+        byte[] description = new byte[buffer.getInt()];
+        int headerSize = binaryHeaderSize(network.length, description.length);
+        if (description.length > buffer.remaining() || buffer.limit() != headerSize + 8*numValues)
+            throw new Exception("Corrupt binary neural network file");
+        buffer.get(description);
+        buffer.position(headerSize);
+
+        DoubleBuffer values = buffer.asDoubleBuffer();
+        ArrayList<DMatrixRMaj> weights = new ArrayList<>();
+        ArrayList<DMatrixRMaj> biases = new ArrayList<>();
+        for (int l = 0; l < network.length - 1; l++) {
+            DMatrixRMaj w = new DMatrixRMaj(network[l+1], network[l]);
+            values.get(w.data);
+            weights.add(w);
+            DMatrixRMaj b = new DMatrixRMaj(network[l+1], 1);
+            values.get(b.data);
+            biases.add(b);
+        }
+        DMatrixRMaj inputScaleVector = new DMatrixRMaj(network[0], 1);
+        values.get(inputScaleVector.data);
+
+        mDescription = new String(description, Charset.forName("UTF-8"));
+        mNetwork = network;
+        mWeights = weights;
+        mBiases = biases;
+        mInputScaleVector = inputScaleVector;
+        mParameters = parameters;
+        mBatchActivations = null;
+        mInferenceActivations = null;
+    }
+
+    /**
+     * Size of the binary file header rounded up so the values that follow are 8 byte aligned
+     */
+    private static int binaryHeaderSize(int numLayers, int descriptionLength) {
+        int size = 4 + 4 + 4 + 8 + 4 + 4*numLayers + 4 + descriptionLength;
+        return (size + 7) & ~7;
+    }
+
     /**
      * Returns the name of the network at the time that it was last trained.
      */
@@ -155,6 +316,22 @@ public class NeuralNetwork implements Serializable {
      * @param costFunction to use either QUADRATIC_COST or CROSS_ENTROPY_COST
      */
     public NeuralNetwork(int network[],int costFunction) {
+        this(network,costFunction,new Random());
+    }
+
+    /**
+     * Creates a new neural network with randomized weights using the supplied seed.  Networks
+     * created with the same seed and trained on the same data produce the same result.
+     * @param network array containing number of nodes in each layer
+     * @param costFunction to use either QUADRATIC_COST or CROSS_ENTROPY_COST
+     * @param seed seed for the initial weights and the order samples are picked for each batch
+     */
+    public NeuralNetwork(int network[],int costFunction,long seed) {
+        this(network,costFunction,new Random(seed));
+    }
+
+    private NeuralNetwork(int network[],int costFunction,Random random) {
+        mRandom = random;
         mNetwork = network;
         mParameters.costFunction = costFunction;
         mWeights = new ArrayList<>();
@@ -163,9 +340,9 @@ public class NeuralNetwork implements Serializable {
         // And initialize the weigth and bias matrices
         for (int i = 0; i < network.length - 1; i++) {
             // Add a total of L-1 weight and bias matrices
-            SimpleMatrix w = SimpleMatrix.random_DDRM(network[i + 1], network[i], -1.0d, 1.0d, new Random());
+            SimpleMatrix w = SimpleMatrix.random_DDRM(network[i + 1], network[i], -1.0d, 1.0d, random);
             mWeights.add(w.getDDRM());
-            SimpleMatrix b = SimpleMatrix.random_DDRM(network[i + 1], 1, -1.0d, 1.0d, new Random());
+            SimpleMatrix b = SimpleMatrix.random_DDRM(network[i + 1], 1, -1.0d, 1.0d, random);
             mBiases.add(b.getDDRM());
         }
     }
@@ -197,30 +374,45 @@ public class NeuralNetwork implements Serializable {
         // Scale the data first and then run the feedForward algorithm
         DMatrixRMaj dm = rawInput.getDDRM();
         elementMult(dm,mInputScaleVector);
-        SimpleMatrix output = SimpleMatrix.wrap(feedForward(dm,null));
+        SimpleMatrix output = SimpleMatrix.wrap(feedForward(dm));
         return output;
     }
+
+    /**
+     * Allocation free runtime feedforward method.  Uses raw input data that has NOT been scaled
+     * with the normalization factors for this network and work space owned by the network, so
+     * it must not be called from more than one thread at a time.
+     * @param rawInput raw input node data, one element per input layer node.  Not modified.
+     * @param output array the output node activations are written to, one element per output
+     *               layer node
+     */
+    public void feedForward(double[] rawInput, double[] output){
+        if (mInferenceActivations == null) {
+            mInferenceActivations = new DMatrixRMaj[mNetwork.length];
+            for (int l = 0; l < mNetwork.length; l++) {
+                mInferenceActivations[l] = new DMatrixRMaj(mNetwork[l], 1);
+            }
+        }
+        DMatrixRMaj a_x0 = mInferenceActivations[0];
+        for (int i = 0; i < a_x0.numRows; i++) {
+            a_x0.data[i] = rawInput[i]*mInputScaleVector.data[i];
+        }
+        DMatrixRMaj a_L = feedForwardBatch(mInferenceActivations);
+        System.arraycopy(a_L.data, 0, output, 0, a_L.numRows);
+    }
+
     /**
-     * Training  feedfordward method. This method is used for training back-propogation only.
-     * This method does NOT scale the data and must have normalized input data.
+     * Single sample feedfordward method.  This method does NOT scale the data and must have
+     * normalized input data.
      *
      * Feedforward method loops through
      * z^x,l = w^l * a^x,l−1 + b^l and a^x,l=σ(z^x,l).
-     * This is the actual feedforward method that requires normalized input data and is
-     * called directly for training.  The other feedforward signature is used for runtime
-     * which takes unscaled raw input data.
      *
      * @param normalizedInput vector of normalized input node activations.
-     * @param activations reference to activation matrix to fill with values for training or
-     *                    nullfor run-time (and values will not be saved).
-     * @return vector of output node activations.  Only use for runtime.  Training uses the supplied list
+     * @return vector of output node activations.
      */
-    private DMatrixRMaj feedForward(DMatrixRMaj normalizedInput,ArrayList<DMatrixRMaj> activations) {
-        // Set the input and save in the activations array
+    private DMatrixRMaj feedForward(DMatrixRMaj normalizedInput) {
         DMatrixRMaj a_xlm1 = normalizedInput;
-        if (activations != null) {
-            activations.set(0, a_xlm1);
-        }
         // and loop L-1 times starting with layer 0 up to L-1
         for (int l = 0; l < mNetwork.length - 1; l++) {
             DMatrixRMaj wl = mWeights.get(l);
@@ -230,17 +422,71 @@ public class NeuralNetwork implements Serializable {
             mult(wl,a_xlm1,z_xl);
             add(z_xl,bl,z_xl);
 
-            DMatrixRMaj a_xl = sigma(z_xl);
-            // If training then save the resultant activations to the supplied matrix
-            if (activations != null)
-                activations.set(l+1,a_xl);
             // and save a^x,l as a^x,l-1 for time
-            a_xlm1 = a_xl;
+            a_xlm1 = sigma(z_xl);
         }
         // Return last computed activation matrix as the output node values.
         return a_xlm1;
     }
 
+    /**
+     * Runtime batch feedforward method.  Runs every sample through the network at once with a
+     * single matrix multiply per layer.  This method uses raw input data that has NOT been scaled
+     * with the normalization factors for this network.  Unlike feedForward(SimpleMatrix) the input
+     * is not modified.
+     * @param rawInput matrix of raw input node data with one sample per column.  Must have same
+     *                 number of rows as input layer nodes.
+     * @return matrix of output node activations with one column per sample.  The matrix is
+     *         reused by the network and is overwritten by the next call.
+     */
+    public DMatrixRMaj feedForwardBatch(DMatrixRMaj rawInput){
+        DMatrixRMaj[] activations = getBatchActivations(rawInput.numCols);
+        // Scale each row of the input by its normalization factor
+        DMatrixRMaj a_x0 = activations[0];
+        for (int row = 0; row < rawInput.numRows; row++) {
+            double scale = mInputScaleVector.get(row);
+            int index = row*rawInput.numCols;
+            int end = index + rawInput.numCols;
+            for (; index < end; index++) {
+                a_x0.data[index] = rawInput.data[index]*scale;
+            }
+        }
+        return feedForwardBatch(activations);
+    }
+
+    /**
+     * Batch feedforward of normalized input data already stored in activations[0].  Each layer
+     * computes Z^l = w^l * A^l−1 + b^l and A^l=σ(Z^l) with one column per sample.
+     * @param activations layer activation matrices all with the same number of columns
+     * @return output layer activations which is the last element of activations
+     */
+    private DMatrixRMaj feedForwardBatch(DMatrixRMaj[] activations) {
+        for (int l = 0; l < mNetwork.length - 1; l++) {
+            DMatrixRMaj z_l = activations[l+1];
+            mult(mWeights.get(l),activations[l],z_l);
+            addColumnVector(z_l,mBiases.get(l));
+            sigmaInPlace(z_l);
+        }
+        return activations[mNetwork.length - 1];
+    }
+
+    /**
+     * Returns the batch activation matrices sized for the number of samples.  Matrices only get
+     * reallocated when a larger batch than seen before is requested.
+     */
+    private DMatrixRMaj[] getBatchActivations(int numSamples) {
+        if (mBatchActivations == null) {
+            mBatchActivations = new DMatrixRMaj[mNetwork.length];
+            for (int l = 0; l < mNetwork.length; l++) {
+                mBatchActivations[l] = new DMatrixRMaj(mNetwork[l], numSamples);
+            }
+        }
+        for (int l = 0; l < mNetwork.length; l++) {
+            mBatchActivations[l].reshape(mNetwork[l], numSamples);
+        }
+        return mBatchActivations;
+    }
+
     /**
      * Computes current cost in the network.  This method is used for testing only.
      * @param a_xL Layer L activations returned from feedForward function
@@ -280,144 +526,138 @@ public class NeuralNetwork implements Serializable {
                 // Compute and accumulate the cross-entropy cost for this iteration according to:
                 // C=−1/n ∑x ∑j [y,j *ln(a^L,j)+(1−y,j)ln(1−a^L,j)]
                 cost = 0d;
-                for (int j = 0; j < yk.numCols; j++) {
+                for (int j = 0; j < yk.numRows; j++) {
                     cost = cost + (yk.get(j) * Math.log(a_xL.get(j)) + (1d - yk.get(j)) * Math.log(1d - a_xL.get(j)));
                 }
                 break;
         }
         return cost;
     }
+
     /**
-     * backpropogate
-     * @param x numInputs X batchsize matrix of input batch
+     * Backpropogates a minibatch with all samples processed at once as layer x batch size matrices.
+     * Upon entry activations[0] must contain the normalized input batch.
+     * @param activations layer activation matrices with one column per sample
      * @param y numOutputs x batchsize matrix of output values
      * @return cost computed for this minibatch
      */
-    private double backprop(DMatrixRMaj x, DMatrixRMaj y) {
-        // Loop through the mini-batch one sample at a time saving the activations and
-        // error deltas along the way
-
-        // Allocate the cost sum for the batch cost.
-        double costSum = 0;
-
-        for (int column = 0; column < x.numCols; column++) {
-            // Do the feedforward with a single column from x
-            DMatrixRMaj inputVector = new DMatrixRMaj(x.numRows, 1);
-            extractColumn(x, column, inputVector);
-            feedForward(inputVector, mActivations[column]);
-
-            // Step 1.  Compute the output error delta according to the cost function
-            // used for this network:
-            // For quadratic cost:  δ^x,L=∇aCx ⊙ σ′(z^x,L)
-            // For cross-entropy:  δ^x,L=∇aCx
-
-            // ∇aCx is just a^L(x)-y(x), the difference between the output activations and the y vector
-            DMatrixRMaj yk = new DMatrixRMaj(y.numRows, 1);
-            extractColumn(y, column, yk);
-            DMatrixRMaj dela_C = yk.createLike();
-            DMatrixRMaj a_xL = mActivations[column].get(mNetwork.length - 1);
-            subtract(a_xL, yk, dela_C);
-
-            // Now compute δ^x,L according to the cost function.
-            // Compute reused vectors first
-            DMatrixRMaj del_xl = new DMatrixRMaj(mNetwork[mNetwork.length - 1], 1);
-            DMatrixRMaj sigma_prime = sigma_prime(a_xL);
-            switch (mParameters.costFunction) {
-                case QUADRATIC_COST:
-                    // For quadratic, complete ⊙ σ′(z^x,L)
-                    elementMult(dela_C, sigma_prime, del_xl);
-                     break;
-                case CROSS_ENTROPY_COST:
-                default:
-                    // for cross entropy,  δ^x,L=∇aCx
-                    del_xl = dela_C;
-                    break;
-            }
-            //  save δ^x,L to the mDeltas matrix
-            mDeltas[column].set(mNetwork.length - 1, del_xl);
-
-            // Now compute and accumulate the cost on this cycle
-            costSum += computeUnscaledCostTerm(dela_C,a_xL,yk);
+    private double backprop(DMatrixRMaj[] activations, DMatrixRMaj y) {
+        int L = mNetwork.length - 1;
+        feedForwardBatch(activations);
+
+        // Step 1.  Compute the output error delta according to the cost function
+        // used for this network:
+        // For quadratic cost:  δ^x,L=∇aCx ⊙ σ′(z^x,L)
+        // For cross-entropy:  δ^x,L=∇aCx
+
+        // ∇aCx is just a^L(x)-y(x), the difference between the output activations and the y vector
+        DMatrixRMaj a_L = activations[L];
+        DMatrixRMaj del_L = mDeltas[L];
+        subtract(a_L, y, del_L);
+
+        // Now compute and accumulate the cost on this batch
+        double costSum = computeUnscaledBatchCost(del_L, a_L, y);
+
+        if (mParameters.costFunction == QUADRATIC_COST) {
+            // For quadratic, complete ⊙ σ′(z^x,L)
+            multSigmaPrime(del_L, a_L);
+        }
 
-            // Step 2. back propogate the error from L-1,...2 according to
-            // δ^x,l=((w^l+1)^T * δ^x,l+1) ⊙ σ′(z^x,l)
-            // where σ′(z^x,l) = σ(z^x,l)(1-σ(z^x,l)) = a^x,l(1-a^x,l)
-            for (int l = mNetwork.length - 2; l >= 0; l--) {
-                DMatrixRMaj wl1_T = new DMatrixRMaj(mNetwork[l], mNetwork[l + 1]);
-                transpose(mWeights.get(l), wl1_T);
+        // Step 2. back propogate the error from L-1,...2 according to
+        // δ^x,l=((w^l+1)^T * δ^x,l+1) ⊙ σ′(z^x,l)
+        // where σ′(z^x,l) = σ(z^x,l)(1-σ(z^x,l)) = a^x,l(1-a^x,l)
+        for (int l = L - 1; l >= 1; l--) {
+            multTransA(mWeights.get(l), mDeltas[l + 1], mDeltas[l]);
+            multSigmaPrime(mDeltas[l], activations[l]);
+        }
 
-                DMatrixRMaj del_xlm1 = new DMatrixRMaj(mNetwork[l], 1);
-                mult(wl1_T, del_xl, del_xlm1);
+        return scaleBatchCost(costSum, y.numCols);
+    }
 
-                sigma_prime = sigma_prime(mActivations[column].get(l));
-                elementMult(del_xlm1, sigma_prime);
+    /**
+     * Computes the cost of a batch of samples that have already been normalized, such as the test
+     * split from the training data.  The cost is scaled the same way as the training cost passed to
+     * the status listeners so the two can be compared.
+     * @param normalizedInput matrix of normalized input node data with one sample per column
+     * @param y matrix of truth values with one column per sample
+     * @return cost of the network over the batch
+     */
+    public double computeBatchCost(DMatrixRMaj normalizedInput, DMatrixRMaj y) {
+        DMatrixRMaj[] activations = getBatchActivations(normalizedInput.numCols);
+        activations[0].set(normalizedInput);
+        DMatrixRMaj a_L = feedForwardBatch(activations);
+        DMatrixRMaj dela_C = a_L.createLike();
+        subtract(a_L, y, dela_C);
+        return scaleBatchCost(computeUnscaledBatchCost(dela_C, a_L, y), y.numCols);
+    }
 
-                // Save error delta for use in Step 3
-                mDeltas[column].set(l, del_xlm1);
-                // shift delta for next layer down
-                del_xl = del_xlm1;
-            }
-        }
-        // complete finalize cost sum and return
-        double n = (double) x.numCols;
+    /**
+     * Finalizes the cost summed over n samples according to the cost function
+     */
+    private double scaleBatchCost(double costSum, int n) {
         switch (mParameters.costFunction) {
             case QUADRATIC_COST:
-                costSum = costSum / (2.0d * n);
-                return costSum;
+                return costSum / (2.0d * n);
             case CROSS_ENTROPY_COST:
             default:
-                costSum = -1d * costSum / n;
-                return costSum;
+                return -1d * costSum / n;
         }
     }
 
+    /**
+     * Sums computeUnscaledCostTerm() over every column of a batch
+     * @param dela_C matrix of ∇aC
+     * @param a_L Lth layer activation matrix
+     * @param y truth matrix
+     */
+    private double computeUnscaledBatchCost(DMatrixRMaj dela_C, DMatrixRMaj a_L, DMatrixRMaj y) {
+        double cost = 0;
+        int numCols = y.numCols;
+        for (int col = 0; col < numCols; col++) {
+            switch (mParameters.costFunction) {
+                case QUADRATIC_COST:
+                    double sumSq = 0;
+                    for (int row = 0; row < y.numRows; row++) {
+                        double d = dela_C.data[row*numCols+col];
+                        sumSq += d*d;
+                    }
+                    cost += Math.sqrt(sumSq);
+                    break;
+                case CROSS_ENTROPY_COST:
+                default:
+                    for (int row = 0; row < y.numRows; row++) {
+                        double yj = y.data[row*numCols+col];
+                        double aj = a_L.data[row*numCols+col];
+                        cost += yj * Math.log(aj) + (1d - yj) * Math.log(1d - aj);
+                    }
+                    break;
+            }
+        }
+        return cost;
+    }
+
     /**
      * stochastic gradient descent
      * Step 3.  Gradient descent, for each l=L,L−1,…,2
      * update weights according to: w^l→w^l−η/m * ∑ δ^x,l * (a^x,l−1)^T
      * and biases according to:  b^l→b^l−η/m ∑ δ^x,l
      *
-     * Upon entry mActivations and mDeltas contain lists of the activation and delta matrices
-     * from the last backpropogated network.
-     * @param batchSize The number of valid values in this batches mActivations and mDeltas lists
+     * With one column per sample the sum over the batch ∑ δ^x,l * (a^x,l−1)^T is the
+     * single product δ^l * (a^l−1)^T.
+     *
+     * Upon entry mDeltas and activations contain the matrices from the last backpropogated batch.
+     * @param activations layer activation matrices from the last backpropogated batch
+     * @param batchSize The number of samples in this batch
      */
-    private void sgd(int batchSize) {
+    private void sgd(DMatrixRMaj[] activations, int batchSize) {
         double eta_m = mParameters.eta /batchSize;
 
-        // Loop through the layers in reverse from L, L-1,...,2
-        // index l=0 corresponds to Layer 1
-        // Start with l->L-1 (then l+1 -> L)
         for(int l=mNetwork.length-2;l >= 0;l--){
-            // Create sum matrices for this layer
-            DMatrixRMaj wsum = mWeights.get(l).createLike();
-            wsum.zero();
-            DMatrixRMaj bsum = mBiases.get(l).createLike();
-            bsum.zero();
-            for(int i=0;i < batchSize;i++){
-                // Do the weights first
-                DMatrixRMaj del_xl = mDeltas[i].get(l+1);
-                DMatrixRMaj a_xlm1 = mActivations[i].get(l);
-
-                // compute (a^x,l−1)^T
-                DMatrixRMaj a_xlm1_T = new DMatrixRMaj(a_xlm1.numCols,a_xlm1.numRows);
-                transpose(a_xlm1,a_xlm1_T);
-                // δ^x,l * (a^x,l−1)^T
-                DMatrixRMaj wtemp = wsum.createLike();
-                mult(del_xl,a_xlm1_T,wtemp);
-                // And add the product
-                add(wsum,wtemp,wsum);
-                // multiply by eta/m
-                scale(eta_m,wsum,wtemp);
-                // and subtract off of the weight layer
-                subtract(mWeights.get(l),wtemp,mWeights.get(l));
-
-                // Now the bias updates
-                DMatrixRMaj btemp = bsum.createLike();
-                add(bsum,del_xl,bsum);
-                scale(eta_m,bsum,btemp);
-
-                subtract(mBiases.get(l),btemp,mBiases.get(l));
-            }
+            multTransB(mDeltas[l+1],activations[l],mWeightGradients[l]);
+            addEquals(mWeights.get(l),-eta_m,mWeightGradients[l]);
+
+            sumRows(mDeltas[l+1],mBiasGradients[l]);
+            addEquals(mBiases.get(l),-eta_m,mBiasGradients[l]);
         }
     }
 
@@ -438,17 +678,54 @@ public class NeuralNetwork implements Serializable {
     }
 
     /**
-     * Computes the derivative of the sigmoid from the sigmoid
-     * @param sigmaVector sigmoid vector computed from sigma function
-     * @return derivative vector
+     * Computes the sigmoid of every element of a matrix in place
      */
-    private DMatrixRMaj sigma_prime(DMatrixRMaj sigmaVector) {
-        // sigma' = sigma * (1 - sigma)
-        DMatrixRMaj sigmap = new DMatrixRMaj(sigmaVector.numRows,1);
-        fill(sigmap,1d);
-        subtract(sigmap,sigmaVector,sigmap);
-        elementMult(sigmap,sigmaVector);
-        return sigmap;
+    private static void sigmaInPlace(DMatrixRMaj z) {
+        int size = z.getNumElements();
+        for (int i = 0; i < size; i++) {
+            z.data[i] = 1d / (1d + Math.exp(-z.data[i]));
+        }
+    }
+
+    /**
+     * Adds the column vector b to every column of z
+     */
+    private static void addColumnVector(DMatrixRMaj z, DMatrixRMaj b) {
+        for (int row = 0; row < z.numRows; row++) {
+            double bias = b.data[row];
+            int index = row*z.numCols;
+            int end = index + z.numCols;
+            for (; index < end; index++) {
+                z.data[index] += bias;
+            }
+        }
+    }
+
+    /**
+     * Multiplies each element of delta by the derivative of the sigmoid computed from the sigmoid
+     * sigma' = sigma * (1 - sigma)
+     * @param delta matrix that is modified
+     * @param sigma matrix of sigmoid values computed from sigma function
+     */
+    private static void multSigmaPrime(DMatrixRMaj delta, DMatrixRMaj sigma) {
+        int size = delta.getNumElements();
+        for (int i = 0; i < size; i++) {
+            double s = sigma.data[i];
+            delta.data[i] *= s * (1d - s);
+        }
+    }
+
+    /**
+     * Copies the columns of src listed in columns[offset..offset+dst.numCols-1] into dst
+     */
+    private static void copyColumns(DMatrixRMaj src, int[] columns, int offset, DMatrixRMaj dst) {
+        for (int row = 0; row < src.numRows; row++) {
+            int srcRow = row*src.numCols;
+            int dstIndex = row*dst.numCols;
+            for (int col = 0; col < dst.numCols; col++) {
+                dst.data[dstIndex + col] = src.data[srcRow + columns[offset + col]];
+            }
+        }
     }
 
     /**
@@ -465,63 +742,78 @@ public class NeuralNetwork implements Serializable {
         mParameters.eta = eta;
         mInputScaleVector = xscale.getDDRM();
         mDescription = description;
+        if (mRandom == null) {
+            mRandom = new Random();
+        }
 
-        // Allocate the activation and delta matrices needed for backpropogation according to the batch size
-        mActivations = new ArrayList[batchSize];
-        mDeltas = new ArrayList[batchSize];
-        for (int i = 0; i < batchSize; i++) {
-            mActivations[i] = new ArrayList<>(mNetwork.length);
-            mDeltas[i] = new ArrayList<>(mNetwork.length);
-            // Initialize the lists with matrices
-            for(int l=0;l < mNetwork.length;l++){
-                mActivations[i].add(new DMatrixRMaj(mNetwork[l]));
-                mDeltas[i].add(new DMatrixRMaj(mNetwork[l]));
-            }
+        // Allocate the delta and gradient matrices needed for backpropogation according to the batch size
+        int L = mNetwork.length - 1;
+        mDeltas = new DMatrixRMaj[mNetwork.length];
+        for (int l = 1; l <= L; l++) {
+            mDeltas[l] = new DMatrixRMaj(mNetwork[l], batchSize);
+        }
+        mYBatch = new DMatrixRMaj(mNetwork[L], batchSize);
+        mWeightGradients = new DMatrixRMaj[L];
+        mBiasGradients = new DMatrixRMaj[L];
+        for (int l = 0; l < L; l++) {
+            mWeightGradients[l] = mWeights.get(l).createLike();
+            mBiasGradients[l] = mBiases.get(l).createLike();
         }
+
+        DMatrixRMaj xd = x.getDDRM();
+        DMatrixRMaj yd = y.getDDRM();
+        int numSamples = xd.numCols;
+        double del_L[] = new double[mNetwork[L]];
+
         // Loop through the epochs with one mini-batch at a time
         for (int epochIndex = 0; epochIndex < numEpochs; epochIndex++) {
             // Start a new epoch
 
-            // shuffle data every epoch
-            // shuffle the training data to randomize the batch picks
-            int[] columns = NeuralNetworkMatrixUtils.genShuffleColumnIndexVector(y.numCols());
-            x = NeuralNetworkMatrixUtils.shuffleMatrix(x, columns);
-            y = NeuralNetworkMatrixUtils.shuffleMatrix(y, columns);
+            // shuffle the order the training data is picked for the batches every epoch
+            int[] columns = NeuralNetworkMatrixUtils.genShuffleColumnIndexVector(numSamples, mRandom);
 
             int batchColumnIndex = 0;
 
             boolean continueBatch = true;
             int lastBatchSize = 0;
             double cost = 0d;
+            DMatrixRMaj[] activations = null;
             while (continueBatch) {
                 // Get next batch of training data
-                int remain = x.numCols() - batchColumnIndex;
+                int remain = numSamples - batchColumnIndex;
                 lastBatchSize = batchSize;
                 if (remain <= batchSize) {
                     lastBatchSize = remain;
                     // Clear continueBatch to drop out of the loop after this one
                     continueBatch = false;
                 }
-                int batchEndColumn = batchColumnIndex + lastBatchSize;
-                DMatrixRMaj xbatch = x.cols(batchColumnIndex, batchEndColumn).getDDRM();
-                DMatrixRMaj ybatch = y.cols(batchColumnIndex, batchEndColumn).getDDRM();
+                // Size the batch matrices.  Only the last batch of an epoch can be smaller
+                activations = getBatchActivations(lastBatchSize);
+                for (int l = 1; l <= L; l++) {
+                    mDeltas[l].reshape(mNetwork[l], lastBatchSize);
+                }
+                mYBatch.reshape(mNetwork[L], lastBatchSize);
+                copyColumns(xd, columns, batchColumnIndex, activations[0]);
+                copyColumns(yd, columns, batchColumnIndex, mYBatch);
+
                 // backprop the batch and accumulate the cost on this batch for the epoch
-                cost += backprop(xbatch, ybatch);
+                cost += backprop(activations, mYBatch);
 
                 // do stochastic gradient descent iteration on this batch
-                sgd(lastBatchSize);
+                sgd(activations, lastBatchSize);
 
                 // Update the batchColumnIndex for next run
-                batchColumnIndex = batchEndColumn;
+                batchColumnIndex += lastBatchSize;
             }
             // Compute and save the output error for this epoch to the log array using
             // the error deltas from the last layer of the last entry in the last batch
-            DMatrixRMaj lastDelta = mDeltas[lastBatchSize - 1].get(mNetwork.length - 1);
-            double del_L[] = new double[lastDelta.numRows];
+            DMatrixRMaj lastDelta = mDeltas[L];
+            double sumSq = 0;
             for (int i = 0; i < lastDelta.numRows; i++) {
-                del_L[i] = lastDelta.get(i, 0);
+                del_L[i] = lastDelta.get(i, lastBatchSize - 1);
+                sumSq += del_L[i]*del_L[i];
             }
-            double normalError = SimpleMatrix.wrap(lastDelta).normF();
+            double normalError = Math.sqrt(sumSq);
             // And notify the status listeners
             for (Iterator<ITrainingStatusListener> iter = mTrainingStatusListeners.iterator(); iter.hasNext(); ) {
                 ITrainingStatusListener listener = iter.next();
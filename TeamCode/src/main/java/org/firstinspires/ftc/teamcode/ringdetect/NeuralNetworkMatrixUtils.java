@@ -23,11 +23,21 @@ package org.firstinspires.ftc.teamcode.ringdetect;
 import org.ejml.data.DMatrixRMaj;
 import org.ejml.simple.SimpleMatrix;
 
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
 public class NeuralNetworkMatrixUtils {
     /**
      * generates a shuffled vector of columns for use in shuffling data
      */
     public static int[] genShuffleColumnIndexVector(int length) {
+        return genShuffleColumnIndexVector(length, ThreadLocalRandom.current());
+    }
+
+    /**
+     * generates a shuffled vector of columns using the supplied random number generator
+     */
+    public static int[] genShuffleColumnIndexVector(int length, Random random) {
         int[] retarray = new int[length];
         for (int i = 0; i < retarray.length; i++) {
             retarray[i] = i;
@@ -35,8 +45,8 @@ public class NeuralNetworkMatrixUtils {
 
         // Now shuffle them in a loop
         for (int i = 0; i < 20 * length; i++) {
-            int swapCol1 = 1 + (int) (Math.random() * length - 1);
-            int swapCol2 = 1 + (int) (Math.random() * length - 1);
+            int swapCol1 = 1 + (int) (random.nextDouble() * length - 1);
+            int swapCol2 = 1 + (int) (random.nextDouble() * length - 1);
             int col2Val = retarray[swapCol2];
             retarray[swapCol2] = retarray[swapCol1];
             retarray[swapCol1] = col2Val;
@@ -0,0 +1,154 @@
+package org.firstinspires.ftc.teamcode.ringdetect;
+
+/**
+ * Filters a stream of ring detector network outputs over a sliding window.  The output
+ * activations of the last windowSize samples are summed per class and the confidence of a class
+ * is its share of the total, so the confidences add up to 1 like a posterior.  A result is
+ * declared as soon as enough samples have been seen and one class's confidence reaches the
+ * threshold, which lets autonomous commit as soon as the detector agrees with itself instead of
+ * waiting a fixed time.
+ *
+ * Samples are kept in a ring buffer of primitive arrays and the sums are updated by subtracting
+ * the sample that leaves the window, so update() is O(1) and does not allocate.
+ */
+public class RingDetectionFilter {
+
+    private final int mNumClasses;
+    private final double mThreshold;
+    private final int mMinSamples;
+
+    // Ring buffer of the outputs in the window, one row per sample
+    private final double[][] mWindow;
+    // Sum of each class over the samples in the window
+    private final double[] mSums;
+    // Index of the row the next sample is written to
+    private int mHead = 0;
+    // Number of samples in the window
+    private int mCount = 0;
+
+    /**
+     * @param windowSize number of samples in the sliding window
+     * @param threshold confidence between 0 and 1 a class must reach to be declared
+     * @param minSamples number of samples needed before a result is declared
+     */
+    public RingDetectionFilter(int windowSize, double threshold, int minSamples) {
+        this(RingDetectorNeuralNetwork.NUM_OUTPUTS, windowSize, threshold, minSamples);
+    }
+
+    /**
+     * @param numClasses number of network outputs
+     * @param windowSize number of samples in the sliding window
+     * @param threshold confidence between 0 and 1 a class must reach to be declared
+     * @param minSamples number of samples needed before a result is declared
+     */
+    public RingDetectionFilter(int numClasses, int windowSize, double threshold, int minSamples) {
+        if (windowSize <= 0)
+            throw new IllegalArgumentException("windowSize must be positive");
+        if (minSamples > windowSize)
+            throw new IllegalArgumentException("minSamples can't be larger than windowSize");
+        mNumClasses = numClasses;
+        mThreshold = threshold;
+        mMinSamples = minSamples;
+        mWindow = new double[windowSize][numClasses];
+        mSums = new double[numClasses];
+    }
+
+    /**
+     * Adds a sample to the window, dropping the oldest sample once the window is full.
+     * @param outputs network output activations, one per class
+     * @return the filtered result, see getResult()
+     */
+    public int update(double[] outputs) {
+        double[] row = mWindow[mHead];
+        boolean full = mCount == mWindow.length;
+        for (int i = 0; i < mNumClasses; i++) {
+            if (full) {
+                mSums[i] -= row[i];
+            }
+            row[i] = outputs[i];
+            mSums[i] += outputs[i];
+        }
+        if (!full) {
+            mCount++;
+        }
+        mHead++;
+        if (mHead == mWindow.length) {
+            mHead = 0;
+            // Recompute the sums once per trip around the buffer so round off from the running
+            // subtraction can't accumulate.  Amortized this is still O(1) per update.
+            recomputeSums();
+        }
+        return getResult();
+    }
+
+    /**
+     * Returns the class whose confidence has reached the threshold or UNKNOWN if there isn't
+     * one yet or fewer than minSamples samples have been seen.
+     */
+    public int getResult() {
+        if (mCount < mMinSamples)
+            return RingDetectorNeuralNetwork.UNKNOWN;
+        int best = getBestClass();
+        if (best == RingDetectorNeuralNetwork.UNKNOWN || getConfidence(best) < mThreshold)
+            return RingDetectorNeuralNetwork.UNKNOWN;
+        return best;
+    }
+
+    /**
+     * Returns the class with the highest confidence regardless of the threshold or UNKNOWN if the
+     * window is empty.
+     */
+    public int getBestClass() {
+        int best = RingDetectorNeuralNetwork.UNKNOWN;
+        double max = 0d;
+        for (int i = 0; i < mNumClasses; i++) {
+            if (mSums[i] > max) {
+                max = mSums[i];
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the share of the summed activations in the window belonging to the class, between
+     * 0 and 1.
+     */
+    public double getConfidence(int classIndex) {
+        double total = 0d;
+        for (int i = 0; i < mNumClasses; i++) {
+            total += mSums[i];
+        }
+        if (total <= 0d)
+            return 0d;
+        return mSums[classIndex] / total;
+    }
+
+    /**
+     * Returns the number of samples currently in the window
+     */
+    public int getSampleCount() {
+        return mCount;
+    }
+
+    /**
+     * Empties the window, for example when the robot moves to a new stack.
+     */
+    public void reset() {
+        mHead = 0;
+        mCount = 0;
+        for (int i = 0; i < mNumClasses; i++) {
+            mSums[i] = 0d;
+        }
+    }
+
+    private void recomputeSums() {
+        for (int i = 0; i < mNumClasses; i++) {
+            double sum = 0d;
+            for (int j = 0; j < mCount; j++) {
+                sum += mWindow[j][i];
+            }
+            mSums[i] = sum;
+        }
+    }
+}
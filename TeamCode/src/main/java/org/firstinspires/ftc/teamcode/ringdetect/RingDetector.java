@@ -4,8 +4,6 @@ import com.qualcomm.hardware.rev.RevColorSensorV3;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 import com.qualcomm.robotcore.hardware.DistanceSensor;
 
-import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
-
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
@@ -21,6 +19,9 @@ public class RingDetector {
 
     private boolean mDistanceSensorEnabled = false;
     private boolean mMidColorSensorEnabled = false;
+    // Log every inference to /sdcard/logs/ringnnlog.csv.  Off by default since each logged
+    // inference formats a line of text.
+    private boolean mLogInferences = false;
 
     private RingDetectorNeuralNetwork mNetwork = null;
     private OpMode mOpMode = null;
@@ -29,11 +30,28 @@ public class RingDetector {
     private RevColorSensorV3 mMidColorSensor;
     private DistanceSensor mDistanceSensor;
 
+    // Sensor values read once per loop and shared by the inference and the telemetry
+    private RingSensorSnapshot mSnapshot = null;
+
+    // Network input data reused by every inference
+    private final RingDetectorNeuralNetwork.AllSensorInputData mAllSensorData = new RingDetectorNeuralNetwork.AllSensorInputData();
+    private final RingDetectorNeuralNetwork.NoDistanceSensorInputData mNoDistanceSensorData = new RingDetectorNeuralNetwork.NoDistanceSensorInputData();
+    private final RingDetectorNeuralNetwork.NoMidInputData mNoMidData = new RingDetectorNeuralNetwork.NoMidInputData();
+    private final RingDetectorNeuralNetwork.TopBottomOnlyInputData mTopBottomOnlyData = new RingDetectorNeuralNetwork.TopBottomOnlyInputData();
+
     public RingDetector(int ringDetectorConfiguration,OpMode opMode) {
         mOpMode = opMode;
         mRingDetectorConfiguration = ringDetectorConfiguration;
     }
 
+    /**
+     * Enables logging of every inference for collecting network development data.  Must be
+     * called before init().
+     */
+    public void setLogInferences(boolean logInferences) {
+        mLogInferences = logInferences;
+    }
+
     public void init() throws Exception {
         String initErrString = "";
         // Enabled/disable sensors
@@ -57,7 +75,7 @@ public class RingDetector {
         }
         try {
             File nnFilePath = new File("/sdcard/nnfiles");
-            File nnLogFile = new File("/sdcard/logs/ringnnlog.csv");
+            File nnLogFile = mLogInferences ? new File("/sdcard/logs/ringnnlog.csv") : null;
             mNetwork = new RingDetectorNeuralNetwork(nnFilePath, mRingDetectorConfiguration, nnLogFile);
         } catch (Exception e) {
             initErrString += e.getMessage();
@@ -92,6 +110,11 @@ public class RingDetector {
         if (mMidColorSensorEnabled)
             configureColorSensor(mMidColorSensor);
 
+        mSnapshot = new RingSensorSnapshot(RingSensorSnapshot.wrapColorSensor(mTopColorSensor),
+                mMidColorSensorEnabled ? RingSensorSnapshot.wrapColorSensor(mMidColorSensor) : null,
+                RingSensorSnapshot.wrapColorSensor(mBottomColorSensor),
+                mDistanceSensorEnabled ? RingSensorSnapshot.wrapDistanceSensor(mDistanceSensor) : null);
+
         if (initErrString.length() > 0) {
             throw new Exception(initErrString);
         }
@@ -111,51 +134,94 @@ public class RingDetector {
     }
 
     /**
-     * Called for logging to telemetry.
+     * Used by test code to read from stand in sensors instead of the hardware map.
+     */
+    void setSensorSnapshot(RingSensorSnapshot snapshot) {
+        mSnapshot = snapshot;
+    }
+
+    /**
+     * Used by test code to supply a network without reading it from the robot controller.
+     */
+    void setNeuralNetwork(RingDetectorNeuralNetwork network) {
+        mNetwork = network;
+    }
+
+    /**
+     * Returns the confidence of the last readDetector() result, the network output of the
+     * detected class between 0 and 1.
+     */
+    public double getLastConfidence() {
+        return mNetwork.getLastConfidence();
+    }
+
+    /**
+     * Copies the network outputs of the last readDetector() call into output, for example to
+     * feed a RingDetectionFilter.
+     * @param output array of length RingDetectorNeuralNetwork.NUM_OUTPUTS
+     */
+    public void getLastOutput(double[] output) {
+        mNetwork.getLastOutput(output);
+    }
+
+    /**
+     * Returns the sensor values read by the last call to readSensors() or readDetector()
+     */
+    public RingSensorSnapshot getSensorSnapshot() {
+        return mSnapshot;
+    }
+
+    /**
+     * Reads every sensor once into the sensor snapshot.
+     */
+    public void readSensors() {
+        mSnapshot.read();
+    }
+
+    /**
+     * Called for logging to telemetry.  Reports the sensor values from the last call to
+     * readSensors() or readDetector() rather than reading the sensors again.
      *
      * @return formatted string of current color sensor readings
      */
     public String getTelemetryString() {
-        String s = "Top: {" + formatSensorValue(mTopColorSensor.getNormalizedColors().red) +
-                ":" + formatSensorValue(mTopColorSensor.getNormalizedColors().green) +
-                ":" + formatSensorValue(mTopColorSensor.getNormalizedColors().blue) +
-                ":" + formatColorDistance(mTopColorSensor) +
+        RingSensorSnapshot snapshot = mSnapshot;
+        String s = "Top: {" + formatSensorValue(snapshot.topColorRed) +
+                ":" + formatSensorValue(snapshot.topColorGreen) +
+                ":" + formatSensorValue(snapshot.topColorBlue) +
+                ":" + formatSensorValue(snapshot.topDistanceMM) +
                 "}";
-        s += "\nBottom: {" + formatSensorValue(mBottomColorSensor.getNormalizedColors().red) +
-                ":" + formatSensorValue(mBottomColorSensor.getNormalizedColors().green) +
-                ":" + formatSensorValue(mBottomColorSensor.getNormalizedColors().blue) +
-                "," + formatColorDistance(mBottomColorSensor) +
+        s += "\nBottom: {" + formatSensorValue(snapshot.bottomColorRed) +
+                ":" + formatSensorValue(snapshot.bottomColorGreen) +
+                ":" + formatSensorValue(snapshot.bottomColorBlue) +
+                "," + formatSensorValue(snapshot.bottomDistanceMM) +
                 "}";
-        if (mMidColorSensorEnabled) {
-            s += "\nMiddle: {" + formatSensorValue(mMidColorSensor.getNormalizedColors().red) +
-                    ":" + formatSensorValue(mMidColorSensor.getNormalizedColors().green) +
-                    ":" + formatSensorValue(mMidColorSensor.getNormalizedColors().blue) +
-                    ":" + formatColorDistance(mMidColorSensor) +
+        if (snapshot.hasMidColorSensor()) {
+            s += "\nMiddle: {" + formatSensorValue(snapshot.midColorRed) +
+                    ":" + formatSensorValue(snapshot.midColorGreen) +
+                    ":" + formatSensorValue(snapshot.midColorBlue) +
+                    ":" + formatSensorValue(snapshot.midDistanceMM) +
                     "}";
         }
-        if (mDistanceSensorEnabled) {
-            s += "\nDistance=" + String.format("%.01f mm", mDistanceSensor.getDistance(DistanceUnit.MM));
+        if (snapshot.hasDistanceSensor()) {
+            s += "\nDistance=" + String.format("%.01f mm", snapshot.distanceSensorMM);
         }
         return s;
     }
 
-
-    private String formatColorDistance(RevColorSensorV3 sensor) {
-        return formatSensorValue((float) sensor.getDistance(DistanceUnit.MM));
-    }
-
     // formats the numbers into a string to be able to print in telemetry
-    private String formatSensorValue(float value) {
-        return String.format("%.5f", value);
+    private String formatSensorValue(double value) {
+        return String.format("%.5f", (float) value);
     }
 
     /**
-     * Called to read the sensors and do an inference.
+     * Called to read the sensors once and do an inference.
      *
      * @return the result according to the codes in {@link RingDetectorNeuralNetwork}
      */
     public int readDetector() {
-        // Read all the sensors into a measurement object for the network
+        readSensors();
+        // Copy the sensor readings into the input data for the network
         switch (mRingDetectorConfiguration) {
             case RingDetectorNeuralNetwork.ALL_SENSORS:
                 return doAllSensorReadDetector();
@@ -171,64 +237,68 @@ public class RingDetector {
     }
 
     private int doAllSensorReadDetector() {
-        RingDetectorNeuralNetwork.AllSensorInputData data = new RingDetectorNeuralNetwork.AllSensorInputData();
-        data.topColorRed = mTopColorSensor.getNormalizedColors().red;
-        data.topColorBlue = mTopColorSensor.getNormalizedColors().blue;
-        data.topColorGreen = mTopColorSensor.getNormalizedColors().green;
-        data.topDistanceMM = mTopColorSensor.getDistance(DistanceUnit.MM);
-        data.midColorRed = mMidColorSensor.getNormalizedColors().red;
-        data.midColorBlue = mMidColorSensor.getNormalizedColors().blue;
-        data.midColorGreen = mMidColorSensor.getNormalizedColors().green;
-        data.midDistanceMM = mMidColorSensor.getDistance(DistanceUnit.MM);
-        data.bottomColorRed = mBottomColorSensor.getNormalizedColors().red;
-        data.bottomColorBlue = mBottomColorSensor.getNormalizedColors().blue;
-        data.bottomColorGreen = mBottomColorSensor.getNormalizedColors().green;
-        data.bottomDistanceMM = mBottomColorSensor.getDistance(DistanceUnit.MM);
-        data.distanceSensorMM = mDistanceSensor.getDistance(DistanceUnit.MM);
+        RingSensorSnapshot snapshot = mSnapshot;
+        RingDetectorNeuralNetwork.AllSensorInputData data = mAllSensorData;
+        data.topColorRed = snapshot.topColorRed;
+        data.topColorBlue = snapshot.topColorBlue;
+        data.topColorGreen = snapshot.topColorGreen;
+        data.topDistanceMM = snapshot.topDistanceMM;
+        data.midColorRed = snapshot.midColorRed;
+        data.midColorBlue = snapshot.midColorBlue;
+        data.midColorGreen = snapshot.midColorGreen;
+        data.midDistanceMM = snapshot.midDistanceMM;
+        data.bottomColorRed = snapshot.bottomColorRed;
+        data.bottomColorBlue = snapshot.bottomColorBlue;
+        data.bottomColorGreen = snapshot.bottomColorGreen;
+        data.bottomDistanceMM = snapshot.bottomDistanceMM;
+        data.distanceSensorMM = snapshot.distanceSensorMM;
         return mNetwork.doInference(data);
     }
 
     private int doNoDistanceSensorReadDetector() {
-        RingDetectorNeuralNetwork.NoDistanceSensorInputData data = new RingDetectorNeuralNetwork.NoDistanceSensorInputData();
-        data.topColorRed = mTopColorSensor.getNormalizedColors().red;
-        data.topColorBlue = mTopColorSensor.getNormalizedColors().blue;
-        data.topColorGreen = mTopColorSensor.getNormalizedColors().green;
-        data.topDistanceMM = mTopColorSensor.getDistance(DistanceUnit.MM);
-        data.midColorRed = mMidColorSensor.getNormalizedColors().red;
-        data.midColorBlue = mMidColorSensor.getNormalizedColors().blue;
-        data.midColorGreen = mMidColorSensor.getNormalizedColors().green;
-        data.midDistanceMM = mMidColorSensor.getDistance(DistanceUnit.MM);
-        data.bottomColorRed = mBottomColorSensor.getNormalizedColors().red;
-        data.bottomColorBlue = mBottomColorSensor.getNormalizedColors().blue;
-        data.bottomColorGreen = mBottomColorSensor.getNormalizedColors().green;
-        data.bottomDistanceMM = mBottomColorSensor.getDistance(DistanceUnit.MM);
+        RingSensorSnapshot snapshot = mSnapshot;
+        RingDetectorNeuralNetwork.NoDistanceSensorInputData data = mNoDistanceSensorData;
+        data.topColorRed = snapshot.topColorRed;
+        data.topColorBlue = snapshot.topColorBlue;
+        data.topColorGreen = snapshot.topColorGreen;
+        data.topDistanceMM = snapshot.topDistanceMM;
+        data.midColorRed = snapshot.midColorRed;
+        data.midColorBlue = snapshot.midColorBlue;
+        data.midColorGreen = snapshot.midColorGreen;
+        data.midDistanceMM = snapshot.midDistanceMM;
+        data.bottomColorRed = snapshot.bottomColorRed;
+        data.bottomColorBlue = snapshot.bottomColorBlue;
+        data.bottomColorGreen = snapshot.bottomColorGreen;
+        data.bottomDistanceMM = snapshot.bottomDistanceMM;
         return mNetwork.doInference(data);
     }
 
     private int doNoMidSensorReadDetector() {
-        RingDetectorNeuralNetwork.NoMidInputData data = new RingDetectorNeuralNetwork.NoMidInputData();
-        data.topColorRed = mTopColorSensor.getNormalizedColors().red;
-        data.topColorBlue = mTopColorSensor.getNormalizedColors().blue;
-        data.topColorGreen = mTopColorSensor.getNormalizedColors().green;
-        data.topDistanceMM = mTopColorSensor.getDistance(DistanceUnit.MM);
-        data.bottomColorRed = mBottomColorSensor.getNormalizedColors().red;
-        data.bottomColorBlue = mBottomColorSensor.getNormalizedColors().blue;
-        data.bottomColorGreen = mBottomColorSensor.getNormalizedColors().green;
-        data.bottomDistanceMM = mBottomColorSensor.getDistance(DistanceUnit.MM);
-        data.distanceSensorMM = mDistanceSensor.getDistance(DistanceUnit.MM);
+        RingSensorSnapshot snapshot = mSnapshot;
+        RingDetectorNeuralNetwork.NoMidInputData data = mNoMidData;
+        data.topColorRed = snapshot.topColorRed;
+        data.topColorBlue = snapshot.topColorBlue;
+        data.topColorGreen = snapshot.topColorGreen;
+        data.topDistanceMM = snapshot.topDistanceMM;
+        data.bottomColorRed = snapshot.bottomColorRed;
+        data.bottomColorBlue = snapshot.bottomColorBlue;
+        data.bottomColorGreen = snapshot.bottomColorGreen;
+        data.bottomDistanceMM = snapshot.bottomDistanceMM;
+        data.distanceSensorMM = snapshot.distanceSensorMM;
         return mNetwork.doInference(data);
     }
 
     private int doTopBottomOnlyReadDetector() {
-        RingDetectorNeuralNetwork.TopBottomOnlyInputData data = new RingDetectorNeuralNetwork.TopBottomOnlyInputData();
-        data.topColorRed = mTopColorSensor.getNormalizedColors().red;
-        data.topColorBlue = mTopColorSensor.getNormalizedColors().blue;
-        data.topColorGreen = mTopColorSensor.getNormalizedColors().green;
-        data.topDistanceMM = mTopColorSensor.getDistance(DistanceUnit.MM);
-        data.bottomColorRed = mBottomColorSensor.getNormalizedColors().red;
-        data.bottomColorBlue = mBottomColorSensor.getNormalizedColors().blue;
-        data.bottomColorGreen = mBottomColorSensor.getNormalizedColors().green;
-        data.bottomDistanceMM = mBottomColorSensor.getDistance(DistanceUnit.MM);
+        RingSensorSnapshot snapshot = mSnapshot;
+        RingDetectorNeuralNetwork.TopBottomOnlyInputData data = mTopBottomOnlyData;
+        data.topColorRed = snapshot.topColorRed;
+        data.topColorBlue = snapshot.topColorBlue;
+        data.topColorGreen = snapshot.topColorGreen;
+        data.topDistanceMM = snapshot.topDistanceMM;
+        data.bottomColorRed = snapshot.bottomColorRed;
+        data.bottomColorBlue = snapshot.bottomColorBlue;
+        data.bottomColorGreen = snapshot.bottomColorGreen;
+        data.bottomDistanceMM = snapshot.bottomDistanceMM;
         return mNetwork.doInference(data);
     }
 
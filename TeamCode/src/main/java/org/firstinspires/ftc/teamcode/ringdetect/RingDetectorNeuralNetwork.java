@@ -1,5 +1,6 @@
 package org.firstinspires.ftc.teamcode.ringdetect;
 
+import org.ejml.data.DMatrixRMaj;
 import org.ejml.simple.SimpleMatrix;
 
 import java.io.File;
@@ -20,6 +21,8 @@ public class RingDetectorNeuralNetwork extends NeuralNetwork {
     public static final int FOUR_RINGS = 2;
     // Detection value for unknown
     public static final int UNKNOWN = -1;
+    // Number of output nodes, one per detection value
+    public static final int NUM_OUTPUTS = 3;
 
     // Sensor configuration with all sensors
     public static final int ALL_SENSORS = 0;
@@ -113,6 +116,13 @@ public class RingDetectorNeuralNetwork extends NeuralNetwork {
 
     private FileWriter mLogWriter = null;
 
+    // Network output of the class picked by the last inference
+    private double mLastConfidence = 0d;
+    // Output node activations of the last inference
+    private final double[] mLastOutput = new double[NUM_OUTPUTS];
+    // Input vector reused by the *InputData inferences
+    private double[] mInput = null;
+
     /**
      * @param nnFilePath path to neural network files
      * @param sensorConfig enum of current sensor config.
@@ -122,10 +132,19 @@ public class RingDetectorNeuralNetwork extends NeuralNetwork {
     public RingDetectorNeuralNetwork(File nnFilePath,int sensorConfig,File logFile) throws Exception {
         mSensorConfiguration = sensorConfig;
         File nnFile = new File(nnFilePath,getNeuralNetworkFilename(mSensorConfiguration));
+        File binaryFile = new File(nnFilePath,getNeuralNetworkBinaryFilename(mSensorConfiguration));
         try {
-            // Open the file and deserialize the network
-            InputStream is = new FileInputStream(nnFile);
-            deserializeNetwork(is);
+            if (binaryFile.exists()) {
+                // Memory map the flat binary network which is much faster to load
+                readBinary(binaryFile);
+            }
+            else {
+                // Open the file and deserialize the network
+                InputStream is = new FileInputStream(nnFile);
+                deserializeNetwork(is);
+                is.close();
+            }
+            mInput = new double[getInputScaleVector().numRows];
 
             // And initialize the logging files
             if (logFile != null) {
@@ -201,6 +220,21 @@ public class RingDetectorNeuralNetwork extends NeuralNetwork {
         }
         return name;
     }
+
+    /**
+     * Return the flat binary neural network filename, the serialized network filename with the
+     * NeuralNetwork.BINARY_EXTENSION extension.
+     * @param networkConfiguration the neural network configuration
+     * @return filename of the binary neural network file
+     */
+    public static String getNeuralNetworkBinaryFilename(int networkConfiguration){
+        String name = getNeuralNetworkFilename(networkConfiguration);
+        if (name == null) {
+            return null;
+        }
+        return name.substring(0,name.lastIndexOf('.')) + BINARY_EXTENSION;
+    }
+
     private void initLogFile(File logFile) throws IOException{
         if (logFile.exists()) {
             logFile.delete();
@@ -296,21 +330,21 @@ public class RingDetectorNeuralNetwork extends NeuralNetwork {
      * @returns NO_RING, ONE_RING, or FOUR_RINGS, or UNKNOWN
      */
     public int doInference(AllSensorInputData measurementData) {
-        SimpleMatrix x = new SimpleMatrix(ALL_SENSORS_INPUT_ROWS, 1);
-        x.set(ALL_SENSORS_DISTANCE_ROW_INDEX, measurementData.distanceSensorMM);
-        x.set(ALL_SENSORS_TOP_RED_ROW_INDEX, measurementData.topColorRed);
-        x.set(ALL_SENSORS_TOP_BLUE_ROW_INDEX, measurementData.topColorBlue);
-        x.set(ALL_SENSORS_TOP_GREEN_ROW_INDEX, measurementData.topColorGreen);
-        x.set(ALL_SENSORS_TOP_DISTANCE_ROW_INDEX, measurementData.topDistanceMM);
-        x.set(ALL_SENSORS_MID_RED_ROW_INDEX, measurementData.midColorRed);
-        x.set(ALL_SENSORS_MID_BLUE_ROW_INDEX, measurementData.midColorBlue);
-        x.set(ALL_SENSORS_MID_GREEN_ROW_INDEX, measurementData.midColorGreen);
-        x.set(ALL_SENSORS_MID_DISTANCE_ROW_INDEX, measurementData.midDistanceMM);
-        x.set(ALL_SENSORS_BOTTOM_RED_ROW_INDEX, measurementData.bottomColorRed);
-        x.set(ALL_SENSORS_BOTTOM_BLUE_ROW_INDEX, measurementData.bottomColorBlue);
-        x.set(ALL_SENSORS_BOTTOM_GREEN_ROW_INDEX, measurementData.bottomColorGreen);
-        x.set(ALL_SENSORS_BOTTOM_DISTANCE_ROW_INDEX, measurementData.bottomDistanceMM);
-        return doInference(x);
+        double[] x = mInput;
+        x[ALL_SENSORS_DISTANCE_ROW_INDEX] = measurementData.distanceSensorMM;
+        x[ALL_SENSORS_TOP_RED_ROW_INDEX] = measurementData.topColorRed;
+        x[ALL_SENSORS_TOP_BLUE_ROW_INDEX] = measurementData.topColorBlue;
+        x[ALL_SENSORS_TOP_GREEN_ROW_INDEX] = measurementData.topColorGreen;
+        x[ALL_SENSORS_TOP_DISTANCE_ROW_INDEX] = measurementData.topDistanceMM;
+        x[ALL_SENSORS_MID_RED_ROW_INDEX] = measurementData.midColorRed;
+        x[ALL_SENSORS_MID_BLUE_ROW_INDEX] = measurementData.midColorBlue;
+        x[ALL_SENSORS_MID_GREEN_ROW_INDEX] = measurementData.midColorGreen;
+        x[ALL_SENSORS_MID_DISTANCE_ROW_INDEX] = measurementData.midDistanceMM;
+        x[ALL_SENSORS_BOTTOM_RED_ROW_INDEX] = measurementData.bottomColorRed;
+        x[ALL_SENSORS_BOTTOM_BLUE_ROW_INDEX] = measurementData.bottomColorBlue;
+        x[ALL_SENSORS_BOTTOM_GREEN_ROW_INDEX] = measurementData.bottomColorGreen;
+        x[ALL_SENSORS_BOTTOM_DISTANCE_ROW_INDEX] = measurementData.bottomDistanceMM;
+        return doInference(x, null);
     }
     /**
      * Performs a measurement for the NO_MID_COLOR_SENSOR configuration.
@@ -318,17 +352,17 @@ public class RingDetectorNeuralNetwork extends NeuralNetwork {
      * @returns NO_RING, ONE_RING, or FOUR_RINGS, or UNKNOWN
      */
     public int doInference(NoMidInputData measurementData) {
-        SimpleMatrix x = new SimpleMatrix(NO_MID_COLOR_SENSOR_INPUT_ROWS, 1);
-        x.set(NO_MID_COLOR_SENSOR_DISTANCE_ROW_INDEX, measurementData.distanceSensorMM);
-        x.set(NO_MID_COLOR_SENSOR_TOP_RED_ROW_INDEX, measurementData.topColorRed);
-        x.set(NO_MID_COLOR_SENSOR_TOP_BLUE_ROW_INDEX, measurementData.topColorBlue);
-        x.set(NO_MID_COLOR_SENSOR_TOP_GREEN_ROW_INDEX, measurementData.topColorGreen);
-        x.set(NO_MID_COLOR_SENSOR_TOP_DISTANCE_ROW_INDEX, measurementData.topDistanceMM);
-        x.set(NO_MID_COLOR_SENSOR_BOTTOM_RED_ROW_INDEX, measurementData.bottomColorRed);
-        x.set(NO_MID_COLOR_SENSOR_BOTTOM_BLUE_ROW_INDEX, measurementData.bottomColorBlue);
-        x.set(NO_MID_COLOR_SENSOR_BOTTOM_GREEN_ROW_INDEX, measurementData.bottomColorGreen);
-        x.set(NO_MID_COLOR_SENSOR_BOTTOM_DISTANCE_ROW_INDEX, measurementData.bottomDistanceMM);
-        return doInference(x);
+        double[] x = mInput;
+        x[NO_MID_COLOR_SENSOR_DISTANCE_ROW_INDEX] = measurementData.distanceSensorMM;
+        x[NO_MID_COLOR_SENSOR_TOP_RED_ROW_INDEX] = measurementData.topColorRed;
+        x[NO_MID_COLOR_SENSOR_TOP_BLUE_ROW_INDEX] = measurementData.topColorBlue;
+        x[NO_MID_COLOR_SENSOR_TOP_GREEN_ROW_INDEX] = measurementData.topColorGreen;
+        x[NO_MID_COLOR_SENSOR_TOP_DISTANCE_ROW_INDEX] = measurementData.topDistanceMM;
+        x[NO_MID_COLOR_SENSOR_BOTTOM_RED_ROW_INDEX] = measurementData.bottomColorRed;
+        x[NO_MID_COLOR_SENSOR_BOTTOM_BLUE_ROW_INDEX] = measurementData.bottomColorBlue;
+        x[NO_MID_COLOR_SENSOR_BOTTOM_GREEN_ROW_INDEX] = measurementData.bottomColorGreen;
+        x[NO_MID_COLOR_SENSOR_BOTTOM_DISTANCE_ROW_INDEX] = measurementData.bottomDistanceMM;
+        return doInference(x, null);
     }
     /**
      * Performs a measurement for the NO_DISTANCE_SENSOR configuration.
@@ -336,20 +370,20 @@ public class RingDetectorNeuralNetwork extends NeuralNetwork {
      * @returns NO_RING, ONE_RING, or FOUR_RINGS, or UNKNOWN
      */
     public int doInference(NoDistanceSensorInputData measurementData) {
-        SimpleMatrix x = new SimpleMatrix(NO_DISTANCE_SENSOR_INPUT_ROWS, 1);
-        x.set(NO_DISTANCE_SENSOR_TOP_RED_ROW_INDEX, measurementData.topColorRed);
-        x.set(NO_DISTANCE_SENSOR_TOP_BLUE_ROW_INDEX, measurementData.topColorBlue);
-        x.set(NO_DISTANCE_SENSOR_TOP_GREEN_ROW_INDEX, measurementData.topColorGreen);
-        x.set(NO_DISTANCE_SENSOR_TOP_DISTANCE_ROW_INDEX, measurementData.topDistanceMM);
-        x.set(NO_DISTANCE_SENSOR_MID_RED_ROW_INDEX, measurementData.midColorRed);
-        x.set(NO_DISTANCE_SENSOR_MID_BLUE_ROW_INDEX, measurementData.midColorBlue);
-        x.set(NO_DISTANCE_SENSOR_MID_GREEN_ROW_INDEX, measurementData.midColorGreen);
-        x.set(NO_DISTANCE_SENSOR_MID_DISTANCE_ROW_INDEX, measurementData.midDistanceMM);
-        x.set(NO_DISTANCE_SENSOR_BOTTOM_RED_ROW_INDEX, measurementData.bottomColorRed);
-        x.set(NO_DISTANCE_SENSOR_BOTTOM_BLUE_ROW_INDEX, measurementData.bottomColorBlue);
-        x.set(NO_DISTANCE_SENSOR_BOTTOM_GREEN_ROW_INDEX, measurementData.bottomColorGreen);
-        x.set(NO_DISTANCE_SENSOR_BOTTOM_DISTANCE_ROW_INDEX, measurementData.bottomDistanceMM);
-        return doInference(x);
+        double[] x = mInput;
+        x[NO_DISTANCE_SENSOR_TOP_RED_ROW_INDEX] = measurementData.topColorRed;
+        x[NO_DISTANCE_SENSOR_TOP_BLUE_ROW_INDEX] = measurementData.topColorBlue;
+        x[NO_DISTANCE_SENSOR_TOP_GREEN_ROW_INDEX] = measurementData.topColorGreen;
+        x[NO_DISTANCE_SENSOR_TOP_DISTANCE_ROW_INDEX] = measurementData.topDistanceMM;
+        x[NO_DISTANCE_SENSOR_MID_RED_ROW_INDEX] = measurementData.midColorRed;
+        x[NO_DISTANCE_SENSOR_MID_BLUE_ROW_INDEX] = measurementData.midColorBlue;
+        x[NO_DISTANCE_SENSOR_MID_GREEN_ROW_INDEX] = measurementData.midColorGreen;
+        x[NO_DISTANCE_SENSOR_MID_DISTANCE_ROW_INDEX] = measurementData.midDistanceMM;
+        x[NO_DISTANCE_SENSOR_BOTTOM_RED_ROW_INDEX] = measurementData.bottomColorRed;
+        x[NO_DISTANCE_SENSOR_BOTTOM_BLUE_ROW_INDEX] = measurementData.bottomColorBlue;
+        x[NO_DISTANCE_SENSOR_BOTTOM_GREEN_ROW_INDEX] = measurementData.bottomColorGreen;
+        x[NO_DISTANCE_SENSOR_BOTTOM_DISTANCE_ROW_INDEX] = measurementData.bottomDistanceMM;
+        return doInference(x, null);
     }
     /**
      * Performs a measurement for the TOP_BOTTOM_COLOR_SENSORS_ONLY configuration.
@@ -357,59 +391,69 @@ public class RingDetectorNeuralNetwork extends NeuralNetwork {
      * @returns NO_RING, ONE_RING, or FOUR_RINGS, or UNKNOWN
      */
     public int doInference(TopBottomOnlyInputData measurementData) {
-        SimpleMatrix x = new SimpleMatrix(TOP_BOTTOM_ONLY_INPUT_ROWS, 1);
-        x.set(TOP_BOTTOM_ONLY_TOP_RED_ROW_INDEX, measurementData.topColorRed);
-        x.set(TOP_BOTTOM_ONLY_TOP_BLUE_ROW_INDEX, measurementData.topColorBlue);
-        x.set(TOP_BOTTOM_ONLY_TOP_GREEN_ROW_INDEX, measurementData.topColorGreen);
-        x.set(TOP_BOTTOM_ONLY_TOP_DISTANCE_ROW_INDEX, measurementData.topDistanceMM);
-         x.set(TOP_BOTTOM_ONLY_BOTTOM_RED_ROW_INDEX, measurementData.bottomColorRed);
-        x.set(TOP_BOTTOM_ONLY_BOTTOM_BLUE_ROW_INDEX, measurementData.bottomColorBlue);
-        x.set(TOP_BOTTOM_ONLY_BOTTOM_GREEN_ROW_INDEX, measurementData.bottomColorGreen);
-        x.set(TOP_BOTTOM_ONLY_BOTTOM_DISTANCE_ROW_INDEX, measurementData.bottomDistanceMM);
-        return doInference(x);
+        double[] x = mInput;
+        x[TOP_BOTTOM_ONLY_TOP_RED_ROW_INDEX] = measurementData.topColorRed;
+        x[TOP_BOTTOM_ONLY_TOP_BLUE_ROW_INDEX] = measurementData.topColorBlue;
+        x[TOP_BOTTOM_ONLY_TOP_GREEN_ROW_INDEX] = measurementData.topColorGreen;
+        x[TOP_BOTTOM_ONLY_TOP_DISTANCE_ROW_INDEX] = measurementData.topDistanceMM;
+        x[TOP_BOTTOM_ONLY_BOTTOM_RED_ROW_INDEX] = measurementData.bottomColorRed;
+        x[TOP_BOTTOM_ONLY_BOTTOM_BLUE_ROW_INDEX] = measurementData.bottomColorBlue;
+        x[TOP_BOTTOM_ONLY_BOTTOM_GREEN_ROW_INDEX] = measurementData.bottomColorGreen;
+        x[TOP_BOTTOM_ONLY_BOTTOM_DISTANCE_ROW_INDEX] = measurementData.bottomDistanceMM;
+        return doInference(x, null);
     }
 
     /**
-     * Internal method for inference
-     * @param x input vector that must be in the format for the current configuration
+     * Performs an inference on raw sensor data without allocating.
+     * @param rawInput input vector of raw sensor data that must be in the format for the
+     *                 current configuration.  Not modified.
+     * @param scores array of length NUM_OUTPUTS the output node activations are copied to or
+     *               null if not needed
      * @returns NO_RING, ONE_RING, or FOUR_RINGS, or UNKNOWN
      */
-    private int doInference(SimpleMatrix x) {
-        SimpleMatrix y = feedForward(x);
-        int inference = decodeOutput(y);
+    public int doInference(double[] rawInput, double[] scores) {
+        feedForward(rawInput, mLastOutput);
+        int inference = decodeOutput(mLastOutput);
+        mLastConfidence = inference == UNKNOWN ? 0d : mLastOutput[inference];
+        if (scores != null) {
+            System.arraycopy(mLastOutput, 0, scores, 0, NUM_OUTPUTS);
+        }
 
-        logInference(x, y, inference);
+        // Check here so no formatting is done with logging disabled
+        if (mLogWriter != null) {
+            logInference(rawInput, mLastOutput, inference);
+        }
 
         return inference;
     }
 
-    private void logInference(SimpleMatrix x, SimpleMatrix y,int inference){
-        if (mLogWriter == null)
-            return;  // logging disabled
+    /**
+     * Performs an inference on raw sensor data held in a reusable column vector without allocating.
+     * @param rawInput column vector of raw sensor data.  Not modified.
+     * @param scores array of length NUM_OUTPUTS the output node activations are copied to or
+     *               null if not needed
+     * @returns NO_RING, ONE_RING, or FOUR_RINGS, or UNKNOWN
+     */
+    public int doInference(DMatrixRMaj rawInput, double[] scores) {
+        return doInference(rawInput.data, scores);
+    }
+
+    /**
+     * Writes the inference to the log.  The input is logged after scaling by the network's
+     * normalization factors.
+     */
+    private void logInference(double[] x, double[] y,int inference){
+        DMatrixRMaj scale = getInputScaleVector();
         try{
             mLogWriter.write(RingDetectorNeuralNetwork.convertToString(inference));
             mLogWriter.write(",");
-            for(int i=0;i < y.numRows();i++){
-                mLogWriter.write(String.format("%1.5f",y.get(i,0)));
+            for(int i=0;i < y.length;i++){
+                mLogWriter.write(String.format("%1.5f",y[i]));
                 mLogWriter.write(",");
             }
-            int numRows = 0;
-            switch(mSensorConfiguration){
-                case ALL_SENSORS:
-                    numRows = ALL_SENSORS_INPUT_ROWS;
-                    break;
-                case NO_DISTANCE_SENSOR:
-                    numRows = NO_DISTANCE_SENSOR_INPUT_ROWS;
-                    break;
-                case NO_MID_COLOR_SENSOR:
-                    numRows = NO_MID_COLOR_SENSOR_INPUT_ROWS;
-                    break;
-                case TOP_BOTTOM_COLOR_SENSORS_ONLY:
-                    numRows = TOP_BOTTOM_ONLY_INPUT_ROWS;
-                    break;
-            }
+            int numRows = scale.numRows;
             for(int i = 0; i < numRows; i++){
-                mLogWriter.write(String.format("%1.5f",x.get(i,0)));
+                mLogWriter.write(String.format("%1.5f",x[i]*scale.data[i]));
                 if (i < numRows -1){
                     mLogWriter.write(",");
                 }
@@ -422,6 +466,22 @@ public class RingDetectorNeuralNetwork extends NeuralNetwork {
 
     }
 
+    /**
+     * Returns the output node activation of the class picked by the last doInference() call, a
+     * value between 0 and 1, or 0 if the result was UNKNOWN.
+     */
+    public double getLastConfidence() {
+        return mLastConfidence;
+    }
+
+    /**
+     * Copies the output node activations of the last doInference() call into output
+     * @param output array of length NUM_OUTPUTS indexed by NO_RING, ONE_RING and FOUR_RINGS
+     */
+    public void getLastOutput(double[] output) {
+        System.arraycopy(mLastOutput, 0, output, 0, NUM_OUTPUTS);
+    }
+
     /**
      * Performs a test measurement
      *
@@ -432,6 +492,30 @@ public class RingDetectorNeuralNetwork extends NeuralNetwork {
         return result;
     }
 
+    /**
+     * Performs a test measurement on a batch of samples in a single pass through the network
+     * @param rawInputs input matrix with one sample per column.  Not modified.
+     * @returns output matrix with one column per sample
+     */
+    public SimpleMatrix doTestInferenceBatch(SimpleMatrix rawInputs) {
+        return SimpleMatrix.wrap(feedForwardBatch(rawInputs.getDDRM()));
+    }
+
+    /**
+     * Returns the index of the largest output or UNKNOWN if all outputs are zero
+     */
+    public static int decodeOutput(double[] result) {
+        double max = 0d;
+        int maxIndex = UNKNOWN;
+        for(int i=0;i < result.length;i++){
+            if (result[i] > max){
+                max = result[i];
+                maxIndex = i;
+            }
+        }
+        return maxIndex;
+    }
+
     public static int decodeOutput(SimpleMatrix result) {
         double max = 0d;
         int maxIndex = UNKNOWN;
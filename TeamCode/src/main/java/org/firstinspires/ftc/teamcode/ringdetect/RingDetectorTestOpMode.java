@@ -13,6 +13,8 @@ public class RingDetectorTestOpMode extends OpMode {
     @Override
     public void init() {
         mRingDetector = new RingDetector(mRingDetectorConfiguration,this);
+        // The test OpMode collects inference logs for network development
+        mRingDetector.setLogInferences(true);
         String initErrs = "";
         try {
             mRingDetector.init();
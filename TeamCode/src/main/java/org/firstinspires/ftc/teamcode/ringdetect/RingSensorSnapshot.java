@@ -0,0 +1,137 @@
+package org.firstinspires.ftc.teamcode.ringdetect;
+
+import com.qualcomm.hardware.rev.RevColorSensorV3;
+import com.qualcomm.robotcore.hardware.DistanceSensor;
+import com.qualcomm.robotcore.hardware.NormalizedRGBA;
+
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+
+/**
+ * Holds one reading of every ring detector sensor.  Each call to read() performs exactly one
+ * getNormalizedColors() and one getDistance() per color sensor and one getDistance() on the
+ * distance sensor, and stores the values in this preallocated frame so both the inference and
+ * the telemetry use the same reading without going back to the I2C bus.
+ */
+public class RingSensorSnapshot {
+
+    /**
+     * The parts of a color sensor read by the ring detector.
+     */
+    public interface ColorSensorSource {
+        NormalizedRGBA getNormalizedColors();
+        double getDistance(DistanceUnit unit);
+    }
+
+    /**
+     * The part of a distance sensor read by the ring detector.
+     */
+    public interface DistanceSensorSource {
+        double getDistance(DistanceUnit unit);
+    }
+
+    public double topColorRed;
+    public double topColorGreen;
+    public double topColorBlue;
+    public double topDistanceMM;
+    public double midColorRed;
+    public double midColorGreen;
+    public double midColorBlue;
+    public double midDistanceMM;
+    public double bottomColorRed;
+    public double bottomColorGreen;
+    public double bottomColorBlue;
+    public double bottomDistanceMM;
+    public double distanceSensorMM;
+
+    private ColorSensorSource mTopColorSensor = null;
+    private ColorSensorSource mMidColorSensor = null;
+    private ColorSensorSource mBottomColorSensor = null;
+    private DistanceSensorSource mDistanceSensor = null;
+
+    /**
+     * @param topColorSensor top color sensor
+     * @param midColorSensor middle color sensor or null if not used
+     * @param bottomColorSensor bottom color sensor
+     * @param distanceSensor distance sensor or null if not used
+     */
+    public RingSensorSnapshot(ColorSensorSource topColorSensor, ColorSensorSource midColorSensor,
+                              ColorSensorSource bottomColorSensor, DistanceSensorSource distanceSensor) {
+        mTopColorSensor = topColorSensor;
+        mMidColorSensor = midColorSensor;
+        mBottomColorSensor = bottomColorSensor;
+        mDistanceSensor = distanceSensor;
+    }
+
+    /**
+     * Reads every sensor once.  The mid color and distance values are left at zero when those
+     * sensors are not used.
+     */
+    public void read() {
+        NormalizedRGBA colors = mTopColorSensor.getNormalizedColors();
+        topColorRed = colors.red;
+        topColorGreen = colors.green;
+        topColorBlue = colors.blue;
+        topDistanceMM = mTopColorSensor.getDistance(DistanceUnit.MM);
+
+        if (mMidColorSensor != null) {
+            colors = mMidColorSensor.getNormalizedColors();
+            midColorRed = colors.red;
+            midColorGreen = colors.green;
+            midColorBlue = colors.blue;
+            midDistanceMM = mMidColorSensor.getDistance(DistanceUnit.MM);
+        }
+
+        colors = mBottomColorSensor.getNormalizedColors();
+        bottomColorRed = colors.red;
+        bottomColorGreen = colors.green;
+        bottomColorBlue = colors.blue;
+        bottomDistanceMM = mBottomColorSensor.getDistance(DistanceUnit.MM);
+
+        if (mDistanceSensor != null) {
+            distanceSensorMM = mDistanceSensor.getDistance(DistanceUnit.MM);
+        }
+    }
+
+    public boolean hasMidColorSensor() {
+        return mMidColorSensor != null;
+    }
+
+    public boolean hasDistanceSensor() {
+        return mDistanceSensor != null;
+    }
+
+    /**
+     * Returns a color sensor source that reads from the REV color sensor
+     */
+    public static ColorSensorSource wrapColorSensor(final RevColorSensorV3 sensor) {
+        if (sensor == null) {
+            return null;
+        }
+        return new ColorSensorSource() {
+            @Override
+            public NormalizedRGBA getNormalizedColors() {
+                return sensor.getNormalizedColors();
+            }
+
+            @Override
+            public double getDistance(DistanceUnit unit) {
+                return sensor.getDistance(unit);
+            }
+        };
+    }
+
+    /**
+     * Returns a distance sensor source that reads from the distance sensor
+     */
+    public static DistanceSensorSource wrapDistanceSensor(final DistanceSensor sensor) {
+        if (sensor == null) {
+            return null;
+        }
+        return new DistanceSensorSource() {
+            @Override
+            public double getDistance(DistanceUnit unit) {
+                return sensor.getDistance(unit);
+            }
+        };
+    }
+}
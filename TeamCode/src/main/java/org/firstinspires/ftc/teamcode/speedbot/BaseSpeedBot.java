@@ -1,6 +1,7 @@
 package org.firstinspires.ftc.teamcode.speedbot;
 
 import com.qualcomm.hardware.bosch.BNO055IMU;
+import com.qualcomm.hardware.lynx.LynxModule;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 import com.qualcomm.robotcore.util.ReadWriteFile;
 
@@ -95,6 +96,14 @@ public class BaseSpeedBot {
                 initErrString += e.getMessage();
             }
         }
+        // Bulk caching for every hub on the robot.  AUTO refreshes the cache whenever a value is
+        // read a second time, so subsystems polling motors on their own schedule such as the
+        // Crane always see fresh values.  The drivetrain clears the cache before reading its
+        // encoders so they still come from a single bulk read each loop.
+        for (LynxModule module : mOpMode.hardwareMap.getAll(LynxModule.class)) {
+            module.setBulkCachingMode(LynxModule.BulkCachingMode.AUTO);
+        }
+
         try {
             mDrivetrain = new SpeedBotMecanumDrive(mOpMode);
             mDrivetrain.init(mOpMode.hardwareMap);
@@ -0,0 +1,232 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Formatter;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * CSV logging file for development that keeps file I/O and formatting off the control loop.
+ *
+ * The loop hands writeLogRow() a row of doubles which is copied into a preallocated ring buffer,
+ * so logging a row neither allocates nor blocks.  A background thread wakes up every flush
+ * period, formats the rows waiting in the buffer and writes them to the file as one batch.  If
+ * the loop gets ahead of the writer and the buffer is full the row is dropped and counted
+ * instead of waiting, see getDroppedRowCount().
+ *
+ * Rows must be written from one thread at a time.
+ */
+public class AsyncLogFile {
+
+    public static final int DEFAULT_CAPACITY_ROWS = 1024;
+    public static final long DEFAULT_FLUSH_PERIOD_MS = 100;
+    public static final String DEFAULT_FORMAT = "%4.2f";
+
+    private final String mFilePath;
+    private final String mFilename;
+    private final String[] mColumnNames;
+    private final String[] mColumnFormats;
+    // Optional text written in place of the value of a column, indexed by the value
+    private final String[][] mColumnLabels;
+    private final int mNumColumns;
+    private final int mCapacityRows;
+    private final long mFlushPeriodNS;
+
+    // Ring buffer holding mCapacityRows rows of mNumColumns values each
+    private final double[] mBuffer;
+    // Total rows written by the loop and by the writer thread.  Only the loop advances mHead and
+    // only the writer advances mTail, so the buffer holds mHead - mTail rows.
+    private volatile long mHead = 0;
+    private volatile long mTail = 0;
+    private volatile long mDroppedRows = 0;
+
+    private volatile boolean mClosing = false;
+    private Thread mWriterThread = null;
+    private BufferedWriter mWriter = null;
+
+    /**
+     * Creates a log file with the default capacity and flush period that formats every column
+     * with DEFAULT_FORMAT.
+     */
+    public AsyncLogFile(String filePath, String filename, String[] columnNames){
+        this(filePath, filename, columnNames, null, DEFAULT_CAPACITY_ROWS, DEFAULT_FLUSH_PERIOD_MS);
+    }
+
+    /**
+     * @param filePath directory the file is written to
+     * @param filename name of the log file, replaced if it exists
+     * @param columnNames header row
+     * @param columnFormats printf style format of each column or null for DEFAULT_FORMAT
+     * @param capacityRows number of rows the buffer holds before rows are dropped
+     * @param flushPeriodMs time between batches written by the background thread
+     */
+    public AsyncLogFile(String filePath, String filename, String[] columnNames, String[] columnFormats,
+                        int capacityRows, long flushPeriodMs){
+        if (capacityRows <= 0)
+            throw new IllegalArgumentException("capacityRows must be positive");
+        if (flushPeriodMs <= 0)
+            throw new IllegalArgumentException("flushPeriodMs must be positive");
+        if (columnFormats != null && columnFormats.length != columnNames.length)
+            throw new IllegalArgumentException("columnFormats length="+columnFormats.length+".  Must be equal to number of columns:"+columnNames.length);
+        mFilePath = filePath;
+        mFilename = filename;
+        mColumnNames = columnNames;
+        mNumColumns = columnNames.length;
+        mColumnFormats = new String[mNumColumns];
+        for (int i = 0; i < mNumColumns; i++){
+            mColumnFormats[i] = (columnFormats == null || columnFormats[i] == null) ? DEFAULT_FORMAT : columnFormats[i];
+        }
+        mColumnLabels = new String[mNumColumns][];
+        mCapacityRows = capacityRows;
+        mFlushPeriodNS = flushPeriodMs * 1000000L;
+        mBuffer = new double[capacityRows * mNumColumns];
+    }
+
+    /**
+     * Writes the column as text instead of a number.  The value logged for the column is rounded
+     * to an index into labels, for example a mode constant.  Must be called before openFile().
+     */
+    public void setColumnLabels(int column, String[] labels){
+        mColumnLabels[column] = labels;
+    }
+
+    /**
+     * Creates the file, writes the header and starts the writer thread.
+     */
+    public void openFile(){
+        try {
+            File logFile = new File(mFilePath, mFilename);
+            if (logFile.exists()){
+                logFile.delete();
+            }
+            mWriter = new BufferedWriter(new FileWriter(logFile));
+            for(int i=0;i < mNumColumns;i++){
+                mWriter.write(mColumnNames[i]);
+                if (i != (mNumColumns-1)) {
+                    mWriter.write(',');
+                }
+            }
+            mWriter.newLine();
+        }
+        catch(IOException e){
+            e.printStackTrace();
+            return;
+        }
+        mClosing = false;
+        mWriterThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "AsyncLogFile " + mFilename);
+        mWriterThread.setDaemon(true);
+        mWriterThread.start();
+    }
+
+    /**
+     * Stops the writer thread after it has written every row logged so far and closes the file.
+     */
+    public void closeFile(){
+        if (mWriterThread == null)
+            return;
+        mClosing = true;
+        LockSupport.unpark(mWriterThread);
+        try {
+            mWriterThread.join();
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        mWriterThread = null;
+    }
+
+    /**
+     * Copies a row into the buffer for the writer thread.  Never blocks or allocates.
+     * @param data one value per column
+     * @return false if the buffer was full or the file isn't open and the row was dropped
+     */
+    public boolean writeLogRow(double[] data){
+        if (data.length != mNumColumns){
+            throw new IllegalArgumentException("data length="+data.length+".  Must be equal to number of columns:"+mNumColumns);
+        }
+        long head = mHead;
+        if (mWriterThread == null || mClosing || head - mTail >= mCapacityRows){
+            mDroppedRows++;
+            return false;
+        }
+        System.arraycopy(data, 0, mBuffer, (int)(head % mCapacityRows) * mNumColumns, mNumColumns);
+        // Publishing the new head makes the row visible to the writer
+        mHead = head + 1;
+        return true;
+    }
+
+    /**
+     * Returns the number of rows dropped because the buffer was full
+     */
+    public long getDroppedRowCount(){
+        return mDroppedRows;
+    }
+
+    /**
+     * Returns the number of rows written to the buffer
+     */
+    public long getRowCount(){
+        return mHead;
+    }
+
+    private void writeLoop(){
+        StringBuilder sb = new StringBuilder();
+        Formatter formatter = new Formatter(sb);
+        try {
+            while (true) {
+                // Read the flag before draining so rows logged before closeFile() are written
+                boolean closing = mClosing;
+                writeBatch(sb, formatter);
+                if (closing)
+                    break;
+                LockSupport.parkNanos(mFlushPeriodNS);
+            }
+        }
+        catch(IOException e){
+            e.printStackTrace();
+        }
+        try {
+            mWriter.close();
+        }
+        catch(IOException e){
+            e.printStackTrace();
+        }
+    }
+
+    private void writeBatch(StringBuilder sb, Formatter formatter) throws IOException{
+        long tail = mTail;
+        long head = mHead;
+        if (tail == head)
+            return;
+        for (; tail < head; tail++) {
+            int offset = (int)(tail % mCapacityRows) * mNumColumns;
+            sb.setLength(0);
+            for (int i = 0; i < mNumColumns; i++) {
+                double value = mBuffer[offset + i];
+                String[] labels = mColumnLabels[i];
+                int index = (int)Math.round(value);
+                if (labels != null && index >= 0 && index < labels.length) {
+                    sb.append(labels[index]);
+                }
+                else {
+                    formatter.format(mColumnFormats[i], value);
+                }
+                if (i != (mNumColumns - 1)) {
+                    sb.append(',');
+                }
+            }
+            mWriter.append(sb);
+            mWriter.newLine();
+            // Hand the slot back to the loop once the row has been copied out
+            mTail = tail + 1;
+        }
+        mWriter.flush();
+    }
+}
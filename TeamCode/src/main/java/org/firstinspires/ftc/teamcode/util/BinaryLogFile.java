@@ -0,0 +1,156 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary logging file for development.  Rows of doubles are stored as raw values instead of
+ * text, so logging a row is a few buffer puts and the loop can log every cycle without the cost
+ * of formatting.  Use BinaryLogReader to read the file back or convert it to CSV on the desktop.
+ *
+ * File format, all values little endian:
+ *   int magic, int version, int number of columns,
+ *   for each column: int length of the name in bytes, UTF-8 name,
+ *   then one record per row of number of columns doubles.
+ *
+ * Records are collected in a direct buffer and written through the file channel when it fills,
+ * so a crash loses at most the rows in the buffer and the reader ignores a partial last record.
+ */
+public class BinaryLogFile {
+
+    public static final int MAGIC = 0x474F4C54;      // "TLOG" when read as bytes
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".tlog";
+    public static final int DEFAULT_BUFFER_BYTES = 64*1024;
+
+    private final String mFilePath;
+    private final String mFilename;
+    private final String[] mColumnNames;
+    private final int mBufferBytes;
+    private ByteBuffer mBuffer;
+    private FileOutputStream mOutputStream;
+    private FileChannel mChannel;
+    private long mRowCount = 0;
+
+    public BinaryLogFile(String filePath, String filename, String[] columnNames){
+        this(filePath, filename, columnNames, DEFAULT_BUFFER_BYTES);
+    }
+
+    /**
+     * @param filePath directory the file is written to
+     * @param filename name of the log file, replaced if it exists
+     * @param columnNames name of each column
+     * @param bufferBytes size of the write buffer, at least one record
+     */
+    public BinaryLogFile(String filePath, String filename, String[] columnNames, int bufferBytes){
+        if (bufferBytes < 8*columnNames.length)
+            throw new IllegalArgumentException("bufferBytes="+bufferBytes+".  Must hold at least one record of "+8*columnNames.length+" bytes");
+        mFilePath = filePath;
+        mFilename = filename;
+        mColumnNames = columnNames;
+        mBufferBytes = bufferBytes;
+    }
+
+    public void openFile(){
+        try {
+            File logFile = new File(mFilePath, mFilename);
+            if (logFile.exists()){
+                logFile.delete();
+            }
+            mOutputStream = new FileOutputStream(logFile);
+            mChannel = mOutputStream.getChannel();
+
+            byte[][] names = new byte[mColumnNames.length][];
+            int headerSize = 12;
+            for (int i = 0; i < mColumnNames.length; i++) {
+                names[i] = mColumnNames[i].getBytes(StandardCharsets.UTF_8);
+                headerSize += 4 + names[i].length;
+            }
+            ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(mColumnNames.length);
+            for (byte[] name : names) {
+                header.putInt(name.length);
+                header.put(name);
+            }
+            header.flip();
+            writeFully(header);
+
+            // Whole records only so a flush never splits a row
+            int recordBytes = 8*mColumnNames.length;
+            mBuffer = ByteBuffer.allocateDirect(mBufferBytes - mBufferBytes % recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        catch(IOException e){
+            e.printStackTrace();
+            mChannel = null;
+        }
+    }
+
+    /**
+     * Writes the buffered rows and closes the file
+     */
+    public void closeFile(){
+        if (mChannel == null)
+            return;
+        try{
+            flush();
+            mOutputStream.close();
+        }
+        catch(IOException e){
+            e.printStackTrace();
+        }
+        mChannel = null;
+    }
+
+    /**
+     * Appends a row.  Doesn't allocate.
+     * @param data one value per column
+     */
+    public void writeLogRow(double[] data){
+        if (data.length != mColumnNames.length){
+            throw new IllegalArgumentException("data length="+data.length+".  Must be equal to number of columns:"+mColumnNames.length);
+        }
+        if (mChannel == null)
+            return;  // file isn't open
+        try {
+            if (mBuffer.remaining() < 8*data.length) {
+                flush();
+            }
+            for (int i = 0; i < data.length; i++) {
+                mBuffer.putDouble(data[i]);
+            }
+            mRowCount++;
+        }
+        catch(IOException e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the buffered rows to the file
+     */
+    public void flush() throws IOException{
+        mBuffer.flip();
+        writeFully(mBuffer);
+        mBuffer.clear();
+    }
+
+    /**
+     * Returns the number of rows written
+     */
+    public long getRowCount(){
+        return mRowCount;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException{
+        while (buffer.hasRemaining()) {
+            mChannel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a control task on a dedicated thread at a fixed period, independent of how often the FTC
+ * event loop calls the OpMode loop().
+ *
+ * Deadlines are computed from the start time as start + n*period rather than from the end of the
+ * previous cycle, so lateness in one cycle doesn't push every later cycle back and the average
+ * rate stays exactly 1/period.  The thread parks until shortly before each deadline and spins for
+ * the rest to cut wake up jitter.  A cycle that finishes after the next deadline is an overrun:
+ * the missed deadlines are skipped rather than run back to back, and counted.
+ */
+public class FixedRateScheduler {
+
+    /**
+     * Work done every period on the scheduler thread
+     */
+    public interface IControlTask {
+        /**
+         * @param cycle number of the deadline this step belongs to, starting at 0.  Skips ahead
+         *              after an overrun.
+         * @param dt seconds since the start of the previous step, or the period for the first
+         */
+        void step(long cycle, double dt);
+    }
+
+    // Spin instead of parking for the last part of the wait
+    private static final long SPIN_NS = 200000L;
+
+    private final long mPeriodNS;
+    private final IControlTask mTask;
+    private Thread mThread = null;
+    private volatile boolean mRunning = false;
+
+    private volatile long mCycleCount = 0;
+    private volatile long mOverrunCount = 0;
+    private volatile long mErrorCount = 0;
+    private volatile long mMaxLatenessNS = 0;
+    private volatile long mMaxStepNS = 0;
+
+    /**
+     * @param periodSeconds period of the task in seconds
+     * @param task task to run each period
+     */
+    public FixedRateScheduler(double periodSeconds, IControlTask task) {
+        if (periodSeconds <= 0d)
+            throw new IllegalArgumentException("periodSeconds must be positive");
+        mPeriodNS = Math.round(periodSeconds * 1e9d);
+        mTask = task;
+    }
+
+    /**
+     * Starts the scheduler thread.  The first step runs immediately.  Does nothing if already
+     * running.
+     */
+    public synchronized void start() {
+        if (mThread != null)
+            return;
+        mRunning = true;
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runLoop();
+            }
+        }, "FixedRateScheduler");
+        mThread.setDaemon(true);
+        mThread.setPriority(Thread.MAX_PRIORITY);
+        mThread.start();
+    }
+
+    /**
+     * Stops the scheduler and waits for the step in progress to finish.
+     */
+    public synchronized void stop() {
+        if (mThread == null)
+            return;
+        mRunning = false;
+        LockSupport.unpark(mThread);
+        try {
+            mThread.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        mThread = null;
+    }
+
+    public boolean isRunning() {
+        return mThread != null;
+    }
+
+    public double getPeriod() {
+        return mPeriodNS / 1e9d;
+    }
+
+    /**
+     * Returns the number of steps run
+     */
+    public long getCycleCount() {
+        return mCycleCount;
+    }
+
+    /**
+     * Returns the number of deadlines missed because a step ran past the next deadline
+     */
+    public long getOverrunCount() {
+        return mOverrunCount;
+    }
+
+    /**
+     * Returns the number of steps that threw an exception or error
+     */
+    public long getErrorCount() {
+        return mErrorCount;
+    }
+
+    /**
+     * Returns the largest delay in seconds between a deadline and the start of its step
+     */
+    public double getMaxLateness() {
+        return mMaxLatenessNS / 1e9d;
+    }
+
+    /**
+     * Returns the longest step execution time in seconds
+     */
+    public double getMaxStepTime() {
+        return mMaxStepNS / 1e9d;
+    }
+
+    private void runLoop() {
+        long startNS = System.nanoTime();
+        long cycle = 0;
+        long lastStepNS = 0;
+        while (mRunning) {
+            long deadline = startNS + cycle * mPeriodNS;
+            if (!waitUntil(deadline))
+                break;
+
+            long stepStartNS = System.nanoTime();
+            long lateness = stepStartNS - deadline;
+            if (lateness > mMaxLatenessNS) {
+                mMaxLatenessNS = lateness;
+            }
+            try {
+                long dtNS = mCycleCount == 0 ? mPeriodNS : stepStartNS - lastStepNS;
+                mTask.step(cycle, dtNS / 1e9d);
+            }
+            catch (Throwable e) {
+                // Keep the control loop running, the error shows up in getErrorCount().  Errors
+                // are caught too, otherwise the thread would die silently with the motors left
+                // on the last command
+                mErrorCount++;
+            }
+            lastStepNS = stepStartNS;
+            long stepEndNS = System.nanoTime();
+            if (stepEndNS - stepStartNS > mMaxStepNS) {
+                mMaxStepNS = stepEndNS - stepStartNS;
+            }
+            mCycleCount++;
+
+            // Move to the next deadline that is still ahead, counting any that were missed
+            long nextCycle = cycle + 1;
+            long nextDeadline = startNS + nextCycle * mPeriodNS;
+            if (stepEndNS >= nextDeadline) {
+                long missed = (stepEndNS - nextDeadline) / mPeriodNS + 1;
+                mOverrunCount += missed;
+                nextCycle += missed;
+            }
+            cycle = nextCycle;
+        }
+    }
+
+    /**
+     * Waits until the deadline.  Returns false if the scheduler was stopped while waiting.
+     */
+    private boolean waitUntil(long deadline) {
+        long remaining = deadline - System.nanoTime();
+        while (remaining > SPIN_NS) {
+            LockSupport.parkNanos(remaining - SPIN_NS);
+            if (!mRunning)
+                return false;
+            remaining = deadline - System.nanoTime();
+        }
+        while (deadline - System.nanoTime() > 0) {
+            if (!mRunning)
+                return false;
+        }
+        return mRunning;
+    }
+}
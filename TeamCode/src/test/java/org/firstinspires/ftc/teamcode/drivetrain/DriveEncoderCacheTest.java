@@ -0,0 +1,117 @@
+package org.firstinspires.ftc.teamcode.drivetrain;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the drivetrain takes its encoder values from one bulk read per loop using a stand
+ * in hub that counts its transactions.
+ */
+public class DriveEncoderCacheTest {
+
+    /**
+     * Stand in for a hub in AUTO bulk caching mode with DriveEncoderCache.read() clearing the
+     * cache explicitly at the start of each loop.  The first encoder read after a cache clear is
+     * a bulk read transaction and later reads come from the cache.
+     */
+    static class FakeHub implements DriveEncoderCache.HubSource {
+        int transactions = 0;
+        int clears = 0;
+        boolean cacheValid = false;
+        final int[] positions = new int[4];
+        final double[] velocities = new double[4];
+
+        @Override
+        public void clearBulkCache() {
+            clears++;
+            cacheValid = false;
+        }
+
+        DriveEncoderCache.EncoderSource encoder(final int port) {
+            return new DriveEncoderCache.EncoderSource() {
+                @Override
+                public int getCurrentPosition() {
+                    bulkRead();
+                    return positions[port];
+                }
+
+                @Override
+                public double getVelocity() {
+                    bulkRead();
+                    return velocities[port];
+                }
+            };
+        }
+
+        private void bulkRead() {
+            if (!cacheValid) {
+                transactions++;
+                cacheValid = true;
+            }
+        }
+    }
+
+    private static DriveEncoderCache createCache(FakeHub hub) {
+        List<DriveEncoderCache.HubSource> hubs = new ArrayList<>();
+        hubs.add(hub);
+        DriveEncoderCache.EncoderSource[] encoders = new DriveEncoderCache.EncoderSource[4];
+        for (int i = 0; i < encoders.length; i++) {
+            encoders[i] = hub.encoder(i);
+        }
+        return new DriveEncoderCache(hubs, encoders);
+    }
+
+    @Test
+    public void readsAllEncodersInOneTransaction() {
+        FakeHub hub = new FakeHub();
+        DriveEncoderCache cache = createCache(hub);
+        for (int i = 0; i < 4; i++) {
+            hub.positions[i] = 100 * (i + 1);
+            hub.velocities[i] = 10 * (i + 1);
+        }
+
+        cache.read();
+        assertEquals(1, hub.clears);
+        assertEquals(1, hub.transactions);
+        assertEquals(300, cache.getPosition(2));
+        assertEquals(40, cache.getVelocity(3), 0);
+
+        // The values only change on the next read
+        hub.positions[2] = 0;
+        assertEquals(300, cache.getPosition(2));
+        cache.read();
+        assertEquals(2, hub.transactions);
+        assertEquals(0, cache.getPosition(2));
+    }
+
+    @Test
+    public void drivetrainUsesOneTransactionPerLoop() throws Exception {
+        FakeHub hub = new FakeHub();
+        SpeedBotMecanumDrive drive = new SpeedBotMecanumDrive(null);
+        drive.setEncoderCache(createCache(hub));
+
+        drive.loop();
+        // Every wheel turns one revolution before the next loop
+        int countsPerRev = drive.getEncoderCountsPerRev();
+        for (int i = 0; i < 4; i++) {
+            hub.positions[i] = countsPerRev;
+        }
+        Thread.sleep(10);
+        drive.loop();
+        assertEquals(2, hub.clears);
+        assertEquals(2, hub.transactions);
+
+        int[] positions = drive.getEncoderPositions(new int[4]);
+        double[] speeds = drive.getWheelSpeeds();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(countsPerRev, positions[i]);
+            assertEquals(true, speeds[i] > 0);
+        }
+        // Reading the positions again doesn't go back to the hub
+        drive.getEncoderPositions();
+        assertEquals(2, hub.transactions);
+    }
+}
@@ -0,0 +1,291 @@
+package org.firstinspires.ftc.teamcode.guidance;
+
+import org.ejml.data.DMatrixRMaj;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Benchmarks the Kalman filter implementations used by {@link KalmanTracker} using the
+ * tracker's 6 state, 4 measurement model.  Reports the average latency of a predict/update
+ * cycle and the number of bytes allocated while running it.  Querying the allocation counter
+ * itself allocates a few hundred bytes, so an allocation free filter reports the same small
+ * constant regardless of the number of updates.
+ *
+ * The unit tests only check that the implementations agree.  Run main() for the timings.
+ */
+public class KalmanFilterBenchmark {
+
+    static final int WARMUP_UPDATES = 20000;
+    static final int TIMED_UPDATES = 200000;
+    static final int ROUNDS = 3;
+    static final double T = 0.050d;
+
+    private DMatrixRMaj F;
+    private DMatrixRMaj Q;
+    private DMatrixRMaj H;
+    private DMatrixRMaj R;
+    private DMatrixRMaj[] mMeasurements;
+
+    /**
+     * Builds the same model matrices KalmanTracker uses with the default parameters
+     */
+    private void createModel(){
+        KalmanTracker.KalmanParameters p = new KalmanTracker.KalmanParameters();
+        F = new DMatrixRMaj(new double[][] {
+                {1,0,T,0,0,0},
+                {0,1,0,T,0,0},
+                {0,0,1,0,0,0},
+                {0,0,0,1,0,0},
+                {0,0,0,0,1,0},
+                {0,0,0,0,T,1} });
+        Q = new DMatrixRMaj(6,6);
+        Q.set(0,0,p.VAR_POSITION);
+        Q.set(1,1,p.VAR_POSITION);
+        Q.set(2,2,p.VAR_VELOCITY);
+        Q.set(3,3,p.VAR_VELOCITY);
+        Q.set(4,4,p.VAR_W);
+        Q.set(5,5,p.VAR_THETA);
+        H = new DMatrixRMaj(new double[][] {
+                {0,0,1,0,0,0},
+                {0,0,0,1,0,0},
+                {0,0,0,0,1,0},
+                {0,0,0,0,0,1}});
+        R = new DMatrixRMaj(4,4);
+        R.set(0,0,1e-8);
+        R.set(1,1,1e-8);
+        R.set(2,2,2e-8);
+        R.set(3,3,1e-2);
+
+        // Precompute measurements so that generating them is not part of the timing
+        Random rand = new Random(234);
+        mMeasurements = new DMatrixRMaj[1024];
+        for(int i=0;i < mMeasurements.length;i++){
+            mMeasurements[i] = new DMatrixRMaj(new double[][] {
+                    {0.5+0.01*rand.nextGaussian()},{-0.2+0.01*rand.nextGaussian()},
+                    {0.1*rand.nextGaussian()},{0.1*i/mMeasurements.length}});
+        }
+    }
+
+    /**
+     * Builds a model with the shape of KalmanTrackerWithAccels, 8 states and 6 measurements
+     */
+    private void createAccelModel(){
+        F = new DMatrixRMaj(new double[][] {
+                {1,0,T,0,0,0,0,0},
+                {0,1,0,T,0,0,0,0},
+                {0,0,1,0,T,0,0,0},
+                {0,0,0,1,0,T,0,0},
+                {0,0,0,0,1,0,0,0},
+                {0,0,0,0,0,1,0,0},
+                {0,0,0,0,0,0,1,0},
+                {0,0,0,0,0,0,T,1} });
+        Q = new DMatrixRMaj(8,8);
+        for(int i=0;i < 8;i++){
+            Q.set(i,i,0.01);
+        }
+        H = new DMatrixRMaj(new double[][] {
+                {0,0,1,0,0,0,0,0},
+                {0,0,0,1,0,0,0,0},
+                {0,0,0,0,0,0,1,0},
+                {0,0,0,0,1,0,0,0},
+                {0,0,0,0,0,1,0,0},
+                {0,0,0,0,0,0,0,1}});
+        R = new DMatrixRMaj(6,6);
+        R.set(0,0,2.5e-9);
+        R.set(1,1,2.5e-9);
+        R.set(2,2,3e-8);
+        R.set(3,3,1e-2);
+        R.set(4,4,1e-2);
+        R.set(5,5,1e-2);
+
+        Random rand = new Random(234);
+        mMeasurements = new DMatrixRMaj[1024];
+        for(int i=0;i < mMeasurements.length;i++){
+            mMeasurements[i] = new DMatrixRMaj(6,1);
+            for(int j=0;j < 6;j++){
+                mMeasurements[i].set(j,0.1*rand.nextGaussian());
+            }
+        }
+    }
+
+    private KalmanFilter createFilter(KalmanFilter filter){
+        filter.configure(F,Q,H);
+        filter.setState(new DMatrixRMaj(F.numRows,1),new DMatrixRMaj(Q));
+        return filter;
+    }
+
+    private void run(KalmanFilter filter,int updates){
+        for(int i=0;i < updates;i++){
+            filter.predict();
+            filter.update(mMeasurements[i % mMeasurements.length],R);
+        }
+    }
+
+    /**
+     * Returns the bytes allocated by this thread or -1 when the JVM can't report it
+     */
+    private static long allocatedBytes(){
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean){
+            return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private void benchmark(String name,KalmanFilter filter){
+        run(filter,WARMUP_UPDATES);
+
+        long bytesStart = allocatedBytes();
+        long start = System.nanoTime();
+        run(filter,TIMED_UPDATES);
+        long elapsed = System.nanoTime()-start;
+        long bytes = allocatedBytes()-bytesStart;
+
+        System.out.println(String.format("%-12s %8.1f ns/update  %10d bytes allocated over %d updates",
+                name,(double)elapsed/TIMED_UPDATES,bytes,TIMED_UPDATES));
+    }
+
+    private void benchmarkTracker(KalmanTracker.FilterType filterType){
+        KalmanTracker.KalmanParameters parameters = new KalmanTracker.KalmanParameters();
+        parameters.FILTER_TYPE = filterType;
+        KalmanTracker tracker = new KalmanTracker();
+        tracker.init(parameters);
+
+        long bytesStart = 0;
+        long start = 0;
+        for(int i=0;i < WARMUP_UPDATES+TIMED_UPDATES;i++){
+            if (i == WARMUP_UPDATES){
+                bytesStart = allocatedBytes();
+                start = System.nanoTime();
+            }
+            DMatrixRMaj z = mMeasurements[i % mMeasurements.length];
+            tracker.updateMeasurement(z.data[0],z.data[1],z.data[2],z.data[3]);
+            if (i % 100 == 0){
+                tracker.setKnownXPosition(tracker.getEstimatedXPosition());
+                tracker.setKnownHeading(tracker.getEstimatedHeading());
+            }
+        }
+        long elapsed = System.nanoTime()-start;
+        long bytes = allocatedBytes()-bytesStart;
+
+        System.out.println(String.format("Tracker %-12s %8.1f ns/update  %10d bytes allocated over %d updates",
+                filterType,(double)elapsed/TIMED_UPDATES,bytes,TIMED_UPDATES));
+    }
+
+    /**
+     * All implementations must produce the same estimate
+     */
+    @Test
+    public void implementationsAgree() {
+        createModel();
+        KalmanFilter operations = createFilter(new KalmanFilterOperations());
+        run(operations,5000);
+        for(KalmanFilter filter : new KalmanFilter[]{new KalmanFilterFixed6x4(),new KalmanFilterSquareRoot()}){
+            createFilter(filter);
+            run(filter,5000);
+            for(int i=0;i < 6;i++){
+                assertEquals(operations.getState().get(i),filter.getState().get(i),1e-9);
+                for(int j=0;j < 6;j++){
+                    double expected = operations.getCovariance().get(i,j);
+                    assertEquals(expected,filter.getCovariance().get(i,j),1e-12*Math.max(1,Math.abs(expected)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Processing the diagonal R one measurement at a time must match the joint update
+     */
+    @Test
+    public void sequentialMatchesJoint() {
+        for(int shape=0;shape < 2;shape++){
+            if (shape == 0){
+                createModel();
+            }
+            else {
+                createAccelModel();
+            }
+            KalmanFilterOperations joint = new KalmanFilterOperations();
+            KalmanFilterOperations sequential = new KalmanFilterOperations();
+            createFilter(joint);
+            createFilter(sequential);
+            joint.setSequentialUpdate(false);
+            run(joint,5000);
+            run(sequential,5000);
+            for(int i=0;i < F.numRows;i++){
+                assertEquals(joint.getState().get(i),sequential.getState().get(i),1e-9);
+            }
+        }
+    }
+
+    private void benchmarkImplementations() {
+        createModel();
+
+        // Alternate between the implementations so neither benefits from running last
+        KalmanFilter[] filters = {createFilter(new KalmanFilterOperations()),createFilter(new KalmanFilterFixed6x4()),
+                createFilter(new KalmanFilterSquareRoot())};
+        String[] names = {"OPERATIONS","FIXED_SIZE","SQUARE_ROOT"};
+        for(int round=0;round < ROUNDS;round++){
+            for(int i=0;i < filters.length;i++){
+                benchmark(names[i],filters[i]);
+            }
+        }
+
+        // Full tracker updates including the measurement rotation and known position resets
+        for(int round=0;round < ROUNDS;round++){
+            benchmarkTracker(KalmanTracker.FilterType.OPERATIONS);
+            benchmarkTracker(KalmanTracker.FilterType.FIXED_SIZE);
+            benchmarkTracker(KalmanTracker.FilterType.SQUARE_ROOT);
+        }
+    }
+
+    /**
+     * Compares the joint update against processing the diagonal R one measurement at a time
+     */
+    private void benchmarkSequentialVsJoint() {
+        for(int shape=0;shape < 2;shape++){
+            if (shape == 0){
+                createModel();
+                System.out.println("KalmanTracker 6 states, 4 measurements");
+            }
+            else {
+                createAccelModel();
+                System.out.println("KalmanTrackerWithAccels 8 states, 6 measurements");
+            }
+
+            KalmanFilterOperations joint = new KalmanFilterOperations();
+            KalmanFilterOperations sequential = new KalmanFilterOperations();
+            createFilter(joint);
+            createFilter(sequential);
+            joint.setSequentialUpdate(false);
+            for(int round=0;round < ROUNDS;round++){
+                benchmark("JOINT",joint);
+                benchmark("SEQUENTIAL",sequential);
+            }
+            if (shape == 0){
+                KalmanFilterFixed6x4 fixedJoint = new KalmanFilterFixed6x4();
+                KalmanFilterFixed6x4 fixedSequential = new KalmanFilterFixed6x4();
+                createFilter(fixedJoint);
+                createFilter(fixedSequential);
+                fixedSequential.setSequentialUpdate(true);
+                for(int round=0;round < ROUNDS;round++){
+                    benchmark("FIXED JOINT",fixedJoint);
+                    benchmark("FIXED SEQ",fixedSequential);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the timing benchmarks.  They take tens of seconds so they aren't part of the unit tests.
+     */
+    public static void main(String[] args) {
+        KalmanFilterBenchmark benchmark = new KalmanFilterBenchmark();
+        benchmark.benchmarkImplementations();
+        benchmark.benchmarkSequentialVsJoint();
+    }
+}
@@ -0,0 +1,61 @@
+package org.firstinspires.ftc.teamcode.guidance;
+import org.ejml.data.DMatrixRMaj;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks how the square root filter factors covariances handed to setState().
+ */
+public class KalmanFilterSquareRootTest {
+
+    private static KalmanFilterSquareRoot createFilter() {
+        DMatrixRMaj F = new DMatrixRMaj(new double[][]{{1, 0.05}, {0, 1}});
+        DMatrixRMaj Q = new DMatrixRMaj(new double[][]{{0.01, 0}, {0, 0.01}});
+        DMatrixRMaj H = new DMatrixRMaj(new double[][]{{0, 1}});
+        KalmanFilterSquareRoot filter = new KalmanFilterSquareRoot();
+        filter.configure(F, Q, H);
+        return filter;
+    }
+
+    @Test
+    public void factorsPositiveDefiniteCovariance() {
+        KalmanFilterSquareRoot filter = createFilter();
+        DMatrixRMaj P = new DMatrixRMaj(new double[][]{{4, 1}, {1, 2}});
+        filter.setState(new DMatrixRMaj(2, 1), P);
+        DMatrixRMaj actual = filter.getCovariance();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(P.data[i], actual.data[i], 1e-12);
+        }
+    }
+
+    @Test
+    public void repairsSemiDefiniteCovariance() {
+        // Perfectly correlated, as left behind by a variance reset on a singular covariance
+        KalmanFilterSquareRoot filter = createFilter();
+        DMatrixRMaj P = new DMatrixRMaj(new double[][]{{1, 1}, {1, 1}});
+        filter.setState(new DMatrixRMaj(2, 1), P);
+        DMatrixRMaj actual = filter.getCovariance();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(P.data[i], actual.data[i], 1e-6);
+        }
+    }
+
+    @Test
+    public void fallsBackToVariancesForIndefiniteCovariance() {
+        // A variance reset to a value smaller than its covariances allow
+        KalmanFilterSquareRoot filter = createFilter();
+        DMatrixRMaj P = new DMatrixRMaj(new double[][]{{0.01, 1}, {1, 4}});
+        filter.setState(new DMatrixRMaj(2, 1), P);
+        DMatrixRMaj actual = filter.getCovariance();
+        assertEquals(0.01, actual.get(0, 0), 1e-12);
+        assertEquals(4, actual.get(1, 1), 1e-12);
+        assertEquals(0, actual.get(0, 1), 0);
+
+        // and the filter keeps running
+        filter.predict();
+        filter.update(new DMatrixRMaj(new double[][]{{1}}), new DMatrixRMaj(new double[][]{{0.1}}));
+        assertTrue(filter.getCovariance().get(1, 1) < 4);
+    }
+}
@@ -0,0 +1,335 @@
+package org.firstinspires.ftc.teamcode.guidance;
+
+import org.firstinspires.ftc.teamcode.util.BinaryLogFile;
+import org.firstinspires.ftc.teamcode.util.BinaryLogReader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Replays a log recorded by FilterDevelopmentOpMode through a KalmanTracker, and optionally a
+ * GuidanceController, on the desktop as fast as the code runs.  The log is loaded into memory
+ * before the replay so only the tracker and guidance updates are timed.
+ *
+ * The tracker inputs are rebuilt from the logged wheel speeds with the same mecanum equations
+ * BaseMecanumDrive uses, the IMU heading comes from theta_imu and dt from the time column.  The
+ * tracker estimates are compared with the estimates logged on the robot, so replaying with the
+ * filter that made the log checks it still gives the same answer and replaying with another
+ * filter shows how far it differs.  CSV logs and binary .tlog logs with the same columns can be
+ * replayed.  FilterDevelopmentOpMode only writes the CSV log, a .tlog has to be written with
+ * BinaryLogFile by whatever records it.
+ *
+ * The residuals are only meaningful when the log has enough precision.  FilterDevelopmentOpMode
+ * logs with %.9f, but older kflog.csv files stored the wheel speeds, theta_imu and estimates
+ * with %4.2f and the time with %4.3f, about 2% dt quantization at T=50ms.  Replaying one of those
+ * through the same filter shows residuals from the rounding, not from the filter.
+ */
+public class KalmanLogReplay {
+
+    // Columns read from the log, see FilterDevelopmentOpMode.LOG_COLUMNS
+    static final String[] REQUIRED_COLUMNS = {"time", "w_lf", "w_rf", "w_lr", "w_rr", "theta_imu",
+            "kf_px", "kf_py", "kf_heading"};
+    private static final int TIME = 0;
+    private static final int W_LF = 1;
+    private static final int W_RF = 2;
+    private static final int W_LR = 3;
+    private static final int W_RR = 4;
+    private static final int THETA_IMU = 5;
+    private static final int KF_PX = 6;
+    private static final int KF_PY = 7;
+    private static final int KF_HEADING = 8;
+    // Guidance columns, only compared when present
+    static final String[] COMMAND_COLUMNS = {"mode", "rot_cmd", "steering_cmd", "cmd_pwr"};
+
+    // Upper edges of the latency histogram buckets in microseconds, the last bucket is open
+    public static final double[] LATENCY_BUCKETS_US = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000};
+
+    /**
+     * Issues the guidance commands the OpMode issued while the log was recorded, for example
+     * moveStraight() on the first row.  Called before the guidance update of every row.
+     */
+    public interface IReplayScript {
+        void onRow(int row, double time, GuidanceController guidanceController);
+    }
+
+    /**
+     * Summary of one replay
+     */
+    public static class Metrics {
+        public int rows = 0;
+        // Seconds of robot time covered by the log and seconds the replay took
+        public double logDuration = 0d;
+        public double replayDuration = 0d;
+        // Update latency of each row in nanoseconds
+        public long[] latencyNS = new long[0];
+        // Counts per LATENCY_BUCKETS_US bucket with one extra for the open bucket
+        public int[] latencyHistogram = new int[LATENCY_BUCKETS_US.length + 1];
+        // Distance between the replayed and logged position estimates in meters
+        public double rmsPositionResidual = 0d;
+        public double maxPositionResidual = 0d;
+        // Difference between the replayed and logged heading estimates in degrees
+        public double rmsHeadingResidual = 0d;
+        public double maxHeadingResidual = 0d;
+        // Guidance comparison, only filled in when a controller was replayed against a log with
+        // the command columns
+        public boolean commandsCompared = false;
+        public int modeMismatches = 0;
+        public double maxCommandResidual = 0d;
+
+        /**
+         * Returns the latency in nanoseconds below which the given fraction of updates fell
+         */
+        public long getLatencyPercentile(double fraction) {
+            if (latencyNS.length == 0)
+                return 0;
+            long[] sorted = Arrays.copyOf(latencyNS, latencyNS.length);
+            Arrays.sort(sorted);
+            int index = (int)Math.ceil(fraction * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("rows=%d log=%.1fs replay=%.3fs (%.0fx real time)%n", rows, logDuration,
+                    replayDuration, replayDuration > 0 ? logDuration / replayDuration : 0d));
+            sb.append(String.format("update latency p50=%.1fus p99=%.1fus max=%.1fus%n",
+                    getLatencyPercentile(0.5) / 1e3d, getLatencyPercentile(0.99) / 1e3d,
+                    getLatencyPercentile(1d) / 1e3d));
+            for (int i = 0; i < latencyHistogram.length; i++) {
+                String label = i < LATENCY_BUCKETS_US.length
+                        ? String.format("<%6.0fus", LATENCY_BUCKETS_US[i])
+                        : String.format(">=%5.0fus", LATENCY_BUCKETS_US[LATENCY_BUCKETS_US.length - 1]);
+                sb.append(String.format("  %s %8d%n", label, latencyHistogram[i]));
+            }
+            sb.append(String.format("position residual rms=%.4fm max=%.4fm%n", rmsPositionResidual,
+                    maxPositionResidual));
+            sb.append(String.format("heading residual rms=%.3fdeg max=%.3fdeg%n", rmsHeadingResidual,
+                    maxHeadingResidual));
+            if (commandsCompared) {
+                sb.append(String.format("mode mismatches=%d max command residual=%.4f%n", modeMismatches,
+                        maxCommandResidual));
+            }
+            return sb.toString();
+        }
+    }
+
+    private final String[] mColumnNames;
+    private final double[][] mRows;
+    // Index of each REQUIRED_COLUMNS and COMMAND_COLUMNS entry in the log rows, -1 if missing
+    private final int[] mColumns = new int[REQUIRED_COLUMNS.length];
+    private final int[] mCommandColumns = new int[COMMAND_COLUMNS.length];
+
+    /**
+     * @param columnNames names of the logged columns
+     * @param rows logged rows, each with one value per column
+     */
+    public KalmanLogReplay(String[] columnNames, double[][] rows) {
+        mColumnNames = columnNames;
+        mRows = rows;
+        for (int i = 0; i < REQUIRED_COLUMNS.length; i++) {
+            mColumns[i] = indexOf(REQUIRED_COLUMNS[i]);
+            if (mColumns[i] < 0)
+                throw new IllegalArgumentException("log has no " + REQUIRED_COLUMNS[i] + " column");
+        }
+        for (int i = 0; i < COMMAND_COLUMNS.length; i++) {
+            mCommandColumns[i] = indexOf(COMMAND_COLUMNS[i]);
+        }
+    }
+
+    /**
+     * Loads a log, a binary log if the name ends in BinaryLogFile.EXTENSION and a CSV file otherwise
+     */
+    public static KalmanLogReplay load(File file) throws IOException {
+        if (file.getName().endsWith(BinaryLogFile.EXTENSION))
+            return loadBinary(file);
+        return loadCsv(file);
+    }
+
+    /**
+     * Loads a CSV log with a header row.  Mode names written by the AsyncLogFile column labels are
+     * turned back into the GuidanceController mode constants.
+     */
+    public static KalmanLogReplay loadCsv(File file) throws IOException {
+        List<double[]> rows = new ArrayList<>();
+        String[] columnNames;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String header = reader.readLine();
+            if (header == null)
+                throw new IOException(file + " is empty");
+            columnNames = header.trim().split(",");
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.trim().split(",");
+                if (fields.length != columnNames.length)
+                    continue;   // partial last line if the robot stopped mid write
+                double[] row = new double[fields.length];
+                for (int i = 0; i < fields.length; i++) {
+                    row[i] = parseField(fields[i].trim());
+                }
+                rows.add(row);
+            }
+        }
+        return new KalmanLogReplay(columnNames, rows.toArray(new double[rows.size()][]));
+    }
+
+    /**
+     * Loads a binary log written by BinaryLogFile
+     */
+    public static KalmanLogReplay loadBinary(File file) throws IOException {
+        BinaryLogReader reader = new BinaryLogReader(file);
+        String[] columnNames = reader.getColumnNames();
+        double[][] rows = new double[(int)reader.getNumRows()][columnNames.length];
+        for (double[] row : rows) {
+            reader.next(row);
+        }
+        return new KalmanLogReplay(columnNames, rows);
+    }
+
+    private static double parseField(String field) {
+        for (int mode = 0; mode < GuidanceController.MODE_NAMES.length; mode++) {
+            if (GuidanceController.MODE_NAMES[mode].equals(field))
+                return mode;
+        }
+        try {
+            return Double.parseDouble(field);
+        }
+        catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < mColumnNames.length; i++) {
+            if (mColumnNames[i].equals(name))
+                return i;
+        }
+        return -1;
+    }
+
+    public int getNumRows() {
+        return mRows.length;
+    }
+
+    /**
+     * Replays the log through a new tracker built from the parameters.  The parameters must
+     * describe the robot the log was recorded on, the filter implementation can be anything.
+     */
+    public Metrics replay(KalmanTracker.KalmanParameters parameters) {
+        KalmanTracker tracker = new KalmanTracker();
+        tracker.init(parameters);
+        return replay(tracker, parameters, null, null);
+    }
+
+    /**
+     * Replays the log
+     * @param tracker initialized tracker to feed the log through
+     * @param parameters robot geometry used to turn wheel speeds into tracker inputs and the
+     *                   nominal T used for the first row
+     * @param guidanceController controller driven by the tracker, may be null
+     * @param script issues the controller commands, may be null
+     */
+    public Metrics replay(KalmanTracker tracker, KalmanTracker.KalmanParameters parameters,
+                          GuidanceController guidanceController, IReplayScript script) {
+        Metrics metrics = new Metrics();
+        int numRows = mRows.length;
+        metrics.rows = numRows;
+        metrics.latencyNS = new long[numRows];
+        metrics.commandsCompared = guidanceController != null && mCommandColumns[0] >= 0;
+
+        double rover4 = parameters.WHEEL_RADIUS / 4.0d;
+        double lxly = parameters.LX + parameters.LY;
+        double sumPosition2 = 0d;
+        double sumHeading2 = 0d;
+        double lastTime = 0d;
+        long replayStartNS = System.nanoTime();
+        for (int row = 0; row < numRows; row++) {
+            double[] r = mRows[row];
+            double time = r[mColumns[TIME]];
+            double dt = row == 0 ? parameters.T : time - lastTime;
+            lastTime = time;
+            double wlf = r[mColumns[W_LF]];
+            double wrf = r[mColumns[W_RF]];
+            double wlr = r[mColumns[W_LR]];
+            double wrr = r[mColumns[W_RR]];
+            double vx = rover4 * (wlf - wrf - wlr + wrr);
+            double vy = rover4 * (wlf + wrf + wlr + wrr);
+            double wzw = rover4 * (-wlf + wrf - wlr + wrr) / lxly;
+            double thetaImu = Math.toRadians(r[mColumns[THETA_IMU]]);
+
+            if (guidanceController != null && script != null) {
+                script.onRow(row, time, guidanceController);
+            }
+            long startNS = System.nanoTime();
+            tracker.updateMeasurement(vx, vy, wzw, thetaImu, dt);
+            if (guidanceController != null) {
+                guidanceController.updateCommand();
+            }
+            long latency = System.nanoTime() - startNS;
+            metrics.latencyNS[row] = latency;
+            metrics.latencyHistogram[bucket(latency)]++;
+
+            double dx = tracker.getEstimatedXPosition() - r[mColumns[KF_PX]];
+            double dy = tracker.getEstimatedYPosition() - r[mColumns[KF_PY]];
+            double position2 = dx * dx + dy * dy;
+            sumPosition2 += position2;
+            metrics.maxPositionResidual = Math.max(metrics.maxPositionResidual, Math.sqrt(position2));
+            double heading = Math.abs(headingDifference(Math.toDegrees(tracker.getEstimatedHeading()),
+                    r[mColumns[KF_HEADING]]));
+            sumHeading2 += heading * heading;
+            metrics.maxHeadingResidual = Math.max(metrics.maxHeadingResidual, heading);
+
+            if (metrics.commandsCompared) {
+                compareCommands(r, guidanceController, metrics);
+            }
+        }
+        metrics.replayDuration = (System.nanoTime() - replayStartNS) / 1e9d;
+        if (numRows > 0) {
+            metrics.logDuration = mRows[numRows - 1][mColumns[TIME]] - mRows[0][mColumns[TIME]];
+            metrics.rmsPositionResidual = Math.sqrt(sumPosition2 / numRows);
+            metrics.rmsHeadingResidual = Math.sqrt(sumHeading2 / numRows);
+        }
+        return metrics;
+    }
+
+    private void compareCommands(double[] r, GuidanceController guidanceController, Metrics metrics) {
+        if (guidanceController.getMode() != (int)r[mCommandColumns[0]]) {
+            metrics.modeMismatches++;
+        }
+        double[] replayed = {guidanceController.getRotationCommand(),
+                guidanceController.getPathSteeringCommand(), guidanceController.getPowerCommand()};
+        for (int i = 0; i < replayed.length; i++) {
+            int column = mCommandColumns[i + 1];
+            if (column >= 0) {
+                metrics.maxCommandResidual = Math.max(metrics.maxCommandResidual,
+                        Math.abs(replayed[i] - r[column]));
+            }
+        }
+    }
+
+    private static int bucket(long latencyNS) {
+        double us = latencyNS / 1e3d;
+        for (int i = 0; i < LATENCY_BUCKETS_US.length; i++) {
+            if (us < LATENCY_BUCKETS_US[i])
+                return i;
+        }
+        return LATENCY_BUCKETS_US.length;
+    }
+
+    /**
+     * Difference between two headings in degrees wrapped to -180..180
+     */
+    static double headingDifference(double a, double b) {
+        double d = (a - b) % 360d;
+        if (d > 180d)
+            d -= 360d;
+        else if (d < -180d)
+            d += 360d;
+        return d;
+    }
+}
@@ -0,0 +1,202 @@
+package org.firstinspires.ftc.teamcode.guidance;
+import org.firstinspires.ftc.teamcode.drivetrain.SpeedBotMecanumDrive;
+import org.firstinspires.ftc.teamcode.util.AsyncLogFile;
+import org.firstinspires.ftc.teamcode.util.BinaryLogFile;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Records a synthetic drive in the FilterDevelopmentOpMode log format and checks that replaying
+ * it reproduces the logged tracker and guidance outputs.  main() replays a log pulled from the
+ * robot through every filter implementation and prints the metrics.
+ */
+public class KalmanLogReplayTest {
+
+    private static final String[] LOG_COLUMNS = {"time", "w_lf", "w_rf", "w_lr", "w_rr", "vx", "vy",
+            "theta_imu", "kf_px", "kf_py", "kf_wz", "kf_heading", "mode", "rot_cmd", "steering_cmd", "cmd_pwr"};
+    // Same full precision formats as FilterDevelopmentOpMode.LOG_FORMATS so the replay sees the
+    // same inputs the recording tracker did
+    private static final String[] LOG_FORMATS = {"%.9f", "%.9f", "%.9f", "%.9f", "%.9f", "%.9f", "%.9f",
+            "%.9f", "%.9f", "%.9f", "%.9f", "%.9f", null, "%.9f", "%.9f", "%.9f"};
+    private static final int LOG_MODE_COLUMN = 12;
+    private static final int ROWS = 400;
+    private static final double STRAIGHT_DISTANCE = 1.0d;
+    private static final double STRAIGHT_POWER = 0.5d;
+
+    private static KalmanTracker.KalmanParameters createParameters(KalmanTracker.FilterType filterType) {
+        KalmanTracker.KalmanParameters parameters = new KalmanTracker.KalmanParameters();
+        parameters.FILTER_TYPE = filterType;
+        parameters.LX = 0.15d;
+        parameters.LY = 0.14d;
+        parameters.WHEEL_RADIUS = 0.05d;
+        return parameters;
+    }
+
+    private static final KalmanLogReplay.IReplayScript SCRIPT = new KalmanLogReplay.IReplayScript() {
+        @Override
+        public void onRow(int row, double time, GuidanceController guidanceController) {
+            if (row == 0) {
+                guidanceController.moveStraight(STRAIGHT_DISTANCE, STRAIGHT_POWER);
+            }
+        }
+    };
+
+    /**
+     * Drives a gentle jittery arc the way FilterDevelopmentOpMode.controlStep() would and logs
+     * it to kflog.csv and kflog.tlog in the directory
+     */
+    private static void recordLog(File dir) {
+        KalmanTracker.KalmanParameters parameters = createParameters(KalmanTracker.FilterType.OPERATIONS);
+        KalmanTracker tracker = new KalmanTracker();
+        tracker.init(parameters);
+        GuidanceController guidanceController = new GuidanceController(
+                new GuidanceController.GuidanceControllerParameters(), tracker);
+        AsyncLogFile csvLog = new AsyncLogFile(dir.getPath(), "kflog.csv", LOG_COLUMNS, LOG_FORMATS, 1024, 10);
+        csvLog.setColumnLabels(LOG_MODE_COLUMN, GuidanceController.MODE_NAMES);
+        csvLog.openFile();
+        BinaryLogFile binaryLog = new BinaryLogFile(dir.getPath(), "kflog" + BinaryLogFile.EXTENSION, LOG_COLUMNS);
+        binaryLog.openFile();
+
+        Random rand = new Random(234);
+        double rover4 = parameters.WHEEL_RADIUS / 4.0d;
+        double time = 0d;
+        double thetaImu = 0d;
+        double[] record = new double[LOG_COLUMNS.length];
+        for (int row = 0; row < ROWS; row++) {
+            double dt = row == 0 ? parameters.T : parameters.T * (1d + 0.3d * rand.nextDouble());
+            time += dt;
+            double wlf = 10d + rand.nextGaussian();
+            double wrf = 11d + rand.nextGaussian();
+            double wlr = 10d + rand.nextGaussian();
+            double wrr = 11d + rand.nextGaussian();
+            double vx = rover4 * (wlf - wrf - wlr + wrr);
+            double vy = rover4 * (wlf + wrf + wlr + wrr);
+            double wzw = rover4 * (-wlf + wrf - wlr + wrr) / (parameters.LX + parameters.LY);
+            thetaImu += wzw * dt;
+
+            SCRIPT.onRow(row, time, guidanceController);
+            tracker.updateMeasurement(vx, vy, wzw, thetaImu, dt);
+            guidanceController.updateCommand();
+
+            int i = 0;
+            record[i++] = time;
+            record[i++] = wlf;
+            record[i++] = wrf;
+            record[i++] = wlr;
+            record[i++] = wrr;
+            record[i++] = tracker.getVx();
+            record[i++] = tracker.getVy();
+            record[i++] = Math.toDegrees(thetaImu);
+            record[i++] = tracker.getEstimatedXPosition();
+            record[i++] = tracker.getEstimatedYPosition();
+            record[i++] = Math.toDegrees(tracker.getEstimatedAngularVelocity());
+            record[i++] = Math.toDegrees(tracker.getEstimatedHeading());
+            record[i++] = guidanceController.getMode();
+            record[i++] = guidanceController.getRotationCommand();
+            record[i++] = guidanceController.getPathSteeringCommand();
+            record[i++] = guidanceController.getPowerCommand();
+            assertTrue(csvLog.writeLogRow(record));
+            binaryLog.writeLogRow(record);
+        }
+        csvLog.closeFile();
+        binaryLog.closeFile();
+    }
+
+    private static File createLogs() throws Exception {
+        File dir = Files.createTempDirectory("kflog").toFile();
+        dir.deleteOnExit();
+        recordLog(dir);
+        new File(dir, "kflog.csv").deleteOnExit();
+        new File(dir, "kflog" + BinaryLogFile.EXTENSION).deleteOnExit();
+        return dir;
+    }
+
+    private static KalmanLogReplay.Metrics replayWithGuidance(KalmanLogReplay replay,
+                                                              KalmanTracker.FilterType filterType) {
+        KalmanTracker.KalmanParameters parameters = createParameters(filterType);
+        KalmanTracker tracker = new KalmanTracker();
+        tracker.init(parameters);
+        GuidanceController guidanceController = new GuidanceController(
+                new GuidanceController.GuidanceControllerParameters(), tracker);
+        return replay.replay(tracker, parameters, guidanceController, SCRIPT);
+    }
+
+    @Test
+    public void reproducesRecordedEstimates() throws Exception {
+        File dir = createLogs();
+        for (String name : new String[] {"kflog.csv", "kflog" + BinaryLogFile.EXTENSION}) {
+            KalmanLogReplay replay = KalmanLogReplay.load(new File(dir, name));
+            assertEquals(ROWS, replay.getNumRows());
+            KalmanLogReplay.Metrics metrics = replayWithGuidance(replay, KalmanTracker.FilterType.OPERATIONS);
+            assertEquals(ROWS, metrics.rows);
+            assertTrue(name + " position " + metrics.maxPositionResidual, metrics.maxPositionResidual < 1e-6);
+            assertTrue(name + " heading " + metrics.maxHeadingResidual, metrics.maxHeadingResidual < 1e-5);
+            assertTrue(metrics.commandsCompared);
+            assertEquals(0, metrics.modeMismatches);
+            assertTrue(name + " command " + metrics.maxCommandResidual, metrics.maxCommandResidual < 1e-6);
+        }
+    }
+
+    @Test
+    public void replaysOtherFilters() throws Exception {
+        KalmanLogReplay replay = KalmanLogReplay.load(new File(createLogs(), "kflog.csv"));
+        for (KalmanTracker.FilterType filterType : KalmanTracker.FilterType.values()) {
+            KalmanLogReplay.Metrics metrics = replay.replay(createParameters(filterType));
+            // Every implementation solves the same filter so only round off differs
+            assertTrue(filterType + " position " + metrics.maxPositionResidual, metrics.maxPositionResidual < 1e-4);
+            assertTrue(metrics.rmsPositionResidual <= metrics.maxPositionResidual);
+            int count = 0;
+            for (int bucket : metrics.latencyHistogram) {
+                count += bucket;
+            }
+            assertEquals(ROWS, count);
+            assertTrue(metrics.getLatencyPercentile(0.5) <= metrics.getLatencyPercentile(1d));
+        }
+    }
+
+    @Test
+    public void wrapsHeadingDifference() {
+        assertEquals(2d, KalmanLogReplay.headingDifference(1d, 359d), 1e-12);
+        assertEquals(-2d, KalmanLogReplay.headingDifference(359d, 1d), 1e-12);
+        assertEquals(10d, KalmanLogReplay.headingDifference(20d, 10d), 1e-12);
+    }
+
+    /**
+     * Replays kflog.csv or kflog.tlog from the data directory through every filter implementation.
+     * Pull the log from /sdcard on the robot into the data directory first.
+     */
+    @Test
+    public void main() throws Exception {
+        // Get the path to the data directory
+        Path currentRelativePath = Paths.get("");
+        String dataPath = currentRelativePath.toAbsolutePath().toString() + "/src/test/java/org/firstinspires/ftc/teamcode/guidance/data";
+        File logFile = new File(dataPath, "kflog" + BinaryLogFile.EXTENSION);
+        if (!logFile.exists()) {
+            logFile = new File(dataPath, "kflog.csv");
+        }
+        if (!logFile.exists()) {
+            System.out.println("No log to replay in " + dataPath);
+            return;
+        }
+        KalmanLogReplay replay = KalmanLogReplay.load(logFile);
+        // Geometry of the drivetrain the filter development OpMode runs on
+        SpeedBotMecanumDrive drivetrain = new SpeedBotMecanumDrive(null);
+        for (KalmanTracker.FilterType filterType : KalmanTracker.FilterType.values()) {
+            KalmanTracker.KalmanParameters parameters = new KalmanTracker.KalmanParameters();
+            parameters.FILTER_TYPE = filterType;
+            parameters.LX = drivetrain.getLX();
+            parameters.LY = drivetrain.getLY();
+            parameters.WHEEL_RADIUS = drivetrain.getWheelRadius();
+            System.out.println("== " + filterType + " " + logFile.getName());
+            System.out.print(replay.replay(parameters));
+        }
+    }
+}
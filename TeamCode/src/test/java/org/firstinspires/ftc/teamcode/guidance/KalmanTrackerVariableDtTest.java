@@ -0,0 +1,82 @@
+package org.firstinspires.ftc.teamcode.guidance;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the variable time step prediction of the Kalman trackers.
+ */
+public class KalmanTrackerVariableDtTest {
+
+    private static final double T = 0.050d;
+
+    private static KalmanTracker createTracker(KalmanTracker.FilterType filterType) {
+        KalmanTracker tracker = new KalmanTracker();
+        KalmanTracker.KalmanParameters parameters = new KalmanTracker.KalmanParameters();
+        parameters.FILTER_TYPE = filterType;
+        parameters.T = T;
+        tracker.init(parameters);
+        return tracker;
+    }
+
+    @Test
+    public void nominalStepMatchesFixedStep() {
+        for (KalmanTracker.FilterType filterType : KalmanTracker.FilterType.values()) {
+            KalmanTracker fixed = createTracker(filterType);
+            KalmanTracker variable = createTracker(filterType);
+            Random rand = new Random(234);
+            for (int i = 0; i < 200; i++) {
+                double vx = rand.nextGaussian();
+                double vy = 1 + 0.1 * rand.nextGaussian();
+                double wzw = 0.1 * rand.nextGaussian();
+                double theta = 0.01 * i;
+                fixed.updateMeasurement(vx, vy, wzw, theta);
+                variable.updateMeasurement(vx, vy, wzw, theta, T);
+            }
+            assertEquals(fixed.getEstimatedXPosition(), variable.getEstimatedXPosition(), 1e-9);
+            assertEquals(fixed.getEstimatedYPosition(), variable.getEstimatedYPosition(), 1e-9);
+            assertEquals(fixed.getEstimatedHeading(), variable.getEstimatedHeading(), 1e-9);
+        }
+    }
+
+    @Test
+    public void measuredStepTracksJitteryLoop() {
+        for (KalmanTracker.FilterType filterType : KalmanTracker.FilterType.values()) {
+            KalmanTracker fixed = createTracker(filterType);
+            KalmanTracker variable = createTracker(filterType);
+            // Drive straight at 1 m/s while the loop period wanders between 1 and 2 times T
+            Random rand = new Random(234);
+            double vy = 1d;
+            double py = 0d;
+            for (int i = 0; i < 200; i++) {
+                double dt = T * (1d + rand.nextDouble());
+                py += vy * dt;
+                fixed.updateMeasurement(0d, vy, 0d, 0d);
+                variable.updateMeasurement(0d, vy, 0d, 0d, dt);
+            }
+            double fixedError = Math.abs(fixed.getEstimatedYPosition() - py);
+            double variableError = Math.abs(variable.getEstimatedYPosition() - py);
+            assertTrue(filterType + " error " + variableError, variableError < 0.01 * py);
+            assertTrue(variableError < fixedError);
+        }
+    }
+
+    @Test
+    public void withAccelsNominalStepMatchesFixedStep() {
+        KalmanTrackerWithAccels fixed = new KalmanTrackerWithAccels();
+        KalmanTrackerWithAccels variable = new KalmanTrackerWithAccels();
+        fixed.init(T, 0, 0, 0, 0.15, 0.14, 0.05);
+        variable.init(T, 0, 0, 0, 0.15, 0.14, 0.05);
+        Random rand = new Random(234);
+        for (int i = 0; i < 100; i++) {
+            double w = 10 + rand.nextGaussian();
+            fixed.updateMeasurement(w, w, w, w, 0, 0, 0);
+            variable.updateMeasurement(w, w, w, w, 0, 0, 0, T);
+        }
+        assertEquals(fixed.getEstimatedXPosition(), variable.getEstimatedXPosition(), 1e-9);
+        assertEquals(fixed.getEstimatedYPosition(), variable.getEstimatedYPosition(), 1e-9);
+    }
+}
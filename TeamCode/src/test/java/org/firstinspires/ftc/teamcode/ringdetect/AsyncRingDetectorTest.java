@@ -0,0 +1,127 @@
+package org.firstinspires.ftc.teamcode.ringdetect;
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the asynchronous ring detector against stand in sensors and the trained all sensors network.
+ */
+public class AsyncRingDetectorTest {
+
+    /**
+     * Distance sensor whose read hangs until the thread is interrupted
+     */
+    private static class HangingDistanceSensor extends RingSensorSnapshotTest.FakeDistanceSensor {
+        final CountDownLatch reading = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        HangingDistanceSensor() {
+            super(120);
+        }
+
+        @Override
+        public double getDistance(DistanceUnit unit) {
+            reading.countDown();
+            try {
+                Thread.sleep(60000);
+            }
+            catch (InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+            return super.getDistance(unit);
+        }
+    }
+
+    private RingDetector createDetector() throws Exception {
+        Path currentRelativePath = Paths.get("");
+        String dataPath = currentRelativePath.toAbsolutePath().toString() + "/src/test/java/org/firstinspires/ftc/teamcode/ringdetect/data";
+
+        RingDetector detector = new RingDetector(RingDetectorNeuralNetwork.ALL_SENSORS, null);
+        detector.setNeuralNetwork(new RingDetectorNeuralNetwork(new File(dataPath), RingDetectorNeuralNetwork.ALL_SENSORS, null));
+        detector.setSensorSnapshot(new RingSensorSnapshot(
+                new RingSensorSnapshotTest.FakeColorSensor(0.01f, 0.02f, 0.02f, 40),
+                new RingSensorSnapshotTest.FakeColorSensor(0.01f, 0.02f, 0.02f, 50),
+                new RingSensorSnapshotTest.FakeColorSensor(0.01f, 0.02f, 0.02f, 60),
+                new RingSensorSnapshotTest.FakeDistanceSensor(120)));
+        return detector;
+    }
+
+    @Test
+    public void publishesLatestDetection() throws Exception {
+        RingDetector detector = createDetector();
+        int expected = detector.readDetector();
+        double expectedConfidence = detector.getLastConfidence();
+
+        AsyncRingDetector async = new AsyncRingDetector(detector, 5);
+        long start = System.nanoTime();
+        async.start();
+        AsyncRingDetector.Detection first = null;
+        while (first == null || first.sequence < 2) {
+            assertTrue("no detection published", System.nanoTime() - start < 2000000000L);
+            Thread.sleep(1);
+            first = async.getLatestDetection();
+        }
+        Thread.sleep(20);
+        async.stop();
+
+        AsyncRingDetector.Detection last = async.getLatestDetection();
+        assertTrue(last.sequence > first.sequence);
+        assertTrue(last.timestampNanos > first.timestampNanos);
+        assertEquals(expected, last.result);
+        assertEquals(expectedConfidence, last.confidence, 0);
+        assertEquals(0, async.getErrorCount());
+
+        // Nothing is published after stopping
+        Thread.sleep(20);
+        assertTrue(last == async.getLatestDetection());
+    }
+
+    @Test
+    public void filtersOnWorker() throws Exception {
+        RingDetector detector = createDetector();
+        int expected = detector.readDetector();
+
+        // Identical samples give the same confidence every time so the filter declares the same
+        // result as soon as it has minSamples samples
+        AsyncRingDetector async = new AsyncRingDetector(detector, 5, new RingDetectionFilter(10, 0.0, 3));
+        long start = System.nanoTime();
+        async.start();
+        AsyncRingDetector.Detection detection = async.getLatestDetection();
+        while (detection == null || detection.sequence < 3) {
+            assertTrue("no detection published", System.nanoTime() - start < 2000000000L);
+            Thread.sleep(1);
+            detection = async.getLatestDetection();
+        }
+        async.stop();
+        assertEquals(expected, detection.filteredResult);
+        assertTrue(detection.filteredConfidence > 0);
+    }
+
+    @Test(timeout = 10000)
+    public void stopInterruptsHungWorker() throws Exception {
+        RingDetector detector = createDetector();
+        HangingDistanceSensor distance = new HangingDistanceSensor();
+        detector.setSensorSnapshot(new RingSensorSnapshot(
+                new RingSensorSnapshotTest.FakeColorSensor(0.01f, 0.02f, 0.02f, 40),
+                new RingSensorSnapshotTest.FakeColorSensor(0.01f, 0.02f, 0.02f, 50),
+                new RingSensorSnapshotTest.FakeColorSensor(0.01f, 0.02f, 0.02f, 60),
+                distance));
+
+        AsyncRingDetector async = new AsyncRingDetector(detector, 5);
+        async.start();
+        assertTrue(distance.reading.await(2, TimeUnit.SECONDS));
+        long start = System.nanoTime();
+        async.stop();
+        assertTrue("stop() waited too long", System.nanoTime() - start < 3000000000L);
+        assertTrue("worker wasn't interrupted", distance.interrupted.await(2, TimeUnit.SECONDS));
+    }
+}
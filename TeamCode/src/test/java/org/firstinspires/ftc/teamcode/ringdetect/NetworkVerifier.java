@@ -106,12 +106,14 @@ public class NetworkVerifier {
 
         genData();
 
-        // And loop through the test data
+        // Run the whole data set through the network in one pass
+        SimpleMatrix outputs = ringnn.doTestInferenceBatch(mX);
+
+        // And loop through the results
         for(int column=0;column < mX.numCols();column++){
-            SimpleMatrix input = mX.extractVector(false,column);
             SimpleMatrix ytruth = mX.extractVector(false,column);
 
-            SimpleMatrix output = ringnn.doTestInference(input);
+            SimpleMatrix output = outputs.extractVector(false,column);
 
             String ytruths = NeuralNetworkMatrixUtils.printColumn(ytruth,0);
             String ydetections = NeuralNetworkMatrixUtils.printColumn(output,0);
@@ -0,0 +1,76 @@
+package org.firstinspires.ftc.teamcode.ringdetect;
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.simple.SimpleMatrix;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class that converts the serialized *_ringnn.bin networks to the flat binary format read by
+ * RingDetectorNeuralNetwork.  Copy the resulting .nnb files to /sdcard/nnfiles on the robot.
+ */
+public class NeuralNetworkBinaryConverter {
+
+    /**
+     * Converts a serialized network to the flat binary format and checks that the converted network
+     * gives the same output as the original.
+     * @param serializedFile network written by NeuralNetwork.serializeNetwork()
+     * @param binaryFile file to write
+     */
+    public void convert(File serializedFile, File binaryFile) throws Exception {
+        NeuralNetwork network = new NeuralNetwork();
+        InputStream is = new FileInputStream(serializedFile);
+        network.deserializeNetwork(is);
+        is.close();
+
+        if (binaryFile.exists()){
+            binaryFile.delete();
+        }
+        network.writeBinary(binaryFile);
+
+        NeuralNetwork converted = new NeuralNetwork();
+        converted.readBinary(binaryFile);
+        assertEquals(network.getDescription(),converted.getDescription());
+
+        // Run the same random inputs through both networks.  The weights are copied exactly so the
+        // outputs must match exactly.
+        DMatrixRMaj scale = network.getInputScaleVector();
+        DMatrixRMaj x = SimpleMatrix.random_DDRM(scale.numRows,100,0,1000,new java.util.Random(234)).getDDRM();
+        DMatrixRMaj expected = network.feedForwardBatch(x).copy();
+        DMatrixRMaj actual = converted.feedForwardBatch(x);
+        for (int i = 0; i < expected.getNumElements(); i++) {
+            assertEquals(expected.data[i],actual.data[i],0);
+        }
+        System.out.println("Converted " + serializedFile.getName() + " to " + binaryFile.getName());
+    }
+
+    /**
+     * The main method converts every network configuration in the data directory
+     */
+    @Test
+    public void main() throws Exception {
+        // Get the path to the data directory
+        Path currentRelativePath = Paths.get("");
+        String dataPath = currentRelativePath.toAbsolutePath().toString() + "/src/test/java/org/firstinspires/ftc/teamcode/ringdetect/data";
+        File neuralNetFilePath = new File(dataPath);
+
+        for (int networkConfig : RingNeuralNetworkParallelTrainer.NETWORK_CONFIGS) {
+            File serializedFile = new File(neuralNetFilePath,RingDetectorNeuralNetwork.getNeuralNetworkFilename(networkConfig));
+            try {
+                convert(serializedFile,
+                        new File(neuralNetFilePath,RingDetectorNeuralNetwork.getNeuralNetworkBinaryFilename(networkConfig)));
+            }
+            catch (Exception e) {
+                // Networks serialized before the training parameters were saved can't be read and
+                // need to be retrained
+                System.out.println("Skipping " + serializedFile.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.firstinspires.ftc.teamcode.ringdetect;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the sliding window ring detection filter.
+ */
+public class RingDetectionFilterTest {
+
+    @Test
+    public void declaresAfterMinSamples() {
+        RingDetectionFilter filter = new RingDetectionFilter(10, 0.6, 3);
+        double[] oneRing = {0.1, 0.8, 0.1};
+        assertEquals(RingDetectorNeuralNetwork.UNKNOWN, filter.update(oneRing));
+        assertEquals(RingDetectorNeuralNetwork.UNKNOWN, filter.update(oneRing));
+        assertEquals(RingDetectorNeuralNetwork.ONE_RING, filter.update(oneRing));
+        assertEquals(0.8, filter.getConfidence(RingDetectorNeuralNetwork.ONE_RING), 1e-12);
+    }
+
+    @Test
+    public void thresholdRejectsDisagreement() {
+        RingDetectionFilter filter = new RingDetectionFilter(4, 0.6, 1);
+        filter.update(new double[]{0.9, 0.1, 0.0});
+        filter.update(new double[]{0.1, 0.9, 0.0});
+        assertEquals(RingDetectorNeuralNetwork.UNKNOWN, filter.getResult());
+        assertEquals(0.5, filter.getConfidence(RingDetectorNeuralNetwork.NO_RING), 1e-12);
+
+        // Once the window agrees the result is declared
+        filter.update(new double[]{0.0, 1.0, 0.0});
+        filter.update(new double[]{0.0, 1.0, 0.0});
+        assertEquals(RingDetectorNeuralNetwork.ONE_RING, filter.getResult());
+    }
+
+    @Test
+    public void oldSamplesLeaveTheWindow() {
+        RingDetectionFilter filter = new RingDetectionFilter(3, 0.9, 1);
+        for (int i = 0; i < 3; i++) {
+            filter.update(new double[]{0.0, 0.0, 1.0});
+        }
+        assertEquals(RingDetectorNeuralNetwork.FOUR_RINGS, filter.getResult());
+        for (int i = 0; i < 3; i++) {
+            filter.update(new double[]{1.0, 0.0, 0.0});
+        }
+        assertEquals(RingDetectorNeuralNetwork.NO_RING, filter.getResult());
+        assertEquals(1.0, filter.getConfidence(RingDetectorNeuralNetwork.NO_RING), 1e-12);
+        assertEquals(3, filter.getSampleCount());
+
+        filter.reset();
+        assertEquals(0, filter.getSampleCount());
+        assertEquals(RingDetectorNeuralNetwork.UNKNOWN, filter.getBestClass());
+    }
+
+    @Test
+    public void runningSumsMatchWindow() {
+        int windowSize = 7;
+        RingDetectionFilter filter = new RingDetectionFilter(windowSize, 0.5, 1);
+        Random rand = new Random(234);
+        double[][] samples = new double[1000][3];
+        for (int n = 0; n < samples.length; n++) {
+            for (int i = 0; i < 3; i++) {
+                samples[n][i] = rand.nextDouble();
+            }
+            filter.update(samples[n]);
+
+            // Compare against summing the window from scratch
+            double[] sums = new double[3];
+            double total = 0;
+            for (int k = Math.max(0, n - windowSize + 1); k <= n; k++) {
+                for (int i = 0; i < 3; i++) {
+                    sums[i] += samples[k][i];
+                    total += samples[k][i];
+                }
+            }
+            for (int i = 0; i < 3; i++) {
+                assertEquals(sums[i] / total, filter.getConfidence(i), 1e-12);
+            }
+        }
+    }
+}
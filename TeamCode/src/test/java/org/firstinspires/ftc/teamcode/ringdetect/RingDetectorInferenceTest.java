@@ -0,0 +1,76 @@
+package org.firstinspires.ftc.teamcode.ringdetect;
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.simple.SimpleMatrix;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the allocation free inference path against the SimpleMatrix feedforward.
+ */
+public class RingDetectorInferenceTest {
+
+    private static final double[] RAW_INPUT = {120, 0.01, 0.02, 0.02, 40, 0.01, 0.02, 0.02, 50,
+            0.01, 0.02, 0.02, 60};
+
+    private RingDetectorNeuralNetwork createNetwork() throws Exception {
+        Path currentRelativePath = Paths.get("");
+        String dataPath = currentRelativePath.toAbsolutePath().toString() + "/src/test/java/org/firstinspires/ftc/teamcode/ringdetect/data";
+        return new RingDetectorNeuralNetwork(new File(dataPath), RingDetectorNeuralNetwork.ALL_SENSORS, null);
+    }
+
+    /**
+     * Returns the bytes allocated by this thread or -1 when the JVM can't report it
+     */
+    private static long allocatedBytes(){
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean){
+            return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    @Test
+    public void matchesSimpleMatrixInference() throws Exception {
+        RingDetectorNeuralNetwork ringnn = createNetwork();
+        SimpleMatrix expected = ringnn.doTestInference(new SimpleMatrix(RAW_INPUT.length, 1, true, RAW_INPUT));
+
+        double[] scores = new double[RingDetectorNeuralNetwork.NUM_OUTPUTS];
+        int result = ringnn.doInference(RAW_INPUT, scores);
+        assertEquals(RingDetectorNeuralNetwork.decodeOutput(expected), result);
+        for (int i = 0; i < scores.length; i++) {
+            assertEquals(expected.get(i), scores[i], 1e-12);
+        }
+        assertEquals(scores[result], ringnn.getLastConfidence(), 0);
+
+        // The matrix overload reads the same data
+        DMatrixRMaj x = new DMatrixRMaj(RAW_INPUT.length, 1, true, RAW_INPUT);
+        assertEquals(result, ringnn.doInference(x, null));
+        assertEquals(RAW_INPUT[0], x.get(0), 0);
+    }
+
+    @Test
+    public void doesNotAllocate() throws Exception {
+        RingDetectorNeuralNetwork ringnn = createNetwork();
+        double[] scores = new double[RingDetectorNeuralNetwork.NUM_OUTPUTS];
+        for (int i = 0; i < 20000; i++) {
+            ringnn.doInference(RAW_INPUT, scores);
+        }
+
+        long bytesStart = allocatedBytes();
+        for (int i = 0; i < 10000; i++) {
+            ringnn.doInference(RAW_INPUT, scores);
+        }
+        long bytes = allocatedBytes() - bytesStart;
+        if (bytesStart >= 0) {
+            // Allow for the counter itself, the inferences must not allocate
+            assertTrue("allocated " + bytes + " bytes", bytes < 1024);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.firstinspires.ftc.teamcode.ringdetect;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test class that trains all of the ring neural network configurations at once.  Every
+ * configuration, and optionally several random seed restarts of each, is trained as a separate
+ * task on a thread pool sized to the number of cores.  The network with the lowest cost on the
+ * test split of the training data is kept for each configuration.
+ */
+public class RingNeuralNetworkParallelTrainer {
+
+    // All of the network configurations that are trained
+    static final int[] NETWORK_CONFIGS = {
+            RingDetectorNeuralNetwork.ALL_SENSORS,
+            RingDetectorNeuralNetwork.NO_MID_COLOR_SENSOR,
+            RingDetectorNeuralNetwork.NO_DISTANCE_SENSOR,
+            RingDetectorNeuralNetwork.TOP_BOTTOM_COLOR_SENSORS_ONLY };
+
+    /**
+     * Result of training one network with one seed
+     */
+    static class TrainingRun {
+        int networkConfig;
+        long seed;
+        NeuralNetwork network;
+        StringBuffer log;
+        double testCost;
+    }
+
+    /**
+     * Trains every configuration in networkConfigs with numSeeds restarts each.  The best network
+     * for each configuration is written to neuralNetworkFilePath with its standard filename and
+     * the training log of every run is written to logFilePath.
+     * @param trainingDataFile training data, 10% of which is held out to pick the best seed
+     * @param neuralNetworkFilePath directory the networks are written to
+     * @param logFilePath directory the training logs are written to
+     * @param networkConfigs network configurations to train
+     * @param numSeeds number of random seed restarts for each configuration
+     * @param firstSeed seed of the first restart.  Restart n uses firstSeed+n
+     * @return the best run for each configuration in the same order as networkConfigs
+     */
+    public TrainingRun[] trainNetworks(File trainingDataFile, File neuralNetworkFilePath, File logFilePath,
+                                       int[] networkConfigs, int numSeeds, long firstSeed) {
+        int numThreads = Math.min(Runtime.getRuntime().availableProcessors(), networkConfigs.length*numSeeds);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        List<Future<TrainingRun>> futures = new ArrayList<>();
+        try {
+            for (int networkConfig : networkConfigs) {
+                // Every restart of a configuration shares the same data and test split so their test
+                // costs can be compared.  Training only reads the data so it is safe to share.
+                final RingDataProcessor processor = new RingDataProcessor(networkConfig);
+                processor.processData(trainingDataFile,0.10 ,true,true);
+                for (int n = 0; n < numSeeds; n++) {
+                    final int config = networkConfig;
+                    final long seed = firstSeed + n;
+                    futures.add(executor.submit(new Callable<TrainingRun>() {
+                        @Override
+                        public TrainingRun call() {
+                            return train(processor,config,seed);
+                        }
+                    }));
+                }
+            }
+
+            // Keep the run with the lowest test cost for each configuration
+            TrainingRun[] best = new TrainingRun[networkConfigs.length];
+            for (int i = 0; i < futures.size(); i++) {
+                TrainingRun run = futures.get(i).get();
+                String prefix = getFilePrefix(run.networkConfig);
+                File logFile = new File(logFilePath, numSeeds == 1 ? prefix + "_training_log.cvs" :
+                        prefix + "_seed" + run.seed + "_training_log.cvs");
+                RingNeuralNetworkTrainer.writeLog(run.log, logFile);
+                System.out.println(prefix + " seed " + run.seed + " test cost " + run.testCost);
+
+                int configIndex = i / numSeeds;
+                if (best[configIndex] == null || run.testCost < best[configIndex].testCost) {
+                    best[configIndex] = run;
+                }
+            }
+            for (TrainingRun run : best) {
+                File networkFile = new File(neuralNetworkFilePath,
+                        RingDetectorNeuralNetwork.getNeuralNetworkFilename(run.networkConfig));
+                RingNeuralNetworkTrainer.writeNetwork(run.network, networkFile);
+                System.out.println(getFilePrefix(run.networkConfig) + " keeping seed " + run.seed);
+            }
+            return best;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Training interrupted");
+        }
+        catch (ExecutionException e) {
+            throw new RuntimeException("Training failed: " + e.getCause(), e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Trains a single network.  Runs on an executor thread and only touches its own network and log.
+     */
+    private static TrainingRun train(RingDataProcessor processor, int networkConfig, long seed) {
+        TrainingRun run = new TrainingRun();
+        run.networkConfig = networkConfig;
+        run.seed = seed;
+        run.network = new NeuralNetwork(RingDetectorNeuralNetwork.getNetworkNodes(networkConfig),
+                NeuralNetwork.QUADRATIC_COST, seed);
+        run.log = RingNeuralNetworkTrainer.addTrainingLog(run.network);
+        run.network.train(RingDetectorNeuralNetwork.getNeuralNetworkFilename(networkConfig),
+                processor.getXTrainingData(), processor.getYTrainingData(), processor.getScaleFactors(),
+                RingNeuralNetworkTrainer.BATCH_SIZE, RingNeuralNetworkTrainer.ETA, RingNeuralNetworkTrainer.NUM_EPOCHS);
+        run.testCost = run.network.computeBatchCost(processor.getXTestData().getDDRM(),
+                processor.getYTestData().getDDRM());
+        return run;
+    }
+
+    /**
+     * Returns the network filename without the .bin extension used to name the logs
+     */
+    private static String getFilePrefix(int networkConfig) {
+        String fileprefix = RingDetectorNeuralNetwork.getNeuralNetworkFilename(networkConfig);
+        return fileprefix.substring(0,fileprefix.length()-4);
+    }
+
+    /**
+     * The main method retrains every network configuration and tests the results
+     */
+    @Test
+    public void main() {
+        // Get the path to the data directory
+        Path currentRelativePath = Paths.get("");
+        String dataPath = currentRelativePath.toAbsolutePath().toString() + "/src/test/java/org/firstinspires/ftc/teamcode/ringdetect/data";
+        File neuralNetFilePath = new File(dataPath);
+
+        // Number of random seed restarts for each configuration
+        int numSeeds = 1;
+
+        boolean TRAIN = false;
+        if (TRAIN) {
+            File trainingFile = new File(dataPath, "15DEC20_training_data.csv");
+            trainNetworks(trainingFile, neuralNetFilePath, neuralNetFilePath, NETWORK_CONFIGS, numSeeds, System.currentTimeMillis());
+        }
+
+        boolean test = true;
+        if (test) {
+            RingNeuralNetworkTrainer trainer = new RingNeuralNetworkTrainer();
+            File testingDataFile = new File(dataPath, "15DEC20_testing_data.csv");
+            for (int networkConfig : NETWORK_CONFIGS) {
+                File testingLogFile = new File(dataPath, getFilePrefix(networkConfig) + "_testing_log.cvs");
+                trainer.testNetwork(testingDataFile, neuralNetFilePath, networkConfig, testingLogFile, 1.0);
+            }
+        }
+    }
+}
@@ -14,6 +14,11 @@ import java.nio.file.Paths;
  */
 public class RingNeuralNetworkTrainer {
 
+    // Training parameters used for every network configuration
+    static final int BATCH_SIZE = 10;
+    static final double ETA = 0.1d;
+    static final int NUM_EPOCHS = 5000;
+
     /**
      * Called to train a new network
      */
@@ -28,6 +33,22 @@ public class RingNeuralNetworkTrainer {
 
         NeuralNetwork ringnn = new NeuralNetwork(nodes,NeuralNetwork.QUADRATIC_COST);
 
+        StringBuffer logBuffer = addTrainingLog(ringnn);
+
+        ringnn.train(description,processor.getXTrainingData(), processor.getYTrainingData(),
+                processor.getScaleFactors(), BATCH_SIZE,ETA,NUM_EPOCHS);
+         // Write out the network
+        writeNetwork(ringnn,networkFile);
+        // Save the training log
+        writeLog(logBuffer,logFile);
+
+    }
+
+    /**
+     * Adds a listener to the network that logs the training status of each epoch
+     * @return buffer the training log is written into
+     */
+    static StringBuffer addTrainingLog(NeuralNetwork ringnn){
         final StringBuffer logBuffer = new StringBuffer();
         logBuffer.append("Epoch#,Cost,del_L[0],del_L[1],delL[2],Normal Error\n");
 
@@ -46,10 +67,14 @@ public class RingNeuralNetworkTrainer {
                 logBuffer.append(buffer.toString());
             }
         });
+        return logBuffer;
+    }
 
-        ringnn.train(description,processor.getXTrainingData(), processor.getYTrainingData(),
-                processor.getScaleFactors(), 10,0.1d,5000);
-         // Write out the network
+    /**
+     * Serializes the network to networkFile replacing any existing file.  The flat binary copy
+     * loaded by the robot is written next to it.
+     */
+    static void writeNetwork(NeuralNetwork ringnn,File networkFile){
         try {
             if (networkFile.exists()){
                 networkFile.delete();
@@ -57,11 +82,21 @@ public class RingNeuralNetworkTrainer {
             FileOutputStream fos = new FileOutputStream(networkFile);
             ringnn.serializeNetwork(fos);
             fos.close();
+
+            String name = networkFile.getName();
+            File binaryFile = new File(networkFile.getParentFile(),
+                    name.substring(0,name.lastIndexOf('.')) + NeuralNetwork.BINARY_EXTENSION);
+            ringnn.writeBinary(binaryFile);
         }
         catch(Exception e){
             e.printStackTrace();
         }
-        // Save the training log
+    }
+
+    /**
+     * Writes the log buffer to logFile replacing any existing file
+     */
+    static void writeLog(StringBuffer logBuffer,File logFile){
         try{
             if (logFile.exists()){
                 logFile.delete();
@@ -73,7 +108,6 @@ public class RingNeuralNetworkTrainer {
         catch(IOException e){
             e.printStackTrace();
         }
-
     }
 
     public void testNetwork(File testDataFile,File neuralNetworkFilePath,int networkConfig,File logFile,double testFraction){
@@ -97,13 +131,15 @@ public class RingNeuralNetworkTrainer {
         SimpleMatrix x = processor.getXTestData();
         SimpleMatrix y = processor.getYTestData();
 
-        // And loop through the test data
+        // Run the whole test set through the network in one pass
+        SimpleMatrix outputs = ringnn.doTestInferenceBatch(x);
+
+        // And loop through the test results
         int pass = 0;
         int fail = 0;
         for(int column=0;column < x.numCols();column++){
-            SimpleMatrix input = x.extractVector(false,column);
             SimpleMatrix ytruth = y.extractVector(false,column);
-            SimpleMatrix output = ringnn.doTestInference(input);
+            SimpleMatrix output = outputs.extractVector(false,column);
             int truth = ringnn.decodeOutput(ytruth);
             int inference = ringnn.decodeOutput(output);
 
@@ -130,17 +166,7 @@ public class RingNeuralNetworkTrainer {
         logBuffer.append("Summary\n");
         logBuffer.append(String.format("%2.1f",percent)+".  Pass="+pass+".  Fail="+fail+". of "+x.numCols()+" test samples.\n");
         // Save the test log
-        try{
-            if (logFile.exists()){
-                logFile.delete();
-            }
-            FileWriter fw = new FileWriter(logFile);
-            fw.write(logBuffer.toString());
-            fw.close();
-        }
-        catch(IOException e){
-            e.printStackTrace();
-        }
+        writeLog(logBuffer,logFile);
 
     }
 
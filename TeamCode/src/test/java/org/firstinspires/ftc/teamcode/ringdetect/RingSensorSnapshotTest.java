@@ -0,0 +1,121 @@
+package org.firstinspires.ftc.teamcode.ringdetect;
+import com.qualcomm.robotcore.hardware.NormalizedRGBA;
+
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the ring detector reads each sensor once per loop using stand in sensors that
+ * count their transactions.
+ */
+public class RingSensorSnapshotTest {
+
+    /**
+     * Stand in for RevColorSensorV3 that counts every call that would be an I2C transaction
+     */
+    static class FakeColorSensor implements RingSensorSnapshot.ColorSensorSource {
+        int transactions = 0;
+        final NormalizedRGBA colors = new NormalizedRGBA();
+        double distanceMM;
+
+        FakeColorSensor(float red, float green, float blue, double distanceMM) {
+            colors.red = red;
+            colors.green = green;
+            colors.blue = blue;
+            this.distanceMM = distanceMM;
+        }
+
+        @Override
+        public NormalizedRGBA getNormalizedColors() {
+            transactions++;
+            return colors;
+        }
+
+        @Override
+        public double getDistance(DistanceUnit unit) {
+            transactions++;
+            return distanceMM;
+        }
+    }
+
+    /**
+     * Stand in for DistanceSensor that counts its transactions
+     */
+    static class FakeDistanceSensor implements RingSensorSnapshot.DistanceSensorSource {
+        int transactions = 0;
+        double distanceMM;
+
+        FakeDistanceSensor(double distanceMM) {
+            this.distanceMM = distanceMM;
+        }
+
+        @Override
+        public double getDistance(DistanceUnit unit) {
+            transactions++;
+            return distanceMM;
+        }
+    }
+
+    @Test
+    public void readsEachSensorOnce() {
+        FakeColorSensor top = new FakeColorSensor(0.1f, 0.2f, 0.3f, 40);
+        FakeColorSensor mid = new FakeColorSensor(0.4f, 0.5f, 0.6f, 50);
+        FakeColorSensor bottom = new FakeColorSensor(0.7f, 0.8f, 0.9f, 60);
+        FakeDistanceSensor distance = new FakeDistanceSensor(120);
+        RingSensorSnapshot snapshot = new RingSensorSnapshot(top, mid, bottom, distance);
+
+        snapshot.read();
+        assertEquals(2, top.transactions);
+        assertEquals(2, mid.transactions);
+        assertEquals(2, bottom.transactions);
+        assertEquals(1, distance.transactions);
+
+        assertEquals(0.1f, snapshot.topColorRed, 0);
+        assertEquals(0.2f, snapshot.topColorGreen, 0);
+        assertEquals(0.3f, snapshot.topColorBlue, 0);
+        assertEquals(40, snapshot.topDistanceMM, 0);
+        assertEquals(0.4f, snapshot.midColorRed, 0);
+        assertEquals(0.5f, snapshot.midColorGreen, 0);
+        assertEquals(0.6f, snapshot.midColorBlue, 0);
+        assertEquals(50, snapshot.midDistanceMM, 0);
+        assertEquals(0.7f, snapshot.bottomColorRed, 0);
+        assertEquals(0.8f, snapshot.bottomColorGreen, 0);
+        assertEquals(0.9f, snapshot.bottomColorBlue, 0);
+        assertEquals(60, snapshot.bottomDistanceMM, 0);
+        assertEquals(120, snapshot.distanceSensorMM, 0);
+    }
+
+    @Test
+    public void skipsUnusedSensors() {
+        FakeColorSensor top = new FakeColorSensor(0.1f, 0.2f, 0.3f, 40);
+        FakeColorSensor bottom = new FakeColorSensor(0.7f, 0.8f, 0.9f, 60);
+        RingSensorSnapshot snapshot = new RingSensorSnapshot(top, null, bottom, null);
+
+        snapshot.read();
+        snapshot.read();
+        assertEquals(4, top.transactions);
+        assertEquals(4, bottom.transactions);
+        assertEquals(0, snapshot.midColorRed, 0);
+        assertEquals(0, snapshot.distanceSensorMM, 0);
+    }
+
+    @Test
+    public void telemetryUsesSnapshot() {
+        FakeColorSensor top = new FakeColorSensor(0.1f, 0.2f, 0.3f, 40);
+        FakeColorSensor mid = new FakeColorSensor(0.4f, 0.5f, 0.6f, 50);
+        FakeColorSensor bottom = new FakeColorSensor(0.7f, 0.8f, 0.9f, 60);
+        FakeDistanceSensor distance = new FakeDistanceSensor(120);
+        RingDetector detector = new RingDetector(RingDetectorNeuralNetwork.ALL_SENSORS, null);
+        detector.setSensorSnapshot(new RingSensorSnapshot(top, mid, bottom, distance));
+
+        detector.readSensors();
+        String telemetry = detector.getTelemetryString();
+        assertEquals(telemetry, detector.getTelemetryString());
+        assertEquals(2, top.transactions);
+        assertEquals(2, mid.transactions);
+        assertEquals(2, bottom.transactions);
+        assertEquals(1, distance.transactions);
+    }
+}
@@ -0,0 +1,85 @@
+package org.firstinspires.ftc.teamcode.util;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Checks the asynchronous CSV log file writes every buffered row and counts dropped rows.
+ */
+public class AsyncLogFileTest {
+
+    private static final String[] COLUMNS = {"time", "value", "mode"};
+    private static final String[] FORMATS = {"%4.3f", "%5.0f", null};
+
+    private File createDirectory() throws Exception {
+        File dir = Files.createTempDirectory("asynclog").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    private List<String> readLines(File dir, String filename) throws Exception {
+        File file = new File(dir, filename);
+        file.deleteOnExit();
+        return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void writesRowsInOrder() throws Exception {
+        File dir = createDirectory();
+        AsyncLogFile logFile = new AsyncLogFile(dir.getPath(), "rows.csv", COLUMNS, FORMATS, 8, 1);
+        logFile.setColumnLabels(2, new String[]{"STOPPED", "PATH"});
+        logFile.openFile();
+
+        double[] row = new double[COLUMNS.length];
+        int written = 0;
+        for (int i = 0; i < 100; i++) {
+            row[0] = i * 0.05;
+            row[1] = i;
+            row[2] = i % 2;
+            // Wait for the writer rather than drop so every row makes it to the file
+            while (!logFile.writeLogRow(row)) {
+                Thread.sleep(1);
+            }
+            written++;
+        }
+        logFile.closeFile();
+
+        List<String> lines = readLines(dir, "rows.csv");
+        assertEquals("time,value,mode", lines.get(0));
+        assertEquals(written + 1, lines.size());
+        assertEquals("0.000,    0,STOPPED", lines.get(1));
+        assertEquals("4.950,   99,PATH", lines.get(100));
+        assertEquals(written, logFile.getRowCount());
+    }
+
+    @Test
+    public void countsDroppedRows() throws Exception {
+        File dir = createDirectory();
+        // A long flush period so the writer can't keep up with the loop
+        AsyncLogFile logFile = new AsyncLogFile(dir.getPath(), "drops.csv", COLUMNS, FORMATS, 4, 10000);
+        logFile.openFile();
+
+        double[] row = new double[COLUMNS.length];
+        int accepted = 0;
+        for (int i = 0; i < 1000; i++) {
+            row[1] = i;
+            if (logFile.writeLogRow(row)) {
+                accepted++;
+            }
+        }
+        // closeFile() wakes the writer and writes what is buffered
+        logFile.closeFile();
+        assertEquals(1000 - accepted, logFile.getDroppedRowCount());
+        assertEquals(accepted + 1, readLines(dir, "drops.csv").size());
+
+        // Rows logged after closing are dropped
+        assertFalse(logFile.writeLogRow(row));
+        assertEquals(1001 - accepted, logFile.getDroppedRowCount());
+    }
+}
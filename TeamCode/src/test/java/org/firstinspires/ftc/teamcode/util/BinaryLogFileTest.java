@@ -0,0 +1,121 @@
+package org.firstinspires.ftc.teamcode.util;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Round trips rows through the binary log writer and reader.
+ */
+public class BinaryLogFileTest {
+
+    private static final String[] COLUMNS = {"time", "w_lf", "kf_heading"};
+
+    private File createDirectory() throws Exception {
+        File dir = Files.createTempDirectory("binarylog").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    private static double value(int row, int column) {
+        return row * 0.05 + column * Math.PI;
+    }
+
+    @Test
+    public void roundTripsRows() throws Exception {
+        File dir = createDirectory();
+        // A small buffer so the rows are written in several flushes
+        BinaryLogFile logFile = new BinaryLogFile(dir.getPath(), "rows" + BinaryLogFile.EXTENSION, COLUMNS, 100);
+        logFile.openFile();
+        double[] row = new double[COLUMNS.length];
+        for (int n = 0; n < 1000; n++) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = value(n, i);
+            }
+            logFile.writeLogRow(row);
+        }
+        logFile.closeFile();
+        assertEquals(1000, logFile.getRowCount());
+
+        File file = new File(dir, "rows" + BinaryLogFile.EXTENSION);
+        file.deleteOnExit();
+        BinaryLogReader reader = new BinaryLogReader(file);
+        assertEquals(3, reader.getColumnNames().length);
+        assertEquals(2, reader.getColumnIndex("kf_heading"));
+        assertEquals(-1, reader.getColumnIndex("mode"));
+        assertEquals(1000, reader.getNumRows());
+        int n = 0;
+        while (reader.next(row)) {
+            for (int i = 0; i < row.length; i++) {
+                assertEquals(value(n, i), row[i], 0);
+            }
+            n++;
+        }
+        assertEquals(1000, n);
+
+        reader.rewind();
+        File csvFile = new File(dir, "rows.csv");
+        csvFile.deleteOnExit();
+        reader.exportCsv(csvFile, "%.2f");
+        List<String> lines = Files.readAllLines(csvFile.toPath(), StandardCharsets.UTF_8);
+        assertEquals(1001, lines.size());
+        assertEquals("time,w_lf,kf_heading", lines.get(0));
+        assertEquals("0.00,3.14,6.28", lines.get(1));
+    }
+
+    @Test
+    public void ignoresPartialRecord() throws Exception {
+        File dir = createDirectory();
+        BinaryLogFile logFile = new BinaryLogFile(dir.getPath(), "partial" + BinaryLogFile.EXTENSION, COLUMNS);
+        logFile.openFile();
+        double[] row = {1, 2, 3};
+        logFile.writeLogRow(row);
+        logFile.writeLogRow(row);
+        logFile.closeFile();
+
+        // Cut the last record short as if the robot lost power mid write
+        File file = new File(dir, "partial" + BinaryLogFile.EXTENSION);
+        file.deleteOnExit();
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(raf.length() - 4);
+        raf.close();
+
+        BinaryLogReader reader = new BinaryLogReader(file);
+        assertEquals(1, reader.getNumRows());
+        assertTrue(reader.next(row));
+        assertEquals(3, row[2], 0);
+        assertFalse(reader.next(row));
+    }
+
+    @Test
+    public void rejectsTruncatedHeader() throws Exception {
+        File dir = createDirectory();
+        BinaryLogFile logFile = new BinaryLogFile(dir.getPath(), "header" + BinaryLogFile.EXTENSION, COLUMNS);
+        logFile.openFile();
+        logFile.closeFile();
+
+        // Cut the file off in the middle of a column name
+        File file = new File(dir, "header" + BinaryLogFile.EXTENSION);
+        file.deleteOnExit();
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(18);
+        raf.close();
+
+        try {
+            new BinaryLogReader(file);
+            fail("Expected an IOException");
+        }
+        catch (IOException e) {
+            // expected
+        }
+    }
+}
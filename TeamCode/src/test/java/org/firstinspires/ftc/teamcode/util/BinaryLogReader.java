@@ -0,0 +1,168 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a log written by BinaryLogFile.  The file is memory mapped and the rows are streamed back
+ * with next(), or the whole file can be converted to CSV with exportCsv().  This is a desktop tool
+ * so it lives with the other offline tools in the test source set.
+ *
+ * From the desktop:  java org.firstinspires.ftc.teamcode.util.BinaryLogReader kflog.tlog kflog.csv
+ */
+public class BinaryLogReader {
+
+    public static final String DEFAULT_CSV_FORMAT = "%.6f";
+
+    private final String[] mColumnNames;
+    private final ByteBuffer mBuffer;
+    private final int mDataStart;
+    private final long mNumRows;
+
+    /**
+     * @param file file written by BinaryLogFile
+     * @throws IOException if the file can't be read or isn't a binary log
+     */
+    public BinaryLogReader(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            mBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        mBuffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (mBuffer.remaining() < 12 || mBuffer.getInt() != BinaryLogFile.MAGIC)
+            throw new IOException(file.getName()+" is not a binary log file");
+        int version = mBuffer.getInt();
+        if (version != BinaryLogFile.VERSION)
+            throw new IOException("Unsupported binary log version:"+version);
+        int numColumns = mBuffer.getInt();
+        // Each column name takes at least its 4 byte length
+        if (numColumns <= 0 || numColumns > mBuffer.remaining()/4)
+            throw new IOException("Invalid number of columns:"+numColumns);
+        mColumnNames = new String[numColumns];
+        try {
+            for (int i = 0; i < numColumns; i++) {
+                int length = mBuffer.getInt();
+                if (length < 0 || length > mBuffer.remaining())
+                    throw new IOException("Corrupt header in "+file.getName());
+                byte[] name = new byte[length];
+                mBuffer.get(name);
+                mColumnNames[i] = new String(name, StandardCharsets.UTF_8);
+            }
+        }
+        catch (BufferUnderflowException e) {
+            throw new IOException("Truncated header in "+file.getName());
+        }
+        mDataStart = mBuffer.position();
+        // A partial last record from a log that wasn't closed is ignored
+        mNumRows = (mBuffer.limit() - mDataStart) / (8L*numColumns);
+    }
+
+    public String[] getColumnNames(){
+        return mColumnNames;
+    }
+
+    /**
+     * Returns the index of the named column or -1 if there isn't one
+     */
+    public int getColumnIndex(String name){
+        for (int i = 0; i < mColumnNames.length; i++) {
+            if (mColumnNames[i].equals(name))
+                return i;
+        }
+        return -1;
+    }
+
+    public long getNumRows(){
+        return mNumRows;
+    }
+
+    /**
+     * Reads the next row
+     * @param row array of at least one element per column the values are written to
+     * @return false at the end of the log
+     */
+    public boolean next(double[] row){
+        if (mBuffer.remaining() < 8*mColumnNames.length)
+            return false;
+        for (int i = 0; i < mColumnNames.length; i++) {
+            row[i] = mBuffer.getDouble();
+        }
+        return true;
+    }
+
+    /**
+     * Moves back to the first row
+     */
+    public void rewind(){
+        mBuffer.position(mDataStart);
+    }
+
+    /**
+     * Writes the rows not read yet to a CSV file with a header row.
+     * @param csvFile file to write
+     * @param format printf style format used for every value
+     */
+    public void exportCsv(File csvFile, String format) throws IOException {
+        double[] row = new double[mColumnNames.length];
+        StringBuilder sb = new StringBuilder();
+        java.util.Formatter formatter = new java.util.Formatter(sb);
+        BufferedWriter writer = new BufferedWriter(new FileWriter(csvFile));
+        try {
+            for (int i = 0; i < mColumnNames.length; i++) {
+                writer.write(mColumnNames[i]);
+                if (i != (mColumnNames.length - 1)) {
+                    writer.write(',');
+                }
+            }
+            writer.newLine();
+            while (next(row)) {
+                sb.setLength(0);
+                for (int i = 0; i < row.length; i++) {
+                    formatter.format(format, row[i]);
+                    if (i != (row.length - 1)) {
+                        sb.append(',');
+                    }
+                }
+                writer.append(sb);
+                writer.newLine();
+            }
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Converts a binary log to CSV.  Arguments are the binary log and optionally the CSV file,
+     * which defaults to the log name with a .csv extension.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: BinaryLogReader log"+BinaryLogFile.EXTENSION+" [log.csv]");
+            return;
+        }
+        File logFile = new File(args[0]);
+        File csvFile;
+        if (args.length > 1) {
+            csvFile = new File(args[1]);
+        }
+        else {
+            String name = logFile.getName();
+            if (name.endsWith(BinaryLogFile.EXTENSION)) {
+                name = name.substring(0, name.length() - BinaryLogFile.EXTENSION.length());
+            }
+            csvFile = new File(logFile.getAbsoluteFile().getParentFile(), name + ".csv");
+        }
+        BinaryLogReader reader = new BinaryLogReader(logFile);
+        reader.exportCsv(csvFile, DEFAULT_CSV_FORMAT);
+        System.out.println("Wrote " + reader.getNumRows() + " rows to " + csvFile.getPath());
+    }
+}
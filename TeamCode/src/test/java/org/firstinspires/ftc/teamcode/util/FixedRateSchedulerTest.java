@@ -0,0 +1,119 @@
+package org.firstinspires.ftc.teamcode.util;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the fixed rate scheduler keeps its period and counts overruns.
+ */
+public class FixedRateSchedulerTest {
+
+    private static final double PERIOD = 0.010d;
+
+    @Test(timeout = 5000)
+    public void keepsPeriodWithoutDrift() throws Exception {
+        final int cycles = 50;
+        final long[] startTimes = new long[cycles];
+        final long[] cycleNumbers = new long[cycles];
+        final double[] dts = new double[cycles];
+        FixedRateScheduler scheduler = new FixedRateScheduler(PERIOD, new FixedRateScheduler.IControlTask() {
+            int mCount = 0;
+
+            @Override
+            public void step(long cycle, double dt) {
+                if (mCount < cycles) {
+                    startTimes[mCount] = System.nanoTime();
+                    cycleNumbers[mCount] = cycle;
+                    dts[mCount] = dt;
+                    mCount++;
+                }
+            }
+        });
+        scheduler.start();
+        while (scheduler.getCycleCount() < cycles) {
+            Thread.sleep(5);
+        }
+        scheduler.stop();
+        assertFalse(scheduler.isRunning());
+
+        // Deadlines are start + n*period so the time between the first and last step is the
+        // number of periods between their deadlines no matter how late individual steps start
+        int last = cycles - 1;
+        double elapsed = (startTimes[last] - startTimes[0]) / 1e9d;
+        double expected = (cycleNumbers[last] - cycleNumbers[0]) * PERIOD;
+        assertEquals(expected, elapsed, 0.005);
+        assertEquals(PERIOD, dts[0], 0);
+        for (int i = 1; i < cycles; i++) {
+            assertEquals((startTimes[i] - startTimes[i - 1]) / 1e9d, dts[i], 0.001);
+        }
+        assertEquals(0, scheduler.getErrorCount());
+
+        // Nothing runs after stopping
+        long count = scheduler.getCycleCount();
+        Thread.sleep(30);
+        assertEquals(count, scheduler.getCycleCount());
+    }
+
+    @Test(timeout = 5000)
+    public void countsOverruns() throws Exception {
+        // Every step takes 2.5 periods so at least two deadlines are missed each time
+        final int steps = 5;
+        final long[] cycleNumbers = new long[steps];
+        FixedRateScheduler scheduler = new FixedRateScheduler(PERIOD, new FixedRateScheduler.IControlTask() {
+            int mCount = 0;
+
+            @Override
+            public void step(long cycle, double dt) {
+                // Only record here, an assertion failing on the scheduler thread wouldn't fail the test
+                if (mCount < steps) {
+                    cycleNumbers[mCount++] = cycle;
+                }
+                long end = System.nanoTime() + Math.round(2.5 * PERIOD * 1e9d);
+                while (System.nanoTime() < end) {
+                    Thread.yield();
+                }
+            }
+        });
+        scheduler.start();
+        long deadline = System.nanoTime() + 2000000000L;
+        while (scheduler.getCycleCount() < steps && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        scheduler.stop();
+        assertTrue(scheduler.getCycleCount() >= steps);
+        assertEquals(0, scheduler.getErrorCount());
+        // A step that starts late can miss more than two deadlines
+        for (int i = 1; i < steps; i++) {
+            assertTrue(cycleNumbers[i] - cycleNumbers[i - 1] >= 3);
+        }
+        assertTrue(scheduler.getOverrunCount() >= 2 * scheduler.getCycleCount());
+        assertTrue(scheduler.getMaxStepTime() >= 2.5 * PERIOD);
+    }
+
+    @Test(timeout = 5000)
+    public void keepsRunningAfterException() throws Exception {
+        FixedRateScheduler scheduler = new FixedRateScheduler(PERIOD, new FixedRateScheduler.IControlTask() {
+            int mCount = 0;
+
+            @Override
+            public void step(long cycle, double dt) {
+                mCount++;
+                if (mCount == 2) {
+                    throw new IllegalStateException("step failed");
+                }
+                // Errors must not kill the control thread either
+                if (mCount == 3) {
+                    throw new AssertionError("step failed");
+                }
+            }
+        });
+        scheduler.start();
+        while (scheduler.getCycleCount() < 5) {
+            Thread.sleep(5);
+        }
+        scheduler.stop();
+        assertEquals(2, scheduler.getErrorCount());
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2009-2020, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of Efficient Java Matrix Library (EJML).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ejml.sparse.csc;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.data.DMatrixSparseCSC;
+import org.ejml.data.DMatrixSparseTriplet;
+import org.ejml.dense.row.CommonOps_DDRM;
+import org.ejml.dense.row.NormOps_DDRM;
+import org.ejml.dense.row.RandomMatrices_DDRM;
+import org.ejml.interfaces.linsol.LinearSolverSparse;
+import org.ejml.ops.ConvertDMatrixStruct;
+import org.ejml.ops.MatrixIO;
+import org.ejml.sparse.FillReducing;
+import org.ejml.sparse.csc.decomposition.chol.CholeskyUpLooking_DSCC;
+import org.ejml.sparse.csc.decomposition.lu.LuUpLooking_DSCC;
+import org.ejml.sparse.csc.decomposition.qr.QrLeftLookingDecomposition_DSCC;
+import org.ejml.sparse.csc.factory.LinearSolverFactory_DSCC;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Random;
+
+/**
+ * Compares the fill in and decomposition time of the sparse Cholesky, LU and QR solvers with each
+ * {@link FillReducing} ordering. Each argument is a MatrixMarket coordinate file, such as the ones from the
+ * SuiteSparse Matrix Collection. Square matrices are run through Cholesky and LU, matrices with at least as
+ * many rows as columns through QR. Cholesky is skipped when the decomposition fails, i.e. the matrix isn't
+ * symmetric positive definite. Without arguments a shuffled 2D grid Laplacian and its edge incidence matrix
+ * are used.
+ *
+ * @author Peter Abeles
+ */
+public class BenchmarkFillReducing_DSCC {
+
+    static final int TRIALS = 3;
+    static final int GRID = 40;
+
+    static Random rand = new Random(234);
+
+    public static void main( String[] args ) throws IOException {
+        if( args.length == 0 ) {
+            DMatrixSparseCSC[] grid = createGrid(GRID);
+            evaluate("grid laplacian",grid[0]);
+            evaluate("grid incidence",grid[1]);
+        } else {
+            for( String path : args ) {
+                try( Reader reader = new FileReader(path) ) {
+                    DMatrixSparseTriplet triplet = MatrixIO.loadMatrixMarketD(reader);
+                    evaluate(path,ConvertDMatrixStruct.convert(triplet,(DMatrixSparseCSC)null));
+                }
+            }
+        }
+    }
+
+    public static void evaluate( String name , DMatrixSparseCSC A ) {
+        System.out.println(name+" "+A.numRows+"x"+A.numCols+" nz="+A.nz_length);
+
+        DMatrixRMaj b = RandomMatrices_DDRM.rectangle(A.numRows,1,rand);
+        if( A.numRows == A.numCols ) {
+            for( FillReducing permutation : new FillReducing[]{FillReducing.NONE,FillReducing.AMD}) {
+                LinearSolverSparse<DMatrixSparseCSC,DMatrixRMaj> solver = LinearSolverFactory_DSCC.cholesky(permutation);
+                long time = setA(solver,A);
+                if( time < 0 ) {
+                    System.out.println("  chol "+permutation+" failed");
+                    continue;
+                }
+                CholeskyUpLooking_DSCC chol = solver.getDecomposition();
+                System.out.printf("  chol %-10s nz(L)=%9d %8.1f ms  residual %.1e%n",
+                        permutation,chol.getL().nz_length,time/1e6,residual(solver,A,b));
+            }
+            for( FillReducing permutation : new FillReducing[]{FillReducing.NONE,FillReducing.AMD,FillReducing.COLUMN_AMD}) {
+                LinearSolverSparse<DMatrixSparseCSC,DMatrixRMaj> solver = LinearSolverFactory_DSCC.lu(permutation);
+                long time = setA(solver,A);
+                if( time < 0 ) {
+                    System.out.println("  lu   "+permutation+" failed");
+                    continue;
+                }
+                LuUpLooking_DSCC lu = solver.getDecomposition();
+                System.out.printf("  lu   %-10s nz(L+U)=%7d %8.1f ms  residual %.1e%n",
+                        permutation,lu.getL().nz_length+lu.getU().nz_length,time/1e6,residual(solver,A,b));
+            }
+        }
+        if( A.numRows >= A.numCols ) {
+            for( FillReducing permutation : new FillReducing[]{FillReducing.NONE,FillReducing.COLUMN_AMD}) {
+                LinearSolverSparse<DMatrixSparseCSC,DMatrixRMaj> solver = LinearSolverFactory_DSCC.qr(permutation);
+                long time = setA(solver,A);
+                if( time < 0 ) {
+                    System.out.println("  qr   "+permutation+" failed");
+                    continue;
+                }
+                QrLeftLookingDecomposition_DSCC qr = solver.getDecomposition();
+                System.out.printf("  qr   %-10s nz(R)=%9d %8.1f ms  gradient %.1e%n",
+                        permutation,qr.getR().nz_length,time/1e6,residual(solver,A,b));
+            }
+        }
+    }
+
+    /**
+     * Decomposes A several times and returns the average time in nanoseconds, or -1 if it failed
+     */
+    private static long setA( LinearSolverSparse<DMatrixSparseCSC,DMatrixRMaj> solver , DMatrixSparseCSC A ) {
+        long before = System.nanoTime();
+        for( int trial = 0; trial < TRIALS; trial++ ) {
+            if( !solver.setA(A.copy()) )
+                return -1;
+        }
+        return (System.nanoTime()-before)/TRIALS;
+    }
+
+    /**
+     * Norm of A<sup>T</sup>(A*x-b), which is zero for both square and least squares solutions
+     */
+    private static double residual( LinearSolverSparse<DMatrixSparseCSC,DMatrixRMaj> solver ,
+                                    DMatrixSparseCSC A , DMatrixRMaj b ) {
+        DMatrixRMaj x = new DMatrixRMaj(A.numCols,1);
+        solver.solve(b.copy(),x);
+        DMatrixRMaj r = new DMatrixRMaj(A.numRows,1);
+        CommonOps_DSCC.mult(A,x,r);
+        CommonOps_DDRM.subtractEquals(r,b);
+        DMatrixRMaj g = new DMatrixRMaj(A.numCols,1);
+        CommonOps_DSCC.multTransA(A,r,g);
+        return NormOps_DDRM.normF(g);
+    }
+
+    /**
+     * Creates the Laplacian of a width by width grid and the incidence matrix of its edges, with an extra row
+     * per node so it has full rank. Nodes are numbered randomly so the natural ordering has no structure.
+     */
+    private static DMatrixSparseCSC[] createGrid( int width ) {
+        int N = width*width;
+        int[] label = new int[N];
+        for( int i = 0; i < N; i++ )
+            label[i] = i;
+        for( int i = N-1; i > 0; i-- ) {
+            int j = rand.nextInt(i+1);
+            int tmp = label[i]; label[i] = label[j]; label[j] = tmp;
+        }
+
+        int edges = 2*width*(width-1);
+        DMatrixSparseTriplet laplacian = new DMatrixSparseTriplet(N,N,N+2*edges);
+        DMatrixSparseTriplet incidence = new DMatrixSparseTriplet(edges+N,N,2*edges+N);
+        int row = 0;
+        for( int y = 0; y < width; y++ ) {
+            for( int x = 0; x < width; x++ ) {
+                int i = label[y*width+x];
+                laplacian.addItem(i,i,4.5);
+                incidence.addItem(edges+i,i,0.5);
+                if( x+1 < width ) {
+                    int j = label[y*width+x+1];
+                    laplacian.addItem(i,j,-1);
+                    laplacian.addItem(j,i,-1);
+                    incidence.addItem(row,i,1);
+                    incidence.addItem(row++,j,-1.1);
+                }
+                if( y+1 < width ) {
+                    int j = label[(y+1)*width+x];
+                    laplacian.addItem(i,j,-1);
+                    laplacian.addItem(j,i,-1);
+                    incidence.addItem(row,i,1);
+                    incidence.addItem(row++,j,-0.9);
+                }
+            }
+        }
+        return new DMatrixSparseCSC[]{
+                ConvertDMatrixStruct.convert(laplacian,(DMatrixSparseCSC)null),
+                ConvertDMatrixStruct.convert(incidence,(DMatrixSparseCSC)null)};
+    }
+}
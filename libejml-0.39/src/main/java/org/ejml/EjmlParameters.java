@@ -64,6 +64,26 @@ public class EjmlParameters {
     public static int MULT_TRANAB_COLUMN_SWITCH = 40;
     public static int MULT_INNER_SWITCH = 100;
 
+    /**
+     * Number of multiply-add operations (rows*inner*cols) at which matrix multiplication switches to
+     * a concurrent implementation.  Below this the cost of handing work to other threads is larger than
+     * the savings.  Concurrency can be turned off entirely using
+     * {@link org.ejml.concurrency.EjmlConcurrency#USE_CONCURRENT}.
+     */
+    public static int MULT_CONCURRENT_THRESHOLD = 100*100*100;
+
+    /**
+     * Number of multiply-add operations (non-zero elements in the sparse matrix times columns in the dense matrix)
+     * at which sparse-dense matrix multiplication switches to a concurrent implementation.
+     */
+    public static int MULT_SPARSE_CONCURRENT_THRESHOLD = 100*1000;
+
+    /**
+     * Total number of non-zero elements in both inputs at which sparse-sparse matrix multiplication switches
+     * to a concurrent implementation.
+     */
+    public static int MULT_SPARSE_SPARSE_CONCURRENT_THRESHOLD = 50*1000;
+
     public static int CMULT_COLUMN_SWITCH = 7;
     public static int CMULT_TRANAB_COLUMN_SWITCH = 20;
     
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2009-2020, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of Efficient Java Matrix Library (EJML).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ejml.concurrency;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * <p>
+ * Central location for controlling how concurrent algorithms are run.  All the concurrent (_MT_) implementations
+ * submit their work to a single shared {@link ForkJoinPool} owned by this class.  Work is partitioned into
+ * contiguous blocks of indexes, typically rows or columns of the output matrix, so that each thread writes
+ * to a disjoint region of memory and no synchronization is required inside of the inner loops.
+ * </p>
+ *
+ * <p>
+ * Operations which automatically select between a single threaded and concurrent implementation will
+ * only pick the concurrent one if {@link #isUseConcurrent()} returns true.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class EjmlConcurrency {
+
+    /**
+     * If false then operations which select their implementation automatically will never pick a
+     * concurrent one.  The _MT_ classes can still be invoked directly.
+     */
+    public static boolean USE_CONCURRENT = true;
+
+    private static ForkJoinPool pool = new ForkJoinPool();
+
+    /**
+     * Returns true if automatic selection of concurrent algorithms is enabled and there is more than one
+     * thread available to run them on.
+     */
+    public static boolean isUseConcurrent() {
+        return USE_CONCURRENT && pool.getParallelism() > 1;
+    }
+
+    /**
+     * Changes the maximum number of threads used by concurrent algorithms.  The previous thread pool is shut down
+     * once its current tasks have finished.
+     *
+     * @param maxThreads Maximum number of threads.  Must be &ge; 1.
+     */
+    public static synchronized void setMaxThreads( int maxThreads ) {
+        if( maxThreads < 1 )
+            throw new IllegalArgumentException("maxThreads must be at least one");
+        if( maxThreads == pool.getParallelism() )
+            return;
+        ForkJoinPool previous = pool;
+        pool = new ForkJoinPool(maxThreads);
+        previous.shutdown();
+    }
+
+    /**
+     * Returns the maximum number of threads used by concurrent algorithms.
+     */
+    public static int getMaxThreads() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Splits the range [start,end) into contiguous blocks and processes each block in the thread pool.  The
+     * function returns once every block has been processed.  Exceptions thrown by the consumer are
+     * rethrown in the calling thread.
+     *
+     * @param start First index, inclusive.
+     * @param end Last index, exclusive.
+     * @param minBlock The smallest number of indexes a block will contain.
+     * @param consumer Processes a single block.
+     */
+    public static void loopBlocks( int start , int end , int minBlock , IntRangeConsumer consumer ) {
+        final ForkJoinPool pool = EjmlConcurrency.pool;
+        final int length = end-start;
+        if( length <= 0 )
+            return;
+
+        int numBlocks = Math.min(pool.getParallelism(), length/Math.max(1,minBlock));
+        if( numBlocks <= 1 ) {
+            consumer.accept(start,end);
+            return;
+        }
+
+        pool.invoke(new BlockTask(start,end,(length+numBlocks-1)/numBlocks,consumer));
+    }
+
+    /**
+     * Same as {@link #loopBlocks(int, int, int, IntRangeConsumer)} with a minimum block size of one.
+     */
+    public static void loopBlocks( int start , int end , IntRangeConsumer consumer ) {
+        loopBlocks(start,end,1,consumer);
+    }
+
+    /**
+     * Processes every index in the range [start,end) in the thread pool.  Intended for coarse grained work, such
+     * as processing an entire block row, where the amount of work for each index can vary. Each index is its own
+     * task so that idle threads can steal work from busy ones.
+     *
+     * @param start First index, inclusive.
+     * @param end Last index, exclusive.
+     * @param consumer Processes a single index.
+     */
+    public static void loopFor( int start , int end , IntConsumer consumer ) {
+        final ForkJoinPool pool = EjmlConcurrency.pool;
+        if( end-start <= 1 || pool.getParallelism() <= 1 ) {
+            for( int i = start; i < end; i++ ) {
+                consumer.accept(i);
+            }
+            return;
+        }
+
+        pool.invoke(new BlockTask(start,end,1,(idx0,idx1)->{
+            for( int i = idx0; i < idx1; i++ ) {
+                consumer.accept(i);
+            }
+        }));
+    }
+
+    /**
+     * Recursively splits a range in half until it is no larger than the block size
+     */
+    private static class BlockTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final int idx0, idx1, blockSize;
+        final IntRangeConsumer consumer;
+
+        BlockTask( int idx0, int idx1, int blockSize, IntRangeConsumer consumer ) {
+            this.idx0 = idx0;
+            this.idx1 = idx1;
+            this.blockSize = blockSize;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected void compute() {
+            if( idx1-idx0 <= blockSize ) {
+                consumer.accept(idx0,idx1);
+            } else {
+                // split along a block boundary so that blocks are the same size
+                int numBlocks = (idx1-idx0+blockSize-1)/blockSize;
+                int middle = idx0 + (numBlocks/2)*blockSize;
+                invokeAll(new BlockTask(idx0,middle,blockSize,consumer),
+                        new BlockTask(middle,idx1,blockSize,consumer));
+            }
+        }
+    }
+}
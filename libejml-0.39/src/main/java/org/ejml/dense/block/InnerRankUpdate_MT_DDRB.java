@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2009-2020, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of Efficient Java Matrix Library (EJML).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ejml.dense.block;
+
+import org.ejml.concurrency.EjmlConcurrency;
+import org.ejml.data.DSubmatrixD1;
+
+
+/**
+ * <p>
+ * Concurrent implementation of {@link InnerRankUpdate_DDRB}.  The output submatrix is processed one block row
+ * at a time and each block row is handed to a different thread.  Block rows never share any memory in the
+ * output matrix so the results are identical to the single threaded version.
+ * </p>
+ *
+ * It is assumed and not checked that the submatrices are aligned along the matrix's blocks.
+ *
+ * @author Peter Abeles
+ */
+public class InnerRankUpdate_MT_DDRB {
+
+    /**
+     * @see InnerRankUpdate_DDRB#rankNUpdate(int, double, DSubmatrixD1, DSubmatrixD1)
+     */
+    public static void rankNUpdate(final int blockLength , final double alpha ,
+                                   final DSubmatrixD1 A , final DSubmatrixD1 B )
+    {
+
+        final int heightB = B.row1-B.row0;
+        if( heightB > blockLength )
+            throw new IllegalArgumentException("Height of B cannot be greater than the block length");
+
+        int N = B.col1-B.col0;
+
+        if( A.col1-A.col0 != N )
+            throw new IllegalArgumentException("A does not have the expected number of columns based on B's width");
+        if( A.row1-A.row0 != N )
+            throw new IllegalArgumentException("A does not have the expected number of rows based on B's width");
+
+        final int numBlocks = (N+blockLength-1)/blockLength;
+
+        EjmlConcurrency.loopFor(0, numBlocks, blockIdx -> {
+            int i = B.col0 + blockIdx*blockLength;
+
+            int indexB_i = B.row0*B.original.numCols + i*heightB;
+            int widthB_i = Math.min(blockLength,B.col1-i);
+
+            int rowA = i-B.col0+A.row0;
+            int heightA = Math.min( blockLength , A.row1 - rowA);
+
+            for( int j = B.col0; j < B.col1; j += blockLength ) {
+
+                int widthB_j = Math.min(blockLength,B.col1-j);
+
+                int indexA = rowA * A.original.numCols + (j-B.col0+A.col0)*heightA;
+                int indexB_j = B.row0*B.original.numCols + j*heightB;
+
+                InnerMultiplication_DDRB.blockMultPlusTransA(alpha,
+                        B.original.data,B.original.data,A.original.data,
+                        indexB_i,indexB_j,indexA,heightB,widthB_i,widthB_j);
+            }
+        });
+    }
+
+    /**
+     * @see InnerRankUpdate_DDRB#symmRankNMinus_U(int, DSubmatrixD1, DSubmatrixD1)
+     */
+    public static void symmRankNMinus_U(final int blockLength ,
+                                        final DSubmatrixD1 A , final DSubmatrixD1 B )
+    {
+
+        final int heightB = B.row1-B.row0;
+        if( heightB > blockLength )
+            throw new IllegalArgumentException("Height of B cannot be greater than the block length");
+
+        int N = B.col1-B.col0;
+
+        if( A.col1-A.col0 != N )
+            throw new IllegalArgumentException("A does not have the expected number of columns based on B's width");
+        if( A.row1-A.row0 != N )
+            throw new IllegalArgumentException("A does not have the expected number of rows based on B's width");
+
+        final int numBlocks = (N+blockLength-1)/blockLength;
+
+        EjmlConcurrency.loopFor(0, numBlocks, blockIdx -> {
+            int i = B.col0 + blockIdx*blockLength;
+
+            int indexB_i = B.row0*B.original.numCols + i*heightB;
+            int widthB_i = Math.min(blockLength,B.col1-i);
+
+            int rowA = i-B.col0+A.row0;
+            int heightA = Math.min( blockLength , A.row1 - rowA);
+
+            for( int j = i; j < B.col1; j += blockLength ) {
+
+                int widthB_j = Math.min(blockLength,B.col1-j);
+
+                int indexA = rowA * A.original.numCols + (j-B.col0+A.col0)*heightA;
+                int indexB_j = B.row0*B.original.numCols + j*heightB;
+
+                if( i == j ) {
+                    // only the upper portion of this block needs to be modified since it is along a diagonal
+                    InnerRankUpdate_DDRB.multTransABlockMinus_U( B.original.data,A.original.data,
+                            indexB_i,indexB_j,indexA,heightB,widthB_i,widthB_j);
+                } else {
+                    InnerRankUpdate_DDRB.multTransABlockMinus( B.original.data,A.original.data,
+                            indexB_i,indexB_j,indexA,heightB,widthB_i,widthB_j);
+                }
+            }
+        });
+    }
+
+    /**
+     * @see InnerRankUpdate_DDRB#symmRankNMinus_L(int, DSubmatrixD1, DSubmatrixD1)
+     */
+    public static void symmRankNMinus_L(final int blockLength ,
+                                        final DSubmatrixD1 A , final DSubmatrixD1 B )
+    {
+        final int widthB = B.col1-B.col0;
+        if( widthB > blockLength )
+            throw new IllegalArgumentException("Width of B cannot be greater than the block length");
+
+        int N = B.row1-B.row0;
+
+        if( A.col1-A.col0 != N )
+            throw new IllegalArgumentException("A does not have the expected number of columns based on B's height");
+        if( A.row1-A.row0 != N )
+            throw new IllegalArgumentException("A does not have the expected number of rows based on B's height");
+
+        final int numBlocks = (N+blockLength-1)/blockLength;
+
+        EjmlConcurrency.loopFor(0, numBlocks, blockIdx -> {
+            int i = B.row0 + blockIdx*blockLength;
+
+            int heightB_i = Math.min(blockLength,B.row1-i);
+            int indexB_i = i*B.original.numCols + heightB_i*B.col0;
+
+            int rowA = i-B.row0+A.row0;
+            int heightA = Math.min( blockLength , A.row1 - rowA);
+
+            for( int j = B.row0; j <= i; j += blockLength ) {
+
+                int widthB_j = Math.min(blockLength,B.row1-j);
+
+                int indexA = rowA * A.original.numCols + (j-B.row0+A.col0)*heightA;
+                int indexB_j = j*B.original.numCols + widthB_j*B.col0;
+
+                if( i == j ) {
+                    InnerRankUpdate_DDRB.multTransBBlockMinus_L( B.original.data,A.original.data,
+                            indexB_i,indexB_j,indexA,widthB,heightB_i,widthB_j);
+                } else {
+                    InnerRankUpdate_DDRB.multTransBBlockMinus( B.original.data,A.original.data,
+                            indexB_i,indexB_j,indexA,widthB,heightB_i,widthB_j);
+                }
+            }
+        });
+    }
+}
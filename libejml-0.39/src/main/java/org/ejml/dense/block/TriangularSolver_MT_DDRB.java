@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2009-2020, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of Efficient Java Matrix Library (EJML).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ejml.dense.block;
+
+import org.ejml.concurrency.EjmlConcurrency;
+import org.ejml.data.DMatrixRBlock;
+import org.ejml.data.DSubmatrixD1;
+
+
+/**
+ * <p>
+ * Concurrent implementations of functions in {@link TriangularSolver_DDRB} for {@link DMatrixRBlock} block aligned
+ * sub-matrices.  Each inner block of B is solved for independently of the others, so they are distributed
+ * across threads.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class TriangularSolver_MT_DDRB {
+
+    /**
+     * @see TriangularSolver_DDRB#solveBlock(int, boolean, DSubmatrixD1, DSubmatrixD1, boolean, boolean)
+     */
+    public static void solveBlock( final int blockLength ,
+                                   final boolean upper , final DSubmatrixD1 T ,
+                                   final DSubmatrixD1 B ,
+                                   final boolean transT ,final boolean transB )
+    {
+        final int Trows = T.row1-T.row0;
+        if( Trows > blockLength )
+            throw new IllegalArgumentException("T can be at most the size of a block");
+        // number of rows in a block.  The submatrix can be smaller than a block
+        final int blockT_rows = Math.min(blockLength,T.original.numRows-T.row0);
+        final int blockT_cols = Math.min(blockLength,T.original.numCols-T.col0);
+
+        final int offsetT = T.row0*T.original.numCols+blockT_rows*T.col0;
+
+        final double dataT[] = T.original.data;
+        final double dataB[] = B.original.data;
+
+        if( transB ) {
+            if( upper || transT )
+                throw new IllegalArgumentException("Operation not yet supported");
+
+            int numBlocks = (B.row1-B.row0+blockLength-1)/blockLength;
+            EjmlConcurrency.loopFor(0, numBlocks, blockIdx -> {
+                int i = B.row0 + blockIdx*blockLength;
+                int N = Math.min(B.row1 , i + blockLength ) - i;
+
+                int offsetB = i*B.original.numCols + N*B.col0;
+
+                InnerTriangularSolver_DDRB.solveLTransB(dataT,dataB,blockT_rows,N,blockT_rows,offsetT,offsetB);
+            });
+        } else {
+            if( Trows != B.row1-B.row0 )
+                throw new IllegalArgumentException("T and B must have the same number of rows.");
+
+            int numBlocks = (B.col1-B.col0+blockLength-1)/blockLength;
+            EjmlConcurrency.loopFor(0, numBlocks, blockIdx -> {
+                int i = B.col0 + blockIdx*blockLength;
+                int offsetB = B.row0*B.original.numCols + Trows*i;
+
+                int N = Math.min(B.col1 , i + blockLength ) - i;
+                if( upper ) {
+                    if( transT )
+                        InnerTriangularSolver_DDRB.solveTransU(dataT,dataB,Trows,N,Trows,offsetT,offsetB);
+                    else
+                        InnerTriangularSolver_DDRB.solveU(dataT,dataB,Trows,N,Trows,offsetT,offsetB);
+                } else {
+                    if( transT )
+                        InnerTriangularSolver_DDRB.solveTransL(dataT,dataB,Trows,N,blockT_cols,offsetT,offsetB);
+                    else
+                        InnerTriangularSolver_DDRB.solveL(dataT,dataB,Trows,N,blockT_cols,offsetT,offsetB);
+                }
+            });
+        }
+    }
+}
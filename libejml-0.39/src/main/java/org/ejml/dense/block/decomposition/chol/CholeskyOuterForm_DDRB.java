@@ -107,10 +107,10 @@ public class CholeskyOuterForm_DDRB implements CholeskyDecomposition_F64<DMatrix
             // on the last block these operations are not needed.
             if( widthA == blockLength ) {
                 // B = L^-1 B
-                TriangularSolver_DDRB.solveBlock(blockLength,false,subA,subB,false,true);
+                solveInternal(blockLength,false,subA,subB,false,true);
 
                 // C = C - B * B^T
-                InnerRankUpdate_DDRB.symmRankNMinus_L(blockLength,subC,subB);
+                symmRankNMinus(true,blockLength,subC,subB);
             }
         }
 
@@ -146,10 +146,10 @@ public class CholeskyOuterForm_DDRB implements CholeskyDecomposition_F64<DMatrix
             // on the last block these operations are not needed.
             if( widthA == blockLength ) {
                 // B = U^-1 B
-                TriangularSolver_DDRB.solveBlock(blockLength,true,subA,subB,true,false);
+                solveInternal(blockLength,true,subA,subB,true,false);
 
                 // C = C - B^T * B
-                InnerRankUpdate_DDRB.symmRankNMinus_U(blockLength,subC,subB);
+                symmRankNMinus(false,blockLength,subC,subB);
             }
         }
 
@@ -158,6 +158,29 @@ public class CholeskyOuterForm_DDRB implements CholeskyDecomposition_F64<DMatrix
         return true;
     }
 
+    /**
+     * B = T<sup>-1</sup> B, where T is a single inner block.
+     *
+     * @see TriangularSolver_DDRB#solveBlock
+     */
+    protected void solveInternal( int blockLength , boolean upper , DSubmatrixD1 T , DSubmatrixD1 B ,
+                                  boolean transT , boolean transB ) {
+        TriangularSolver_DDRB.solveBlock(blockLength,upper,T,B,transT,transB);
+    }
+
+    /**
+     * Updates the trailing submatrix.  C = C - B*B<sup>T</sup> if lower or C = C - B<sup>T</sup>*B if upper.
+     *
+     * @see InnerRankUpdate_DDRB#symmRankNMinus_L
+     * @see InnerRankUpdate_DDRB#symmRankNMinus_U
+     */
+    protected void symmRankNMinus( boolean lower , int blockLength , DSubmatrixD1 C , DSubmatrixD1 B ) {
+        if( lower )
+            InnerRankUpdate_DDRB.symmRankNMinus_L(blockLength,C,B);
+        else
+            InnerRankUpdate_DDRB.symmRankNMinus_U(blockLength,C,B);
+    }
+
     @Override
     public boolean isLower() {
         return lower;
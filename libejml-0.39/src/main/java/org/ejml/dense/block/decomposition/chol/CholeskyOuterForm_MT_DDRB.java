@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2009-2020, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of Efficient Java Matrix Library (EJML).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ejml.dense.block.decomposition.chol;
+
+import org.ejml.data.DSubmatrixD1;
+import org.ejml.dense.block.InnerRankUpdate_MT_DDRB;
+import org.ejml.dense.block.TriangularSolver_MT_DDRB;
+
+
+/**
+ * <p>
+ * Concurrent version of {@link CholeskyOuterForm_DDRB}.  The Cholesky decomposition of each diagonal block is
+ * inherently sequential, but the triangular solve for the block column below it and the rank update of the
+ * trailing submatrix are split by block row and processed in parallel.  These two operations dominate the
+ * cost of the decomposition for large matrices.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class CholeskyOuterForm_MT_DDRB extends CholeskyOuterForm_DDRB {
+
+    /**
+     * Creates a new CholeskyOuterForm_MT_DDRB
+     *
+     * @param lower Should it decompose it into a lower triangular matrix or not.
+     */
+    public CholeskyOuterForm_MT_DDRB(boolean lower) {
+        super(lower);
+    }
+
+    @Override
+    protected void solveInternal( int blockLength , boolean upper , DSubmatrixD1 T , DSubmatrixD1 B ,
+                                  boolean transT , boolean transB ) {
+        TriangularSolver_MT_DDRB.solveBlock(blockLength,upper,T,B,transT,transB);
+    }
+
+    @Override
+    protected void symmRankNMinus( boolean lower , int blockLength , DSubmatrixD1 C , DSubmatrixD1 B ) {
+        if( lower )
+            InnerRankUpdate_MT_DDRB.symmRankNMinus_L(blockLength,C,B);
+        else
+            InnerRankUpdate_MT_DDRB.symmRankNMinus_U(blockLength,C,B);
+    }
+}
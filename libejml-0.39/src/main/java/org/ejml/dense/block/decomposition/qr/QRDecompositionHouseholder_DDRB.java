@@ -209,8 +209,7 @@ public class QRDecompositionHouseholder_DDRB
                 BlockHouseHolder_DDRB.computeW_Column(blockLength,Y,W,temp, gammas,Y.col0);
 
             // Apply the Qi to Q
-            BlockHouseHolder_DDRB.multTransA_vecCol(blockLength,Y,subB,WTA);
-            MatrixMult_DDRB.multPlus(blockLength,W,WTA,subB);
+            applyReflectors(blockLength,Y,W,WTA,subB);
         }
     }
 
@@ -261,8 +260,7 @@ public class QRDecompositionHouseholder_DDRB
                 BlockHouseHolder_DDRB.computeW_Column(blockLength,Y,W,temp, gammas,Y.col0);
 
             // Apply the Qi to Q
-            MatrixMult_DDRB.multTransA(blockLength,W,subB,WTA);
-            BlockHouseHolder_DDRB.multAdd_zeros(blockLength,Y,WTA,subB);
+            applyReflectorsTran(blockLength,Y,W,WTA,subB);
         }
     }
 
@@ -372,13 +370,42 @@ public class QRDecompositionHouseholder_DDRB
         if( A.col1 > A.col0 ) {
             BlockHouseHolder_DDRB.computeW_Column(blockLength,Y,W,temp, gammas,Y.col0);
 
-            MatrixMult_DDRB.multTransA(blockLength,W,A,WTA);
-            BlockHouseHolder_DDRB.multAdd_zeros(blockLength,Y,WTA,A);
+            applyReflectorsTran(blockLength,Y,W,WTA,A);
         } else if( saveW ) {
             BlockHouseHolder_DDRB.computeW_Column(blockLength,Y,W,temp, gammas,Y.col0);
         }
     }
 
+    /**
+     * <p>
+     * B = (I + W Y<sup>T</sup>)B<BR>
+     * B = B + W (Y<sup>T</sup>B)<BR>
+     * </p>
+     *
+     * @param WTA Storage for Y<sup>T</sup>B. Modified.
+     * @param B Block aligned submatrix the reflectors are applied to. Modified.
+     */
+    protected void applyReflectors( int blockLength , DSubmatrixD1 Y , DSubmatrixD1 W ,
+                                    DSubmatrixD1 WTA , DSubmatrixD1 B ) {
+        BlockHouseHolder_DDRB.multTransA_vecCol(blockLength,Y,B,WTA);
+        MatrixMult_DDRB.multPlus(blockLength,W,WTA,B);
+    }
+
+    /**
+     * <p>
+     * B = (I + W Y<sup>T</sup>)<sup>T</sup>B<BR>
+     * B = B + Y (W<sup>T</sup>B)<BR>
+     * </p>
+     *
+     * @param WTA Storage for W<sup>T</sup>B. Modified.
+     * @param B Block aligned submatrix the reflectors are applied to. Modified.
+     */
+    protected void applyReflectorsTran( int blockLength , DSubmatrixD1 Y , DSubmatrixD1 W ,
+                                        DSubmatrixD1 WTA , DSubmatrixD1 B ) {
+        MatrixMult_DDRB.multTransA(blockLength,W,B,WTA);
+        BlockHouseHolder_DDRB.multAdd_zeros(blockLength,Y,WTA,B);
+    }
+
     /**
      * Sets the submatrix of W up give Y is already configured and if it is being cached or not.
      */
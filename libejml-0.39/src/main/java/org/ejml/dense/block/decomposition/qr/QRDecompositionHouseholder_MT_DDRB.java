@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2009-2020, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of Efficient Java Matrix Library (EJML).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ejml.dense.block.decomposition.qr;
+
+import org.ejml.concurrency.EjmlConcurrency;
+import org.ejml.data.DSubmatrixD1;
+import org.ejml.dense.block.MatrixMult_DDRB;
+
+
+/**
+ * <p>
+ * Concurrent version of {@link QRDecompositionHouseholder_DDRB}.  Computing the reflectors for a block column is
+ * done sequentially, but applying them to the remainder of the matrix is split up by block column.  Each block
+ * column of the trailing matrix, along with the matching block column of W<sup>T</sup>A, is updated by a single
+ * thread.  The same is done when applying Q or Q<sup>T</sup> to a matrix.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class QRDecompositionHouseholder_MT_DDRB extends QRDecompositionHouseholder_DDRB {
+
+    @Override
+    protected void applyReflectors( final int blockLength , final DSubmatrixD1 Y , final DSubmatrixD1 W ,
+                                    final DSubmatrixD1 WTA , final DSubmatrixD1 B ) {
+        EjmlConcurrency.loopBlocks(0, numBlockColumns(blockLength,B), (idx0, idx1) -> {
+            DSubmatrixD1 subWTA = new DSubmatrixD1();
+            DSubmatrixD1 subB = new DSubmatrixD1();
+            splitColumns(blockLength,WTA,B,idx0,idx1,subWTA,subB);
+
+            BlockHouseHolder_DDRB.multTransA_vecCol(blockLength,Y,subB,subWTA);
+            MatrixMult_DDRB.multPlus(blockLength,W,subWTA,subB);
+        });
+    }
+
+    @Override
+    protected void applyReflectorsTran( final int blockLength , final DSubmatrixD1 Y , final DSubmatrixD1 W ,
+                                        final DSubmatrixD1 WTA , final DSubmatrixD1 B ) {
+        EjmlConcurrency.loopBlocks(0, numBlockColumns(blockLength,B), (idx0, idx1) -> {
+            DSubmatrixD1 subWTA = new DSubmatrixD1();
+            DSubmatrixD1 subB = new DSubmatrixD1();
+            splitColumns(blockLength,WTA,B,idx0,idx1,subWTA,subB);
+
+            MatrixMult_DDRB.multTransA(blockLength,W,subB,subWTA);
+            BlockHouseHolder_DDRB.multAdd_zeros(blockLength,Y,subWTA,subB);
+        });
+    }
+
+    private static int numBlockColumns( int blockLength , DSubmatrixD1 B ) {
+        return (B.col1-B.col0+blockLength-1)/blockLength;
+    }
+
+    /**
+     * Configures subWTA and subB to reference the block columns from idx0 to idx1 in WTA and B.
+     */
+    private static void splitColumns( int blockLength , DSubmatrixD1 WTA , DSubmatrixD1 B ,
+                                      int idx0 , int idx1 ,
+                                      DSubmatrixD1 subWTA , DSubmatrixD1 subB ) {
+        int width = B.col1-B.col0;
+        int col0 = idx0*blockLength;
+        int col1 = Math.min(idx1*blockLength,width);
+
+        subB.set(B.original,B.row0,B.row1,B.col0+col0,B.col0+col1);
+        subWTA.set(WTA.original,WTA.row0,WTA.row1,WTA.col0+col0,WTA.col0+col1);
+    }
+}
@@ -50,7 +50,7 @@ import org.ejml.interfaces.linsol.LinearSolverDense;
 public class CholeskyOuterSolver_DDRB implements LinearSolverDense<DMatrixRBlock> {
 
     // cholesky decomposition
-    private CholeskyOuterForm_DDRB decomposer = new CholeskyOuterForm_DDRB(true);
+    private CholeskyOuterForm_DDRB decomposer;
 
     // size of a block take from input matrix
     private int blockLength;
@@ -58,6 +58,21 @@ public class CholeskyOuterSolver_DDRB implements LinearSolverDense<DMatrixRBlock
     // temporary data structure used in some calculation.
     private double temp[];
 
+    public CholeskyOuterSolver_DDRB() {
+        this(new CholeskyOuterForm_DDRB(true));
+    }
+
+    /**
+     * Specifies the decomposition used internally.
+     *
+     * @param decomposer Cholesky decomposition.  Must compute the lower triangular form.
+     */
+    public CholeskyOuterSolver_DDRB( CholeskyOuterForm_DDRB decomposer ) {
+        if( !decomposer.isLower() )
+            throw new IllegalArgumentException("The decomposition must be lower triangular");
+        this.decomposer = decomposer;
+    }
+
     /**
      * Decomposes and overwrites the input matrix.
      *
@@ -49,13 +49,23 @@ import org.ejml.interfaces.linsol.LinearSolverDense;
 public class QrHouseHolderSolver_DDRB implements LinearSolverDense<DMatrixRBlock> {
 
     // QR decomposition algorithm
-    protected QRDecompositionHouseholder_DDRB decomposer = new QRDecompositionHouseholder_DDRB();
+    protected QRDecompositionHouseholder_DDRB decomposer;
 
     // the input matrix which has been decomposed
     protected DMatrixRBlock QR;
 
 
     public QrHouseHolderSolver_DDRB() {
+        this(new QRDecompositionHouseholder_DDRB());
+    }
+
+    /**
+     * Specifies the decomposition used internally.
+     *
+     * @param decomposer QR decomposition.
+     */
+    public QrHouseHolderSolver_DDRB( QRDecompositionHouseholder_DDRB decomposer ) {
+        this.decomposer = decomposer;
         decomposer.setSaveW(false);
     }
 
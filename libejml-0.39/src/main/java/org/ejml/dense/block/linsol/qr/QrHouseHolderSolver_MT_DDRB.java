@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2009-2020, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of Efficient Java Matrix Library (EJML).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ejml.dense.block.linsol.qr;
+
+import org.ejml.dense.block.decomposition.qr.QRDecompositionHouseholder_MT_DDRB;
+
+
+/**
+ * Concurrent version of {@link QrHouseHolderSolver_DDRB} which uses {@link QRDecompositionHouseholder_MT_DDRB}
+ * to decompose the system matrix and to apply Q<sup>T</sup> to B.
+ *
+ * @author Peter Abeles
+ */
+// LinearSolver.getDecomposition() is generic, a typed override is always an unchecked conversion
+@SuppressWarnings("unchecked")
+public class QrHouseHolderSolver_MT_DDRB extends QrHouseHolderSolver_DDRB {
+
+    private final QRDecompositionHouseholder_MT_DDRB decomposer;
+
+    public QrHouseHolderSolver_MT_DDRB() {
+        this(new QRDecompositionHouseholder_MT_DDRB());
+    }
+
+    private QrHouseHolderSolver_MT_DDRB( QRDecompositionHouseholder_MT_DDRB decomposer ) {
+        super(decomposer);
+        this.decomposer = decomposer;
+    }
+
+    /**
+     * Returns the concurrent decomposition, typed so callers don't need an unchecked cast.
+     */
+    @Override
+    public QRDecompositionHouseholder_MT_DDRB getDecomposition() {
+        return decomposer;
+    }
+}
@@ -22,6 +22,7 @@ import org.ejml.EjmlParameters;
 import org.ejml.LinearSolverSafe;
 import org.ejml.MatrixDimensionException;
 import org.ejml.UtilEjml;
+import org.ejml.concurrency.EjmlConcurrency;
 import org.ejml.data.*;
 import org.ejml.dense.row.decomposition.TriangularSolver_DDRM;
 import org.ejml.dense.row.decomposition.lu.LUDecompositionAlt_DDRM;
@@ -31,6 +32,7 @@ import org.ejml.dense.row.linsol.lu.LinearSolverLu_DDRM;
 import org.ejml.dense.row.linsol.svd.SolvePseudoInverseSvd_DDRM;
 import org.ejml.dense.row.misc.*;
 import org.ejml.dense.row.mult.MatrixMatrixMult_DDRM;
+import org.ejml.dense.row.mult.MatrixMatrixMult_MT_DDRM;
 import org.ejml.dense.row.mult.MatrixMultProduct_DDRM;
 import org.ejml.dense.row.mult.MatrixVectorMult_DDRM;
 import org.ejml.dense.row.mult.VectorVectorMult_DDRM;
@@ -53,6 +55,7 @@ import static org.ejml.UtilEjml.stringShapes;
  * For more exotic and specialized generic operations see {@link SpecializedOps_DDRM}.
  * </p>
  * @see MatrixMatrixMult_DDRM
+ * @see MatrixMatrixMult_MT_DDRM
  * @see MatrixVectorMult_DDRM
  * @see SpecializedOps_DDRM
  * @see MatrixFeatures_DDRM
@@ -81,9 +84,17 @@ public class CommonOps_DDRM {
         if( b.numCols == 1 ) {
             MatrixVectorMult_DDRM.mult(a, b, c);
         } else if( b.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ) {
-            MatrixMatrixMult_DDRM.mult_reorder(a,b,c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_DDRM.mult_reorder(a,b,c);
+            } else {
+                MatrixMatrixMult_DDRM.mult_reorder(a,b,c);
+            }
         } else {
-            MatrixMatrixMult_DDRM.mult_small(a,b,c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_DDRM.mult_small(a,b,c);
+            } else {
+                MatrixMatrixMult_DDRM.mult_small(a,b,c);
+            }
         }
     }
 
@@ -107,9 +118,17 @@ public class CommonOps_DDRM {
 
         // TODO add a matrix vectory multiply here
         if( b.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ) {
-            MatrixMatrixMult_DDRM.mult_reorder(alpha, a, b, c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_DDRM.mult_reorder(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_DDRM.mult_reorder(alpha, a, b, c);
+            }
         } else {
-            MatrixMatrixMult_DDRM.mult_small(alpha,a,b,c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_DDRM.mult_small(alpha,a,b,c);
+            } else {
+                MatrixMatrixMult_DDRM.mult_small(alpha,a,b,c);
+            }
         }
     }
 
@@ -140,9 +159,17 @@ public class CommonOps_DDRM {
             }
         } else if( a.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ||
                 b.numCols >= EjmlParameters.MULT_COLUMN_SWITCH  ) {
-            MatrixMatrixMult_DDRM.multTransA_reorder(a, b, c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_DDRM.multTransA_reorder(a, b, c);
+            } else {
+                MatrixMatrixMult_DDRM.multTransA_reorder(a, b, c);
+            }
         } else {
-            MatrixMatrixMult_DDRM.multTransA_small(a, b, c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_DDRM.multTransA_small(a, b, c);
+            } else {
+                MatrixMatrixMult_DDRM.multTransA_small(a, b, c);
+            }
         }
     }
 
@@ -167,9 +194,17 @@ public class CommonOps_DDRM {
         // TODO add a matrix vectory multiply here
         if( a.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ||
                 b.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ) {
-            MatrixMatrixMult_DDRM.multTransA_reorder(alpha, a, b, c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_DDRM.multTransA_reorder(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_DDRM.multTransA_reorder(alpha, a, b, c);
+            }
         } else {
-            MatrixMatrixMult_DDRM.multTransA_small(alpha, a, b, c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_DDRM.multTransA_small(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_DDRM.multTransA_small(alpha, a, b, c);
+            }
         }
     }
 
@@ -193,7 +228,11 @@ public class CommonOps_DDRM {
         if( b.numRows == 1 ) {
             MatrixVectorMult_DDRM.mult(a, b, c);
         } else {
-            MatrixMatrixMult_DDRM.multTransB(a, b, c);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_DDRM.multTransB(a, b, c);
+            } else {
+                MatrixMatrixMult_DDRM.multTransB(a, b, c);
+            }
         }
     }
 
@@ -216,7 +255,11 @@ public class CommonOps_DDRM {
         UtilEjml.checkSameInstance(b,c);
 
         // TODO add a matrix vectory multiply here
-        MatrixMatrixMult_DDRM.multTransB(alpha,a,b,c);
+        if( isConcurrent(a,b.numRows) ) {
+            MatrixMatrixMult_MT_DDRM.multTransB(alpha,a,b,c);
+        } else {
+            MatrixMatrixMult_DDRM.multTransB(alpha,a,b,c);
+        }
     }
 
     /**
@@ -244,9 +287,17 @@ public class CommonOps_DDRM {
                 MatrixVectorMult_DDRM.multTransA_small(a,b,c);
             }
         } else if( a.numCols >= EjmlParameters.MULT_TRANAB_COLUMN_SWITCH ) {
-            MatrixMatrixMult_DDRM.multTransAB_aux(a, b, c, null);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_DDRM.multTransAB_aux(a, b, c);
+            } else {
+                MatrixMatrixMult_DDRM.multTransAB_aux(a, b, c, null);
+            }
         } else {
-            MatrixMatrixMult_DDRM.multTransAB(a, b, c);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_DDRM.multTransAB(a, b, c);
+            } else {
+                MatrixMatrixMult_DDRM.multTransAB(a, b, c);
+            }
         }
     }
 
@@ -270,9 +321,17 @@ public class CommonOps_DDRM {
 
         // TODO add a matrix vectory multiply here
         if( a.numCols >= EjmlParameters.MULT_TRANAB_COLUMN_SWITCH ) {
-            MatrixMatrixMult_DDRM.multTransAB_aux(alpha, a, b, c, null);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_DDRM.multTransAB_aux(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_DDRM.multTransAB_aux(alpha, a, b, c, null);
+            }
         } else {
-            MatrixMatrixMult_DDRM.multTransAB(alpha, a, b, c);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_DDRM.multTransAB(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_DDRM.multTransAB(alpha, a, b, c);
+            }
         }
     }
 
@@ -361,9 +420,17 @@ public class CommonOps_DDRM {
             MatrixVectorMult_DDRM.multAdd(a, b, c);
         } else {
             if( b.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ) {
-                MatrixMatrixMult_DDRM.multAdd_reorder(a,b,c);
+                if( isConcurrent(a,b.numCols) ) {
+                    MatrixMatrixMult_MT_DDRM.multAdd_reorder(a,b,c);
+                } else {
+                    MatrixMatrixMult_DDRM.multAdd_reorder(a,b,c);
+                }
             } else {
-                MatrixMatrixMult_DDRM.multAdd_small(a,b,c);
+                if( isConcurrent(a,b.numCols) ) {
+                    MatrixMatrixMult_MT_DDRM.multAdd_small(a,b,c);
+                } else {
+                    MatrixMatrixMult_DDRM.multAdd_small(a,b,c);
+                }
             }
         }
     }
@@ -385,9 +452,17 @@ public class CommonOps_DDRM {
     {
         // TODO add a matrix vectory multiply here
         if( b.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ) {
-            MatrixMatrixMult_DDRM.multAdd_reorder(alpha, a, b, c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_DDRM.multAdd_reorder(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_DDRM.multAdd_reorder(alpha, a, b, c);
+            }
         } else {
-            MatrixMatrixMult_DDRM.multAdd_small(alpha,a,b,c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_DDRM.multAdd_small(alpha,a,b,c);
+            } else {
+                MatrixMatrixMult_DDRM.multAdd_small(alpha,a,b,c);
+            }
         }
     }
 
@@ -414,9 +489,17 @@ public class CommonOps_DDRM {
         } else {
             if( a.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ||
                     b.numCols >= EjmlParameters.MULT_COLUMN_SWITCH  ) {
-                MatrixMatrixMult_DDRM.multAddTransA_reorder(a, b, c);
+                if( isConcurrent(a,b.numCols) ) {
+                    MatrixMatrixMult_MT_DDRM.multAddTransA_reorder(a, b, c);
+                } else {
+                    MatrixMatrixMult_DDRM.multAddTransA_reorder(a, b, c);
+                }
             } else {
-                MatrixMatrixMult_DDRM.multAddTransA_small(a, b, c);
+                if( isConcurrent(a,b.numCols) ) {
+                    MatrixMatrixMult_MT_DDRM.multAddTransA_small(a, b, c);
+                } else {
+                    MatrixMatrixMult_DDRM.multAddTransA_small(a, b, c);
+                }
             }
         }
     }
@@ -439,9 +522,17 @@ public class CommonOps_DDRM {
         // TODO add a matrix vectory multiply here
         if( a.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ||
                 b.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ) {
-            MatrixMatrixMult_DDRM.multAddTransA_reorder(alpha, a, b, c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_DDRM.multAddTransA_reorder(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_DDRM.multAddTransA_reorder(alpha, a, b, c);
+            }
         } else {
-            MatrixMatrixMult_DDRM.multAddTransA_small(alpha, a, b, c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_DDRM.multAddTransA_small(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_DDRM.multAddTransA_small(alpha, a, b, c);
+            }
         }
     }
 
@@ -459,7 +550,11 @@ public class CommonOps_DDRM {
      */
     public static void multAddTransB(DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
     {
-        MatrixMatrixMult_DDRM.multAddTransB(a,b,c);
+        if( isConcurrent(a,b.numRows) ) {
+            MatrixMatrixMult_MT_DDRM.multAddTransB(a,b,c);
+        } else {
+            MatrixMatrixMult_DDRM.multAddTransB(a,b,c);
+        }
     }
 
     /**
@@ -478,7 +573,11 @@ public class CommonOps_DDRM {
     public static void multAddTransB(double alpha , DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
     {
         // TODO add a matrix vectory multiply here
-        MatrixMatrixMult_DDRM.multAddTransB(alpha,a,b,c);
+        if( isConcurrent(a,b.numRows) ) {
+            MatrixMatrixMult_MT_DDRM.multAddTransB(alpha,a,b,c);
+        } else {
+            MatrixMatrixMult_DDRM.multAddTransB(alpha,a,b,c);
+        }
     }
 
     /**
@@ -503,9 +602,17 @@ public class CommonOps_DDRM {
                 MatrixVectorMult_DDRM.multAddTransA_small(a,b,c);
             }
         } else if( a.numCols >= EjmlParameters.MULT_TRANAB_COLUMN_SWITCH ) {
-            MatrixMatrixMult_DDRM.multAddTransAB_aux(a,b,c,null);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_DDRM.multAddTransAB_aux(a,b,c);
+            } else {
+                MatrixMatrixMult_DDRM.multAddTransAB_aux(a,b,c,null);
+            }
         } else {
-            MatrixMatrixMult_DDRM.multAddTransAB(a,b,c);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_DDRM.multAddTransAB(a,b,c);
+            } else {
+                MatrixMatrixMult_DDRM.multAddTransAB(a,b,c);
+            }
         }
     }
 
@@ -526,12 +633,31 @@ public class CommonOps_DDRM {
     {
         // TODO add a matrix vectory multiply here
         if( a.numCols >= EjmlParameters.MULT_TRANAB_COLUMN_SWITCH ) {
-            MatrixMatrixMult_DDRM.multAddTransAB_aux(alpha, a, b, c, null);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_DDRM.multAddTransAB_aux(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_DDRM.multAddTransAB_aux(alpha, a, b, c, null);
+            }
         } else {
-            MatrixMatrixMult_DDRM.multAddTransAB(alpha, a, b, c);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_DDRM.multAddTransAB(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_DDRM.multAddTransAB(alpha, a, b, c);
+            }
         }
     }
 
+    /**
+     * Returns true if a multiplication between 'a' and a matrix which contributes 'dimen' to the output
+     * is large enough that the concurrent implementation should be used.
+     *
+     * @see EjmlParameters#MULT_CONCURRENT_THRESHOLD
+     */
+    private static boolean isConcurrent( DMatrix1Row a , int dimen ) {
+        return EjmlConcurrency.isUseConcurrent() &&
+                (long)a.numRows*a.numCols*dimen >= EjmlParameters.MULT_CONCURRENT_THRESHOLD;
+    }
+
     /**
      * <p>
      * Solves for x in the following equation:<br>
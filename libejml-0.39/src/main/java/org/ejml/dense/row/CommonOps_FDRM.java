@@ -22,6 +22,7 @@ import org.ejml.EjmlParameters;
 import org.ejml.LinearSolverSafe;
 import org.ejml.MatrixDimensionException;
 import org.ejml.UtilEjml;
+import org.ejml.concurrency.EjmlConcurrency;
 import org.ejml.data.*;
 import org.ejml.dense.row.decomposition.TriangularSolver_FDRM;
 import org.ejml.dense.row.decomposition.lu.LUDecompositionAlt_FDRM;
@@ -31,6 +32,7 @@ import org.ejml.dense.row.linsol.lu.LinearSolverLu_FDRM;
 import org.ejml.dense.row.linsol.svd.SolvePseudoInverseSvd_FDRM;
 import org.ejml.dense.row.misc.*;
 import org.ejml.dense.row.mult.MatrixMatrixMult_FDRM;
+import org.ejml.dense.row.mult.MatrixMatrixMult_MT_FDRM;
 import org.ejml.dense.row.mult.MatrixMultProduct_FDRM;
 import org.ejml.dense.row.mult.MatrixVectorMult_FDRM;
 import org.ejml.dense.row.mult.VectorVectorMult_FDRM;
@@ -53,6 +55,7 @@ import static org.ejml.UtilEjml.stringShapes;
  * For more exotic and specialized generic operations see {@link SpecializedOps_FDRM}.
  * </p>
  * @see MatrixMatrixMult_FDRM
+ * @see MatrixMatrixMult_MT_FDRM
  * @see MatrixVectorMult_FDRM
  * @see SpecializedOps_FDRM
  * @see MatrixFeatures_FDRM
@@ -81,9 +84,17 @@ public class CommonOps_FDRM {
         if( b.numCols == 1 ) {
             MatrixVectorMult_FDRM.mult(a, b, c);
         } else if( b.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ) {
-            MatrixMatrixMult_FDRM.mult_reorder(a,b,c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_FDRM.mult_reorder(a,b,c);
+            } else {
+                MatrixMatrixMult_FDRM.mult_reorder(a,b,c);
+            }
         } else {
-            MatrixMatrixMult_FDRM.mult_small(a,b,c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_FDRM.mult_small(a,b,c);
+            } else {
+                MatrixMatrixMult_FDRM.mult_small(a,b,c);
+            }
         }
     }
 
@@ -107,9 +118,17 @@ public class CommonOps_FDRM {
 
         // TODO add a matrix vectory multiply here
         if( b.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ) {
-            MatrixMatrixMult_FDRM.mult_reorder(alpha, a, b, c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_FDRM.mult_reorder(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_FDRM.mult_reorder(alpha, a, b, c);
+            }
         } else {
-            MatrixMatrixMult_FDRM.mult_small(alpha,a,b,c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_FDRM.mult_small(alpha,a,b,c);
+            } else {
+                MatrixMatrixMult_FDRM.mult_small(alpha,a,b,c);
+            }
         }
     }
 
@@ -140,9 +159,17 @@ public class CommonOps_FDRM {
             }
         } else if( a.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ||
                 b.numCols >= EjmlParameters.MULT_COLUMN_SWITCH  ) {
-            MatrixMatrixMult_FDRM.multTransA_reorder(a, b, c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_FDRM.multTransA_reorder(a, b, c);
+            } else {
+                MatrixMatrixMult_FDRM.multTransA_reorder(a, b, c);
+            }
         } else {
-            MatrixMatrixMult_FDRM.multTransA_small(a, b, c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_FDRM.multTransA_small(a, b, c);
+            } else {
+                MatrixMatrixMult_FDRM.multTransA_small(a, b, c);
+            }
         }
     }
 
@@ -167,9 +194,17 @@ public class CommonOps_FDRM {
         // TODO add a matrix vectory multiply here
         if( a.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ||
                 b.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ) {
-            MatrixMatrixMult_FDRM.multTransA_reorder(alpha, a, b, c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_FDRM.multTransA_reorder(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_FDRM.multTransA_reorder(alpha, a, b, c);
+            }
         } else {
-            MatrixMatrixMult_FDRM.multTransA_small(alpha, a, b, c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_FDRM.multTransA_small(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_FDRM.multTransA_small(alpha, a, b, c);
+            }
         }
     }
 
@@ -193,7 +228,11 @@ public class CommonOps_FDRM {
         if( b.numRows == 1 ) {
             MatrixVectorMult_FDRM.mult(a, b, c);
         } else {
-            MatrixMatrixMult_FDRM.multTransB(a, b, c);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_FDRM.multTransB(a, b, c);
+            } else {
+                MatrixMatrixMult_FDRM.multTransB(a, b, c);
+            }
         }
     }
 
@@ -216,7 +255,11 @@ public class CommonOps_FDRM {
         UtilEjml.checkSameInstance(b,c);
 
         // TODO add a matrix vectory multiply here
-        MatrixMatrixMult_FDRM.multTransB(alpha,a,b,c);
+        if( isConcurrent(a,b.numRows) ) {
+            MatrixMatrixMult_MT_FDRM.multTransB(alpha,a,b,c);
+        } else {
+            MatrixMatrixMult_FDRM.multTransB(alpha,a,b,c);
+        }
     }
 
     /**
@@ -244,9 +287,17 @@ public class CommonOps_FDRM {
                 MatrixVectorMult_FDRM.multTransA_small(a,b,c);
             }
         } else if( a.numCols >= EjmlParameters.MULT_TRANAB_COLUMN_SWITCH ) {
-            MatrixMatrixMult_FDRM.multTransAB_aux(a, b, c, null);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_FDRM.multTransAB_aux(a, b, c);
+            } else {
+                MatrixMatrixMult_FDRM.multTransAB_aux(a, b, c, null);
+            }
         } else {
-            MatrixMatrixMult_FDRM.multTransAB(a, b, c);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_FDRM.multTransAB(a, b, c);
+            } else {
+                MatrixMatrixMult_FDRM.multTransAB(a, b, c);
+            }
         }
     }
 
@@ -270,9 +321,17 @@ public class CommonOps_FDRM {
 
         // TODO add a matrix vectory multiply here
         if( a.numCols >= EjmlParameters.MULT_TRANAB_COLUMN_SWITCH ) {
-            MatrixMatrixMult_FDRM.multTransAB_aux(alpha, a, b, c, null);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_FDRM.multTransAB_aux(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_FDRM.multTransAB_aux(alpha, a, b, c, null);
+            }
         } else {
-            MatrixMatrixMult_FDRM.multTransAB(alpha, a, b, c);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_FDRM.multTransAB(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_FDRM.multTransAB(alpha, a, b, c);
+            }
         }
     }
 
@@ -361,9 +420,17 @@ public class CommonOps_FDRM {
             MatrixVectorMult_FDRM.multAdd(a, b, c);
         } else {
             if( b.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ) {
-                MatrixMatrixMult_FDRM.multAdd_reorder(a,b,c);
+                if( isConcurrent(a,b.numCols) ) {
+                    MatrixMatrixMult_MT_FDRM.multAdd_reorder(a,b,c);
+                } else {
+                    MatrixMatrixMult_FDRM.multAdd_reorder(a,b,c);
+                }
             } else {
-                MatrixMatrixMult_FDRM.multAdd_small(a,b,c);
+                if( isConcurrent(a,b.numCols) ) {
+                    MatrixMatrixMult_MT_FDRM.multAdd_small(a,b,c);
+                } else {
+                    MatrixMatrixMult_FDRM.multAdd_small(a,b,c);
+                }
             }
         }
     }
@@ -385,9 +452,17 @@ public class CommonOps_FDRM {
     {
         // TODO add a matrix vectory multiply here
         if( b.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ) {
-            MatrixMatrixMult_FDRM.multAdd_reorder(alpha, a, b, c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_FDRM.multAdd_reorder(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_FDRM.multAdd_reorder(alpha, a, b, c);
+            }
         } else {
-            MatrixMatrixMult_FDRM.multAdd_small(alpha,a,b,c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_FDRM.multAdd_small(alpha,a,b,c);
+            } else {
+                MatrixMatrixMult_FDRM.multAdd_small(alpha,a,b,c);
+            }
         }
     }
 
@@ -414,9 +489,17 @@ public class CommonOps_FDRM {
         } else {
             if( a.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ||
                     b.numCols >= EjmlParameters.MULT_COLUMN_SWITCH  ) {
-                MatrixMatrixMult_FDRM.multAddTransA_reorder(a, b, c);
+                if( isConcurrent(a,b.numCols) ) {
+                    MatrixMatrixMult_MT_FDRM.multAddTransA_reorder(a, b, c);
+                } else {
+                    MatrixMatrixMult_FDRM.multAddTransA_reorder(a, b, c);
+                }
             } else {
-                MatrixMatrixMult_FDRM.multAddTransA_small(a, b, c);
+                if( isConcurrent(a,b.numCols) ) {
+                    MatrixMatrixMult_MT_FDRM.multAddTransA_small(a, b, c);
+                } else {
+                    MatrixMatrixMult_FDRM.multAddTransA_small(a, b, c);
+                }
             }
         }
     }
@@ -439,9 +522,17 @@ public class CommonOps_FDRM {
         // TODO add a matrix vectory multiply here
         if( a.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ||
                 b.numCols >= EjmlParameters.MULT_COLUMN_SWITCH ) {
-            MatrixMatrixMult_FDRM.multAddTransA_reorder(alpha, a, b, c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_FDRM.multAddTransA_reorder(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_FDRM.multAddTransA_reorder(alpha, a, b, c);
+            }
         } else {
-            MatrixMatrixMult_FDRM.multAddTransA_small(alpha, a, b, c);
+            if( isConcurrent(a,b.numCols) ) {
+                MatrixMatrixMult_MT_FDRM.multAddTransA_small(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_FDRM.multAddTransA_small(alpha, a, b, c);
+            }
         }
     }
 
@@ -459,7 +550,11 @@ public class CommonOps_FDRM {
      */
     public static void multAddTransB(FMatrix1Row a , FMatrix1Row b , FMatrix1Row c )
     {
-        MatrixMatrixMult_FDRM.multAddTransB(a,b,c);
+        if( isConcurrent(a,b.numRows) ) {
+            MatrixMatrixMult_MT_FDRM.multAddTransB(a,b,c);
+        } else {
+            MatrixMatrixMult_FDRM.multAddTransB(a,b,c);
+        }
     }
 
     /**
@@ -478,7 +573,11 @@ public class CommonOps_FDRM {
     public static void multAddTransB(float alpha , FMatrix1Row a , FMatrix1Row b , FMatrix1Row c )
     {
         // TODO add a matrix vectory multiply here
-        MatrixMatrixMult_FDRM.multAddTransB(alpha,a,b,c);
+        if( isConcurrent(a,b.numRows) ) {
+            MatrixMatrixMult_MT_FDRM.multAddTransB(alpha,a,b,c);
+        } else {
+            MatrixMatrixMult_FDRM.multAddTransB(alpha,a,b,c);
+        }
     }
 
     /**
@@ -503,9 +602,17 @@ public class CommonOps_FDRM {
                 MatrixVectorMult_FDRM.multAddTransA_small(a,b,c);
             }
         } else if( a.numCols >= EjmlParameters.MULT_TRANAB_COLUMN_SWITCH ) {
-            MatrixMatrixMult_FDRM.multAddTransAB_aux(a,b,c,null);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_FDRM.multAddTransAB_aux(a,b,c);
+            } else {
+                MatrixMatrixMult_FDRM.multAddTransAB_aux(a,b,c,null);
+            }
         } else {
-            MatrixMatrixMult_FDRM.multAddTransAB(a,b,c);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_FDRM.multAddTransAB(a,b,c);
+            } else {
+                MatrixMatrixMult_FDRM.multAddTransAB(a,b,c);
+            }
         }
     }
 
@@ -526,12 +633,31 @@ public class CommonOps_FDRM {
     {
         // TODO add a matrix vectory multiply here
         if( a.numCols >= EjmlParameters.MULT_TRANAB_COLUMN_SWITCH ) {
-            MatrixMatrixMult_FDRM.multAddTransAB_aux(alpha, a, b, c, null);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_FDRM.multAddTransAB_aux(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_FDRM.multAddTransAB_aux(alpha, a, b, c, null);
+            }
         } else {
-            MatrixMatrixMult_FDRM.multAddTransAB(alpha, a, b, c);
+            if( isConcurrent(a,b.numRows) ) {
+                MatrixMatrixMult_MT_FDRM.multAddTransAB(alpha, a, b, c);
+            } else {
+                MatrixMatrixMult_FDRM.multAddTransAB(alpha, a, b, c);
+            }
         }
     }
 
+    /**
+     * Returns true if a multiplication between 'a' and a matrix which contributes 'dimen' to the output
+     * is large enough that the concurrent implementation should be used.
+     *
+     * @see EjmlParameters#MULT_CONCURRENT_THRESHOLD
+     */
+    private static boolean isConcurrent( FMatrix1Row a , int dimen ) {
+        return EjmlConcurrency.isUseConcurrent() &&
+                (long)a.numRows*a.numCols*dimen >= EjmlParameters.MULT_CONCURRENT_THRESHOLD;
+    }
+
     /**
      * <p>
      * Solves for x in the following equation:<br>
@@ -41,6 +41,10 @@ public class CholeskyDecomposition_DDRB_to_DDRM
         super(new CholeskyOuterForm_DDRB(lower), EjmlParameters.BLOCK_WIDTH);
     }
 
+    public CholeskyDecomposition_DDRB_to_DDRM(CholeskyOuterForm_DDRB alg) {
+        super(alg, EjmlParameters.BLOCK_WIDTH);
+    }
+
     @Override
     public boolean isLower() {
         return ((CholeskyOuterForm_DDRB)alg).isLower();
@@ -41,6 +41,10 @@ public class QRDecomposition_DDRB_to_DDRM
         super(new QRDecompositionHouseholder_DDRB(), EjmlParameters.BLOCK_WIDTH);
     }
 
+    public QRDecomposition_DDRB_to_DDRM(QRDecompositionHouseholder_DDRB alg) {
+        super(alg, EjmlParameters.BLOCK_WIDTH);
+    }
+
     @Override
     public DMatrixRMaj getQ(DMatrixRMaj Q, boolean compact) {
 
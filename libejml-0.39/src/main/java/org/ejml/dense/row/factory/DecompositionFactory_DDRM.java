@@ -20,8 +20,10 @@ package org.ejml.dense.row.factory;
 
 import org.ejml.EjmlParameters;
 import org.ejml.UtilEjml;
+import org.ejml.concurrency.EjmlConcurrency;
 import org.ejml.data.DMatrix;
 import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.block.decomposition.chol.CholeskyOuterForm_MT_DDRB;
 import org.ejml.dense.row.CommonOps_DDRM;
 import org.ejml.dense.row.EigenOps_DDRM;
 import org.ejml.dense.row.NormOps_DDRM;
@@ -75,6 +77,8 @@ public class DecompositionFactory_DDRM {
         if( matrixSize < EjmlParameters.SWITCH_BLOCK64_CHOLESKY ) {
             return new CholeskyDecompositionInner_DDRM(lower);
         } else if( EjmlParameters.MEMORY == EjmlParameters.MemoryUsage.FASTER ){
+            if( EjmlConcurrency.isUseConcurrent() )
+                return new CholeskyDecomposition_DDRB_to_DDRM(new CholeskyOuterForm_MT_DDRB(lower));
             return new CholeskyDecomposition_DDRB_to_DDRM(lower);
         } else {
             return new CholeskyDecompositionBlock_DDRM(EjmlParameters.BLOCK_WIDTH_CHOL);
@@ -157,6 +161,8 @@ public class DecompositionFactory_DDRM {
     /**
      * <p>
      * Returns a {@link org.ejml.interfaces.decomposition.QRDecomposition} that has been optimized for the specified matrix size.
+     * The input matrix is not modified. The concurrent block QR modifies its input, so it is only used by
+     * {@link LinearSolverFactory_DDRM#leastSquares}, where callers already check modifiesA().
      * </p>
      *
      * @param numRows Number of rows the returned decomposition is optimized for.
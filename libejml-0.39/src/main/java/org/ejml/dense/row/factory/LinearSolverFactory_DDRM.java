@@ -19,6 +19,7 @@
 package org.ejml.dense.row.factory;
 
 import org.ejml.EjmlParameters;
+import org.ejml.concurrency.EjmlConcurrency;
 import org.ejml.data.DMatrixRMaj;
 import org.ejml.dense.row.decomposition.chol.CholeskyDecompositionCommon_DDRM;
 import org.ejml.dense.row.decomposition.chol.CholeskyDecompositionInner_DDRM;
@@ -27,6 +28,7 @@ import org.ejml.dense.row.decomposition.qr.QRColPivDecompositionHouseholderColum
 import org.ejml.dense.row.linsol.AdjustableLinearSolver_DDRM;
 import org.ejml.dense.row.linsol.chol.LinearSolverChol_DDRB;
 import org.ejml.dense.row.linsol.chol.LinearSolverChol_DDRM;
+import org.ejml.dense.row.linsol.chol.LinearSolverChol_MT_DDRB;
 import org.ejml.dense.row.linsol.lu.LinearSolverLu_DDRM;
 import org.ejml.dense.row.linsol.qr.*;
 import org.ejml.dense.row.linsol.svd.SolvePseudoInverseSvd_DDRM;
@@ -102,9 +104,11 @@ public class LinearSolverFactory_DDRM {
         if(numCols < EjmlParameters.SWITCH_BLOCK64_QR )  {
             return new LinearSolverQrHouseCol_DDRM();
         } else {
-            if( EjmlParameters.MEMORY == EjmlParameters.MemoryUsage.FASTER )
+            if( EjmlParameters.MEMORY == EjmlParameters.MemoryUsage.FASTER ) {
+                if( EjmlConcurrency.isUseConcurrent() )
+                    return new LinearSolverQrBlock64_MT_DDRM();
                 return new LinearSolverQrBlock64_DDRM();
-            else
+            } else
                 return new LinearSolverQrHouseCol_DDRM();
         }
     }
@@ -119,9 +123,11 @@ public class LinearSolverFactory_DDRM {
             CholeskyDecompositionCommon_DDRM decomp = new CholeskyDecompositionInner_DDRM(true);
             return new LinearSolverChol_DDRM(decomp);
         } else {
-            if( EjmlParameters.MEMORY == EjmlParameters.MemoryUsage.FASTER )
+            if( EjmlParameters.MEMORY == EjmlParameters.MemoryUsage.FASTER ) {
+                if( EjmlConcurrency.isUseConcurrent() )
+                    return new LinearSolverChol_MT_DDRB();
                 return new LinearSolverChol_DDRB();
-            else {
+            } else {
                 CholeskyDecompositionCommon_DDRM decomp = new CholeskyDecompositionInner_DDRM(true);
                 return new LinearSolverChol_DDRM(decomp);
             }
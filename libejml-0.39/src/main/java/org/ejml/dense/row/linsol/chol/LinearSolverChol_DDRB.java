@@ -37,6 +37,10 @@ public class LinearSolverChol_DDRB extends LinearSolver_DDRB_to_DDRM {
         super(new CholeskyOuterSolver_DDRB());
     }
 
+    public LinearSolverChol_DDRB( CholeskyOuterSolver_DDRB alg ) {
+        super(alg);
+    }
+
     /**
      * Only converts the B matrix and passes that onto solve.  Te result is then copied into
      * the input 'X' matrix.
@@ -34,4 +34,8 @@ public class LinearSolverQrBlock64_DDRM extends LinearSolver_DDRB_to_DDRM {
     public LinearSolverQrBlock64_DDRM() {
         super(new QrHouseHolderSolver_DDRB());
     }
+
+    public LinearSolverQrBlock64_DDRM( QrHouseHolderSolver_DDRB alg ) {
+        super(alg);
+    }
 }
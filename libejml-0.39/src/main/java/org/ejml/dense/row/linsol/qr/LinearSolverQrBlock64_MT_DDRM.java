@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2009-2020, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of Efficient Java Matrix Library (EJML).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ejml.dense.row.linsol.qr;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.block.linsol.qr.QrHouseHolderSolver_MT_DDRB;
+
+
+/**
+ * Concurrent version of {@link LinearSolverQrBlock64_DDRM} that allows {@link QrHouseHolderSolver_MT_DDRB}
+ * to process {@link DMatrixRMaj}.
+ *
+ * @author Peter Abeles
+ */
+public class LinearSolverQrBlock64_MT_DDRM extends LinearSolverQrBlock64_DDRM {
+
+    public LinearSolverQrBlock64_MT_DDRM() {
+        super(new QrHouseHolderSolver_MT_DDRB());
+    }
+}
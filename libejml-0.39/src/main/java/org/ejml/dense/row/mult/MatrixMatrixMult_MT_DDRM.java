@@ -0,0 +1,1254 @@
+/*
+ * Copyright (c) 2009-2020, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of Efficient Java Matrix Library (EJML).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ejml.dense.row.mult;
+
+import org.ejml.MatrixDimensionException;
+import org.ejml.concurrency.EjmlConcurrency;
+import org.ejml.data.DMatrix1Row;
+import org.ejml.dense.row.CommonOps_DDRM;
+
+/**
+ * <p>
+ * Concurrent implementations of the matrix matrix multiplication operations in {@link MatrixMatrixMult_DDRM}.
+ * Each function computes exactly the same result as its single threaded twin.  The outer loop of every
+ * algorithm is split into contiguous blocks of rows (or columns for the 'aux' variants) of the output
+ * matrix which are processed in parallel by {@link EjmlConcurrency}.  Since every block writes to a disjoint
+ * region of 'c' no synchronization is needed inside the inner loops.
+ * </p>
+ *
+ * <p>
+ * The 'aux' variants do not take a work array since one is needed for every thread.  Instead each block
+ * declares its own.
+ * </p>
+ *
+ * <p>
+ * Starting threads has a significant overhead and these functions are only faster on large matrices.
+ * {@link CommonOps_DDRM} will automatically switch to them when the number of operations exceeds
+ * {@link org.ejml.EjmlParameters#MULT_CONCURRENT_THRESHOLD}.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class MatrixMatrixMult_MT_DDRM {
+    /**
+     * @see CommonOps_DDRM#mult( org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void mult_reorder( DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numCols != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numRows,b.numCols);
+
+        if( a.numCols == 0 || a.numRows == 0 ) {
+            CommonOps_DDRM.fill(c,0);
+            return;
+        }
+
+        final int endOfKLoop = b.numRows*b.numCols;
+
+        EjmlConcurrency.loopBlocks(0, a.numRows, (i0, i1) -> {
+            for( int i = i0; i < i1; i++ ) {
+                int indexCbase = i*c.numCols;
+                int indexA = i*a.numCols;
+
+                // need to assign c.data to a value initially
+                int indexB = 0;
+                int indexC = indexCbase;
+                int end = indexB + b.numCols;
+
+                double valA = a.get(indexA++);
+
+                while( indexB < end ) {
+                    c.set(indexC++ , valA*b.get(indexB++));
+                }
+
+                // now add to it
+                while( indexB != endOfKLoop ) { // k loop
+                    indexC = indexCbase;
+                    end = indexB + b.numCols;
+
+                    valA = a.get(indexA++);
+
+                    while( indexB < end ) { // j loop
+                        c.plus(indexC++ , valA*b.get(indexB++));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#mult( org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void mult_small( DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numCols != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numRows,b.numCols);
+
+        EjmlConcurrency.loopBlocks(0, a.numRows, (i0, i1) -> {
+            int aIndexStart = i0*a.numCols;
+            int cIndex = i0*c.numCols;
+
+            for( int i = i0; i < i1; i++ ) {
+                for( int j = 0; j < b.numCols; j++ ) {
+                    double total = 0;
+
+                    int indexA = aIndexStart;
+                    int indexB = j;
+                    int end = indexA + b.numRows;
+                    while( indexA < end ) {
+                        total += a.get(indexA++) * b.get(indexB);
+                        indexB += b.numCols;
+                    }
+
+                    c.set( cIndex++ , total );
+                }
+                aIndexStart += a.numCols;
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#mult( org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void mult_aux( DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numCols != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numRows,b.numCols);
+
+        EjmlConcurrency.loopBlocks(0, b.numCols, (j0, j1) -> {
+            double []aux = new double[ b.numRows ];
+
+            for( int j = j0; j < j1; j++ ) {
+                // create a copy of the column in B to avoid cache issues
+                for( int k = 0; k < b.numRows; k++ ) {
+                    aux[k] = b.unsafe_get(k,j);
+                }
+
+                int indexA = 0;
+                for( int i = 0; i < a.numRows; i++ ) {
+                    double total = 0;
+                    for( int k = 0; k < b.numRows; ) {
+                        total += a.get(indexA++)*aux[k++];
+                    }
+                    c.set( i*c.numCols+j , total );
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multTransA( org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multTransA_reorder( DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numRows != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numCols,b.numCols);
+
+        if( a.numCols == 0 || a.numRows == 0 ) {
+            CommonOps_DDRM.fill(c,0);
+            return;
+        }
+
+        EjmlConcurrency.loopBlocks(0, a.numCols, (i0, i1) -> {
+            for( int i = i0; i < i1; i++ ) {
+                int indexC_start = i*c.numCols;
+
+                // first assign R
+                double valA = a.get(i);
+                int indexB = 0;
+                int end = indexB+b.numCols;
+                int indexC = indexC_start;
+                while( indexB<end ) {
+                    c.set( indexC++ , valA*b.get(indexB++));
+                }
+                // now increment it
+                for( int k = 1; k < a.numRows; k++ ) {
+                    valA = a.unsafe_get(k,i);
+                    end = indexB+b.numCols;
+                    indexC = indexC_start;
+                    // this is the loop for j
+                    while( indexB<end ) {
+                        c.plus( indexC++ , valA*b.get(indexB++));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multTransA( org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multTransA_small( DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numRows != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numCols,b.numCols);
+
+        EjmlConcurrency.loopBlocks(0, a.numCols, (i0, i1) -> {
+            int cIndex = i0*c.numCols;
+
+            for( int i = i0; i < i1; i++ ) {
+                for( int j = 0; j < b.numCols; j++ ) {
+                    int indexA = i;
+                    int indexB = j;
+                    int end = indexB + b.numRows*b.numCols;
+
+                    double total = 0;
+
+                    // loop for k
+                    for(; indexB < end; indexB += b.numCols ) {
+                        total += a.get(indexA) * b.get(indexB);
+                        indexA += a.numCols;
+                    }
+
+                    c.set( cIndex++ , total );
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multTransAB( org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multTransAB( DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numRows != b.numCols ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numCols,b.numRows);
+
+        EjmlConcurrency.loopBlocks(0, a.numCols, (i0, i1) -> {
+            int cIndex = i0*c.numCols;
+
+            for( int i = i0; i < i1; i++ ) {
+                int indexB = 0;
+                for( int j = 0; j < b.numRows; j++ ) {
+                    int indexA = i;
+                    int end = indexB + b.numCols;
+
+                    double total = 0;
+
+                    for( ;indexB<end; ) {
+                        total += a.get(indexA) * b.get(indexB++);
+                        indexA += a.numCols;
+                    }
+
+                    c.set( cIndex++ , total );
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multTransAB( org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multTransAB_aux( DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numRows != b.numCols ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numCols,b.numRows);
+
+        if( a.numCols == 0 || a.numRows == 0 ) {
+            CommonOps_DDRM.fill(c,0);
+            return;
+        }
+
+        EjmlConcurrency.loopBlocks(0, a.numCols, (i0, i1) -> {
+            double []aux = new double[ a.numRows ];
+            int indexC = i0*c.numCols;
+
+            for( int i = i0; i < i1; i++ ) {
+                for( int k = 0; k < b.numCols; k++ ) {
+                    aux[k] = a.unsafe_get(k,i);
+                }
+
+                for( int j = 0; j < b.numRows; j++ ) {
+                    double total = 0;
+
+                    for( int k = 0; k < b.numCols; k++ ) {
+                        total += aux[k] * b.unsafe_get(j,k);
+                    }
+                    c.set( indexC++ , total );
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multTransB( org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multTransB( DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numCols != b.numCols ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numRows,b.numRows);
+
+        EjmlConcurrency.loopBlocks(0, a.numRows, (xA0, xA1) -> {
+            int cIndex = xA0*c.numCols;
+            int aIndexStart = xA0*a.numCols;
+
+            for( int xA = xA0; xA < xA1; xA++ ) {
+                int end = aIndexStart + b.numCols;
+                int indexB = 0;
+                for( int xB = 0; xB < b.numRows; xB++ ) {
+                    int indexA = aIndexStart;
+
+                    double total = 0;
+
+                    while( indexA<end ) {
+                        total += a.get(indexA++) * b.get(indexB++);
+                    }
+
+                    c.set( cIndex++ , total );
+                }
+                aIndexStart += a.numCols;
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multAdd( org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multAdd_reorder( DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numCols != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numRows,b.numCols);
+
+        if( a.numCols == 0 || a.numRows == 0 ) {
+            return;
+        }
+
+        final int endOfKLoop = b.numRows*b.numCols;
+
+        EjmlConcurrency.loopBlocks(0, a.numRows, (i0, i1) -> {
+            for( int i = i0; i < i1; i++ ) {
+                int indexCbase = i*c.numCols;
+                int indexA = i*a.numCols;
+
+                // need to assign c.data to a value initially
+                int indexB = 0;
+                int indexC = indexCbase;
+                int end = indexB + b.numCols;
+
+                double valA = a.get(indexA++);
+
+                while( indexB < end ) {
+                    c.plus(indexC++ , valA*b.get(indexB++));
+                }
+
+                // now add to it
+                while( indexB != endOfKLoop ) { // k loop
+                    indexC = indexCbase;
+                    end = indexB + b.numCols;
+
+                    valA = a.get(indexA++);
+
+                    while( indexB < end ) { // j loop
+                        c.plus(indexC++ , valA*b.get(indexB++));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multAdd( org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multAdd_small( DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numCols != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numRows,b.numCols);
+
+        EjmlConcurrency.loopBlocks(0, a.numRows, (i0, i1) -> {
+            int aIndexStart = i0*a.numCols;
+            int cIndex = i0*c.numCols;
+
+            for( int i = i0; i < i1; i++ ) {
+                for( int j = 0; j < b.numCols; j++ ) {
+                    double total = 0;
+
+                    int indexA = aIndexStart;
+                    int indexB = j;
+                    int end = indexA + b.numRows;
+                    while( indexA < end ) {
+                        total += a.get(indexA++) * b.get(indexB);
+                        indexB += b.numCols;
+                    }
+
+                    c.plus( cIndex++ , total );
+                }
+                aIndexStart += a.numCols;
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multAdd( org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multAdd_aux( DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numCols != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numRows,b.numCols);
+
+        EjmlConcurrency.loopBlocks(0, b.numCols, (j0, j1) -> {
+            double []aux = new double[ b.numRows ];
+
+            for( int j = j0; j < j1; j++ ) {
+                // create a copy of the column in B to avoid cache issues
+                for( int k = 0; k < b.numRows; k++ ) {
+                    aux[k] = b.unsafe_get(k,j);
+                }
+
+                int indexA = 0;
+                for( int i = 0; i < a.numRows; i++ ) {
+                    double total = 0;
+                    for( int k = 0; k < b.numRows; ) {
+                        total += a.get(indexA++)*aux[k++];
+                    }
+                    c.plus( i*c.numCols+j , total );
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multAddTransA( org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multAddTransA_reorder( DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numRows != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numCols,b.numCols);
+
+        if( a.numCols == 0 || a.numRows == 0 ) {
+            return;
+        }
+
+        EjmlConcurrency.loopBlocks(0, a.numCols, (i0, i1) -> {
+            for( int i = i0; i < i1; i++ ) {
+                int indexC_start = i*c.numCols;
+
+                // first assign R
+                double valA = a.get(i);
+                int indexB = 0;
+                int end = indexB+b.numCols;
+                int indexC = indexC_start;
+                while( indexB<end ) {
+                    c.plus( indexC++ , valA*b.get(indexB++));
+                }
+                // now increment it
+                for( int k = 1; k < a.numRows; k++ ) {
+                    valA = a.unsafe_get(k,i);
+                    end = indexB+b.numCols;
+                    indexC = indexC_start;
+                    // this is the loop for j
+                    while( indexB<end ) {
+                        c.plus( indexC++ , valA*b.get(indexB++));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multAddTransA( org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multAddTransA_small( DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numRows != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numCols,b.numCols);
+
+        EjmlConcurrency.loopBlocks(0, a.numCols, (i0, i1) -> {
+            int cIndex = i0*c.numCols;
+
+            for( int i = i0; i < i1; i++ ) {
+                for( int j = 0; j < b.numCols; j++ ) {
+                    int indexA = i;
+                    int indexB = j;
+                    int end = indexB + b.numRows*b.numCols;
+
+                    double total = 0;
+
+                    // loop for k
+                    for(; indexB < end; indexB += b.numCols ) {
+                        total += a.get(indexA) * b.get(indexB);
+                        indexA += a.numCols;
+                    }
+
+                    c.plus( cIndex++ , total );
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multAddTransAB( org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multAddTransAB( DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numRows != b.numCols ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numCols,b.numRows);
+
+        EjmlConcurrency.loopBlocks(0, a.numCols, (i0, i1) -> {
+            int cIndex = i0*c.numCols;
+
+            for( int i = i0; i < i1; i++ ) {
+                int indexB = 0;
+                for( int j = 0; j < b.numRows; j++ ) {
+                    int indexA = i;
+                    int end = indexB + b.numCols;
+
+                    double total = 0;
+
+                    for( ;indexB<end; ) {
+                        total += a.get(indexA) * b.get(indexB++);
+                        indexA += a.numCols;
+                    }
+
+                    c.plus( cIndex++ , total );
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multAddTransAB( org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multAddTransAB_aux( DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numRows != b.numCols ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numCols,b.numRows);
+
+        if( a.numCols == 0 || a.numRows == 0 ) {
+            return;
+        }
+
+        EjmlConcurrency.loopBlocks(0, a.numCols, (i0, i1) -> {
+            double []aux = new double[ a.numRows ];
+            int indexC = i0*c.numCols;
+
+            for( int i = i0; i < i1; i++ ) {
+                for( int k = 0; k < b.numCols; k++ ) {
+                    aux[k] = a.unsafe_get(k,i);
+                }
+
+                for( int j = 0; j < b.numRows; j++ ) {
+                    double total = 0;
+
+                    for( int k = 0; k < b.numCols; k++ ) {
+                        total += aux[k] * b.unsafe_get(j,k);
+                    }
+                    c.plus( indexC++ , total );
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multAddTransB( org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multAddTransB( DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numCols != b.numCols ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numRows,b.numRows);
+
+        EjmlConcurrency.loopBlocks(0, a.numRows, (xA0, xA1) -> {
+            int cIndex = xA0*c.numCols;
+            int aIndexStart = xA0*a.numCols;
+
+            for( int xA = xA0; xA < xA1; xA++ ) {
+                int end = aIndexStart + b.numCols;
+                int indexB = 0;
+                for( int xB = 0; xB < b.numRows; xB++ ) {
+                    int indexA = aIndexStart;
+
+                    double total = 0;
+
+                    while( indexA<end ) {
+                        total += a.get(indexA++) * b.get(indexB++);
+                    }
+
+                    c.plus( cIndex++ , total );
+                }
+                aIndexStart += a.numCols;
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#mult(double,  org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void mult_reorder( double alpha , DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numCols != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numRows,b.numCols);
+
+        if( a.numCols == 0 || a.numRows == 0 ) {
+            CommonOps_DDRM.fill(c,0);
+            return;
+        }
+
+        final int endOfKLoop = b.numRows*b.numCols;
+
+        EjmlConcurrency.loopBlocks(0, a.numRows, (i0, i1) -> {
+            for( int i = i0; i < i1; i++ ) {
+                int indexCbase = i*c.numCols;
+                int indexA = i*a.numCols;
+
+                // need to assign c.data to a value initially
+                int indexB = 0;
+                int indexC = indexCbase;
+                int end = indexB + b.numCols;
+
+                double valA = alpha*a.get(indexA++);
+
+                while( indexB < end ) {
+                    c.set(indexC++ , valA*b.get(indexB++));
+                }
+
+                // now add to it
+                while( indexB != endOfKLoop ) { // k loop
+                    indexC = indexCbase;
+                    end = indexB + b.numCols;
+
+                    valA = alpha*a.get(indexA++);
+
+                    while( indexB < end ) { // j loop
+                        c.plus(indexC++ , valA*b.get(indexB++));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#mult(double,  org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void mult_small( double alpha , DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numCols != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numRows,b.numCols);
+
+        EjmlConcurrency.loopBlocks(0, a.numRows, (i0, i1) -> {
+            int aIndexStart = i0*a.numCols;
+            int cIndex = i0*c.numCols;
+
+            for( int i = i0; i < i1; i++ ) {
+                for( int j = 0; j < b.numCols; j++ ) {
+                    double total = 0;
+
+                    int indexA = aIndexStart;
+                    int indexB = j;
+                    int end = indexA + b.numRows;
+                    while( indexA < end ) {
+                        total += a.get(indexA++) * b.get(indexB);
+                        indexB += b.numCols;
+                    }
+
+                    c.set( cIndex++ , alpha*total );
+                }
+                aIndexStart += a.numCols;
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#mult(double,  org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void mult_aux( double alpha , DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numCols != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numRows,b.numCols);
+
+        EjmlConcurrency.loopBlocks(0, b.numCols, (j0, j1) -> {
+            double []aux = new double[ b.numRows ];
+
+            for( int j = j0; j < j1; j++ ) {
+                // create a copy of the column in B to avoid cache issues
+                for( int k = 0; k < b.numRows; k++ ) {
+                    aux[k] = b.unsafe_get(k,j);
+                }
+
+                int indexA = 0;
+                for( int i = 0; i < a.numRows; i++ ) {
+                    double total = 0;
+                    for( int k = 0; k < b.numRows; ) {
+                        total += a.get(indexA++)*aux[k++];
+                    }
+                    c.set( i*c.numCols+j , alpha*total );
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multTransA(double,  org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multTransA_reorder( double alpha , DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numRows != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numCols,b.numCols);
+
+        if( a.numCols == 0 || a.numRows == 0 ) {
+            CommonOps_DDRM.fill(c,0);
+            return;
+        }
+
+        EjmlConcurrency.loopBlocks(0, a.numCols, (i0, i1) -> {
+            for( int i = i0; i < i1; i++ ) {
+                int indexC_start = i*c.numCols;
+
+                // first assign R
+                double valA = alpha*a.get(i);
+                int indexB = 0;
+                int end = indexB+b.numCols;
+                int indexC = indexC_start;
+                while( indexB<end ) {
+                    c.set( indexC++ , valA*b.get(indexB++));
+                }
+                // now increment it
+                for( int k = 1; k < a.numRows; k++ ) {
+                    valA = alpha*a.unsafe_get(k,i);
+                    end = indexB+b.numCols;
+                    indexC = indexC_start;
+                    // this is the loop for j
+                    while( indexB<end ) {
+                        c.plus( indexC++ , valA*b.get(indexB++));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multTransA(double,  org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multTransA_small( double alpha , DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numRows != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numCols,b.numCols);
+
+        EjmlConcurrency.loopBlocks(0, a.numCols, (i0, i1) -> {
+            int cIndex = i0*c.numCols;
+
+            for( int i = i0; i < i1; i++ ) {
+                for( int j = 0; j < b.numCols; j++ ) {
+                    int indexA = i;
+                    int indexB = j;
+                    int end = indexB + b.numRows*b.numCols;
+
+                    double total = 0;
+
+                    // loop for k
+                    for(; indexB < end; indexB += b.numCols ) {
+                        total += a.get(indexA) * b.get(indexB);
+                        indexA += a.numCols;
+                    }
+
+                    c.set( cIndex++ , alpha*total );
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multTransAB(double,  org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multTransAB( double alpha , DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numRows != b.numCols ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numCols,b.numRows);
+
+        EjmlConcurrency.loopBlocks(0, a.numCols, (i0, i1) -> {
+            int cIndex = i0*c.numCols;
+
+            for( int i = i0; i < i1; i++ ) {
+                int indexB = 0;
+                for( int j = 0; j < b.numRows; j++ ) {
+                    int indexA = i;
+                    int end = indexB + b.numCols;
+
+                    double total = 0;
+
+                    for( ;indexB<end; ) {
+                        total += a.get(indexA) * b.get(indexB++);
+                        indexA += a.numCols;
+                    }
+
+                    c.set( cIndex++ , alpha*total );
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multTransAB(double,  org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multTransAB_aux( double alpha , DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numRows != b.numCols ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numCols,b.numRows);
+
+        if( a.numCols == 0 || a.numRows == 0 ) {
+            CommonOps_DDRM.fill(c,0);
+            return;
+        }
+
+        EjmlConcurrency.loopBlocks(0, a.numCols, (i0, i1) -> {
+            double []aux = new double[ a.numRows ];
+            int indexC = i0*c.numCols;
+
+            for( int i = i0; i < i1; i++ ) {
+                for( int k = 0; k < b.numCols; k++ ) {
+                    aux[k] = a.unsafe_get(k,i);
+                }
+
+                for( int j = 0; j < b.numRows; j++ ) {
+                    double total = 0;
+
+                    for( int k = 0; k < b.numCols; k++ ) {
+                        total += aux[k] * b.unsafe_get(j,k);
+                    }
+                    c.set( indexC++ , alpha*total );
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multTransB(double,  org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multTransB( double alpha , DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numCols != b.numCols ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numRows,b.numRows);
+
+        EjmlConcurrency.loopBlocks(0, a.numRows, (xA0, xA1) -> {
+            int cIndex = xA0*c.numCols;
+            int aIndexStart = xA0*a.numCols;
+
+            for( int xA = xA0; xA < xA1; xA++ ) {
+                int end = aIndexStart + b.numCols;
+                int indexB = 0;
+                for( int xB = 0; xB < b.numRows; xB++ ) {
+                    int indexA = aIndexStart;
+
+                    double total = 0;
+
+                    while( indexA<end ) {
+                        total += a.get(indexA++) * b.get(indexB++);
+                    }
+
+                    c.set( cIndex++ , alpha*total );
+                }
+                aIndexStart += a.numCols;
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multAdd(double,  org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multAdd_reorder( double alpha , DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numCols != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numRows,b.numCols);
+
+        if( a.numCols == 0 || a.numRows == 0 ) {
+            return;
+        }
+
+        final int endOfKLoop = b.numRows*b.numCols;
+
+        EjmlConcurrency.loopBlocks(0, a.numRows, (i0, i1) -> {
+            for( int i = i0; i < i1; i++ ) {
+                int indexCbase = i*c.numCols;
+                int indexA = i*a.numCols;
+
+                // need to assign c.data to a value initially
+                int indexB = 0;
+                int indexC = indexCbase;
+                int end = indexB + b.numCols;
+
+                double valA = alpha*a.get(indexA++);
+
+                while( indexB < end ) {
+                    c.plus(indexC++ , valA*b.get(indexB++));
+                }
+
+                // now add to it
+                while( indexB != endOfKLoop ) { // k loop
+                    indexC = indexCbase;
+                    end = indexB + b.numCols;
+
+                    valA = alpha*a.get(indexA++);
+
+                    while( indexB < end ) { // j loop
+                        c.plus(indexC++ , valA*b.get(indexB++));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multAdd(double,  org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multAdd_small( double alpha , DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numCols != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numRows,b.numCols);
+
+        EjmlConcurrency.loopBlocks(0, a.numRows, (i0, i1) -> {
+            int aIndexStart = i0*a.numCols;
+            int cIndex = i0*c.numCols;
+
+            for( int i = i0; i < i1; i++ ) {
+                for( int j = 0; j < b.numCols; j++ ) {
+                    double total = 0;
+
+                    int indexA = aIndexStart;
+                    int indexB = j;
+                    int end = indexA + b.numRows;
+                    while( indexA < end ) {
+                        total += a.get(indexA++) * b.get(indexB);
+                        indexB += b.numCols;
+                    }
+
+                    c.plus( cIndex++ , alpha*total );
+                }
+                aIndexStart += a.numCols;
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multAdd(double,  org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multAdd_aux( double alpha , DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numCols != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numRows,b.numCols);
+
+        EjmlConcurrency.loopBlocks(0, b.numCols, (j0, j1) -> {
+            double []aux = new double[ b.numRows ];
+
+            for( int j = j0; j < j1; j++ ) {
+                // create a copy of the column in B to avoid cache issues
+                for( int k = 0; k < b.numRows; k++ ) {
+                    aux[k] = b.unsafe_get(k,j);
+                }
+
+                int indexA = 0;
+                for( int i = 0; i < a.numRows; i++ ) {
+                    double total = 0;
+                    for( int k = 0; k < b.numRows; ) {
+                        total += a.get(indexA++)*aux[k++];
+                    }
+                    c.plus( i*c.numCols+j , alpha*total );
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multAddTransA(double,  org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multAddTransA_reorder( double alpha , DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numRows != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numCols,b.numCols);
+
+        if( a.numCols == 0 || a.numRows == 0 ) {
+            return;
+        }
+
+        EjmlConcurrency.loopBlocks(0, a.numCols, (i0, i1) -> {
+            for( int i = i0; i < i1; i++ ) {
+                int indexC_start = i*c.numCols;
+
+                // first assign R
+                double valA = alpha*a.get(i);
+                int indexB = 0;
+                int end = indexB+b.numCols;
+                int indexC = indexC_start;
+                while( indexB<end ) {
+                    c.plus( indexC++ , valA*b.get(indexB++));
+                }
+                // now increment it
+                for( int k = 1; k < a.numRows; k++ ) {
+                    valA = alpha*a.unsafe_get(k,i);
+                    end = indexB+b.numCols;
+                    indexC = indexC_start;
+                    // this is the loop for j
+                    while( indexB<end ) {
+                        c.plus( indexC++ , valA*b.get(indexB++));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multAddTransA(double,  org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multAddTransA_small( double alpha , DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numRows != b.numRows ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numCols,b.numCols);
+
+        EjmlConcurrency.loopBlocks(0, a.numCols, (i0, i1) -> {
+            int cIndex = i0*c.numCols;
+
+            for( int i = i0; i < i1; i++ ) {
+                for( int j = 0; j < b.numCols; j++ ) {
+                    int indexA = i;
+                    int indexB = j;
+                    int end = indexB + b.numRows*b.numCols;
+
+                    double total = 0;
+
+                    // loop for k
+                    for(; indexB < end; indexB += b.numCols ) {
+                        total += a.get(indexA) * b.get(indexB);
+                        indexA += a.numCols;
+                    }
+
+                    c.plus( cIndex++ , alpha*total );
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multAddTransAB(double,  org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multAddTransAB( double alpha , DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numRows != b.numCols ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numCols,b.numRows);
+
+        EjmlConcurrency.loopBlocks(0, a.numCols, (i0, i1) -> {
+            int cIndex = i0*c.numCols;
+
+            for( int i = i0; i < i1; i++ ) {
+                int indexB = 0;
+                for( int j = 0; j < b.numRows; j++ ) {
+                    int indexA = i;
+                    int end = indexB + b.numCols;
+
+                    double total = 0;
+
+                    for( ;indexB<end; ) {
+                        total += a.get(indexA) * b.get(indexB++);
+                        indexA += a.numCols;
+                    }
+
+                    c.plus( cIndex++ , alpha*total );
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multAddTransAB(double,  org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multAddTransAB_aux( double alpha , DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numRows != b.numCols ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numCols,b.numRows);
+
+        if( a.numCols == 0 || a.numRows == 0 ) {
+            return;
+        }
+
+        EjmlConcurrency.loopBlocks(0, a.numCols, (i0, i1) -> {
+            double []aux = new double[ a.numRows ];
+            int indexC = i0*c.numCols;
+
+            for( int i = i0; i < i1; i++ ) {
+                for( int k = 0; k < b.numCols; k++ ) {
+                    aux[k] = a.unsafe_get(k,i);
+                }
+
+                for( int j = 0; j < b.numRows; j++ ) {
+                    double total = 0;
+
+                    for( int k = 0; k < b.numCols; k++ ) {
+                        total += aux[k] * b.unsafe_get(j,k);
+                    }
+                    c.plus( indexC++ , alpha*total );
+                }
+            }
+        });
+    }
+
+    /**
+     * @see CommonOps_DDRM#multAddTransB(double,  org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row, org.ejml.data.DMatrix1Row)
+     */
+    public static void multAddTransB( double alpha , DMatrix1Row a , DMatrix1Row b , DMatrix1Row c )
+    {
+        if( a == c || b == c )
+            throw new IllegalArgumentException("Neither 'a' or 'b' can be the same matrix as 'c'");
+        else if( a.numCols != b.numCols ) {
+            throw new MatrixDimensionException("The 'a' and 'b' matrices do not have compatible dimensions");
+        }
+        c.reshape(a.numRows,b.numRows);
+
+        EjmlConcurrency.loopBlocks(0, a.numRows, (xA0, xA1) -> {
+            int cIndex = xA0*c.numCols;
+            int aIndexStart = xA0*a.numCols;
+
+            for( int xA = xA0; xA < xA1; xA++ ) {
+                int end = aIndexStart + b.numCols;
+                int indexB = 0;
+                for( int xB = 0; xB < b.numRows; xB++ ) {
+                    int indexA = aIndexStart;
+
+                    double total = 0;
+
+                    while( indexA<end ) {
+                        total += a.get(indexA++) * b.get(indexB++);
+                    }
+
+                    c.plus( cIndex++ , alpha*total );
+                }
+                aIndexStart += a.numCols;
+            }
+        });
+    }
+}
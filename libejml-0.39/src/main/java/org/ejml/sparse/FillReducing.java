@@ -35,5 +35,13 @@ public enum FillReducing {
     /**
      * TESTING ONLY. Doesn't change the input.
      */
-    IDENTITY
+    IDENTITY,
+    /**
+     * Approximate Minimum Degree ordering of A+A<sup>T</sup>. For Cholesky and structurally symmetric LU.
+     */
+    AMD,
+    /**
+     * Approximate Minimum Degree column ordering of A<sup>T</sup>A with dense rows ignored. For QR and LU.
+     */
+    COLUMN_AMD
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2009-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of Efficient Java Matrix Library (EJML).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ejml.sparse;
+
+import org.ejml.data.MatrixSparse;
+
+import javax.annotation.Nullable;
+import java.io.Serializable;
+
+/**
+ * <p>
+ * Results of the symbolic analysis of a sparse matrix. Everything in here depends only on the matrix's
+ * non-zero pattern, so it can be computed once and passed to a decomposition of any matrix with the same
+ * pattern. Then only the numerical factorization needs to be done. It's serializable and only contains
+ * integer arrays so it can be saved and used with either the 64-bit or 32-bit float decompositions.
+ * </p>
+ *
+ * <p>Similar to css in csparse. See cs_schol() and cs_sqr()</p>
+ *
+ * @author Peter Abeles
+ */
+public class SymbolicAnalysis implements Serializable {
+
+    static final long serialVersionUID = 20191118L;
+
+    /** Shape of the matrix which was analyzed */
+    public int numRows, numCols;
+    /** Number of non-zero elements in the matrix which was analyzed */
+    public int nz_length;
+
+    /** Inverse of the fill reducing row permutation. null if rows are not permuted */
+    public @Nullable int[] pinv;
+    /** Fill reducing column permutation. null if columns are not permuted */
+    public @Nullable int[] q;
+
+    /** Cholesky: elimination tree of the permuted matrix */
+    public @Nullable int[] parent;
+    /** Cholesky: column pointers in L. numCols+1 elements */
+    public @Nullable int[] colIdxL;
+    /** Cholesky: row indexes in L if they are found symbolically. null otherwise */
+    public @Nullable int[] rowsL;
+    /** Cholesky: first column in each supernode followed by numCols. null if not supernodal */
+    public @Nullable int[] supernodes;
+
+    /** LU: number of non-zero elements in L and U last time. Used to allocate storage up front */
+    public int nz_L, nz_U;
+
+    /** How long it took to compute the analysis in nano seconds */
+    public long time;
+
+    /**
+     * Makes sure the matrix has the same shape and number of non-zero elements as the matrix which was analyzed.
+     * The pattern itself isn't checked because that would cost as much as the analysis.
+     *
+     * @throws IllegalArgumentException If the matrix doesn't match
+     */
+    public void checkMatches( MatrixSparse A ) {
+        if( A.getNumRows() != numRows || A.getNumCols() != numCols || A.getNonZeroLength() != nz_length )
+            throw new IllegalArgumentException("Matrix doesn't match the symbolic analysis. Expected "+
+                    numRows+"x"+numCols+" nz="+nz_length+" found "+
+                    A.getNumRows()+"x"+A.getNumCols()+" nz="+A.getNonZeroLength());
+    }
+
+    /**
+     * Copies an array or returns null if it's null
+     */
+    public static @Nullable int[] copy( @Nullable int[] src , int length ) {
+        if( src == null )
+            return null;
+        int[] dst = new int[length];
+        System.arraycopy(src,0,dst,0,length);
+        return dst;
+    }
+}
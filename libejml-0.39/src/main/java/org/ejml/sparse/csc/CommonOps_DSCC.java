@@ -18,7 +18,9 @@
 
 package org.ejml.sparse.csc;
 
+import org.ejml.EjmlParameters;
 import org.ejml.MatrixDimensionException;
+import org.ejml.concurrency.EjmlConcurrency;
 import org.ejml.data.DGrowArray;
 import org.ejml.data.DMatrixRMaj;
 import org.ejml.data.DMatrixSparseCSC;
@@ -31,6 +33,7 @@ import org.ejml.sparse.csc.factory.DecompositionFactory_DSCC;
 import org.ejml.sparse.csc.factory.LinearSolverFactory_DSCC;
 import org.ejml.sparse.csc.misc.ImplCommonOps_DSCC;
 import org.ejml.sparse.csc.mult.ImplSparseSparseMult_DSCC;
+import org.ejml.sparse.csc.mult.ImplSparseSparseMult_MT_DSCC;
 
 import javax.annotation.Nullable;
 import java.util.Arrays;
@@ -128,6 +131,14 @@ public class CommonOps_DSCC {
         return a_t;
     }
 
+    /**
+     * Decides if a sparse-sparse multiplication is large enough to be worth spreading across threads
+     */
+    private static boolean isConcurrent( DMatrixSparseCSC A , DMatrixSparseCSC B ) {
+        return EjmlConcurrency.isUseConcurrent() &&
+                (long)A.nz_length+B.nz_length >= EjmlParameters.MULT_SPARSE_SPARSE_CONCURRENT_THRESHOLD;
+    }
+
     public static void mult(DMatrixSparseCSC A , DMatrixSparseCSC B , DMatrixSparseCSC C ) {
         mult(A,B,C,null,null);
     }
@@ -148,7 +159,10 @@ public class CommonOps_DSCC {
             throw new MatrixDimensionException("Inconsistent matrix shapes. "+stringShapes(A,B));
         C.reshape(A.numRows,B.numCols);
 
-        ImplSparseSparseMult_DSCC.mult(A,B,C, gw, gx);
+        if( isConcurrent(A,B) )
+            ImplSparseSparseMult_MT_DSCC.mult(A,B,C,gw,gx);
+        else
+            ImplSparseSparseMult_DSCC.mult(A,B,C, gw, gx);
     }
 
     public static void multTransA(DMatrixSparseCSC A , DMatrixSparseCSC B , DMatrixSparseCSC C ,
@@ -158,7 +172,10 @@ public class CommonOps_DSCC {
             throw new MatrixDimensionException("Inconsistent matrix shapes. "+stringShapes(A,B));
         C.reshape(A.numCols,B.numCols);
 
-        ImplSparseSparseMult_DSCC.multTransA(A,B,C,gw,gx);
+        if( isConcurrent(A,B) )
+            ImplSparseSparseMult_MT_DSCC.multTransA(A,B,C,gw,gx);
+        else
+            ImplSparseSparseMult_DSCC.multTransA(A,B,C,gw,gx);
     }
 
     /**
@@ -181,10 +198,24 @@ public class CommonOps_DSCC {
         if( !B.isIndicesSorted() )
             B.sortIndices(null);
 
-        ImplSparseSparseMult_DSCC.multTransB(A,B,C,gw,gx);
+        if( isConcurrent(A,B) )
+            ImplSparseSparseMult_MT_DSCC.multTransB(A,B,C,gw,gx);
+        else
+            ImplSparseSparseMult_DSCC.multTransB(A,B,C,gw,gx);
     }
 
 
+    /**
+     * Decides if a sparse-dense multiplication is large enough to be worth spreading across threads
+     *
+     * @param A Sparse matrix
+     * @param dimen Number of columns in the dense matrix
+     */
+    private static boolean isConcurrent( DMatrixSparseCSC A , int dimen ) {
+        return EjmlConcurrency.isUseConcurrent() &&
+                (long)A.nz_length*dimen >= EjmlParameters.MULT_SPARSE_CONCURRENT_THRESHOLD;
+    }
+
     /**
      * Performs matrix multiplication.  C = A*B
      *
@@ -198,7 +229,10 @@ public class CommonOps_DSCC {
             throw new MatrixDimensionException("Inconsistent matrix shapes. "+stringShapes(A,B));
         C.reshape(A.numRows,B.numCols);
 
-        ImplSparseSparseMult_DSCC.mult(A,B,C);
+        if( isConcurrent(A,B.numCols) )
+            ImplSparseSparseMult_MT_DSCC.mult(A,B,C,null);
+        else
+            ImplSparseSparseMult_DSCC.mult(A,B,C);
     }
 
     /**
@@ -209,7 +243,10 @@ public class CommonOps_DSCC {
         if( A.numRows != C.numRows || B.numCols != C.numCols )
             throw new IllegalArgumentException("Inconsistent matrix shapes. "+stringShapes(A,B,C));
 
-        ImplSparseSparseMult_DSCC.multAdd(A,B,C);
+        if( isConcurrent(A,B.numCols) )
+            ImplSparseSparseMult_MT_DSCC.multAdd(A,B,C,null);
+        else
+            ImplSparseSparseMult_DSCC.multAdd(A,B,C);
     }
 
     /**
@@ -225,7 +262,10 @@ public class CommonOps_DSCC {
             throw new MatrixDimensionException("Inconsistent matrix shapes. "+stringShapes(A,B));
         C.reshape(A.numCols,B.numCols);
 
-        ImplSparseSparseMult_DSCC.multTransA(A,B,C);
+        if( isConcurrent(A,B.numCols) )
+            ImplSparseSparseMult_MT_DSCC.multTransA(A,B,C);
+        else
+            ImplSparseSparseMult_DSCC.multTransA(A,B,C);
     }
 
     /**
@@ -236,7 +276,10 @@ public class CommonOps_DSCC {
         if( A.numCols != C.numRows || B.numCols != C.numCols )
             throw new IllegalArgumentException("Inconsistent matrix shapes. "+stringShapes(A,B,C));
 
-        ImplSparseSparseMult_DSCC.multAddTransA(A,B,C);
+        if( isConcurrent(A,B.numCols) )
+            ImplSparseSparseMult_MT_DSCC.multAddTransA(A,B,C);
+        else
+            ImplSparseSparseMult_DSCC.multAddTransA(A,B,C);
     }
 
     /**
@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2009-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of Efficient Java Matrix Library (EJML).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ejml.sparse.csc.decomposition.chol;
+
+import org.ejml.data.FMatrixRMaj;
+import org.ejml.data.FMatrixSparseCSC;
+import org.ejml.dense.block.InnerTriangularSolver_FDRB;
+import org.ejml.dense.row.decomposition.chol.CholeskyDecompositionInner_FDRM;
+import org.ejml.sparse.SymbolicAnalysis;
+import org.ejml.sparse.csc.CommonOps_FSCC;
+import org.ejml.sparse.csc.misc.TriangularSolver_FSCC;
+
+import static org.ejml.UtilEjml.adjust;
+
+/**
+ * <p>
+ * Performs a Cholesky decomposition using a left looking supernodal algorithm on a {@link FMatrixSparseCSC}.
+ * Adjacent columns in L which share the same non-zero pattern below the diagonal are grouped into supernodes.
+ * Each supernode is factored as a dense block and updates from descendant supernodes are applied using
+ * dense matrix multiplication, which is much faster than the column by column up looking algorithm
+ * when the factor has a lot of fill in.
+ * </p>
+ *
+ * <p>
+ * The factor L is stored in the same format as {@link CholeskyUpLooking_FSCC} so the two can be used
+ * interchangeably.
+ * </p>
+ *
+ * <p>See chapter 9 in "Direct Methods for Sparse Linear Systems" by Tomothy A. Davis</p>
+ *
+ * @author Peter Abeles
+ */
+public class CholeskySupernodal_FSCC extends CholeskyUpLooking_FSCC {
+
+    // number of supernodes
+    int numSuper;
+    // first column in each supernode. Has numSuper+1 elements
+    int []superStart = new int[1];
+    // which supernode each column belongs to
+    int []colToSuper = new int[1];
+
+    // workspace storage
+    // linked lists of descendant supernodes which will update a supernode
+    int []head = new int[1];
+    int []next = new int[1];
+    // index of the next row in a descendant supernode which has not been used in an update
+    int []ptr = new int[1];
+    // location of a row inside the supernode being processed
+    int []rowMap = new int[1];
+    FMatrixSparseCSC At = new FMatrixSparseCSC(1,1,0);
+    FMatrixRMaj block = new FMatrixRMaj(1,1);
+    FMatrixRMaj diag = new FMatrixRMaj(1,1);
+    FMatrixRMaj C1 = new FMatrixRMaj(1,1);
+    FMatrixRMaj C2 = new FMatrixRMaj(1,1);
+    CholeskyDecompositionInner_FDRM dense = new CholeskyDecompositionInner_FDRM(true);
+
+    /**
+     * In addition to the column counts the supernodal algorithm needs the full non-zero pattern of L
+     * and the supernode partition before any numerical work is done.
+     */
+    @Override
+    public void performSymbolic(FMatrixSparseCSC A) {
+        super.performSymbolic(A);
+
+        int []c = adjust(gw,N);
+        int []s = adjust(gs,N);
+        System.arraycopy(L.col_idx, 0, c, 0, N);
+
+        // Same traversal as the up looking algorithm but only the row indexes are saved
+        for (int k = 0; k < N; k++) {
+            int top = TriangularSolver_FSCC.searchNzRowsElim(A,k,parent,s,c);
+            for(; top < N; top++ ) {
+                int i = s[top];
+                L.nz_rows[c[i]++] = k;
+            }
+            L.nz_rows[c[k]++] = k;
+        }
+        L.indicesSorted = true;
+
+        // Column j+1 can be added to j's supernode if it's j's parent and their patterns are the same.
+        // Since struct(L(:,j)) \ {j} is a subset of struct(L(:,parent(j))) it's enough to compare the counts
+        initSupernodes();
+        numSuper = 0;
+        for (int j = 0; j < N; j++) {
+            if( j == 0 || parent[j-1] != j || counts[j-1] != counts[j]+1 ) {
+                superStart[numSuper++] = j;
+            }
+        }
+        superStart[numSuper] = N;
+
+        relaxSupernodes();
+    }
+
+    private void initSupernodes() {
+        if( superStart.length < N+1 ) {
+            superStart = new int[N+1];
+            colToSuper = new int[N];
+            head = new int[N];
+            next = new int[N];
+            ptr = new int[N];
+            rowMap = new int[N];
+        }
+    }
+
+    /**
+     * In addition to the structure found by the up looking algorithm this includes the row indexes in L
+     * and the supernodes.
+     */
+    @Override
+    public SymbolicAnalysis getSymbolic() {
+        SymbolicAnalysis symbolic = super.getSymbolic();
+        symbolic.rowsL = SymbolicAnalysis.copy(L.nz_rows,L.nz_length);
+        symbolic.supernodes = SymbolicAnalysis.copy(superStart,numSuper+1);
+        return symbolic;
+    }
+
+    @Override
+    public void setSymbolic( SymbolicAnalysis symbolic ) {
+        if( symbolic.parent == null || symbolic.colIdxL == null ||
+                symbolic.rowsL == null || symbolic.supernodes == null )
+            throw new IllegalArgumentException("Not a supernodal Cholesky symbolic analysis");
+        loadSymbolic(symbolic);
+        System.arraycopy(symbolic.rowsL,0,L.nz_rows,0,L.nz_length);
+        L.indicesSorted = true;
+
+        initSupernodes();
+        numSuper = symbolic.supernodes.length-1;
+        System.arraycopy(symbolic.supernodes,0,superStart,0,numSuper+1);
+        for (int J = 0; J < numSuper; J++) {
+            for (int j = superStart[J]; j < superStart[J+1]; j++) {
+                colToSuper[j] = J;
+            }
+        }
+    }
+
+    /**
+     * Merges a supernode into the one which follows it when that supernode is its parent and only a few
+     * explicit zeros would be added to L. Without this most supernodes in a matrix from a 2D mesh
+     * would be a single column wide and there would be nothing for the dense kernels to work with.
+     * The thresholds are the defaults used by CHOLMOD.
+     */
+    private void relaxSupernodes() {
+        int []fundamental = adjust(gs,numSuper+1);
+        System.arraycopy(superStart,0,fundamental,0,numSuper+1);
+
+        int numFundamental = numSuper;
+        numSuper = 0;
+        int f = 0;         // first column in the relaxed supernode
+        long actual = 0;   // number of non-zeros in the true factor
+        for (int K = 0; K < numFundamental; K++) {
+            int fK = fundamental[K];
+            int lK = fundamental[K+1]-1;
+            long actualK = 0;
+            for (int j = fK; j <= lK; j++) {
+                actualK += counts[j];
+            }
+            if( K > 0 && parent[fK-1] == fK ) {
+                long width = lK-f+1;
+                long rows = fK-f+counts[fK];
+                long relaxed = width*rows - width*(width-1)/2;
+                float zeros = (relaxed-actual-actualK)/(float)relaxed;
+                if( width <= 4 || (width <= 16 && zeros < 0.8) ||
+                        (width <= 48 && zeros < 0.1) || zeros < 0.05 ) {
+                    actual += actualK;
+                    continue;
+                }
+            }
+            if( K > 0 )
+                superStart[numSuper++] = f;
+            f = fK;
+            actual = actualK;
+        }
+        superStart[numSuper++] = f;
+        superStart[numSuper] = N;
+
+        if( numSuper == numFundamental ) {
+            for (int J = 0; J < numSuper; J++) {
+                for (int j = superStart[J]; j < superStart[J+1]; j++) {
+                    colToSuper[j] = J;
+                }
+            }
+            return;
+        }
+
+        // The rows in a relaxed supernode are its own columns followed by the rows in
+        // the first column of the last fundamental supernode inside of it
+        FMatrixSparseCSC fundamentalL = L.copy();
+        int []relaxedCounts = adjust(gw,N);
+        int K = 0;
+        for (int J = 0; J < numSuper; J++) {
+            int l = superStart[J+1]-1;
+            while( fundamental[K+1] <= l )
+                K++;
+            int fK = fundamental[K];
+            int rows = fK-superStart[J]+counts[fK];
+            for (int j = superStart[J]; j <= l; j++) {
+                colToSuper[j] = J;
+                relaxedCounts[j] = rows - (j-superStart[J]);
+            }
+        }
+        L.histogramToStructure(relaxedCounts);
+        K = 0;
+        for (int J = 0; J < numSuper; J++) {
+            int f0 = superStart[J];
+            int l = superStart[J+1]-1;
+            while( fundamental[K+1] <= l )
+                K++;
+            int fK = fundamental[K];
+            int idx0 = fundamentalL.col_idx[fK];
+            int idx1 = fundamentalL.col_idx[fK+1];
+            for (int j = f0; j <= l; j++) {
+                int idx = L.col_idx[j];
+                for (int i = j; i < fK; i++) {
+                    L.nz_rows[idx++] = i;
+                }
+                for (int p = idx0+Math.max(0,j-fK); p < idx1; p++) {
+                    L.nz_rows[idx++] = fundamentalL.nz_rows[p];
+                }
+            }
+        }
+    }
+
+    @Override
+    protected boolean performDecomposition(FMatrixSparseCSC A) {
+        // the lower triangular part of L is computed from the upper triangular part of A
+        CommonOps_FSCC.transpose(A,At,gw);
+
+        for (int i = 0; i < numSuper; i++) {
+            head[i] = -1;
+        }
+
+        for (int J = 0; J < numSuper; J++) {
+            int f = superStart[J];
+            int width = superStart[J+1]-f;
+            int numRows = L.col_idx[f+1]-L.col_idx[f];
+            int rowsJ = L.col_idx[f];
+
+            for (int r = 0; r < numRows; r++) {
+                rowMap[L.nz_rows[rowsJ+r]] = r;
+            }
+
+            //---- block = A(rows,f:l)
+            block.reshape(numRows,width);
+            block.zero();
+            for (int t = 0; t < width; t++) {
+                int j = f+t;
+                int idx1 = At.col_idx[j+1];
+                for (int p = At.col_idx[j]; p < idx1; p++) {
+                    int row = At.nz_rows[p];
+                    if( row >= j ) {
+                        block.data[rowMap[row]*width+t] = At.nz_values[p];
+                    }
+                }
+            }
+
+            //---- Apply updates from every descendant which has non-zero rows inside of f:l
+            int D = head[J];
+            while( D != -1 ) {
+                int nextD = next[D];
+                updateFromDescendant(D, f+width);
+                int pD = ptr[D];
+                int rowsD = L.col_idx[superStart[D]];
+                if( pD < L.col_idx[superStart[D]+1]-rowsD ) {
+                    int K = colToSuper[L.nz_rows[rowsD+pD]];
+                    next[D] = head[K];
+                    head[K] = D;
+                }
+                D = nextD;
+            }
+
+            //---- Dense factorization of the diagonal block
+            diag.reshape(width,width);
+            for (int r = 0; r < width; r++) {
+                for (int t = 0; t <= r; t++) {
+                    float v = block.data[r*width+t];
+                    diag.data[r*width+t] = v;
+                    diag.data[t*width+r] = v;
+                }
+            }
+            if( !dense.decompose(diag) ) {
+                // it's not positive definite
+                return false;
+            }
+            System.arraycopy(diag.data,0,block.data,0,width*width);
+
+            //---- Off diagonal rows = block(width:,:)*inv(L_diag)'
+            InnerTriangularSolver_FDRB.solveLTransB(diag.data,block.data,width,numRows-width,width,0,width*width);
+
+            //---- Save the results into L
+            for (int t = 0; t < width; t++) {
+                int idx = L.col_idx[f+t];
+                for (int r = t; r < numRows; r++) {
+                    L.nz_values[idx++] = block.data[r*width+t];
+                }
+            }
+
+            // Link this supernode to the supernode which contains its first off diagonal row
+            ptr[J] = width;
+            if( width < numRows ) {
+                int K = colToSuper[L.nz_rows[rowsJ+width]];
+                next[J] = head[K];
+                head[K] = J;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Subtracts the contribution of descendant supernode D from the current block.  Rows in D starting
+     * at ptr[D] and before 'end' are in the current supernode.
+     *
+     * @param D Descendant supernode
+     * @param end One past the last column in the current supernode
+     */
+    private void updateFromDescendant( int D , int end ) {
+        int fD = superStart[D];
+        int widthD = superStart[D+1]-fD;
+        int rowsD = L.col_idx[fD];
+        int numRowsD = L.col_idx[fD+1]-rowsD;
+        int width = block.numCols;
+        int f = end-width;
+
+        int p0 = ptr[D];
+        int p1 = p0;
+        while( p1 < numRowsD && L.nz_rows[rowsD+p1] < end )
+            p1++;
+        ptr[D] = p1;
+
+        // C1 = L(rows p0:, D)'  C2 = L(rows p0:p1, D)'
+        // Stored transposed since each column in the supernode is contiguous inside of L
+        int m1 = numRowsD-p0;
+        int m2 = p1-p0;
+        C1.reshape(widthD,m1);
+        C2.reshape(widthD,m2);
+        for (int t = 0; t < widthD; t++) {
+            // element (r,t) in the supernode is stored at col_idx[fD+t] + r - t
+            int idx = L.col_idx[fD+t] + p0 - t;
+            System.arraycopy(L.nz_values,idx,C1.data,t*m1,m1);
+            System.arraycopy(L.nz_values,idx,C2.data,t*m2,m2);
+        }
+
+        // Only the lower triangular part of the update is needed. Each row is accumulated as a sum of
+        // rows in C2 and then subtracted from the block. If the rows in D which land inside the current
+        // supernode are consecutive columns then the row can be subtracted directly
+        float []row = adjust(gx,m2);
+        int c0 = L.nz_rows[rowsD+p0]-f;
+        boolean consecutive = L.nz_rows[rowsD+p1-1]-f-c0 == m2-1;
+        for (int r = 0; r < m1; r++) {
+            int n = Math.min(r+1,m2);
+            for (int c = 0; c < n; c++) {
+                row[c] = 0;
+            }
+            for (int t = 0; t < widthD; t++) {
+                float a = C1.data[t*m1+r];
+                int indexC2 = t*m2;
+                for (int c = 0; c < n; c++) {
+                    row[c] += a*C2.data[indexC2+c];
+                }
+            }
+
+            int indexBlock = rowMap[L.nz_rows[rowsD+p0+r]]*width;
+            if( consecutive ) {
+                indexBlock += c0;
+                for (int c = 0; c < n; c++) {
+                    block.data[indexBlock+c] -= row[c];
+                }
+            } else {
+                indexBlock -= f;
+                for (int c = 0; c < n; c++) {
+                    block.data[indexBlock+L.nz_rows[rowsD+p0+c]] -= row[c];
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of supernodes found in the last call to {@link #performSymbolic}
+     */
+    public int getNumSupernodes() {
+        return numSuper;
+    }
+}
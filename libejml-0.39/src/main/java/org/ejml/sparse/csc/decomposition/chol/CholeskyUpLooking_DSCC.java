@@ -23,6 +23,7 @@ import org.ejml.data.DGrowArray;
 import org.ejml.data.DMatrixSparseCSC;
 import org.ejml.data.IGrowArray;
 import org.ejml.interfaces.decomposition.CholeskySparseDecomposition_F64;
+import org.ejml.sparse.SymbolicAnalysis;
 import org.ejml.sparse.csc.misc.ColumnCounts_DSCC;
 import org.ejml.sparse.csc.misc.TriangularSolver_DSCC;
 
@@ -38,7 +39,7 @@ import static org.ejml.UtilEjml.adjust;
 public class CholeskyUpLooking_DSCC implements
         CholeskySparseDecomposition_F64<DMatrixSparseCSC>
 {
-    private int N;
+    protected int N;
 
     // storage for decomposition
     DMatrixSparseCSC L = new DMatrixSparseCSC(1,1,0);
@@ -52,8 +53,10 @@ public class CholeskyUpLooking_DSCC implements
     int []counts = new int[1];
     ColumnCounts_DSCC columnCounter = new ColumnCounts_DSCC(false);
 
-    // true if it has successfully decomposed a matrix
-    private boolean decomposed = false;
+    // true if the structure of L has been found
+    private boolean analyzed = false;
+    // number of non-zero elements in the matrix the structure was found for
+    private int nz_A;
     // if true then the structure is locked and won't be computed again
     private boolean locked = false;
 
@@ -62,15 +65,25 @@ public class CholeskyUpLooking_DSCC implements
         if( orig.numCols != orig.numRows )
             throw new IllegalArgumentException("Must be a square matrix");
 
-        if( !locked || !decomposed)
+        if( !locked || !analyzed )
             performSymbolic(orig);
 
-        if( performDecomposition(orig) ) {
-            decomposed = true;
-            return true;
-        } else {
-            return false;
-        }
+        return performDecomposition(orig);
+    }
+
+    /**
+     * Computes only the numerical factorization using the structure found by the most recent call to
+     * {@link #performSymbolic} or specified by {@link #setSymbolic}.
+     *
+     * @param A Matrix with the same non-zero pattern as the one which was analyzed
+     * @return true if successful or false if it's not positive definite
+     */
+    public boolean decomposeNumeric(DMatrixSparseCSC A) {
+        if( !analyzed )
+            throw new IllegalArgumentException("The structure of L has not been found yet");
+        if( A.numCols != N || A.numRows != N )
+            throw new IllegalArgumentException("Matrix doesn't match the symbolic analysis");
+        return performDecomposition(A);
     }
 
     public void performSymbolic(DMatrixSparseCSC A) {
@@ -81,6 +94,47 @@ public class CholeskyUpLooking_DSCC implements
         columnCounter.process(A,parent,post,counts);
         L.reshape(A.numRows,A.numCols,0);
         L.histogramToStructure(counts);
+        nz_A = A.nz_length;
+        analyzed = true;
+    }
+
+    /**
+     * Returns a copy of the structure found by the most recent symbolic analysis, which can be used
+     * to skip the analysis when decomposing matrices with the same non-zero pattern.
+     */
+    public SymbolicAnalysis getSymbolic() {
+        if( !analyzed )
+            throw new IllegalArgumentException("The structure of L has not been found yet");
+        SymbolicAnalysis symbolic = new SymbolicAnalysis();
+        symbolic.numRows = symbolic.numCols = N;
+        symbolic.nz_length = nz_A;
+        symbolic.parent = SymbolicAnalysis.copy(parent,N);
+        symbolic.colIdxL = SymbolicAnalysis.copy(L.col_idx,N+1);
+        return symbolic;
+    }
+
+    /**
+     * Uses a previously computed symbolic analysis instead of finding the structure again. The structure
+     * is locked so {@link #decompose} will only compute the numerical factorization.
+     */
+    public void setSymbolic( SymbolicAnalysis symbolic ) {
+        if( symbolic.parent == null || symbolic.colIdxL == null )
+            throw new IllegalArgumentException("Not a Cholesky symbolic analysis");
+        if( symbolic.supernodes != null )
+            throw new IllegalArgumentException("Symbolic analysis is for a supernodal decomposition");
+        loadSymbolic(symbolic);
+    }
+
+    protected void loadSymbolic( SymbolicAnalysis symbolic ) {
+        init(symbolic.numCols);
+        System.arraycopy(symbolic.parent,0,parent,0,N);
+        L.reshape(N,N,0);
+        System.arraycopy(symbolic.colIdxL,0,L.col_idx,0,N+1);
+        L.nz_length = L.col_idx[N];
+        L.growMaxLength(L.nz_length,false);
+        nz_A = symbolic.nz_length;
+        analyzed = true;
+        locked = true;
     }
 
     private void init( int N ) {
@@ -93,7 +147,7 @@ public class CholeskyUpLooking_DSCC implements
         }
     }
 
-    private boolean performDecomposition(DMatrixSparseCSC A) {
+    protected boolean performDecomposition(DMatrixSparseCSC A) {
         int []c = adjust(gw,N);
         int []s = adjust(gs,N);
         double []x = adjust(gx,N);
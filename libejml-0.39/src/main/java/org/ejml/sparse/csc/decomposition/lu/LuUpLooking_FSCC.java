@@ -24,10 +24,13 @@ import org.ejml.data.FMatrixSparseCSC;
 import org.ejml.data.IGrowArray;
 import org.ejml.interfaces.decomposition.LUSparseDecomposition_F32;
 import org.ejml.sparse.ComputePermutation;
+import org.ejml.sparse.SymbolicAnalysis;
 import org.ejml.sparse.csc.CommonOps_FSCC;
 import org.ejml.sparse.csc.misc.ApplyFillReductionPermutation_FSCC;
 import org.ejml.sparse.csc.misc.TriangularSolver_FSCC;
 
+import javax.annotation.Nullable;
+
 import static org.ejml.UtilEjml.permutationSign;
 
 /**
@@ -57,14 +60,54 @@ public class LuUpLooking_FSCC
     // true if a singular matrix is detected
     private boolean singular;
 
+    // If not null then the fill reduction is taken from here instead of being computed
+    private @Nullable SymbolicAnalysis symbolic;
+
+    // number of non-zero elements in the most recently decomposed matrix
+    private int nz_A;
+
+    // time in nano seconds spent on symbolic analysis and numerical factorization in the last call to decompose()
+    private long timeSymbolic, timeNumeric;
+    // time in nano seconds it took to compute the current symbolic analysis
+    private long timeAnalysis;
+
     public LuUpLooking_FSCC(ComputePermutation<FMatrixSparseCSC> reduceFill) {
         this.applyReduce = new ApplyFillReductionPermutation_FSCC(reduceFill,false);
     }
 
     @Override
     public boolean decompose(FMatrixSparseCSC A) {
+        long time0 = System.nanoTime();
+        FMatrixSparseCSC C;
+        if( symbolic != null ) {
+            // only the fill reduction can be reused since the pivots depend on the values
+            symbolic.checkMatches(A);
+            C = applyReduce.permute(A);
+            timeSymbolic = 0;
+        } else {
+            C = applyReduce.apply(A);
+            long time1 = System.nanoTime();
+            timeSymbolic = timeAnalysis = time1-time0;
+            time0 = time1;
+        }
+        nz_A = A.nz_length;
         initialize(A);
-        return performLU(applyReduce.apply(A));
+        boolean success = performLU(C);
+        timeNumeric = System.nanoTime()-time0;
+        if( !success )
+            return false;
+
+        // make the row pivots relative to A instead of the fill reduced matrix
+        int[] pinvFill = applyReduce.getArrayPinv();
+        if( pinvFill != null ) {
+            int m = A.numRows;
+            int[] tmp = UtilEjml.adjust(gw,m);
+            for (int i = 0; i < m; i++) {
+                tmp[i] = pinv[pinvFill[i]];
+            }
+            System.arraycopy(tmp,0,pinv,0,m);
+        }
+        return true;
     }
 
     private void initialize(FMatrixSparseCSC A) {
@@ -72,9 +115,16 @@ public class LuUpLooking_FSCC
         int n = A.numCols;
         int o = Math.min(m,n);
         // number of non-zero elements can only be easily estimated because of pivots
-        L.reshape(m,m,4*A.nz_length+o);
+        int nz_L = 4*A.nz_length+o;
+        int nz_U = 4*A.nz_length+o;
+        if( symbolic != null ) {
+            // the previous factorization is a much better estimate
+            nz_L = Math.max(symbolic.nz_L,o);
+            nz_U = Math.max(symbolic.nz_U,o);
+        }
+        L.reshape(m,m,nz_L);
         L.nz_length = 0;
-        U.reshape(m,n,4*A.nz_length+o);
+        U.reshape(m,n,nz_U);
         U.nz_length = 0;
 
         singular = false;
@@ -92,7 +142,6 @@ public class LuUpLooking_FSCC
     private boolean performLU(FMatrixSparseCSC A ) {
         int m = A.numRows;
         int n = A.numCols;
-        int q[] = applyReduce.getArrayP();
 
         int[] w = UtilEjml.adjust(gw,m*2, m);
 
@@ -108,8 +157,7 @@ public class LuUpLooking_FSCC
             if( U.nz_length+n > U.nz_values.length )
                 U.growMaxLength(2*U.nz_values.length+n, true);
 
-            int col = q != null ? q[k] : k;
-            int top = TriangularSolver_FSCC.solveColB(L,true,A,col,x,pinv,gxi,w);
+            int top = TriangularSolver_FSCC.solveColB(L,true,A,k,x,pinv,gxi,w);
             int []xi = gxi.data;
 
             //--------- Find the Next Pivot. That will be the row with the largest value
@@ -180,6 +228,9 @@ public class LuUpLooking_FSCC
         // see dense algorithm. There is probably a faster way to compute the sign while decomposing
         // the matrix.
         float value = permutationSign(pinv,U.numCols,gw.data);
+        int[] q = applyReduce.getArrayQ();
+        if( q != null )
+            value *= permutationSign(q,U.numCols,gw.data);
         for (int i = 0; i < U.numCols; i++) {
             value *= U.nz_values[U.col_idx[i+1]-1];
         }
@@ -250,8 +301,63 @@ public class LuUpLooking_FSCC
         return applyReduce.getFillReduce();
     }
 
+    /**
+     * Column permutation applied to reduce fill in or null if there is none. The decomposition is
+     * P*A*Q = L*U, where P is the row pivot.
+     */
     public int[] getReducePermutation() {
-        return applyReduce.getArrayP();
+        return applyReduce.getArrayQ();
+    }
+
+    /**
+     * Returns the symbolic analysis of the most recently decomposed matrix. Pivots depend on the numerical
+     * values so for LU this is the fill reduction permutation and the number of non-zero elements in
+     * L and U, which is used to allocate storage.
+     */
+    public SymbolicAnalysis getSymbolic() {
+        int m = U.numRows, n = U.numCols;
+        SymbolicAnalysis symbolic = new SymbolicAnalysis();
+        symbolic.numRows = m;
+        symbolic.numCols = n;
+        symbolic.nz_length = nz_A;
+        symbolic.pinv = SymbolicAnalysis.copy(applyReduce.getArrayPinv(),m);
+        symbolic.q = SymbolicAnalysis.copy(applyReduce.getArrayQ(),n);
+        symbolic.nz_L = L.nz_length;
+        symbolic.nz_U = U.nz_length;
+        symbolic.time = timeAnalysis;
+        return symbolic;
+    }
+
+    /**
+     * Uses a previously computed symbolic analysis instead of computing the fill reduction permutation
+     * for every matrix. Must have been computed with the same type of fill reduction. Pass in null to go back
+     * to computing it.
+     */
+    public void setSymbolic( @Nullable SymbolicAnalysis symbolic ) {
+        if( symbolic != null ) {
+            boolean applied = applyReduce.isApplied();
+            if( applied != (symbolic.pinv != null || symbolic.q != null) )
+                throw new IllegalArgumentException("Fill reduction doesn't match the symbolic analysis");
+            applyReduce.setPermutation(symbolic.pinv,symbolic.q,symbolic.numRows,symbolic.numCols);
+            timeAnalysis = symbolic.time;
+        }
+        this.symbolic = symbolic;
+    }
+
+    /**
+     * Time in nano seconds the last call to {@link #decompose} spent on symbolic analysis, i.e. finding the
+     * fill reduction permutation. Zero if the analysis was reused.
+     */
+    public long getTimeSymbolic() {
+        return timeSymbolic;
+    }
+
+    /**
+     * Time in nano seconds the last call to {@link #decompose} spent on the numerical factorization. Includes
+     * applying the permutation.
+     */
+    public long getTimeNumeric() {
+        return timeNumeric;
     }
 
     @Override
@@ -98,7 +98,6 @@ public class QrLeftLookingDecomposition_FSCC implements
 
     private void performDecomposition(FMatrixSparseCSC A) {
         int w[] = gwork.data;
-        int permCol[] = applyReduce.getArrayQ();
         int parent[] = structure.getParent();
         int leftmost[] = structure.getLeftMost();
         // permutation that was done to ensure all rows have non-zero elements
@@ -120,10 +119,8 @@ public class QrLeftLookingDecomposition_FSCC implements
             w[k] = k;
             V.nz_rows[V.nz_length++] = k;                       // Add V(k,k) to V's pattern
             int top = n;
-            int col = permCol != null ? permCol[k] : k;
-
-            int idx0 = A.col_idx[col];
-            int idx1 = A.col_idx[col+1];
+            int idx0 = A.col_idx[k];
+            int idx1 = A.col_idx[k+1];
 
             for (int p = idx0; p <idx1 ; p++) {
                 int i = leftmost[A.nz_rows[p]];
@@ -272,8 +269,18 @@ public class QrLeftLookingDecomposition_FSCC implements
         return beta[index];
     }
 
+    /**
+     * Column permutation applied to reduce fill in or null if there is none. The decomposition is of P*A*Q.
+     */
     public int[] getFillPermutation() {
-        return applyReduce.getArrayP();
+        return applyReduce.getArrayQ();
+    }
+
+    /**
+     * Inverse of the row permutation applied with the fill reduction or null if there is none.
+     */
+    public int[] getFillRowPermutationInv() {
+        return applyReduce.getArrayPinv();
     }
 
     public boolean isFillPermutated() {
@@ -24,6 +24,7 @@ import org.ejml.interfaces.decomposition.LUSparseDecomposition_F64;
 import org.ejml.interfaces.decomposition.QRSparseDecomposition;
 import org.ejml.sparse.ComputePermutation;
 import org.ejml.sparse.FillReducing;
+import org.ejml.sparse.csc.decomposition.chol.CholeskySupernodal_DSCC;
 import org.ejml.sparse.csc.decomposition.chol.CholeskyUpLooking_DSCC;
 import org.ejml.sparse.csc.decomposition.lu.LuUpLooking_DSCC;
 import org.ejml.sparse.csc.decomposition.qr.QrLeftLookingDecomposition_DSCC;
@@ -34,10 +35,18 @@ import org.ejml.sparse.csc.decomposition.qr.QrLeftLookingDecomposition_DSCC;
  * @author Peter Abeles
  */
 public class DecompositionFactory_DSCC {
-    public static CholeskySparseDecomposition_F64 cholesky() {
+    public static CholeskySparseDecomposition_F64<DMatrixSparseCSC> cholesky() {
         return new CholeskyUpLooking_DSCC();
     }
 
+    /**
+     * Cholesky decomposition which factors groups of columns with the same structure as dense blocks.
+     * Faster than {@link #cholesky()} when the factor has a lot of fill in.
+     */
+    public static CholeskySparseDecomposition_F64<DMatrixSparseCSC> choleskySupernodal() {
+        return new CholeskySupernodal_DSCC();
+    }
+
     public static QRSparseDecomposition<DMatrixSparseCSC> qr(FillReducing permutation) {
         ComputePermutation<DMatrixSparseCSC> cp = FillReductionFactory_DSCC.create(permutation);
         return new QrLeftLookingDecomposition_DSCC(cp);
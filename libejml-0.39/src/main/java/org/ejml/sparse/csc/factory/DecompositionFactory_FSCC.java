@@ -24,6 +24,7 @@ import org.ejml.interfaces.decomposition.LUSparseDecomposition_F32;
 import org.ejml.interfaces.decomposition.QRSparseDecomposition;
 import org.ejml.sparse.ComputePermutation;
 import org.ejml.sparse.FillReducing;
+import org.ejml.sparse.csc.decomposition.chol.CholeskySupernodal_FSCC;
 import org.ejml.sparse.csc.decomposition.chol.CholeskyUpLooking_FSCC;
 import org.ejml.sparse.csc.decomposition.lu.LuUpLooking_FSCC;
 import org.ejml.sparse.csc.decomposition.qr.QrLeftLookingDecomposition_FSCC;
@@ -34,10 +35,18 @@ import org.ejml.sparse.csc.decomposition.qr.QrLeftLookingDecomposition_FSCC;
  * @author Peter Abeles
  */
 public class DecompositionFactory_FSCC {
-    public static CholeskySparseDecomposition_F32 cholesky() {
+    public static CholeskySparseDecomposition_F32<FMatrixSparseCSC> cholesky() {
         return new CholeskyUpLooking_FSCC();
     }
 
+    /**
+     * Cholesky decomposition which factors groups of columns with the same structure as dense blocks.
+     * Faster than {@link #cholesky()} when the factor has a lot of fill in.
+     */
+    public static CholeskySparseDecomposition_F32<FMatrixSparseCSC> choleskySupernodal() {
+        return new CholeskySupernodal_FSCC();
+    }
+
     public static QRSparseDecomposition<FMatrixSparseCSC> qr(FillReducing permutation) {
         ComputePermutation<FMatrixSparseCSC> cp = FillReductionFactory_FSCC.create(permutation);
         return new QrLeftLookingDecomposition_FSCC(cp);
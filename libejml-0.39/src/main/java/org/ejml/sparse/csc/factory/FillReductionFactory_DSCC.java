@@ -23,6 +23,7 @@ import org.ejml.data.DMatrixSparseCSC;
 import org.ejml.data.IGrowArray;
 import org.ejml.sparse.ComputePermutation;
 import org.ejml.sparse.FillReducing;
+import org.ejml.sparse.csc.misc.ApproximateMinimumDegree_DSCC;
 
 import java.util.Random;
 
@@ -65,6 +66,12 @@ public class FillReductionFactory_DSCC {
                     }
                 };
 
+            case AMD:
+                return new ApproximateMinimumDegree_DSCC(false);
+
+            case COLUMN_AMD:
+                return new ApproximateMinimumDegree_DSCC(true);
+
             default:
                 throw new RuntimeException("Unknown "+type);
         }
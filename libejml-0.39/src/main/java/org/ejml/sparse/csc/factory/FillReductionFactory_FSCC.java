@@ -23,6 +23,7 @@ import org.ejml.data.FMatrixSparseCSC;
 import org.ejml.data.IGrowArray;
 import org.ejml.sparse.ComputePermutation;
 import org.ejml.sparse.FillReducing;
+import org.ejml.sparse.csc.misc.ApproximateMinimumDegree_FSCC;
 
 import java.util.Random;
 
@@ -65,6 +66,12 @@ public class FillReductionFactory_FSCC {
                     }
                 };
 
+            case AMD:
+                return new ApproximateMinimumDegree_FSCC(false);
+
+            case COLUMN_AMD:
+                return new ApproximateMinimumDegree_FSCC(true);
+
             default:
                 throw new RuntimeException("Unknown "+type);
         }
@@ -42,6 +42,12 @@ public class LinearSolverFactory_DSCC {
         return new LinearSolverCholesky_DSCC(chol,cp);
     }
 
+    public static LinearSolverSparse<DMatrixSparseCSC,DMatrixRMaj> choleskySupernodal(FillReducing permutation) {
+        ComputePermutation<DMatrixSparseCSC> cp = FillReductionFactory_DSCC.create(permutation);
+        CholeskyUpLooking_DSCC chol = (CholeskyUpLooking_DSCC)DecompositionFactory_DSCC.choleskySupernodal();
+        return new LinearSolverCholesky_DSCC(chol,cp);
+    }
+
     public static LinearSolverSparse<DMatrixSparseCSC,DMatrixRMaj> qr(FillReducing permutation) {
         ComputePermutation<DMatrixSparseCSC> cp = FillReductionFactory_DSCC.create(permutation);
         QrLeftLookingDecomposition_DSCC qr = new QrLeftLookingDecomposition_DSCC(cp);
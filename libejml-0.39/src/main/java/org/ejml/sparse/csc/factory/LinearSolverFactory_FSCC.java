@@ -42,6 +42,12 @@ public class LinearSolverFactory_FSCC {
         return new LinearSolverCholesky_FSCC(chol,cp);
     }
 
+    public static LinearSolverSparse<FMatrixSparseCSC,FMatrixRMaj> choleskySupernodal(FillReducing permutation) {
+        ComputePermutation<FMatrixSparseCSC> cp = FillReductionFactory_FSCC.create(permutation);
+        CholeskyUpLooking_FSCC chol = (CholeskyUpLooking_FSCC)DecompositionFactory_FSCC.choleskySupernodal();
+        return new LinearSolverCholesky_FSCC(chol,cp);
+    }
+
     public static LinearSolverSparse<FMatrixSparseCSC,FMatrixRMaj> qr(FillReducing permutation) {
         ComputePermutation<FMatrixSparseCSC> cp = FillReductionFactory_FSCC.create(permutation);
         QrLeftLookingDecomposition_FSCC qr = new QrLeftLookingDecomposition_FSCC(cp);
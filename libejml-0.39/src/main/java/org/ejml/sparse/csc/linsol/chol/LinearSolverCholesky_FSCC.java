@@ -25,6 +25,7 @@ import org.ejml.data.IGrowArray;
 import org.ejml.interfaces.decomposition.DecompositionInterface;
 import org.ejml.interfaces.linsol.LinearSolverSparse;
 import org.ejml.sparse.ComputePermutation;
+import org.ejml.sparse.SymbolicAnalysis;
 import org.ejml.sparse.csc.CommonOps_FSCC;
 import org.ejml.sparse.csc.decomposition.chol.CholeskyUpLooking_FSCC;
 import org.ejml.sparse.csc.misc.ApplyFillReductionPermutation_FSCC;
@@ -49,6 +50,16 @@ public class LinearSolverCholesky_FSCC implements LinearSolverSparse<FMatrixSpar
 
     FMatrixSparseCSC tmp = new FMatrixSparseCSC(1,1,1);
 
+    // true if the fill reduction and structure of L have been found
+    boolean analyzed = false;
+    // shape of the matrix which was analyzed
+    int numRows, numCols, nz_length;
+
+    // time in nano seconds spent on symbolic analysis and numerical factorization in the last call to setA()
+    long timeSymbolic, timeNumeric;
+    // time in nano seconds it took to compute the current symbolic analysis
+    long timeAnalysis;
+
     public LinearSolverCholesky_FSCC(CholeskyUpLooking_FSCC cholesky , ComputePermutation<FMatrixSparseCSC> fillReduce) {
         this.cholesky = cholesky;
         this.reduce = new ApplyFillReductionPermutation_FSCC(fillReduce,true);
@@ -56,8 +67,77 @@ public class LinearSolverCholesky_FSCC implements LinearSolverSparse<FMatrixSpar
 
     @Override
     public boolean setA(FMatrixSparseCSC A) {
-        FMatrixSparseCSC C = reduce.apply(A);
-        return cholesky.decompose(C);
+        long time0 = System.nanoTime();
+        FMatrixSparseCSC C;
+        if( analyzed && cholesky.isStructureLocked() ) {
+            if( A.numRows != numRows || A.numCols != numCols || A.nz_length != nz_length )
+                throw new IllegalArgumentException("Matrix doesn't match the locked structure");
+            C = reduce.permute(A);
+            timeSymbolic = 0;
+        } else {
+            C = reduce.apply(A);
+            cholesky.performSymbolic(C);
+            analyzed = true;
+            numRows = A.numRows;
+            numCols = A.numCols;
+            nz_length = A.nz_length;
+            long time1 = System.nanoTime();
+            timeSymbolic = timeAnalysis = time1-time0;
+            time0 = time1;
+        }
+        boolean success = cholesky.decomposeNumeric(C);
+        timeNumeric = System.nanoTime()-time0;
+        return success;
+    }
+
+    /**
+     * Returns a copy of the most recent symbolic analysis. This includes the fill reduction permutation and
+     * the structure of L. It can be passed to {@link #setSymbolic} of another solver, possibly after being
+     * saved to disk, so that it only needs to compute the numerical factorization.
+     */
+    public SymbolicAnalysis getSymbolic() {
+        if( !analyzed )
+            throw new IllegalArgumentException("setA() has not been called yet");
+        SymbolicAnalysis symbolic = cholesky.getSymbolic();
+        symbolic.numRows = numRows;
+        symbolic.numCols = numCols;
+        symbolic.nz_length = nz_length;
+        symbolic.pinv = SymbolicAnalysis.copy(reduce.getArrayPinv(),numCols);
+        symbolic.time = timeAnalysis;
+        return symbolic;
+    }
+
+    /**
+     * Uses a previously computed symbolic analysis. The structure is locked and every call to
+     * {@link #setA} after this only computes the numerical factorization. The analysis must have been
+     * computed with the same type of fill reduction and decomposition.
+     */
+    public void setSymbolic( SymbolicAnalysis symbolic ) {
+        if( reduce.isApplied() != (symbolic.pinv != null) )
+            throw new IllegalArgumentException("Fill reduction doesn't match the symbolic analysis");
+        reduce.setPermutation(symbolic.pinv,null,symbolic.numRows,symbolic.numCols);
+        cholesky.setSymbolic(symbolic);
+        analyzed = true;
+        numRows = symbolic.numRows;
+        numCols = symbolic.numCols;
+        nz_length = symbolic.nz_length;
+        timeAnalysis = symbolic.time;
+    }
+
+    /**
+     * Time in nano seconds the last call to {@link #setA} spent on symbolic analysis, i.e. finding the fill
+     * reduction permutation and the structure of L. Zero if the analysis was reused.
+     */
+    public long getTimeSymbolic() {
+        return timeSymbolic;
+    }
+
+    /**
+     * Time in nano seconds the last call to {@link #setA} spent on the numerical factorization. Includes
+     * applying the permutation.
+     */
+    public long getTimeNumeric() {
+        return timeNumeric;
     }
 
     @Override
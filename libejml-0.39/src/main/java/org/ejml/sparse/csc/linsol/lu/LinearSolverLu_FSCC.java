@@ -24,10 +24,13 @@ import org.ejml.data.FMatrixSparseCSC;
 import org.ejml.data.IGrowArray;
 import org.ejml.interfaces.decomposition.DecompositionInterface;
 import org.ejml.interfaces.linsol.LinearSolverSparse;
+import org.ejml.sparse.SymbolicAnalysis;
 import org.ejml.sparse.csc.CommonOps_FSCC;
 import org.ejml.sparse.csc.decomposition.lu.LuUpLooking_FSCC;
 import org.ejml.sparse.csc.misc.TriangularSolver_FSCC;
 
+import javax.annotation.Nullable;
+
 import static org.ejml.UtilEjml.adjust;
 
 /**
@@ -76,7 +79,42 @@ public class LinearSolverLu_FSCC implements LinearSolverSparse<FMatrixSparseCSC,
         tmp.reshape(L.numRows,B.numCols,1);
 
         TriangularSolver_FSCC.solve(L,true,Bp,tmp,null,gx,gw,gw1);
-        TriangularSolver_FSCC.solve(U,false,tmp,X,null,gx,gw,gw1);
+        int[] q = decomposition.getReducePermutation();
+        if( q != null ) {
+            // undo the column permutation, X = Q*Z
+            TriangularSolver_FSCC.solve(U,false,tmp,Bp,null,gx,gw,gw1);
+            CommonOps_FSCC.permuteRowInv(q,Bp,X);
+        } else {
+            TriangularSolver_FSCC.solve(U,false,tmp,X,null,gx,gw,gw1);
+        }
+    }
+
+    /**
+     * @see LuUpLooking_FSCC#getSymbolic()
+     */
+    public SymbolicAnalysis getSymbolic() {
+        return decomposition.getSymbolic();
+    }
+
+    /**
+     * @see LuUpLooking_FSCC#setSymbolic(SymbolicAnalysis)
+     */
+    public void setSymbolic( @Nullable SymbolicAnalysis symbolic ) {
+        decomposition.setSymbolic(symbolic);
+    }
+
+    /**
+     * @see LuUpLooking_FSCC#getTimeSymbolic()
+     */
+    public long getTimeSymbolic() {
+        return decomposition.getTimeSymbolic();
+    }
+
+    /**
+     * @see LuUpLooking_FSCC#getTimeNumeric()
+     */
+    public long getTimeNumeric() {
+        return decomposition.getTimeNumeric();
     }
 
     @Override
@@ -103,7 +141,7 @@ public class LinearSolverLu_FSCC implements LinearSolverSparse<FMatrixSparseCSC,
         FMatrixSparseCSC L = decomposition.getL();
         FMatrixSparseCSC U = decomposition.getU();
 
-        boolean reduceFill = decomposition.getReduceFill() != null;
+        boolean reduceFill = q != null;
 
         // process each column in X and B individually
         for (int colX = 0; colX < X.numCols; colX++) {
@@ -115,7 +153,7 @@ public class LinearSolverLu_FSCC implements LinearSolverSparse<FMatrixSparseCSC,
             TriangularSolver_FSCC.solveU(U,x);
             float d[];
             if( reduceFill ) {
-                CommonOps_FSCC.permute(q, x, b, X.numRows);
+                CommonOps_FSCC.permuteInv(q, x, b, X.numRows);
                 d = b;
             } else {
                 d = x;
@@ -29,6 +29,8 @@ import org.ejml.sparse.csc.decomposition.qr.QrHelperFunctions_DSCC;
 import org.ejml.sparse.csc.decomposition.qr.QrLeftLookingDecomposition_DSCC;
 import org.ejml.sparse.csc.misc.TriangularSolver_DSCC;
 
+import java.util.Arrays;
+
 import static org.ejml.UtilEjml.adjust;
 
 /**
@@ -76,6 +78,15 @@ public class LinearSolverQrLeftLooking_DSCC implements LinearSolverSparse<DMatri
         DMatrixSparseCSC B_tmp = B.createLike();
         DMatrixSparseCSC swap;
 
+        // Apply the fill reduction row permutation to B
+        int pinvFill[] = qr.getFillRowPermutationInv();
+        if( pinvFill != null ) {
+            CommonOps_DSCC.permuteRowInv(pinvFill,B,B_tmp);
+            swap = B_tmp;
+            B_tmp = B;
+            B = swap;
+        }
+
         // Apply permutation to B
         int pinv[] = qr.getStructure().getPinv();
         CommonOps_DSCC.permuteRowInv(pinv,B,B_tmp);
@@ -94,7 +105,15 @@ public class LinearSolverQrLeftLooking_DSCC implements LinearSolverSparse<DMatri
 
         // Solve for X
         DMatrixSparseCSC R = qr.getR();
-        TriangularSolver_DSCC.solve(R,false,B,X,null,gx,gw,gw1);
+        int q[] = qr.getFillPermutation();
+        if( q != null ) {
+            // undo the column permutation, X = Q*Z
+            B_tmp.reshape(n,B.numCols,0);
+            TriangularSolver_DSCC.solve(R,false,B,B_tmp,null,gx,gw,gw1);
+            CommonOps_DSCC.permuteRowInv(q,B_tmp,X);
+        } else {
+            TriangularSolver_DSCC.solve(R,false,B,X,null,gx,gw,gw1);
+        }
     }
 
     @Override
@@ -110,17 +129,28 @@ public class LinearSolverQrLeftLooking_DSCC implements LinearSolverSparse<DMatri
     @Override
     public void solve(DMatrixRMaj B, DMatrixRMaj X) {
         double[] b = adjust(gb,B.numRows);
-        double[] bp = adjust(gbp,B.numRows);
+        // includes the fictitious rows added to the decomposition
+        int m2 = qr.getV().numRows;
+        double[] bp = adjust(gbp,m2);
         double[] x = adjust(gx,n);
 
         int[] pinv = qr.getStructure().getPinv();
+        int[] pinvFill = qr.getFillRowPermutationInv();
+        int[] q = qr.getFillPermutation();
 
         // process each column in X and B individually
         for (int colX = 0; colX < B.numCols; colX++) {
             int index = colX;
             for( int i = 0; i < B.numRows; i++ , index += X.numCols ) b[i] = B.data[index];
 
+            // apply the fill reduction row permutation
+            if( pinvFill != null ) {
+                CommonOps_DSCC.permuteInv(pinvFill, b, bp, m);
+                System.arraycopy(bp, 0, b, 0, m);
+            }
+
             // apply row pivots
+            Arrays.fill(bp, m, m2, 0);
             CommonOps_DSCC.permuteInv(pinv, b, bp, m);
 
             // apply Householder reflectors
@@ -132,8 +162,8 @@ public class LinearSolverQrLeftLooking_DSCC implements LinearSolverSparse<DMatri
 
             // undo the permutation
             double out[];
-            if( qr.isFillPermutated()) {
-                CommonOps_DSCC.permute(qr.getFillPermutation(), bp, x, X.numRows);
+            if( q != null ) {
+                CommonOps_DSCC.permuteInv(q, bp, x, X.numRows);
                 out = x;
             } else {
                 out = bp;
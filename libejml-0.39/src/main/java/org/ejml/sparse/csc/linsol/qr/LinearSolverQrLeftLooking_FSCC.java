@@ -29,6 +29,8 @@ import org.ejml.sparse.csc.decomposition.qr.QrHelperFunctions_FSCC;
 import org.ejml.sparse.csc.decomposition.qr.QrLeftLookingDecomposition_FSCC;
 import org.ejml.sparse.csc.misc.TriangularSolver_FSCC;
 
+import java.util.Arrays;
+
 import static org.ejml.UtilEjml.adjust;
 
 /**
@@ -76,6 +78,15 @@ public class LinearSolverQrLeftLooking_FSCC implements LinearSolverSparse<FMatri
         FMatrixSparseCSC B_tmp = B.createLike();
         FMatrixSparseCSC swap;
 
+        // Apply the fill reduction row permutation to B
+        int pinvFill[] = qr.getFillRowPermutationInv();
+        if( pinvFill != null ) {
+            CommonOps_FSCC.permuteRowInv(pinvFill,B,B_tmp);
+            swap = B_tmp;
+            B_tmp = B;
+            B = swap;
+        }
+
         // Apply permutation to B
         int pinv[] = qr.getStructure().getPinv();
         CommonOps_FSCC.permuteRowInv(pinv,B,B_tmp);
@@ -94,7 +105,15 @@ public class LinearSolverQrLeftLooking_FSCC implements LinearSolverSparse<FMatri
 
         // Solve for X
         FMatrixSparseCSC R = qr.getR();
-        TriangularSolver_FSCC.solve(R,false,B,X,null,gx,gw,gw1);
+        int q[] = qr.getFillPermutation();
+        if( q != null ) {
+            // undo the column permutation, X = Q*Z
+            B_tmp.reshape(n,B.numCols,0);
+            TriangularSolver_FSCC.solve(R,false,B,B_tmp,null,gx,gw,gw1);
+            CommonOps_FSCC.permuteRowInv(q,B_tmp,X);
+        } else {
+            TriangularSolver_FSCC.solve(R,false,B,X,null,gx,gw,gw1);
+        }
     }
 
     @Override
@@ -110,17 +129,28 @@ public class LinearSolverQrLeftLooking_FSCC implements LinearSolverSparse<FMatri
     @Override
     public void solve(FMatrixRMaj B, FMatrixRMaj X) {
         float[] b = adjust(gb,B.numRows);
-        float[] bp = adjust(gbp,B.numRows);
+        // includes the fictitious rows added to the decomposition
+        int m2 = qr.getV().numRows;
+        float[] bp = adjust(gbp,m2);
         float[] x = adjust(gx,n);
 
         int[] pinv = qr.getStructure().getPinv();
+        int[] pinvFill = qr.getFillRowPermutationInv();
+        int[] q = qr.getFillPermutation();
 
         // process each column in X and B individually
         for (int colX = 0; colX < B.numCols; colX++) {
             int index = colX;
             for( int i = 0; i < B.numRows; i++ , index += X.numCols ) b[i] = B.data[index];
 
+            // apply the fill reduction row permutation
+            if( pinvFill != null ) {
+                CommonOps_FSCC.permuteInv(pinvFill, b, bp, m);
+                System.arraycopy(bp, 0, b, 0, m);
+            }
+
             // apply row pivots
+            Arrays.fill(bp, m, m2, 0);
             CommonOps_FSCC.permuteInv(pinv, b, bp, m);
 
             // apply Householder reflectors
@@ -132,8 +162,8 @@ public class LinearSolverQrLeftLooking_FSCC implements LinearSolverSparse<FMatri
 
             // undo the permutation
             float out[];
-            if( qr.isFillPermutated()) {
-                CommonOps_FSCC.permute(qr.getFillPermutation(), bp, x, X.numRows);
+            if( q != null ) {
+                CommonOps_FSCC.permuteInv(q, bp, x, X.numRows);
                 out = x;
             } else {
                 out = bp;
@@ -23,10 +23,13 @@ import org.ejml.data.IGrowArray;
 import org.ejml.sparse.ComputePermutation;
 import org.ejml.sparse.csc.CommonOps_FSCC;
 
+import javax.annotation.Nullable;
+
 /**
  * Applies the fill reduction row pivots to the input matrix to reduce fill in during decomposition/solve.
  *
- * P*A*Q where P are row pivots and Q are column pivots.
+ * P*A*Q where P are row pivots and Q are column pivots. Symmetric matrices are permuted by P*A*P<sup>T</sup>, otherwise
+ * either permutation can be absent.
  *
  * @author Peter Abeles
  */
@@ -37,6 +40,11 @@ public class ApplyFillReductionPermutation_FSCC {
     // storage for permuted A matrix
     FMatrixSparseCSC Aperm = new FMatrixSparseCSC(1,1,0);
     int [] pinv = new int[1]; // inverse row pivots
+    int [] p = new int[1];    // row pivots
+    int [] q = new int[1];    // column pivots
+
+    // which permutations have been computed or specified
+    boolean hasRow, hasCol;
 
     IGrowArray gw = new IGrowArray();
 
@@ -57,29 +65,97 @@ public class ApplyFillReductionPermutation_FSCC {
     public FMatrixSparseCSC apply( FMatrixSparseCSC A ) {
         if( fillReduce == null )
             return A;
+        if( symmetric && !fillReduce.hasRowPermutation() )
+            throw new IllegalArgumentException("Symmetric matrices need a fill reduction with a row permutation");
         fillReduce.process(A);
 
-        IGrowArray gp = fillReduce.getRow();
+        hasRow = fillReduce.hasRowPermutation();
+        hasCol = fillReduce.hasColumnPermutation();
+        if( hasRow ) {
+            IGrowArray gp = fillReduce.getRow();
+            if( this.pinv.length < gp.length) {
+                this.pinv = new int[ gp.length ];
+                this.p = new int[ gp.length ];
+            }
+            System.arraycopy(gp.data,0,this.p,0,gp.length);
+            CommonOps_FSCC.permutationInverse(gp.data, this.pinv, gp.length);
+        }
+        if( hasCol ) {
+            IGrowArray gq = fillReduce.getColumn();
+            if( this.q.length < gq.length )
+                this.q = new int[ gq.length ];
+            System.arraycopy(gq.data,0,this.q,0,gq.length);
+        }
+        return permute(A);
+    }
 
-        if( pinv.length < gp.length)
-            pinv = new int[ gp.length ];
-        CommonOps_FSCC.permutationInverse(gp.data, pinv, gp.length);
+    /**
+     * Applies the permutation found in the last call to {@link #apply} or specified by {@link #setPermutation}
+     * without computing it again. The matrix must have the same non-zero pattern.
+     * @param A Input matrix. unmodified.
+     * @return A permuted matrix. Might be A or a different matrix.
+     */
+    public FMatrixSparseCSC permute( FMatrixSparseCSC A ) {
+        if( fillReduce == null )
+            return A;
         if( symmetric )
-            CommonOps_FSCC.permuteSymmetric(A, pinv, Aperm, gw);
+            CommonOps_FSCC.permuteSymmetric(A, getArrayPinv(), Aperm, gw);
         else
-            CommonOps_FSCC.permuteRowInv(pinv, A ,Aperm);
+            CommonOps_FSCC.permute(getArrayPinv(), A, getArrayQ(), Aperm);
         return Aperm;
     }
 
-    public int[] getArrayPinv() {
-        return fillReduce == null ? null : pinv;
+    /**
+     * Specifies the permutation instead of computing it, e.g. from a saved symbolic analysis.
+     * Has no effect if there is no fill reduction.
+     *
+     * @param pinv Inverse row permutation or null if rows are not permuted
+     * @param q Column permutation or null if columns are not permuted
+     * @param numRows Number of elements in pinv
+     * @param numCols Number of elements in q
+     */
+    public void setPermutation( @Nullable int[] pinv , @Nullable int[] q , int numRows , int numCols ) {
+        if( fillReduce == null )
+            return;
+        if( symmetric && pinv == null )
+            throw new IllegalArgumentException("Symmetric matrices need a fill reduction with a row permutation");
+
+        hasRow = pinv != null;
+        hasCol = q != null;
+        if( pinv != null ) {
+            if( this.pinv.length < numRows ) {
+                this.pinv = new int[ numRows ];
+                this.p = new int[ numRows ];
+            }
+            System.arraycopy(pinv,0,this.pinv,0,numRows);
+            CommonOps_FSCC.permutationInverse(pinv, this.p, numRows);
+        }
+        if( q != null ) {
+            if( this.q.length < numCols )
+                this.q = new int[ numCols ];
+            System.arraycopy(q,0,this.q,0,numCols);
+        }
+    }
+
+    /**
+     * Inverse of the row permutation or null if rows are not permuted
+     */
+    public @Nullable int[] getArrayPinv() {
+        return fillReduce == null || !hasRow ? null : pinv;
     }
-    public int[] getArrayP() {
-        return fillReduce == null ? null : fillReduce.getRow().data;
+
+    /**
+     * Row permutation or null if rows are not permuted
+     */
+    public @Nullable int[] getArrayP() {
+        return fillReduce == null || !hasRow ? null : p;
     }
 
-    public int[] getArrayQ() {
-        return fillReduce == null ? null : fillReduce.getColumn().data;
+    /**
+     * Column permutation or null if columns are not permuted. Symmetric matrices use the row permutation for both.
+     */
+    public @Nullable int[] getArrayQ() {
+        return fillReduce == null || !hasCol ? null : q;
     }
 
     public IGrowArray getGw() {
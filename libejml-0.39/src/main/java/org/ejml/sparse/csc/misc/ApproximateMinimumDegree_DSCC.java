@@ -0,0 +1,574 @@
+/*
+ * Copyright (c) 2009-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of Efficient Java Matrix Library (EJML).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ejml.sparse.csc.misc;
+
+import org.ejml.MatrixDimensionException;
+import org.ejml.UtilEjml;
+import org.ejml.data.DMatrixSparseCSC;
+import org.ejml.data.IGrowArray;
+import org.ejml.sparse.ComputePermutation;
+
+/**
+ * <p>
+ * Approximate Minimum Degree (AMD) fill reducing ordering. Nodes are eliminated from a quotient graph in order of
+ * their approximate external degree, with element absorption, mass elimination and supernode detection, and
+ * the assembly tree is post ordered. Only the structure of the matrix is used.
+ * </p>
+ *
+ * <p>
+ * Symmetric mode orders the graph of A+A<sup>T</sup> and produces a row and column permutation P for Cholesky,
+ * P*A*P<sup>T</sup>. Column mode orders the graph of A<sup>T</sup>A, ignoring dense rows, and produces a column
+ * permutation Q for LU and QR, A*Q. It forms A<sup>T</sup>A explicitly and is used in place of COLAMD, which
+ * computes a similar ordering from the structure of A alone without forming A<sup>T</sup>A.
+ * </p>
+ *
+ * <p>See cs_amd() in chapter 7</p>
+ *
+ * @author Peter Abeles
+ */
+public class ApproximateMinimumDegree_DSCC extends ComputePermutation<DMatrixSparseCSC> {
+
+    // See constructor comments
+    private boolean ata;
+
+    // Quotient graph. Cp[j] is the start of node or element j's list in Ci, which has elbow room for new elements
+    private int Cp[] = new int[0];
+    private int Ci[] = new int[0];
+
+    // workspace, all of length n+1
+    private int len[] = new int[0];    // length of the list of node or element i
+    private int nv[] = new int[0];     // number of nodes node i represents, 0 if absorbed
+    private int next[] = new int[0];   // next node in a degree or hash list
+    private int last[] = new int[0];   // previous node in a degree list or the hash of node i
+    private int head[] = new int[0];   // first node in degree list d
+    private int elen[] = new int[0];   // number of elements in node i's list, -1 dead node, -2 element
+    private int degree[] = new int[0]; // approximate degree of node i
+    private int w[] = new int[0];      // marks, 0 for dead elements
+    private int hhead[] = new int[0];  // first node in hash bucket h
+
+    // storage for the ordering including the fictitious root n
+    private int perm[] = new int[0];
+
+    // workspace for building the graph and the post ordering
+    private IGrowArray gw = new IGrowArray();
+
+    /**
+     * Configures the ordering
+     *
+     * @param ata if true the columns are ordered using the pattern of A<sup>T</sup>A for LU and QR, otherwise
+     *            A must be square and A+A<sup>T</sup> is ordered for Cholesky.
+     */
+    public ApproximateMinimumDegree_DSCC( boolean ata ) {
+        super(!ata, true);
+        this.ata = ata;
+    }
+
+    @Override
+    public void process(DMatrixSparseCSC A) {
+        int n = A.numCols;
+        if( !ata && A.numRows != n )
+            throw new MatrixDimensionException("Symmetric ordering requires a square matrix");
+
+        int dense = Math.max(16, (int)(10*Math.sqrt(n)));
+        dense = Math.min(n-2, dense);
+
+        initialize(n);
+        if( ata )
+            createPatternAtA(A, dense);
+        else
+            createPatternSymmetric(A);
+
+        order(n, dense);
+
+        pcol.reshape(n);
+        System.arraycopy(perm, 0, pcol.data, 0, n);
+        if( prow != null ) {
+            prow.reshape(n);
+            System.arraycopy(perm, 0, prow.data, 0, n);
+        }
+    }
+
+    private void initialize( int n ) {
+        if( len.length < n+1 ) {
+            len = new int[n+1];
+            nv = new int[n+1];
+            next = new int[n+1];
+            last = new int[n+1];
+            head = new int[n+1];
+            elen = new int[n+1];
+            degree = new int[n+1];
+            w = new int[n+1];
+            hhead = new int[n+1];
+            perm = new int[n+1];
+            Cp = new int[n+1];
+        }
+    }
+
+    /**
+     * Graph of A+A<sup>T</sup> without the diagonal. Duplicate edges are removed.
+     */
+    void createPatternSymmetric( DMatrixSparseCSC A ) {
+        int n = A.numCols;
+        int counts[] = UtilEjml.adjustClear(gw, n);
+
+        // upper bound on the size of each list
+        for (int j = 0; j < n; j++) {
+            for (int p = A.col_idx[j]; p < A.col_idx[j+1]; p++) {
+                int i = A.nz_rows[p];
+                if( i == j )
+                    continue;
+                counts[i]++;
+                counts[j]++;
+            }
+        }
+        int bound = 0;
+        for (int j = 0; j < n; j++) {
+            Cp[j] = bound;
+            bound += counts[j];
+            counts[j] = Cp[j];
+        }
+        Cp[n] = bound;
+        growCi(bound, n);
+        for (int j = 0; j < n; j++) {
+            for (int p = A.col_idx[j]; p < A.col_idx[j+1]; p++) {
+                int i = A.nz_rows[p];
+                if( i == j )
+                    continue;
+                Ci[counts[i]++] = j;
+                Ci[counts[j]++] = i;
+            }
+        }
+
+        // remove duplicates by compacting each list in place, w marks the last list that added a node
+        for (int j = 0; j < n; j++)
+            w[j] = -1;
+        int cnz = 0;
+        for (int j = 0; j < n; j++) {
+            int start = Cp[j];
+            int end = counts[j];
+            Cp[j] = cnz;
+            for (int p = start; p < end; p++) {
+                int i = Ci[p];
+                if( w[i] != j ) {
+                    w[i] = j;
+                    Ci[cnz++] = i;
+                }
+            }
+        }
+        Cp[n] = cnz;
+    }
+
+    /**
+     * Graph of A<sup>T</sup>A without the diagonal. Rows with more than 'dense' elements are skipped since they
+     * would connect almost every column.
+     */
+    void createPatternAtA( DMatrixSparseCSC A , int dense ) {
+        int m = A.numRows;
+        int n = A.numCols;
+
+        // row oriented pattern of A in gw. r[0..m] is the start of each row, followed by the column indexes and
+        // then the insertion point of each row
+        final int cols = m+1;
+        final int fill = cols + A.nz_length;
+        int r[] = UtilEjml.adjustClear(gw, fill + m);
+        for (int p = 0; p < A.nz_length; p++)
+            r[A.nz_rows[p]+1]++;
+        for (int i = 0; i < m; i++) {
+            r[i+1] += r[i];
+            r[fill+i] = r[i];
+        }
+        for (int j = 0; j < n; j++) {
+            for (int p = A.col_idx[j]; p < A.col_idx[j+1]; p++) {
+                r[cols + r[fill+A.nz_rows[p]]++] = j;
+            }
+        }
+
+        for (int j = 0; j < n; j++)
+            w[j] = -1;
+        int cnz = 0;
+        growCi(Math.max(A.nz_length, n), n);
+        for (int j = 0; j < n; j++) {
+            Cp[j] = cnz;
+            w[j] = j;
+            for (int p = A.col_idx[j]; p < A.col_idx[j+1]; p++) {
+                int i = A.nz_rows[p];
+                int r0 = r[i], r1 = r[i+1];
+                if( r1 - r0 > dense )
+                    continue;
+                for (int q = r0; q < r1; q++) {
+                    int k = r[cols+q];
+                    if( w[k] != j ) {
+                        w[k] = j;
+                        if( cnz == Ci.length )
+                            growCi(2*cnz, n);
+                        Ci[cnz++] = k;
+                    }
+                }
+            }
+        }
+        Cp[n] = cnz;
+    }
+
+    /**
+     * Makes sure Ci can hold the graph plus the elbow room needed for new elements
+     */
+    private void growCi( int nz , int n ) {
+        int desired = nz + nz/5 + 2*n;
+        if( Ci.length < desired ) {
+            int tmp[] = new int[desired];
+            System.arraycopy(Ci, 0, tmp, 0, Ci.length);
+            Ci = tmp;
+        }
+    }
+
+    /**
+     * Orders the graph in Cp and Ci. The result is written into perm.
+     */
+    private void order( int n , int dense ) {
+        int cnz = Cp[n];
+        growCi(cnz, n);
+        int nzmax = Ci.length;
+        int lemax = 0, mindeg = 0, nel = 0;
+
+        //---------- Initialize the quotient graph
+        for (int k = 0; k < n; k++)
+            len[k] = Cp[k+1] - Cp[k];
+        len[n] = 0;
+        for (int i = 0; i <= n; i++) {
+            head[i] = -1;
+            last[i] = -1;
+            next[i] = -1;
+            hhead[i] = -1;
+            nv[i] = 1;
+            w[i] = 1;
+            elen[i] = 0;
+            degree[i] = len[i];
+        }
+        int mark = clearMarks(0, 0, n);
+        elen[n] = -2;   // n is the root of the dense nodes and a dead element
+        Cp[n] = -1;
+        w[n] = 0;
+
+        //---------- Initialize the degree lists
+        for (int i = 0; i < n; i++) {
+            int d = degree[i];
+            if( d == 0 ) {
+                // empty node, eliminate it now
+                elen[i] = -2;
+                nel++;
+                Cp[i] = -1;
+                w[i] = 0;
+            } else if( d > dense ) {
+                // dense node, absorb it into the fictitious element n so it's ordered last
+                nv[i] = 0;
+                elen[i] = -1;
+                nel++;
+                Cp[i] = flip(n);
+                nv[n]++;
+            } else {
+                if( head[d] != -1 )
+                    last[head[d]] = i;
+                next[i] = head[d];
+                head[d] = i;
+            }
+        }
+
+        while( nel < n ) {
+            //---------- Select the node of minimum approximate degree
+            int k = -1;
+            for (; mindeg < n && (k = head[mindeg]) == -1; mindeg++) {}
+            if( next[k] != -1 )
+                last[next[k]] = -1;
+            head[mindeg] = next[k];
+            int elenk = elen[k];
+            int nvk = nv[k];
+            nel += nvk;
+
+            //---------- Garbage collection
+            if( elenk > 0 && cnz + mindeg >= nzmax ) {
+                for (int j = 0; j < n; j++) {
+                    int p = Cp[j];
+                    if( p >= 0 ) {
+                        // save the first entry and mark the start of the object
+                        Cp[j] = Ci[p];
+                        Ci[p] = flip(j);
+                    }
+                }
+                int q = 0;
+                for (int p = 0; p < cnz; ) {
+                    int j = flip(Ci[p++]);
+                    if( j >= 0 ) {
+                        Ci[q] = Cp[j];
+                        Cp[j] = q++;
+                        for (int k3 = 0; k3 < len[j]-1; k3++)
+                            Ci[q++] = Ci[p++];
+                    }
+                }
+                cnz = q;
+            }
+
+            //---------- Construct the new element Lk
+            int dk = 0;
+            nv[k] = -nvk;   // flag k as being in Lk
+            int p = Cp[k];
+            int pk1 = elenk == 0 ? p : cnz; // build in place if there are no elements to merge
+            int pk2 = pk1;
+            for (int k1 = 1; k1 <= elenk + 1; k1++) {
+                int e, pj, ln;
+                if( k1 > elenk ) {
+                    // the nodes in k's own list
+                    e = k;
+                    pj = p;
+                    ln = len[k] - elenk;
+                } else {
+                    // the nodes in element e
+                    e = Ci[p++];
+                    pj = Cp[e];
+                    ln = len[e];
+                }
+                for (int k2 = 1; k2 <= ln; k2++) {
+                    int i = Ci[pj++];
+                    int nvi = nv[i];
+                    if( nvi <= 0 )
+                        continue;   // dead or already in Lk
+                    dk += nvi;
+                    nv[i] = -nvi;
+                    Ci[pk2++] = i;
+                    // remove i from its degree list
+                    if( next[i] != -1 )
+                        last[next[i]] = last[i];
+                    if( last[i] != -1 )
+                        next[last[i]] = next[i];
+                    else
+                        head[degree[i]] = next[i];
+                }
+                if( e != k ) {
+                    // absorb e into k
+                    Cp[e] = flip(k);
+                    w[e] = 0;
+                }
+            }
+            if( elenk != 0 )
+                cnz = pk2;
+            degree[k] = dk;
+            Cp[k] = pk1;
+            len[k] = pk2 - pk1;
+            elen[k] = -2;
+
+            //---------- Find set differences |Le\Lk| for each element e adjacent to Lk
+            mark = clearMarks(mark, lemax, n);
+            for (int pk = pk1; pk < pk2; pk++) {
+                int i = Ci[pk];
+                int eln = elen[i];
+                if( eln <= 0 )
+                    continue;
+                int nvi = -nv[i];
+                int wnvi = mark - nvi;
+                for (p = Cp[i]; p <= Cp[i] + eln - 1; p++) {
+                    int e = Ci[p];
+                    if( w[e] >= mark ) {
+                        w[e] -= nvi;
+                    } else if( w[e] != 0 ) {
+                        // first time e is seen
+                        w[e] = degree[e] + wnvi;
+                    }
+                }
+            }
+
+            //---------- Degree update
+            for (int pk = pk1; pk < pk2; pk++) {
+                int i = Ci[pk];
+                int p1 = Cp[i];
+                int p2 = p1 + elen[i] - 1;
+                int pn = p1;
+                long h = 0;
+                int d = 0;
+                for (p = p1; p <= p2; p++) {
+                    int e = Ci[p];
+                    if( w[e] != 0 ) {
+                        int dext = w[e] - mark;
+                        if( dext > 0 ) {
+                            d += dext;
+                            Ci[pn++] = e;
+                            h += e;
+                        } else {
+                            // aggressive absorption, e is a subset of k
+                            Cp[e] = flip(k);
+                            w[e] = 0;
+                        }
+                    }
+                }
+                elen[i] = pn - p1 + 1;
+                int p3 = pn;
+                int p4 = p1 + len[i];
+                // prune edges to nodes that are dead or in Lk
+                for (p = p2 + 1; p < p4; p++) {
+                    int j = Ci[p];
+                    int nvj = nv[j];
+                    if( nvj <= 0 )
+                        continue;
+                    d += nvj;
+                    Ci[pn++] = j;
+                    h += j;
+                }
+                if( d == 0 ) {
+                    // mass elimination, i is only adjacent to k
+                    Cp[i] = flip(k);
+                    int nvi = -nv[i];
+                    dk -= nvi;
+                    nvk += nvi;
+                    nel += nvi;
+                    nv[i] = 0;
+                    elen[i] = -1;
+                } else {
+                    degree[i] = Math.min(degree[i], d);
+                    // make k the first element of i
+                    Ci[pn] = Ci[p3];
+                    Ci[p3] = Ci[p1];
+                    Ci[p1] = k;
+                    len[i] = pn - p1 + 1;
+                    int hash = (int)(Math.abs(h) % n);
+                    next[i] = hhead[hash];
+                    hhead[hash] = i;
+                    last[i] = hash;
+                }
+            }
+            degree[k] = dk;
+            lemax = Math.max(lemax, dk);
+            mark = clearMarks(mark + lemax, lemax, n);
+
+            //---------- Supernode detection, merge nodes in Lk with identical lists
+            for (int pk = pk1; pk < pk2; pk++) {
+                int i = Ci[pk];
+                if( nv[i] >= 0 )
+                    continue;
+                int hash = last[i];
+                i = hhead[hash];
+                hhead[hash] = -1;
+                for (; i != -1 && next[i] != -1; i = next[i], mark++) {
+                    int ln = len[i];
+                    int eln = elen[i];
+                    for (p = Cp[i] + 1; p <= Cp[i] + ln - 1; p++)
+                        w[Ci[p]] = mark;
+                    int jlast = i;
+                    for (int j = next[i]; j != -1; ) {
+                        boolean ok = len[j] == ln && elen[j] == eln;
+                        for (p = Cp[j] + 1; ok && p <= Cp[j] + ln - 1; p++) {
+                            if( w[Ci[p]] != mark )
+                                ok = false;
+                        }
+                        if( ok ) {
+                            // absorb j into i
+                            Cp[j] = flip(i);
+                            nv[i] += nv[j];
+                            nv[j] = 0;
+                            elen[j] = -1;
+                            j = next[j];
+                            next[jlast] = j;
+                        } else {
+                            jlast = j;
+                            j = next[j];
+                        }
+                    }
+                }
+            }
+
+            //---------- Finalize the new element and put its nodes back in the degree lists
+            p = pk1;
+            for (int pk = pk1; pk < pk2; pk++) {
+                int i = Ci[pk];
+                int nvi = -nv[i];
+                if( nvi <= 0 )
+                    continue;
+                nv[i] = nvi;
+                int d = degree[i] + dk - nvi;
+                d = Math.min(d, n - nel - nvi);
+                if( head[d] != -1 )
+                    last[head[d]] = i;
+                next[i] = head[d];
+                last[i] = -1;
+                head[d] = i;
+                mindeg = Math.min(mindeg, d);
+                degree[i] = d;
+                Ci[p++] = i;
+            }
+            nv[k] = nvk;
+            if( (len[k] = p - pk1) == 0 ) {
+                // k is a root of the assembly tree
+                Cp[k] = -1;
+                w[k] = 0;
+            }
+            if( elenk != 0 )
+                cnz = p;
+        }
+
+        postorderAssemblyTree(n);
+    }
+
+    /**
+     * Post orders the assembly tree. Absorbed nodes come right before the element that absorbed them.
+     */
+    private void postorderAssemblyTree( int n ) {
+        int N = n+1;
+        // parent of each node and element
+        for (int i = 0; i < n; i++)
+            Cp[i] = flip(Cp[i]);
+
+        // child lists in the layout used by TriangularSolver_DSCC.postorder_dfs()
+        int ws[] = UtilEjml.adjustClear(gw, 3*N);
+        for (int j = 0; j < N; j++)
+            ws[j] = -1;
+        for (int j = n; j >= 0; j--) {
+            // nodes before elements
+            if( nv[j] > 0 )
+                continue;
+            ws[N+j] = ws[Cp[j]];
+            ws[Cp[j]] = j;
+        }
+        for (int e = n; e >= 0; e--) {
+            if( nv[e] <= 0 || Cp[e] == -1 )
+                continue;
+            ws[N+e] = ws[Cp[e]];
+            ws[Cp[e]] = e;
+        }
+        int k = 0;
+        for (int i = 0; i <= n; i++) {
+            if( Cp[i] == -1 )
+                k = TriangularSolver_DSCC.postorder_dfs(i, k, ws, perm, N);
+        }
+    }
+
+    /**
+     * Resets the marks if mark is about to overflow
+     */
+    private int clearMarks( int mark , int lemax , int n ) {
+        if( mark < 2 || mark + lemax < 0 ) {
+            for (int k = 0; k < n; k++) {
+                if( w[k] != 0 )
+                    w[k] = 1;
+            }
+            mark = 2;
+        }
+        return mark;
+    }
+
+    private static int flip( int i ) {
+        return -i-2;
+    }
+}
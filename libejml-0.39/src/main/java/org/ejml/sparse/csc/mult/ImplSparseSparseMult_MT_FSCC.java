@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2009-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of Efficient Java Matrix Library (EJML).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ejml.sparse.csc.mult;
+
+import org.ejml.concurrency.EjmlConcurrency;
+import org.ejml.data.FGrowArray;
+import org.ejml.data.FMatrixRMaj;
+import org.ejml.data.FMatrixSparseCSC;
+import org.ejml.data.IGrowArray;
+import org.ejml.sparse.csc.misc.ImplCommonOps_FSCC;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+import static org.ejml.UtilEjml.adjust;
+
+/**
+ * <p>
+ * Concurrent implementations of the multiplications in {@link ImplSparseSparseMult_FSCC}.
+ * </p>
+ *
+ * <p>
+ * Sparse-sparse multiplication is done in two passes over the columns of C, which are split into blocks with
+ * about the same number of floating point operations. The symbolic pass counts the number of non-zero
+ * elements in each column of C so that it can be allocated once with its final size. The numerical pass
+ * then fills in each column at its final location. Unlike the single threaded version the structure of
+ * C is always the structural product, i.e. elements which cancel out to zero are kept. Transposed
+ * inputs are explicitly transposed first so that every product is computed as A*B.
+ * </p>
+ *
+ * <p>
+ * For C = A*B the columns of C are split into blocks when B has enough columns for every thread to
+ * get a few cache lines worth of each row. Otherwise the columns of A are split and every block after the
+ * first accumulates into its own copy of C, the same as {@link MatrixVectorMult_MT_FSCC}. For
+ * C = A<sup>T</sup>*B each column in A computes a row of C so the columns of A are split.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class ImplSparseSparseMult_MT_FSCC {
+
+    /**
+     * Minimum number of columns in a block of C. Narrower blocks would have threads writing to the
+     * same cache lines.
+     */
+    static final int MIN_BLOCK_COLUMNS = 8;
+
+    /**
+     * Performs matrix multiplication.  C = A*B
+     *
+     * @param A Matrix
+     * @param B Matrix
+     * @param C Storage for results. Must have the correct shape. Data length is increased if insufficient.
+     * @param gw (Optional) Storage for internal workspace of the first thread.  Can be null.
+     * @param gx (Optional) Storage for internal workspace of the first thread.  Can be null.
+     */
+    public static void mult(FMatrixSparseCSC A, FMatrixSparseCSC B, FMatrixSparseCSC C,
+                            @Nullable IGrowArray gw, @Nullable FGrowArray gx )
+    {
+        multTwoPass(A,B,C,false,gw,gx);
+    }
+
+    /**
+     * Performs matrix multiplication.  C = A<sup>T</sup>*B. The rows in C will be sorted.
+     *
+     * @param A Matrix
+     * @param B Matrix
+     * @param C Storage for results. Must have the correct shape. Data length is increased if insufficient.
+     * @param gw (Optional) Storage for internal workspace of the first thread.  Can be null.
+     * @param gx (Optional) Storage for internal workspace of the first thread.  Can be null.
+     */
+    public static void multTransA(FMatrixSparseCSC A, FMatrixSparseCSC B, FMatrixSparseCSC C,
+                                  @Nullable IGrowArray gw, @Nullable FGrowArray gx )
+    {
+        FMatrixSparseCSC At = new FMatrixSparseCSC(A.numCols,A.numRows,A.nz_length);
+        ImplCommonOps_FSCC.transpose(A,At,gw);
+        multTwoPass(At,B,C,true,gw,gx);
+    }
+
+    /**
+     * Performs matrix multiplication.  C = A*B<sup>T</sup>. B does not need to be sorted.
+     *
+     * @param A Matrix
+     * @param B Matrix
+     * @param C Storage for results. Must have the correct shape. Data length is increased if insufficient.
+     * @param gw (Optional) Storage for internal workspace of the first thread.  Can be null.
+     * @param gx (Optional) Storage for internal workspace of the first thread.  Can be null.
+     */
+    public static void multTransB(FMatrixSparseCSC A, FMatrixSparseCSC B, FMatrixSparseCSC C,
+                                  @Nullable IGrowArray gw, @Nullable FGrowArray gx )
+    {
+        FMatrixSparseCSC Bt = new FMatrixSparseCSC(B.numCols,B.numRows,B.nz_length);
+        ImplCommonOps_FSCC.transpose(B,Bt,gw);
+        multTwoPass(A,Bt,C,false,gw,gx);
+    }
+
+    /**
+     * C = A*B using a symbolic pass to find the size of every column in C followed by a numerical pass.
+     *
+     * @param sortRows If true the row indexes in each column of C will be sorted.
+     */
+    private static void multTwoPass(FMatrixSparseCSC A, FMatrixSparseCSC B, FMatrixSparseCSC C, boolean sortRows,
+                                    @Nullable IGrowArray gw, @Nullable FGrowArray gx )
+    {
+        final int m = A.numRows;
+        final int[] blocks = partitionColumnsC(A,B);
+        final int numBlocks = blocks.length-1;
+
+        // Each thread gets its own workspace. Marks from the symbolic pass are positive and from the
+        // numerical pass are negative so the workspace only needs to be cleared once
+        final int[][] marks = new int[numBlocks][];
+        final float[][] values = new float[numBlocks][];
+        marks[0] = adjust(gw,m,m);
+        values[0] = adjust(gx,m);
+        for (int block = 1; block < numBlocks; block++) {
+            marks[block] = new int[m];
+            values[block] = new float[m];
+        }
+
+        // Symbolic: number of non-zero elements in each column of C
+        C.col_idx[0] = 0;
+        EjmlConcurrency.loopFor(0,numBlocks,block->{
+            int[] w = marks[block];
+            for (int colB = blocks[block]; colB < blocks[block+1]; colB++) {
+                int mark = colB+1;
+                int count = 0;
+                for (int bi = B.col_idx[colB]; bi < B.col_idx[colB+1]; bi++) {
+                    int colA = B.nz_rows[bi];
+                    for (int ai = A.col_idx[colA]; ai < A.col_idx[colA+1]; ai++) {
+                        int row = A.nz_rows[ai];
+                        if( w[row] != mark ) {
+                            w[row] = mark;
+                            count++;
+                        }
+                    }
+                }
+                C.col_idx[colB+1] = count;
+            }
+        });
+
+        for (int colC = 1; colC <= B.numCols; colC++) {
+            C.col_idx[colC] += C.col_idx[colC-1];
+        }
+        C.growMaxLength(C.col_idx[B.numCols],false);
+        C.nz_length = C.col_idx[B.numCols];
+        C.indicesSorted = sortRows;
+
+        // Numerical: C(:,j) = sum_k A(:,k)*B(k,j) written directly into its final location
+        EjmlConcurrency.loopFor(0,numBlocks,block->{
+            int[] w = marks[block];
+            float[] x = values[block];
+            for (int colB = blocks[block]; colB < blocks[block+1]; colB++) {
+                int mark = -(colB+1);
+                int idxC0 = C.col_idx[colB];
+                int idxC1 = C.col_idx[colB+1];
+                int idxC = idxC0;
+
+                for (int bi = B.col_idx[colB]; bi < B.col_idx[colB+1]; bi++) {
+                    int colA = B.nz_rows[bi];
+                    float valB = B.nz_values[bi];
+                    for (int ai = A.col_idx[colA]; ai < A.col_idx[colA+1]; ai++) {
+                        int row = A.nz_rows[ai];
+                        if( w[row] != mark ) {
+                            w[row] = mark;
+                            C.nz_rows[idxC++] = row;
+                            x[row] = A.nz_values[ai]*valB;
+                        } else {
+                            x[row] += A.nz_values[ai]*valB;
+                        }
+                    }
+                }
+
+                if( sortRows )
+                    Arrays.sort(C.nz_rows,idxC0,idxC1);
+
+                for (int i = idxC0; i < idxC1; i++) {
+                    C.nz_values[i] = x[C.nz_rows[i]];
+                }
+            }
+        });
+    }
+
+    /**
+     * Splits the columns in C = A*B into one block for each thread. Each block has about the same number of
+     * multiply-add operations.
+     *
+     * @return First column in each block followed by B.numCols
+     */
+    static int[] partitionColumnsC( FMatrixSparseCSC A, FMatrixSparseCSC B ) {
+        // cumulative number of operations. One is added for each column to account for the overhead
+        long[] work = new long[B.numCols+1];
+        for (int colB = 0; colB < B.numCols; colB++) {
+            long ops = 1;
+            for (int bi = B.col_idx[colB]; bi < B.col_idx[colB+1]; bi++) {
+                int colA = B.nz_rows[bi];
+                ops += A.col_idx[colA+1]-A.col_idx[colA];
+            }
+            work[colB+1] = work[colB] + ops;
+        }
+
+        int numBlocks = Math.max(1,Math.min(EjmlConcurrency.getMaxThreads(),B.numCols));
+        int[] blocks = new int[numBlocks+1];
+        for (int block = 1; block < numBlocks; block++) {
+            long target = work[B.numCols]*block/numBlocks;
+            // binary search for the first column which starts at or after the target
+            int lower = blocks[block-1], upper = B.numCols;
+            while( lower < upper ) {
+                int middle = (lower+upper) >>> 1;
+                if( work[middle] < target )
+                    lower = middle+1;
+                else
+                    upper = middle;
+            }
+            blocks[block] = lower;
+        }
+        blocks[numBlocks] = B.numCols;
+        return blocks;
+    }
+
+    public static void mult(FMatrixSparseCSC A , FMatrixRMaj B , FMatrixRMaj C , @Nullable FGrowArray work ) {
+        C.zero();
+        multAdd(A,B,C,work);
+    }
+
+    public static void multAdd(FMatrixSparseCSC A , FMatrixRMaj B , FMatrixRMaj C , @Nullable FGrowArray work ) {
+        if( B.numCols == 1 ) {
+            MatrixVectorMult_MT_FSCC.multAdd(A,B.data,0,C.data,0,work);
+        } else if( B.numCols >= MIN_BLOCK_COLUMNS*EjmlConcurrency.getMaxThreads() ) {
+            EjmlConcurrency.loopBlocks(0,B.numCols,MIN_BLOCK_COLUMNS,(col0,col1)->
+                    multAddColumns(A,B,C,col0,col1));
+        } else {
+            multAddAccumulate(A,B,C,work);
+        }
+    }
+
+    /**
+     * C(:,col0:col1) = C(:,col0:col1) + A*B(:,col0:col1)
+     */
+    private static void multAddColumns(FMatrixSparseCSC A , FMatrixRMaj B , FMatrixRMaj C , int col0 , int col1 ) {
+        int width = col1-col0;
+        for (int k = 0; k < A.numCols; k++) {
+            int idx0 = A.col_idx[k  ];
+            int idx1 = A.col_idx[k+1];
+
+            for (int indexA = idx0; indexA < idx1; indexA++) {
+                int i = A.nz_rows[indexA];
+                float valueA = A.nz_values[indexA];
+
+                int indexB = k*B.numCols + col0;
+                int indexC = i*C.numCols + col0;
+                int end = indexB + width;
+
+                while (indexB < end ) {
+                    C.data[indexC++] += valueA*B.data[indexB++];
+                }
+            }
+        }
+    }
+
+    /**
+     * C = C + A*B where the columns in A are split between threads and each has its own accumulator
+     */
+    private static void multAddAccumulate(FMatrixSparseCSC A , FMatrixRMaj B , FMatrixRMaj C ,
+                                          @Nullable FGrowArray work ) {
+        final int[] blocks = MatrixVectorMult_MT_FSCC.partitionColumns(A);
+        final int numBlocks = blocks.length-1;
+        if( numBlocks <= 1 ) {
+            ImplSparseSparseMult_FSCC.multAdd(A,B,C);
+            return;
+        }
+
+        final int length = C.numRows*C.numCols;
+        final float[] acc = adjust(work == null ? new FGrowArray() : work,(numBlocks-1)*length);
+
+        // The first block writes directly into C
+        EjmlConcurrency.loopFor(0,numBlocks,block->{
+            float[] out = C.data;
+            int offset = 0;
+            if( block > 0 ) {
+                out = acc;
+                offset = (block-1)*length;
+                Arrays.fill(acc,offset,offset+length,0);
+            }
+            for (int k = blocks[block]; k < blocks[block+1]; k++) {
+                int idx0 = A.col_idx[k  ];
+                int idx1 = A.col_idx[k+1];
+
+                for (int indexA = idx0; indexA < idx1; indexA++) {
+                    int i = A.nz_rows[indexA];
+                    float valueA = A.nz_values[indexA];
+
+                    int indexB = k*B.numCols;
+                    int indexC = offset + i*C.numCols;
+                    int end = indexB + B.numCols;
+
+                    while (indexB < end ) {
+                        out[indexC++] += valueA*B.data[indexB++];
+                    }
+                }
+            }
+        });
+
+        EjmlConcurrency.loopBlocks(0,length,1024,(idx0,idx1)->{
+            for (int block = 1; block < numBlocks; block++) {
+                int offset = (block-1)*length;
+                for (int i = idx0; i < idx1; i++) {
+                    C.data[i] += acc[offset+i];
+                }
+            }
+        });
+    }
+
+    public static void multTransA(FMatrixSparseCSC A , FMatrixRMaj B , FMatrixRMaj C ) {
+        multTransA(A,B,C,false);
+    }
+
+    public static void multAddTransA(FMatrixSparseCSC A , FMatrixRMaj B , FMatrixRMaj C ) {
+        multTransA(A,B,C,true);
+    }
+
+    private static void multTransA(FMatrixSparseCSC A , FMatrixRMaj B , FMatrixRMaj C , boolean add ) {
+        final int[] blocks = MatrixVectorMult_MT_FSCC.partitionColumns(A);
+
+        // C(i,j) = sum_k A(k,i) * B(k,j)
+        EjmlConcurrency.loopFor(0,blocks.length-1,block->{
+            for (int i = blocks[block]; i < blocks[block+1]; i++) {
+                int idx0 = A.col_idx[i];
+                int idx1 = A.col_idx[i + 1];
+
+                for (int j = 0; j < B.numCols; j++) {
+                    float sum = 0;
+                    for (int indexA = idx0; indexA < idx1; indexA++) {
+                        int rowK = A.nz_rows[indexA];
+                        sum += A.nz_values[indexA]*B.data[rowK*B.numCols+j];
+                    }
+
+                    if( add )
+                        C.data[i*C.numCols+j] += sum;
+                    else
+                        C.data[i*C.numCols+j] = sum;
+                }
+            }
+        });
+    }
+}
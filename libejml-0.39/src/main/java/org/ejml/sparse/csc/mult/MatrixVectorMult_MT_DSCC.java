@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2009-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of Efficient Java Matrix Library (EJML).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ejml.sparse.csc.mult;
+
+import org.ejml.concurrency.EjmlConcurrency;
+import org.ejml.data.DGrowArray;
+import org.ejml.data.DMatrixSparseCSC;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+import static org.ejml.UtilEjml.adjust;
+
+/**
+ * <p>
+ * Concurrent implementations of the operations in {@link MatrixVectorMult_DSCC}. The columns of A are split
+ * into blocks with about the same number of non-zero elements and each block is processed in its own thread.
+ * </p>
+ *
+ * <p>
+ * For c = A*b every column can write to any element in 'c', so each block after the first accumulates into
+ * its own copy of 'c' which are then summed together. For c = a<sup>T</sup>*B each column of B computes
+ * a single element in 'c' and no extra storage is needed.
+ * </p>
+ *
+ * <p>
+ * Pass in the same work array every time when called from inside a loop, e.g. an iterative solver,
+ * to avoid declaring the accumulators each time.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class MatrixVectorMult_MT_DSCC {
+    /**
+     * c = A*b
+     *
+     * @param A (Input) Matrix
+     * @param b (Input) vector
+     * @param offsetB (Input) first index in vector b
+     * @param c (Output) vector
+     * @param offsetC (Output) first index in vector c
+     * @param work (Optional) Storage for the accumulators. If null it will be declared internally.
+     */
+    public static void mult(DMatrixSparseCSC A ,
+                            double b[] , int offsetB ,
+                            double c[] , int offsetC ,
+                            @Nullable DGrowArray work )
+    {
+        Arrays.fill(c,offsetC,offsetC+A.numRows,0);
+        multAdd(A,b,offsetB,c,offsetC,work);
+    }
+
+    /**
+     * c = c + A*b
+     *
+     * @param A (Input) Matrix
+     * @param b (Input) vector
+     * @param offsetB (Input) first index in vector b
+     * @param c (Output) vector
+     * @param offsetC (Output) first index in vector c
+     * @param work (Optional) Storage for the accumulators. If null it will be declared internally.
+     */
+    public static void multAdd(DMatrixSparseCSC A ,
+                               double b[] , int offsetB ,
+                               double c[] , int offsetC ,
+                               @Nullable DGrowArray work )
+    {
+        if( b.length-offsetB < A.numCols)
+            throw new IllegalArgumentException("Length of 'b' isn't long enough");
+        if( c.length-offsetC < A.numRows)
+            throw new IllegalArgumentException("Length of 'c' isn't long enough");
+
+        final int[] blocks = partitionColumns(A);
+        final int numBlocks = blocks.length-1;
+        if( numBlocks <= 1 ) {
+            MatrixVectorMult_DSCC.multAdd(A,b,offsetB,c,offsetC);
+            return;
+        }
+
+        // The first block writes directly into 'c'
+        final int m = A.numRows;
+        final double[] acc = adjust(work == null ? new DGrowArray() : work,(numBlocks-1)*m);
+
+        EjmlConcurrency.loopFor(0,numBlocks,block->{
+            double[] out = c;
+            int offset = offsetC;
+            if( block > 0 ) {
+                out = acc;
+                offset = (block-1)*m;
+                Arrays.fill(acc,offset,offset+m,0);
+            }
+            for (int k = blocks[block]; k < blocks[block+1]; k++) {
+                int idx0 = A.col_idx[k  ];
+                int idx1 = A.col_idx[k+1];
+
+                double valueB = b[offsetB+k];
+                for (int indexA = idx0; indexA < idx1; indexA++) {
+                    out[offset+A.nz_rows[indexA]] += A.nz_values[indexA]*valueB;
+                }
+            }
+        });
+
+        // Sum up the accumulators. Split by rows so that each thread writes to a different part of 'c'
+        EjmlConcurrency.loopBlocks(0,m,1024,(row0,row1)->{
+            for (int block = 1; block < numBlocks; block++) {
+                int offset = (block-1)*m;
+                for (int i = row0; i < row1; i++) {
+                    c[offsetC+i] += acc[offset+i];
+                }
+            }
+        });
+    }
+
+    /**
+     * c = a<sup>T</sup>*B
+     *
+     * @param a (Input) vector
+     * @param offsetA  Input) first index in vector a
+     * @param B (Input) Matrix
+     * @param c (Output) vector
+     * @param offsetC (Output) first index in vector c
+     */
+    public static void mult( double a[] , int offsetA ,
+                             DMatrixSparseCSC B ,
+                             double c[] , int offsetC )
+    {
+        if( a.length-offsetA < B.numRows)
+            throw new IllegalArgumentException("Length of 'a' isn't long enough");
+        if( c.length-offsetC < B.numCols)
+            throw new IllegalArgumentException("Length of 'c' isn't long enough");
+
+        final int[] blocks = partitionColumns(B);
+
+        EjmlConcurrency.loopFor(0,blocks.length-1,block->{
+            for (int k = blocks[block]; k < blocks[block+1]; k++) {
+                int idx0 = B.col_idx[k  ];
+                int idx1 = B.col_idx[k+1];
+
+                double sum = 0;
+                for (int indexB = idx0; indexB < idx1; indexB++) {
+                    sum += a[offsetA+B.nz_rows[indexB]]*B.nz_values[indexB];
+                }
+                c[offsetC+k] = sum;
+            }
+        });
+    }
+
+    /**
+     * Splits the columns in A into one block for each thread. Each block contains about the same
+     * number of non-zero elements.
+     *
+     * @return First column in each block followed by A.numCols
+     */
+    static int[] partitionColumns( DMatrixSparseCSC A ) {
+        int numBlocks = Math.max(1,Math.min(EjmlConcurrency.getMaxThreads(),A.numCols));
+        int[] blocks = new int[numBlocks+1];
+        int nz_length = A.col_idx[A.numCols];
+        for (int block = 1; block < numBlocks; block++) {
+            int target = (int)((long)nz_length*block/numBlocks);
+            // binary search for the first column which starts at or after the target
+            int lower = blocks[block-1], upper = A.numCols;
+            while( lower < upper ) {
+                int middle = (lower+upper) >>> 1;
+                if( A.col_idx[middle] < target )
+                    lower = middle+1;
+                else
+                    upper = middle;
+            }
+            blocks[block] = lower;
+        }
+        blocks[numBlocks] = A.numCols;
+        return blocks;
+    }
+}